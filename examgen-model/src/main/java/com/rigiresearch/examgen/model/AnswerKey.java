@@ -0,0 +1,237 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * The correct answers of an examination variant, read from the arranged
+ * questions of the variant without rendering them.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+public final class AnswerKey implements Serializable {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 4017296359147630866L;
+
+    /**
+     * The maximum number of options of a closed-ended question, one per
+     * letter of the alphabet.
+     */
+    private static final int LETTERS = 26;
+
+    /**
+     * The section for which the variant is intended.
+     */
+    private final Object section;
+
+    /**
+     * The answers, in the order of the questions and their parts.
+     */
+    private final List<Answer> answers;
+
+    /**
+     * Reads the answers of a variant. Compound questions are replaced with
+     * their parts, numbered as in the examination (e.g., "3a").
+     * @param variant The variant
+     * @return the answer key
+     * @throws IllegalArgumentException If a closed-ended question has more
+     *  than 26 options, which cannot be labelled with letters
+     */
+    public static AnswerKey of(final Variant variant) {
+        final List<Answer> answers = new ArrayList<>(variant.size());
+        for (int i = 0; i < variant.size(); i++) {
+            final Question original = variant.origin().questions().get(variant.position(i));
+            final Question question = variant.question(i);
+            final String number = String.valueOf(i + 1);
+            final int[] ordering = variant.ordering(i);
+            if (question instanceof CompoundQuestion) {
+                final List<Question> children = question.children();
+                for (int j = 0; j < children.size(); j++) {
+                    final int child = ordering.length == 0 ? j : ordering[j];
+                    answers.add(
+                        AnswerKey.answer(
+                            number + (char) ('a' + j),
+                            original.children().get(child),
+                            children.get(j),
+                            AnswerKey.child(ordering, children.size(), child)
+                        )
+                    );
+                }
+            } else {
+                answers.add(AnswerKey.answer(number, original, question, ordering));
+            }
+        }
+        return new AnswerKey(variant.section(), Collections.unmodifiableList(answers));
+    }
+
+    /**
+     * Finds the ordering of a part within the ordering of a compound
+     * question, which has the positions of the parts followed by the length
+     * and ordering of each part.
+     * @param ordering The ordering of the compound question
+     * @param parts The number of parts
+     * @param part The position of the part in the examination
+     * @return the ordering of the part
+     */
+    private static int[] child(final int[] ordering, final int parts,
+        final int part) {
+        if (ordering.length == 0)
+            return ordering;
+        int offset = parts;
+        for (int k = 0; k < part; k++)
+            offset += ordering[offset] + 1;
+        return Arrays.copyOfRange(ordering, offset + 1, offset + 1 + ordering[offset]);
+    }
+
+    /**
+     * Reads the answer of a question.
+     * @param number The question number
+     * @param original The question, as in the examination
+     * @param arranged The question, with its parts arranged
+     * @param ordering The ordering of the parts
+     * @return the answer
+     */
+    private static Answer answer(final String number, final Question original,
+        final Question arranged, final int[] ordering) {
+        long choices = 0L;
+        int[] origins = new int[0];
+        if (arranged instanceof ClosedEnded) {
+            final List<ClosedEnded.Option> list = ((ClosedEnded) arranged).options();
+            if (list.size() > AnswerKey.LETTERS) {
+                throw new IllegalArgumentException(
+                    String.format("Question %s has more than %d options", number, AnswerKey.LETTERS)
+                );
+            }
+            origins = new int[list.size()];
+            for (int k = 0; k < list.size(); k++) {
+                if (list.get(k).answer())
+                    choices |= 1L << k;
+                origins[k] = ordering.length == 0 ? k : ordering[k];
+            }
+        } else if (arranged instanceof TrueFalse) {
+            choices = ((TrueFalse) arranged).answer() ? 1L : 0L;
+        }
+        return new Answer(
+            number,
+            arranged.type(),
+            arranged.points(),
+            original.fingerprint(),
+            choices,
+            origins
+        );
+    }
+
+    /**
+     * The answer to a question of a variant.
+     */
+    @Accessors(fluent = true)
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    @Getter
+    public static final class Answer implements Serializable {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = -1873394505316302672L;
+
+        /**
+         * The question number, as in the examination.
+         */
+        private final String number;
+
+        /**
+         * The question type.
+         */
+        private final String type;
+
+        /**
+         * The number of points of the question.
+         */
+        private final int points;
+
+        /**
+         * The fingerprint of the question before arranging its parts, which
+         * is the same in every variant.
+         */
+        private final Fingerprint fingerprint;
+
+        /**
+         * The correct options of a closed-ended question, one bit per
+         * option in the order of the variant (bit 0 is option A), or 1 if a
+         * true-false statement is true.
+         */
+        private final long choices;
+
+        /**
+         * The position of each option of a closed-ended question in the
+         * examination, in the order of the variant.
+         */
+        private final int[] origins;
+
+        /**
+         * The number of options of a closed-ended question, or 0.
+         * @return the number of options
+         */
+        public int options() {
+            return this.origins.length;
+        }
+
+        /**
+         * The answer as written in the examination: the letters of the
+         * correct options (e.g., "AC"), "T" or "F", or an empty string for
+         * open-ended questions.
+         * @return the answer text
+         */
+        public String text() {
+            if (TrueFalse.TYPE.equals(this.type))
+                return this.choices == 0L ? "F" : "T";
+            final StringBuilder letters = new StringBuilder(Long.bitCount(this.choices));
+            long remaining = this.choices;
+            while (remaining != 0L) {
+                letters.append((char) ('A' + Long.numberOfTrailingZeros(remaining)));
+                remaining &= remaining - 1L;
+            }
+            return letters.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,500 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.util.Arrays;
+
+/**
+ * A compressed set of non-negative integers, organized as in Roaring
+ * bitmaps. Values are grouped by their 16 most significant bits, and each
+ * group is stored either as a sorted array of its 16 least significant bits,
+ * if it has at most 4096 values, or as a bitset of 65536 bits. Operations
+ * combine groups pairwise, so their cost depends on the number of values
+ * rather than on their range, and dense groups are combined one word at a
+ * time.
+ * <p>
+ * Bitmaps are built with {@link #add(int)} and are not modified by the
+ * operations, which return new bitmaps.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class Bitmap {
+
+    /**
+     * The maximum number of values of an array container.
+     */
+    private static final int ARRAY_LIMIT = 4096;
+
+    /**
+     * The number of words of a bitset container.
+     */
+    private static final int WORDS = 1 << 10;
+
+    /**
+     * The 16 most significant bits of the values of each container, in
+     * ascending order.
+     */
+    private char[] keys;
+
+    /**
+     * The containers: either a sorted {@code char[]} or a {@code long[]}
+     * bitset.
+     */
+    private Object[] containers;
+
+    /**
+     * The number of values of each container.
+     */
+    private int[] cardinalities;
+
+    /**
+     * The number of containers.
+     */
+    private int size;
+
+    /**
+     * Creates an empty bitmap.
+     */
+    Bitmap() {
+        this(4);
+    }
+
+    /**
+     * Creates an empty bitmap.
+     * @param capacity The initial number of containers
+     */
+    private Bitmap(final int capacity) {
+        this.keys = new char[capacity];
+        this.containers = new Object[capacity];
+        this.cardinalities = new int[capacity];
+    }
+
+    /**
+     * Creates a bitmap of a range of values.
+     * @param end The end of the range, exclusive
+     * @return a bitmap containing the values from 0 to end - 1
+     */
+    static Bitmap range(final int end) {
+        final Bitmap bitmap = new Bitmap(Math.max(1, (end + 0xFFFF) >>> 16));
+        for (int start = 0; start < end; start += 1 << 16) {
+            final int count = Math.min(end - start, 1 << 16);
+            final Object container;
+            if (count <= Bitmap.ARRAY_LIMIT) {
+                final char[] values = new char[count];
+                for (int i = 0; i < count; i++)
+                    values[i] = (char) i;
+                container = values;
+            } else {
+                final long[] words = new long[Bitmap.WORDS];
+                Arrays.fill(words, 0, count >>> 6, -1L);
+                if ((count & 63) != 0)
+                    words[count >>> 6] = (1L << count) - 1L;
+                container = words;
+            }
+            bitmap.append((char) (start >>> 16), container, count);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Adds a value. Adding values in ascending order is fastest.
+     * @param value A non-negative value
+     */
+    void add(final int value) {
+        final char key = (char) (value >>> 16);
+        final char low = (char) value;
+        int index = this.size > 0 && this.keys[this.size - 1] == key
+            ? this.size - 1
+            : Arrays.binarySearch(this.keys, 0, this.size, key);
+        if (index < 0) {
+            index = -index - 1;
+            this.insert(index, key, new char[4], 0);
+        }
+        final Object container = this.containers[index];
+        if (container instanceof long[]) {
+            final long[] words = (long[]) container;
+            final long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0L) {
+                words[low >>> 6] |= bit;
+                this.cardinalities[index]++;
+            }
+            return;
+        }
+        char[] values = (char[]) container;
+        final int cardinality = this.cardinalities[index];
+        int position = cardinality > 0 && values[cardinality - 1] < low
+            ? -cardinality - 1
+            : Arrays.binarySearch(values, 0, cardinality, low);
+        if (position >= 0)
+            return;
+        position = -position - 1;
+        if (cardinality == Bitmap.ARRAY_LIMIT) {
+            final long[] words = Bitmap.bitset(values, cardinality);
+            words[low >>> 6] |= 1L << low;
+            this.containers[index] = words;
+        } else {
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(2 * cardinality, Bitmap.ARRAY_LIMIT));
+                this.containers[index] = values;
+            }
+            System.arraycopy(values, position, values, position + 1, cardinality - position);
+            values[position] = low;
+        }
+        this.cardinalities[index]++;
+    }
+
+    /**
+     * Whether this bitmap contains a value.
+     * @param value A non-negative value
+     * @return whether the value was added
+     */
+    boolean contains(final int value) {
+        final int index = Arrays.binarySearch(this.keys, 0, this.size, (char) (value >>> 16));
+        if (index < 0)
+            return false;
+        final char low = (char) value;
+        final Object container = this.containers[index];
+        if (container instanceof long[])
+            return (((long[]) container)[low >>> 6] & 1L << low) != 0L;
+        return Arrays.binarySearch((char[]) container, 0, this.cardinalities[index], low) >= 0;
+    }
+
+    /**
+     * The number of values.
+     * @return the number of values in this bitmap
+     */
+    int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < this.size; i++)
+            cardinality += this.cardinalities[i];
+        return cardinality;
+    }
+
+    /**
+     * The values, in ascending order.
+     * @return a new array
+     */
+    int[] toArray() {
+        final int[] values = new int[this.cardinality()];
+        int position = 0;
+        for (int i = 0; i < this.size; i++) {
+            final int high = this.keys[i] << 16;
+            final Object container = this.containers[i];
+            if (container instanceof long[]) {
+                final long[] words = (long[]) container;
+                for (int w = 0; w < words.length; w++) {
+                    long word = words[w];
+                    while (word != 0L) {
+                        values[position++] = high | w << 6 | Long.numberOfTrailingZeros(word);
+                        word &= word - 1L;
+                    }
+                }
+            } else {
+                final char[] low = (char[]) container;
+                for (int j = 0; j < this.cardinalities[i]; j++)
+                    values[position++] = high | low[j];
+            }
+        }
+        return values;
+    }
+
+    /**
+     * The intersection of this bitmap and another.
+     * @param other The other bitmap
+     * @return a new bitmap
+     */
+    Bitmap and(final Bitmap other) {
+        final Bitmap result = new Bitmap(Math.max(1, Math.min(this.size, other.size)));
+        int i = 0;
+        int j = 0;
+        while (i < this.size && j < other.size) {
+            if (this.keys[i] < other.keys[j]) {
+                i++;
+            } else if (this.keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                result.combine(this.keys[i], this.containers[i], this.cardinalities[i],
+                    other.containers[j], other.cardinalities[j], Operation.AND);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The union of this bitmap and another.
+     * @param other The other bitmap
+     * @return a new bitmap
+     */
+    Bitmap or(final Bitmap other) {
+        final Bitmap result = new Bitmap(Math.max(1, this.size + other.size));
+        int i = 0;
+        int j = 0;
+        while (i < this.size || j < other.size) {
+            if (j == other.size || i < this.size && this.keys[i] < other.keys[j]) {
+                result.append(this.keys[i], Bitmap.copy(this.containers[i]), this.cardinalities[i]);
+                i++;
+            } else if (i == this.size || this.keys[i] > other.keys[j]) {
+                result.append(other.keys[j], Bitmap.copy(other.containers[j]), other.cardinalities[j]);
+                j++;
+            } else {
+                result.combine(this.keys[i], this.containers[i], this.cardinalities[i],
+                    other.containers[j], other.cardinalities[j], Operation.OR);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The values of this bitmap that are not in another.
+     * @param other The other bitmap
+     * @return a new bitmap
+     */
+    Bitmap andNot(final Bitmap other) {
+        final Bitmap result = new Bitmap(Math.max(1, this.size));
+        int j = 0;
+        for (int i = 0; i < this.size; i++) {
+            while (j < other.size && other.keys[j] < this.keys[i])
+                j++;
+            if (j < other.size && other.keys[j] == this.keys[i]) {
+                result.combine(this.keys[i], this.containers[i], this.cardinalities[i],
+                    other.containers[j], other.cardinalities[j], Operation.AND_NOT);
+            } else {
+                result.append(this.keys[i], Bitmap.copy(this.containers[i]), this.cardinalities[i]);
+            }
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return Arrays.toString(this.toArray());
+    }
+
+    /**
+     * The operations combining two containers.
+     */
+    private enum Operation {
+        AND, OR, AND_NOT
+    }
+
+    /**
+     * Combines two containers with the same key and appends the result, if
+     * it is not empty.
+     * @param key The key of the containers
+     * @param first The first container
+     * @param count The number of values of the first container
+     * @param second The second container
+     * @param others The number of values of the second container
+     * @param operation The operation
+     */
+    private void combine(final char key, final Object first, final int count,
+        final Object second, final int others, final Operation operation) {
+        if (first instanceof char[] && second instanceof char[]) {
+            this.merge(key, (char[]) first, count, (char[]) second, others, operation);
+            return;
+        }
+        if (operation == Operation.AND && first instanceof char[]) {
+            this.filter(key, (char[]) first, count, (long[]) second, true);
+            return;
+        }
+        if (operation == Operation.AND && second instanceof char[]) {
+            this.filter(key, (char[]) second, others, (long[]) first, true);
+            return;
+        }
+        if (operation == Operation.AND_NOT && first instanceof char[]) {
+            this.filter(key, (char[]) first, count, (long[]) second, false);
+            return;
+        }
+        final long[] left = first instanceof long[]
+            ? (long[]) first
+            : Bitmap.bitset((char[]) first, count);
+        final long[] right = second instanceof long[]
+            ? (long[]) second
+            : Bitmap.bitset((char[]) second, others);
+        final long[] words = new long[Bitmap.WORDS];
+        int cardinality = 0;
+        for (int w = 0; w < Bitmap.WORDS; w++) {
+            switch (operation) {
+                case AND:
+                    words[w] = left[w] & right[w];
+                    break;
+                case OR:
+                    words[w] = left[w] | right[w];
+                    break;
+                default:
+                    words[w] = left[w] & ~right[w];
+            }
+            cardinality += Long.bitCount(words[w]);
+        }
+        this.append(key, words, cardinality);
+    }
+
+    /**
+     * Merges two array containers and appends the result.
+     * @param key The key of the containers
+     * @param first The first container
+     * @param count The number of values of the first container
+     * @param second The second container
+     * @param others The number of values of the second container
+     * @param operation The operation
+     */
+    private void merge(final char key, final char[] first, final int count,
+        final char[] second, final int others, final Operation operation) {
+        final char[] values = new char[operation == Operation.OR ? count + others : count];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < count) {
+            if (j == others || first[i] < second[j]) {
+                if (operation != Operation.AND)
+                    values[size++] = first[i];
+                i++;
+            } else if (first[i] > second[j]) {
+                if (operation == Operation.OR)
+                    values[size++] = second[j];
+                j++;
+            } else {
+                if (operation != Operation.AND_NOT)
+                    values[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        if (operation == Operation.OR) {
+            while (j < others)
+                values[size++] = second[j++];
+        }
+        this.append(
+            key,
+            size > Bitmap.ARRAY_LIMIT ? Bitmap.bitset(values, size) : values,
+            size
+        );
+    }
+
+    /**
+     * Filters an array container with a bitset container and appends the
+     * result.
+     * @param key The key of the containers
+     * @param values The array container
+     * @param count The number of values of the array container
+     * @param words The bitset container
+     * @param keep Whether to keep the values in the bitset, or those that are
+     *  not in it
+     */
+    private void filter(final char key, final char[] values, final int count,
+        final long[] words, final boolean keep) {
+        final char[] result = new char[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            final char value = values[i];
+            if (((words[value >>> 6] & 1L << value) != 0L) == keep)
+                result[size++] = value;
+        }
+        this.append(key, result, size);
+    }
+
+    /**
+     * Appends a container after the existing ones, unless it is empty. Sparse
+     * bitset containers are converted to arrays.
+     * @param key The key of the container, greater than the existing keys
+     * @param container The container
+     * @param cardinality The number of values of the container
+     */
+    private void append(final char key, final Object container,
+        final int cardinality) {
+        if (cardinality == 0)
+            return;
+        Object compact = container;
+        if (container instanceof long[] && cardinality <= Bitmap.ARRAY_LIMIT) {
+            final long[] words = (long[]) container;
+            final char[] values = new char[cardinality];
+            int size = 0;
+            for (int w = 0; w < words.length; w++) {
+                long word = words[w];
+                while (word != 0L) {
+                    values[size++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+                    word &= word - 1L;
+                }
+            }
+            compact = values;
+        }
+        this.insert(this.size, key, compact, cardinality);
+    }
+
+    /**
+     * Inserts a container.
+     * @param index The position of the container
+     * @param key The key of the container
+     * @param container The container
+     * @param cardinality The number of values of the container
+     */
+    private void insert(final int index, final char key, final Object container,
+        final int cardinality) {
+        if (this.size == this.keys.length) {
+            final int capacity = Math.max(4, 2 * this.size);
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.containers = Arrays.copyOf(this.containers, capacity);
+            this.cardinalities = Arrays.copyOf(this.cardinalities, capacity);
+        }
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.size - index);
+        System.arraycopy(this.containers, index, this.containers, index + 1, this.size - index);
+        System.arraycopy(this.cardinalities, index, this.cardinalities, index + 1, this.size - index);
+        this.keys[index] = key;
+        this.containers[index] = container;
+        this.cardinalities[index] = cardinality;
+        this.size++;
+    }
+
+    /**
+     * Converts an array container to a bitset.
+     * @param values The array container
+     * @param count The number of values
+     * @return a new bitset container
+     */
+    private static long[] bitset(final char[] values, final int count) {
+        final long[] words = new long[Bitmap.WORDS];
+        for (int i = 0; i < count; i++)
+            words[values[i] >>> 6] |= 1L << values[i];
+        return words;
+    }
+
+    /**
+     * Copies a container.
+     * @param container The container
+     * @return a copy of the container
+     */
+    private static Object copy(final Object container) {
+        if (container instanceof long[])
+            return ((long[]) container).clone();
+        return ((char[]) container).clone();
+    }
+
+}
@@ -21,13 +21,12 @@
  */
 package com.rigiresearch.examgen.model;
 
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
 /**
@@ -38,8 +37,9 @@ import lombok.experimental.Accessors;
  * @since 0.0.1
  */
 @Accessors(fluent = true)
-@AllArgsConstructor
+@EqualsAndHashCode(exclude = "metadata")
 @Getter
+@RequiredArgsConstructor
 public final class ClosedEnded implements Question {
 
     /**
@@ -47,6 +47,11 @@ public final class ClosedEnded implements Question {
      */
     private static final long serialVersionUID = 4768954898385773415L;
 
+    /**
+     * The name of this type of question.
+     */
+    public static final String TYPE = "closed-ended";
+
     /**
      * A question's possible answer.
      * @author Miguel Jimenez (miguel@uvic.ca)
@@ -55,8 +60,9 @@ public final class ClosedEnded implements Question {
      * @since 0.0.1
      */
     @Accessors(fluent = true)
-    @AllArgsConstructor
+    @EqualsAndHashCode
     @Getter
+    @RequiredArgsConstructor
     public static final class Option {
 
         /**
@@ -69,6 +75,27 @@ public final class ClosedEnded implements Question {
          */
         private final TextSegment statement;
 
+        /**
+         * The fingerprint, computed on first use.
+         */
+        private transient volatile Fingerprint fingerprint;
+
+        /**
+         * A structural content hash of this option, computed once.
+         * @return a fingerprint of the statement and whether it is correct
+         */
+        public Fingerprint fingerprint() {
+            Fingerprint result = this.fingerprint;
+            if (result == null) {
+                result = new Fingerprint.Hasher("option")
+                    .put(this.answer)
+                    .put(this.statement.fingerprint())
+                    .fingerprint();
+                this.fingerprint = result;
+            }
+            return result;
+        }
+
     }
 
     /**
@@ -86,6 +113,35 @@ public final class ClosedEnded implements Question {
      */
     private final List<Option> options;
 
+    /**
+     * Information about this question that is not part of its content.
+     */
+    private final Metadata metadata;
+
+    /**
+     * The fingerprint, computed on first use.
+     */
+    private transient volatile Fingerprint fingerprint;
+
+    /**
+     * Instantiates a question without metadata.
+     * @param statement This question's statement
+     * @param points The number of points assigned to this question
+     * @param options This question's options
+     */
+    public ClosedEnded(final TextSegment statement, final int points,
+        final List<Option> options) {
+        this(statement, points, options, Metadata.NONE);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#type()
+     */
+    @Override
+    public String type() {
+        return ClosedEnded.TYPE;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.quizgen.Question#statement()
      */
@@ -112,20 +168,51 @@ public final class ClosedEnded implements Question {
         return Collections.emptyList();
     }
 
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#fingerprint()
+     */
+    @Override
+    public Fingerprint fingerprint() {
+        Fingerprint result = this.fingerprint;
+        if (result == null) {
+            final Fingerprint.Hasher hasher = new Fingerprint.Hasher(ClosedEnded.TYPE)
+                .put(this.statement.fingerprint())
+                .put(this.points)
+                .put(this.options.size());
+            for (final Option option : this.options)
+                hasher.put(option.fingerprint());
+            result = hasher.fingerprint();
+            this.fingerprint = result;
+        }
+        return result;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.examgen.model.Question#scrambled(long)
      */
     @Override
     public Question scrambled(final long seed) {
-        final List<Option> scrambledOptions = new ArrayList<>(this.options);
-        Collections.shuffle(
-            scrambledOptions,
-            new Random(seed)
-        );
+        return this.ordered(this.ordering(seed));
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordering(long)
+     */
+    @Override
+    public int[] ordering(final long seed) {
+        return Permutation.shuffled(this.options.size(), seed);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordered(int[])
+     */
+    @Override
+    public Question ordered(final int[] ordering) {
         return new ClosedEnded(
             this.statement,
             this.points,
-            scrambledOptions
+            Permutation.arranged(this.options, ordering),
+            this.metadata
         );
     }
 
@@ -22,12 +22,12 @@
 package com.rigiresearch.examgen.model;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
 /**
@@ -38,8 +38,9 @@ import lombok.experimental.Accessors;
  * @since 0.0.1
  */
 @Accessors(fluent = true)
-@AllArgsConstructor
+@EqualsAndHashCode(exclude = "metadata")
 @Getter
+@RequiredArgsConstructor
 public final class CompoundQuestion implements Question {
 
     /**
@@ -47,6 +48,11 @@ public final class CompoundQuestion implements Question {
      */
     private static final long serialVersionUID = -1020344027785770943L;
 
+    /**
+     * The name of this type of question.
+     */
+    public static final String TYPE = "compound";
+
     /**
      * This question's segment.
      */
@@ -57,6 +63,34 @@ public final class CompoundQuestion implements Question {
      */
     private final List<Question> children;
 
+    /**
+     * Information about this question that is not part of its content.
+     */
+    private final Metadata metadata;
+
+    /**
+     * The fingerprint, computed on first use.
+     */
+    private transient volatile Fingerprint fingerprint;
+
+    /**
+     * Instantiates a question without metadata.
+     * @param statement This question's statement
+     * @param children The sub-questions
+     */
+    public CompoundQuestion(final TextSegment statement,
+        final List<Question> children) {
+        this(statement, children, Metadata.NONE);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#type()
+     */
+    @Override
+    public String type() {
+        return CompoundQuestion.TYPE;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.quizgen.Question#header()
      */
@@ -98,21 +132,78 @@ public final class CompoundQuestion implements Question {
             .reduce(0, (a, b) -> a + b);
     }
 
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#fingerprint()
+     */
+    @Override
+    public Fingerprint fingerprint() {
+        Fingerprint result = this.fingerprint;
+        if (result == null) {
+            final Fingerprint.Hasher hasher = new Fingerprint.Hasher(CompoundQuestion.TYPE)
+                .put(this.statement.fingerprint())
+                .put(this.children.size());
+            for (final Question child : this.children)
+                hasher.put(child.fingerprint());
+            result = hasher.fingerprint();
+            this.fingerprint = result;
+        }
+        return result;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.examgen.model.Question#scrambled(long)
      */
     @Override
     public Question scrambled(final long seed) {
-        final List<Question> scrambledChildren = this.children.stream()
-            .map(question -> question.scrambled(seed))
-            .collect(Collectors.toList());
-        Collections.shuffle(
-            scrambledChildren,
-            new Random(seed)
-        );
+        return this.ordered(this.ordering(seed));
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordering(long)
+     */
+    @Override
+    public int[] ordering(final long seed) {
+        final int[] positions = Permutation.shuffled(this.children.size(), seed);
+        final int[][] children = new int[this.children.size()][];
+        int length = positions.length + children.length;
+        for (int i = 0; i < children.length; i++) {
+            final Question child = this.children.get(i);
+            children[i] = child.ordering(child.fingerprint().derive(seed));
+            length += children[i].length;
+        }
+        // The positions of the children, then the length and ordering of each
+        final int[] ordering = Arrays.copyOf(positions, length);
+        int offset = positions.length;
+        for (final int[] child : children) {
+            ordering[offset++] = child.length;
+            System.arraycopy(child, 0, ordering, offset, child.length);
+            offset += child.length;
+        }
+        return ordering;
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordered(int[])
+     */
+    @Override
+    public Question ordered(final int[] ordering) {
+        final List<Question> children = new ArrayList<>(this.children.size());
+        int offset = this.children.size();
+        for (final Question child : this.children) {
+            final int length = ordering[offset++];
+            children.add(
+                child.ordered(
+                    length == 0
+                        ? Permutation.NONE
+                        : Arrays.copyOfRange(ordering, offset, offset + length)
+                )
+            );
+            offset += length;
+        }
         return new CompoundQuestion(
             this.statement,
-            scrambledChildren
+            Permutation.arranged(children, ordering),
+            this.metadata
         );
     }
 
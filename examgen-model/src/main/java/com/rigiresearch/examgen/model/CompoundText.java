@@ -21,42 +21,119 @@
  */
 package com.rigiresearch.examgen.model;
 
-import java.util.Arrays;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.RandomAccess;
 import java.util.stream.Collectors;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
-import lombok.experimental.Accessors;
 
 /**
- * A compound block of text.
+ * A compound block of text. Texts composed only of simple segments can be
+ * flattened (see {@link #flatten(List)}) so that all segments share a single
+ * backing string, instead of one object, string and style list each.
  * @author Miguel Jimenez (miguel@uvic.ca)
  * @date 2017-08-13
  * @version $Id$
  * @since 0.0.1
  */
-@Accessors(fluent = true)
-@AllArgsConstructor
-@Getter
 public final class CompoundText implements TextSegment {
 
     /**
      * Serial version UID.
      */
-    private static final long serialVersionUID = 8512539964357274285L;
+    private static final long serialVersionUID = -4118391563710935424L;
 
     /**
-     * The segments composing this text.
+     * The style bit mask of compound texts.
+     */
+    private static final int NEW_LINE = 1 << Style.NEW_LINE.ordinal();
+
+    /**
+     * The segments composing this text, or {@code null} if it is flattened.
      */
     private final List<TextSegment> segments;
 
+    /**
+     * The concatenated text of the flattened segments.
+     */
+    private final String text;
+
+    /**
+     * The end offset of each flattened segment within the concatenated text.
+     */
+    private final int[] ends;
+
+    /**
+     * The style bit mask of each flattened segment.
+     */
+    private final byte[] masks;
+
+    /**
+     * The fingerprint, computed on first use.
+     */
+    private transient volatile Fingerprint fingerprint;
+
+    /**
+     * Default constructor.
+     * @param segments The segments composing this text
+     */
+    public CompoundText(final List<TextSegment> segments) {
+        this(segments, null, null, null);
+    }
+
+    /**
+     * Full constructor.
+     * @param segments The segments composing this text
+     * @param text The concatenated text of the flattened segments
+     * @param ends The end offset of each flattened segment
+     * @param masks The style bit mask of each flattened segment
+     */
+    private CompoundText(final List<TextSegment> segments, final String text,
+        final int[] ends, final byte[] masks) {
+        this.segments = segments;
+        this.text = text;
+        this.ends = ends;
+        this.masks = masks;
+    }
+
+    /**
+     * Creates a compound text, flattening its segments if they are all
+     * simple segments.
+     * @param segments The segments composing the text
+     * @return a compound text
+     */
+    public static CompoundText flatten(final List<TextSegment> segments) {
+        final StringBuilder text = new StringBuilder();
+        final int[] ends = new int[segments.size()];
+        final byte[] masks = new byte[segments.size()];
+        for (int i = 0; i < ends.length; i++) {
+            final TextSegment segment = segments.get(i);
+            if (!(segment instanceof TextSegment.Simple))
+                return new CompoundText(segments);
+            text.append(segment.text());
+            ends[i] = text.length();
+            masks[i] = (byte) TextSegment.Simple.mask(segment.styles());
+        }
+        return new CompoundText(null, text.toString(), ends, masks);
+    }
+
+    /**
+     * The segments composing this text. Flattened segments are materialized
+     * on access.
+     * @return an unmodifiable list of segments
+     */
+    public List<TextSegment> segments() {
+        if (this.segments != null)
+            return this.segments;
+        return new Flattened();
+    }
+
     /*
      * (non-Javadoc)
      * @see com.rigiresearch.examgen.model.TextSegment#text()
      */
     @Override
     public String text() {
-        return this.segments.stream()
+        return this.segments().stream()
             .map(segment -> segment.text().trim())
             .collect(Collectors.joining());
     }
@@ -67,7 +144,60 @@ public final class CompoundText implements TextSegment {
      */
     @Override
     public List<Style> styles() {
-        return Arrays.asList(Style.NEW_LINE);
+        return TextSegment.Simple.styles(CompoundText.NEW_LINE);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.TextSegment#fingerprint()
+     */
+    @Override
+    public Fingerprint fingerprint() {
+        Fingerprint result = this.fingerprint;
+        if (result == null) {
+            final Fingerprint.Hasher hasher = new Fingerprint.Hasher("compound-text");
+            if (this.segments == null) {
+                // Hash the flattened segments without materializing them
+                hasher.put(this.ends.length);
+                for (int i = 0; i < this.ends.length; i++) {
+                    hasher.put(
+                        TextSegment.Simple.fingerprint(
+                            this.text,
+                            i == 0 ? 0 : this.ends[i - 1],
+                            this.ends[i],
+                            this.masks[i]
+                        )
+                    );
+                }
+            } else {
+                hasher.put(this.segments.size());
+                for (final TextSegment segment : this.segments)
+                    hasher.put(segment.fingerprint());
+            }
+            result = hasher.fingerprint();
+            this.fingerprint = result;
+        }
+        return result;
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object other) {
+        return other == this
+            || other instanceof CompoundText
+            && this.segments().equals(((CompoundText) other).segments());
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return this.segments().hashCode();
     }
 
     /*
@@ -76,7 +206,7 @@ public final class CompoundText implements TextSegment {
      */
     @Override
     public String toString() {
-        return this.segments.stream()
+        return this.segments().stream()
             .map(segment -> {
                 StringBuilder builder = new StringBuilder();
                 builder.append(segment.toString());
@@ -88,4 +218,39 @@ public final class CompoundText implements TextSegment {
             .collect(Collectors.joining());
     }
 
+    /**
+     * A view of the flattened segments.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-17
+     * @version $Id$
+     * @since 0.0.1
+     */
+    private final class Flattened extends AbstractList<TextSegment>
+        implements RandomAccess {
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        @Override
+        public TextSegment get(final int index) {
+            final CompoundText outer = CompoundText.this;
+            return new TextSegment.Simple(
+                outer.text.substring(
+                    index == 0 ? 0 : outer.ends[index - 1],
+                    outer.ends[index]
+                ),
+                outer.masks[index]
+            );
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return CompoundText.this.ends.length;
+        }
+
+    }
+
 }
@@ -24,13 +24,15 @@ package com.rigiresearch.examgen.model;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
 /**
@@ -41,8 +43,8 @@ import lombok.experimental.Accessors;
  * @since 0.0.1
  */
 @Accessors(fluent = true)
+@EqualsAndHashCode
 @Getter
-@RequiredArgsConstructor
 public final class Examination implements Serializable {
 
     /**
@@ -122,54 +124,290 @@ public final class Examination implements Serializable {
     private final List<Question> questions;
 
     /**
-     * Scramble this exam.
+     * Constraints on the questions of each variant.
+     */
+    private final Selection selection;
+
+    /**
+     * The key of each question, computed on first use.
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile long[] identities;
+
+    /**
+     * The question selector, created on first use.
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile Selector selector;
+
+    /**
+     * The index of question labels, created on first use.
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile QuestionIndex index;
+
+    /**
+     * The positions of the questions matching the selection query, or
+     * {@code null} if they have not been found yet.
+     */
+    @Getter(AccessLevel.NONE)
+    private transient volatile int[] eligible;
+
+    /**
+     * Default constructor. The parameters and questions are copied, so that
+     * this examination is immutable and can be shared across threads.
+     * @param parameters Parameters composing the document header
+     * @param questions This exam's set of questions
+     */
+    public Examination(final Map<Parameter, Object> parameters,
+        final List<Question> questions) {
+        this(parameters, questions, Selection.NONE);
+    }
+
+    /**
+     * Constructor with constraints on the questions of each variant. The
+     * parameters and questions are copied.
+     * @param parameters Parameters composing the document header
+     * @param questions This exam's set of questions
+     * @param selection Constraints on the questions of each variant
+     */
+    public Examination(final Map<Parameter, Object> parameters,
+        final List<Question> questions, final Selection selection) {
+        this(parameters, questions, selection, true);
+    }
+
+    /**
+     * Constructor sharing an unmodifiable list of questions instead of
+     * copying it.
+     * @param parameters Parameters composing the document header
+     * @param questions This exam's set of questions
+     * @param selection Constraints on the questions of each variant
+     * @param copy Whether to copy the questions
+     */
+    Examination(final Map<Parameter, Object> parameters,
+        final List<Question> questions, final Selection selection,
+        final boolean copy) {
+        final Map<Parameter, Object> map = new EnumMap<>(Parameter.class);
+        map.putAll(parameters);
+        this.parameters = Collections.unmodifiableMap(map);
+        this.questions = copy
+            ? Collections.unmodifiableList(new ArrayList<>(questions))
+            : questions;
+        this.selection = selection;
+    }
+
+    /**
+     * Scramble this exam. Questions are sorted by a rank derived from the seed
+     * and their content, and each is scrambled with its own seed, so the
+     * result for a question does not depend on the other questions.
      * @param seed the seed for the random number generator
      * @return a scrambled version of this exam
      */
     public Examination scrambled(final long seed) {
-        final List<Question> scrambledQuestions = this.questions.stream()
-            .map(question -> question.scrambled(seed))
-            .collect(Collectors.toList());
-        Collections.shuffle(
-            scrambledQuestions,
-            new Random(seed)
-        );
+        final long[] ranks = this.ranks(seed);
+        final int[] positions = Permutation.lowest(ranks, ranks.length);
+        final List<Question> scrambledQuestions = new ArrayList<>(positions.length);
+        for (final int position : positions) {
+            scrambledQuestions.add(
+                this.questions.get(position).scrambled(Seeds.mix(ranks[position]))
+            );
+        }
         return new Examination(
             this.parameters,
-            scrambledQuestions
+            scrambledQuestions,
+            this.selection
         );
     }
 
+    /**
+     * Creates a scrambled variant of this exam for each section, one after
+     * the other.
+     * @param seed the seed for the random number generator
+     * @param questionsLimit the number of questions of each variant
+     * @return a list of variants, in the order of the sections
+     */
     public List<Examination> variants(final long seed,
-        final int questionsLimit) throws Exception {
-        final List<Examination> quizzes = new ArrayList<>();
-        @SuppressWarnings("unchecked")
-        final List<String> sections =
-            (List<String>) this.parameters.get(Parameter.SECTIONS);
-        long _seed = seed;
-        for (int i = 0; i < sections.size(); i++) {
-            parameters.put(Parameter.SECTIONS, sections.get(i));
-            quizzes.add(
-                new Examination(
-                    new HashMap<>(parameters),
-                    this.randomisedQuestions(_seed, questionsLimit)
-                ).scrambled(_seed)
+        final int questionsLimit) {
+        return this.variants(seed, questionsLimit, Runnable::run);
+    }
+
+    /**
+     * Creates a scrambled variant of this exam for each section. Each variant
+     * depends only on the seed and its section, so the result is the same
+     * regardless of the executor and of the other sections.
+     * @param seed the seed for the random number generator
+     * @param questionsLimit the number of questions of each variant
+     * @param executor the executor creating the variants
+     * @return a list of variants, in the order of the sections
+     */
+    public List<Examination> variants(final long seed,
+        final int questionsLimit, final Executor executor) {
+        final List<Variant> variants = this.sectionVariants(seed, questionsLimit, executor);
+        final List<Examination> quizzes = new ArrayList<>(variants.size());
+        for (final Variant variant : variants)
+            quizzes.add(variant.examination());
+        return quizzes;
+    }
+
+    /**
+     * Creates a variant of this exam for each section, as
+     * {@link #variants(long, int, Executor)} does, without arranging their
+     * questions.
+     * @param seed the seed for the random number generator
+     * @param questionsLimit the number of questions of each variant
+     * @param executor the executor creating the variants
+     * @return a list of variants, in the order of the sections
+     */
+    public List<Variant> sectionVariants(final long seed,
+        final int questionsLimit, final Executor executor) {
+        if (this.questions.size() < questionsLimit)
+            throw new IllegalArgumentException("questions limit > questions");
+        final List<?> sections = (List<?>) this.parameters.get(Parameter.SECTIONS);
+        final List<CompletableFuture<Variant>> futures =
+            new ArrayList<>(sections.size());
+        for (final Object section : sections) {
+            futures.add(
+                CompletableFuture.supplyAsync(
+                    () -> this.variant(section, seed, questionsLimit),
+                    executor
+                )
             );
-            // Use consecutive to randomize results & still control the output
-            _seed++;
         }
-        return quizzes;
+        final List<Variant> variants = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<Variant> future : futures)
+                variants.add(future.join());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
+        return variants;
     }
 
-    private List<Question> randomisedQuestions(final long seed,
-        final int questionsLimit) throws Exception {
+    /**
+     * Creates a variant of this exam for a section. The section seed is
+     * derived from the seed and the section name, and the variant has the
+     * questions ranked first by {@link #scrambled(long)} with that seed.
+     * Adding, removing or reordering other sections or questions therefore
+     * changes a variant only if a new question ranks among its questions.
+     * If there are selection constraints, the questions that satisfy them
+     * are chosen giving preference to the questions ranked first, among the
+     * questions matching the selection query.
+     * @param section the section
+     * @param seed the seed for the random number generator
+     * @param questionsLimit the number of questions of the variant
+     * @return a variant sharing the questions of this exam
+     * @throws IllegalArgumentException If there are not enough questions, or
+     *  the selection constraints cannot be satisfied
+     */
+    public Variant variant(final Object section, final long seed,
+        final int questionsLimit) {
         if (this.questions.size() < questionsLimit)
             throw new IllegalArgumentException("questions limit > questions");
-        final List<Question> copy = new ArrayList<>(this.questions);
-        Collections.shuffle(
-            copy,
-            new Random(seed)
-        );
-        return copy.subList(0, questionsLimit);
+        final long[] ranks = this.ranks(Seeds.derive(seed, String.valueOf(section)));
+        final boolean constrained = this.selection.constrained();
+        final int[] positions;
+        if (this.selection.query().equals(Query.ALL)) {
+            positions = constrained
+                ? this.selector().select(ranks, questionsLimit)
+                : Permutation.lowest(ranks, questionsLimit);
+        } else {
+            final int[] eligible = this.eligible();
+            if (eligible.length < questionsLimit) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "questions limit > questions matching '%s' (%d)",
+                        this.selection.query(),
+                        eligible.length
+                    )
+                );
+            }
+            final long[] subset = new long[eligible.length];
+            for (int i = 0; i < eligible.length; i++)
+                subset[i] = ranks[eligible[i]];
+            positions = constrained
+                ? this.selector().select(subset, questionsLimit)
+                : Permutation.lowest(subset, questionsLimit);
+            for (int i = 0; i < positions.length; i++)
+                positions[i] = eligible[positions[i]];
+        }
+        final int[][] orderings = new int[questionsLimit][];
+        for (int i = 0; i < questionsLimit; i++) {
+            orderings[i] = this.questions.get(positions[i])
+                .ordering(Seeds.mix(ranks[positions[i]]));
+        }
+        return new Variant(this, section, positions, orderings);
     }
+
+    /**
+     * Finds the questions matching a query. The first query indexes the
+     * labels of all the questions, and each query then combines the
+     * compressed positions of its labels without visiting the questions.
+     * @param query The query
+     * @return the positions of the matching questions, in ascending order
+     */
+    public int[] matching(final Query query) {
+        QuestionIndex result = this.index;
+        if (result == null) {
+            result = new QuestionIndex(this.questions);
+            this.index = result;
+        }
+        return query.evaluate(result).toArray();
+    }
+
+    /**
+     * The questions matching the selection query.
+     * @return the positions of the questions, in ascending order
+     */
+    private int[] eligible() {
+        int[] result = this.eligible;
+        if (result == null) {
+            result = this.matching(this.selection.query());
+            this.eligible = result;
+        }
+        return result;
+    }
+
+    /**
+     * The selector of questions satisfying the selection constraints, among
+     * the questions matching the selection query.
+     * @return a selector
+     */
+    private Selector selector() {
+        Selector result = this.selector;
+        if (result == null) {
+            List<Question> candidates = this.questions;
+            if (!this.selection.query().equals(Query.ALL)) {
+                final int[] eligible = this.eligible();
+                candidates = new ArrayList<>(eligible.length);
+                for (final int position : eligible)
+                    candidates.add(this.questions.get(position));
+            }
+            result = new Selector(candidates, this.selection);
+            this.selector = result;
+        }
+        return result;
+    }
+
+    /**
+     * Ranks the questions of this exam by their keys (see
+     * {@link Question#key()}).
+     * @param seed the seed for the random number generator
+     * @return the rank of each question
+     */
+    private long[] ranks(final long seed) {
+        long[] keys = this.identities;
+        if (keys == null) {
+            keys = new long[this.questions.size()];
+            for (int i = 0; i < keys.length; i++)
+                keys[i] = this.questions.get(i).key();
+            this.identities = keys;
+        }
+        final long[] ranks = new long[keys.length];
+        for (int i = 0; i < keys.length; i++)
+            ranks[i] = Seeds.derive(seed, keys[i]);
+        return ranks;
+    }
+
 }
@@ -0,0 +1,291 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.io.Serializable;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+
+/**
+ * A 128-bit structural content hash. Two questions, options or text segments
+ * that are equal have the same fingerprint, regardless of how they were
+ * parsed or loaded, and the fingerprint does not change between runs, so it
+ * can be used as a stable reference in files, or as a cache key. Fingerprints
+ * are not cryptographic: they detect duplicates, not tampering.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode
+public final class Fingerprint implements Comparable<Fingerprint>, Serializable {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 3521390147662718364L;
+
+    /**
+     * The number of hexadecimal digits of a fingerprint.
+     */
+    private static final int DIGITS = 32;
+
+    /**
+     * The most significant 64 bits.
+     */
+    private final long high;
+
+    /**
+     * The least significant 64 bits.
+     */
+    private final long low;
+
+    /**
+     * Parses a fingerprint from its hexadecimal representation.
+     * @param text 32 hexadecimal digits, as returned by {@link #toString()}
+     * @return a fingerprint
+     * @throws IllegalArgumentException If the text is not a fingerprint
+     */
+    public static Fingerprint valueOf(final String text) {
+        if (text.length() != Fingerprint.DIGITS) {
+            throw new IllegalArgumentException(
+                String.format("Expected %d hexadecimal digits: %s", Fingerprint.DIGITS, text)
+            );
+        }
+        try {
+            return new Fingerprint(
+                Long.parseUnsignedLong(text.substring(0, Fingerprint.DIGITS / 2), 16),
+                Long.parseUnsignedLong(text.substring(Fingerprint.DIGITS / 2), 16)
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                String.format("Expected %d hexadecimal digits: %s", Fingerprint.DIGITS, text),
+                e
+            );
+        }
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Comparable#compareTo(java.lang.Object)
+     */
+    @Override
+    public int compareTo(final Fingerprint other) {
+        final int result = Long.compareUnsigned(this.high, other.high);
+        return result == 0 ? Long.compareUnsigned(this.low, other.low) : result;
+    }
+
+    /**
+     * Derives a seed from a parent seed and this fingerprint, so that equal
+     * content gets the same seed however it was loaded.
+     * @param seed The parent seed
+     * @return a seed
+     */
+    long derive(final long seed) {
+        return Seeds.derive(Seeds.derive(seed, this.high), this.low);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", this.high, this.low);
+    }
+
+    /**
+     * Computes a fingerprint from a sequence of values, with the mixing
+     * functions of MurmurHash3 (x64, 128-bit) applied to 64-bit words.
+     * Variable-length values are preceded by their length, so that different
+     * sequences of values produce different sequences of words.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-17
+     * @version $Id$
+     * @since 0.0.1
+     */
+    static final class Hasher {
+
+        /**
+         * The first mixing constant.
+         */
+        private static final long C1 = 0x87c37b91114253d5L;
+
+        /**
+         * The second mixing constant.
+         */
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        /**
+         * The first half of the state.
+         */
+        private long h1;
+
+        /**
+         * The second half of the state.
+         */
+        private long h2;
+
+        /**
+         * The first word of an incomplete block.
+         */
+        private long pending;
+
+        /**
+         * The number of words added.
+         */
+        private long words;
+
+        /**
+         * Instantiates a hasher for a kind of value.
+         * @param kind The kind of value, so that different kinds with the
+         *  same content have different fingerprints
+         */
+        Hasher(final String kind) {
+            this.put(kind);
+        }
+
+        /**
+         * Adds a word.
+         * @param word The word
+         * @return this hasher
+         */
+        Hasher put(final long word) {
+            if ((this.words++ & 1L) == 0L) {
+                this.pending = word;
+            } else {
+                this.block(this.pending, word);
+            }
+            return this;
+        }
+
+        /**
+         * Adds a boolean value.
+         * @param value The value
+         * @return this hasher
+         */
+        Hasher put(final boolean value) {
+            return this.put(value ? 1L : 0L);
+        }
+
+        /**
+         * Adds a fingerprint.
+         * @param fingerprint The fingerprint
+         * @return this hasher
+         */
+        Hasher put(final Fingerprint fingerprint) {
+            return this.put(fingerprint.high).put(fingerprint.low);
+        }
+
+        /**
+         * Adds a text, or marks its absence.
+         * @param text The text, or null
+         * @return this hasher
+         */
+        Hasher put(final CharSequence text) {
+            if (text == null)
+                return this.put(-1L);
+            return this.put(text, 0, text.length());
+        }
+
+        /**
+         * Adds part of a text, four characters per word.
+         * @param text The text
+         * @param start The start offset, inclusive
+         * @param end The end offset, exclusive
+         * @return this hasher
+         */
+        Hasher put(final CharSequence text, final int start, final int end) {
+            this.put(end - start);
+            int i = start;
+            for (; i + 4 <= end; i += 4) {
+                this.put(
+                    (long) text.charAt(i)
+                        | (long) text.charAt(i + 1) << 16
+                        | (long) text.charAt(i + 2) << 32
+                        | (long) text.charAt(i + 3) << 48
+                );
+            }
+            if (i < end) {
+                long word = 0L;
+                for (int shift = 0; i < end; i++, shift += 16)
+                    word |= (long) text.charAt(i) << shift;
+                this.put(word);
+            }
+            return this;
+        }
+
+        /**
+         * Computes the fingerprint of the values added.
+         * @return a fingerprint
+         */
+        Fingerprint fingerprint() {
+            long a = this.h1;
+            long b = this.h2;
+            if ((this.words & 1L) == 1L) {
+                a ^= Long.rotateLeft(this.pending * Hasher.C1, 31) * Hasher.C2;
+            }
+            a ^= this.words;
+            b ^= this.words;
+            a += b;
+            b += a;
+            a = Hasher.mix(a);
+            b = Hasher.mix(b);
+            a += b;
+            b += a;
+            return new Fingerprint(a, b);
+        }
+
+        /**
+         * Mixes a block of two words into the state.
+         * @param first The first word
+         * @param second The second word
+         */
+        private void block(final long first, final long second) {
+            this.h1 ^= Long.rotateLeft(first * Hasher.C1, 31) * Hasher.C2;
+            this.h1 = Long.rotateLeft(this.h1, 27) + this.h2;
+            this.h1 = this.h1 * 5L + 0x52dce729L;
+            this.h2 ^= Long.rotateLeft(second * Hasher.C2, 33) * Hasher.C1;
+            this.h2 = Long.rotateLeft(this.h2, 31) + this.h1;
+            this.h2 = this.h2 * 5L + 0x38495ab5L;
+        }
+
+        /**
+         * The finalization mix of MurmurHash3.
+         * @param value The value to mix
+         * @return the mixed value
+         */
+        private static long mix(final long value) {
+            long result = value;
+            result ^= result >>> 33;
+            result *= 0xff51afd7ed558ccdL;
+            result ^= result >>> 33;
+            result *= 0xc4ceb9fe1a85ec53L;
+            result ^= result >>> 33;
+            return result;
+        }
+
+    }
+
+}
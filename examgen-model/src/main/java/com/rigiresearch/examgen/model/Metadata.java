@@ -0,0 +1,74 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Information about a question that is not part of its content, such as its
+ * topic. Metadata is used to select questions (see {@link Query}), but it is
+ * neither rendered nor taken into account when comparing questions, so
+ * tagging a question does not change the variants in which it appears.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+public final class Metadata implements Serializable {
+
+    /**
+     * No metadata.
+     */
+    public static final Metadata NONE =
+        new Metadata(Collections.emptyList(), null, null);
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -6046393163587013247L;
+
+    /**
+     * Free-form tags, such as "used-in:Fall2017".
+     */
+    private final List<String> tags;
+
+    /**
+     * The topic, or {@code null} if there is none.
+     */
+    private final String topic;
+
+    /**
+     * The difficulty, or {@code null} if there is none.
+     */
+    private final String difficulty;
+
+}
@@ -23,8 +23,9 @@ package com.rigiresearch.examgen.model;
 
 import java.util.Collections;
 import java.util.List;
-import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
 /**
@@ -35,8 +36,9 @@ import lombok.experimental.Accessors;
  * @since 0.0.1
  */
 @Accessors(fluent = true)
-@AllArgsConstructor
+@EqualsAndHashCode(exclude = "metadata")
 @Getter
+@RequiredArgsConstructor
 public final class OpenEnded implements Question {
 
     /**
@@ -44,6 +46,11 @@ public final class OpenEnded implements Question {
      */
     private static final long serialVersionUID = 5439416765980874621L;
 
+    /**
+     * The name of this type of question.
+     */
+    public static final String TYPE = "open-ended";
+
     /**
      * This question's statement.
      */
@@ -64,6 +71,36 @@ public final class OpenEnded implements Question {
      */
     private final String expectedLength;
 
+    /**
+     * Information about this question that is not part of its content.
+     */
+    private final Metadata metadata;
+
+    /**
+     * The fingerprint, computed on first use.
+     */
+    private transient volatile Fingerprint fingerprint;
+
+    /**
+     * Instantiates a question without metadata.
+     * @param statement This question's statement
+     * @param answer The expected answer
+     * @param points The number of points assigned to this question
+     * @param expectedLength The expected length of the answer
+     */
+    public OpenEnded(final TextSegment statement, final TextSegment answer,
+        final int points, final String expectedLength) {
+        this(statement, answer, points, expectedLength, Metadata.NONE);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#type()
+     */
+    @Override
+    public String type() {
+        return OpenEnded.TYPE;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.quizgen.Question#statement()
      */
@@ -88,6 +125,24 @@ public final class OpenEnded implements Question {
         return Collections.emptyList();
     }
 
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#fingerprint()
+     */
+    @Override
+    public Fingerprint fingerprint() {
+        Fingerprint result = this.fingerprint;
+        if (result == null) {
+            result = new Fingerprint.Hasher(OpenEnded.TYPE)
+                .put(this.statement.fingerprint())
+                .put(this.answer.fingerprint())
+                .put(this.points)
+                .put(this.expectedLength)
+                .fingerprint();
+            this.fingerprint = result;
+        }
+        return result;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.examgen.model.Question#scrambled(long)
      */
@@ -97,8 +152,25 @@ public final class OpenEnded implements Question {
             this.statement,
             this.answer,
             this.points,
-            this.expectedLength
+            this.expectedLength,
+            this.metadata
         );
     }
 
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordering(long)
+     */
+    @Override
+    public int[] ordering(final long seed) {
+        return Permutation.NONE;
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordered(int[])
+     */
+    @Override
+    public Question ordered(final int[] ordering) {
+        return this;
+    }
+
 }
@@ -0,0 +1,184 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.SplittableRandom;
+
+/**
+ * Utility methods to arrange lists according to permutations of their
+ * positions, instead of copying and shuffling them.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class Permutation {
+
+    /**
+     * The ordering of questions without parts to arrange.
+     */
+    static final int[] NONE = new int[0];
+
+    /**
+     * Utility class.
+     */
+    private Permutation() {
+    }
+
+    /**
+     * Shuffles the positions of a list (Fisher-Yates shuffle).
+     * @param size The size of the list
+     * @param seed The seed for the random number generator
+     * @return the positions of the elements, in shuffled order
+     */
+    static int[] shuffled(final int size, final long seed) {
+        final int[] positions = new int[size];
+        for (int i = 0; i < size; i++)
+            positions[i] = i;
+        final SplittableRandom random = new SplittableRandom(seed);
+        for (int i = size; i > 1; i--) {
+            final int j = random.nextInt(i);
+            final int position = positions[i - 1];
+            positions[i - 1] = positions[j];
+            positions[j] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * Finds the lowest ranks. The lowest bits of the ranks are replaced with
+     * the position to sort a single array, which only matters for ranks that
+     * are equal in all the other bits. Few positions are found with a bounded
+     * heap instead of sorting all the ranks.
+     * @param ranks The ranks
+     * @param limit The number of positions to find
+     * @return the positions of the lowest ranks, from lowest to highest
+     */
+    static int[] lowest(final long[] ranks, final int limit) {
+        final int bits = 32 - Integer.numberOfLeadingZeros(ranks.length);
+        final long mask = (1L << bits) - 1;
+        final long[] keys;
+        if (limit < ranks.length / 8) {
+            // A max-heap of the lowest keys found so far
+            keys = new long[limit];
+            for (int i = 0; i < ranks.length; i++) {
+                final long key = ranks[i] & ~mask | i;
+                if (i < limit) {
+                    int child = i;
+                    while (child > 0 && keys[(child - 1) / 2] < key) {
+                        keys[child] = keys[(child - 1) / 2];
+                        child = (child - 1) / 2;
+                    }
+                    keys[child] = key;
+                } else if (limit > 0 && key < keys[0]) {
+                    int parent = 0;
+                    while (2 * parent + 1 < limit) {
+                        int child = 2 * parent + 1;
+                        if (child + 1 < limit && keys[child + 1] > keys[child])
+                            child++;
+                        if (keys[child] <= key)
+                            break;
+                        keys[parent] = keys[child];
+                        parent = child;
+                    }
+                    keys[parent] = key;
+                }
+            }
+        } else {
+            keys = new long[ranks.length];
+            for (int i = 0; i < ranks.length; i++)
+                keys[i] = ranks[i] & ~mask | i;
+        }
+        Arrays.sort(keys);
+        final int[] positions = new int[limit];
+        for (int i = 0; i < limit; i++)
+            positions[i] = (int) (keys[i] & mask);
+        return positions;
+    }
+
+    /**
+     * Arranges a list.
+     * @param list The list
+     * @param ordering The positions of the elements, starting at index 0
+     * @param <T> The type of elements
+     * @return an unmodifiable view of the list, in the given order
+     */
+    static <T> List<T> arranged(final List<T> list, final int[] ordering) {
+        return new Arranged<>(list, ordering);
+    }
+
+    /**
+     * An unmodifiable view of a list in a different order.
+     * @param <T> The type of elements
+     */
+    private static final class Arranged<T> extends AbstractList<T>
+        implements RandomAccess, Serializable {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = -6031467735802951946L;
+
+        /**
+         * The arranged list.
+         */
+        private final List<T> list;
+
+        /**
+         * The positions of the elements, starting at index 0.
+         */
+        private final int[] ordering;
+
+        /**
+         * Default constructor.
+         * @param list The arranged list
+         * @param ordering The positions of the elements
+         */
+        Arranged(final List<T> list, final int[] ordering) {
+            this.list = list;
+            this.ordering = ordering;
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        @Override
+        public T get(final int index) {
+            return this.list.get(this.ordering[index]);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return this.list.size();
+        }
+
+    }
+
+}
@@ -0,0 +1,383 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A Boolean query over the labels of questions, such as
+ * {@code closed-ended AND topic:loops AND NOT used-in:Fall2017}. The labels
+ * of a question are its type (both as is and as "type:" followed by the
+ * type), its topic and difficulty (as "topic:" and "difficulty:" followed by
+ * the value) and its tags, as written.
+ * <p>
+ * Operators are {@code NOT}, {@code AND} and {@code OR}, from highest to
+ * lowest precedence, in any case. Parentheses group sub-queries, and labels
+ * containing spaces, parentheses or quotes, or spelled as an operator, are
+ * written between double quotes (a double quote within them is doubled). The
+ * empty query matches all questions.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Query implements Serializable {
+
+    /**
+     * The query matching all questions.
+     */
+    public static final Query ALL = new Query("", null);
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -2318426007905418473L;
+
+    /**
+     * The query text.
+     */
+    private final String text;
+
+    /**
+     * The parsed query, or {@code null} if it matches all questions.
+     */
+    private final transient Term term;
+
+    /**
+     * Default constructor.
+     * @param text The query text
+     * @param term The parsed query
+     */
+    private Query(final String text, final Term term) {
+        this.text = text;
+        this.term = term;
+    }
+
+    /**
+     * Parses a query.
+     * @param text The query text
+     * @return the query
+     * @throws IllegalArgumentException If the text is not a valid query
+     */
+    public static Query parse(final String text) {
+        final Parser parser = new Parser(text);
+        if (parser.peek() == null)
+            return Query.ALL;
+        final Term term = parser.disjunction();
+        if (parser.peek() != null)
+            throw parser.error("Unexpected %s", parser.describe(parser.peek()));
+        return new Query(text.trim(), term);
+    }
+
+    /**
+     * Finds the questions matching this query.
+     * @param index The labels of the questions
+     * @return the positions of the matching questions
+     */
+    Bitmap evaluate(final QuestionIndex index) {
+        return this.term == null ? index.all() : this.term.evaluate(index);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object object) {
+        return object instanceof Query && this.text.equals(((Query) object).text);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return this.text.hashCode();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+    /**
+     * Parses the query again after deserialization.
+     * @return the parsed query
+     */
+    private Object readResolve() {
+        return Query.parse(this.text);
+    }
+
+    /**
+     * A parsed sub-query.
+     */
+    private interface Term {
+
+        /**
+         * Finds the questions matching this sub-query.
+         * @param index The labels of the questions
+         * @return the positions of the matching questions
+         */
+        Bitmap evaluate(QuestionIndex index);
+
+    }
+
+    /**
+     * A conjunction of sub-queries, some of which may be negated. Negated
+     * sub-queries are subtracted instead of complemented.
+     */
+    private static final class Conjunction implements Term {
+
+        /**
+         * The sub-queries that must match.
+         */
+        private final List<Term> positive = new ArrayList<>();
+
+        /**
+         * The sub-queries that must not match.
+         */
+        private final List<Term> negative = new ArrayList<>();
+
+        /* (non-Javadoc)
+         * @see com.rigiresearch.examgen.model.Query.Term#evaluate(com.rigiresearch.examgen.model.QuestionIndex)
+         */
+        @Override
+        public Bitmap evaluate(final QuestionIndex index) {
+            Bitmap result = null;
+            for (final Term term : this.positive) {
+                final Bitmap matches = term.evaluate(index);
+                result = result == null ? matches : result.and(matches);
+            }
+            if (result == null)
+                result = index.all();
+            for (final Term term : this.negative)
+                result = result.andNot(term.evaluate(index));
+            return result;
+        }
+
+    }
+
+    /**
+     * The parser of query texts, by recursive descent.
+     */
+    private static final class Parser {
+
+        /**
+         * The query text.
+         */
+        private final String text;
+
+        /**
+         * The offset of the next character.
+         */
+        private int offset;
+
+        /**
+         * The offset of the last token.
+         */
+        private int start;
+
+        /**
+         * Default constructor.
+         * @param text The query text
+         */
+        Parser(final String text) {
+            this.text = text;
+        }
+
+        /**
+         * Parses sub-queries separated by {@code OR}.
+         * @return the parsed sub-query
+         */
+        Term disjunction() {
+            final List<Term> terms = new ArrayList<>();
+            terms.add(this.conjunction());
+            while (this.keyword("OR"))
+                terms.add(this.conjunction());
+            if (terms.size() == 1)
+                return terms.get(0);
+            return index -> {
+                Bitmap result = terms.get(0).evaluate(index);
+                for (int i = 1; i < terms.size(); i++)
+                    result = result.or(terms.get(i).evaluate(index));
+                return result;
+            };
+        }
+
+        /**
+         * Parses sub-queries separated by {@code AND}.
+         * @return the parsed sub-query
+         */
+        Term conjunction() {
+            final Conjunction conjunction = new Conjunction();
+            do {
+                boolean negated = false;
+                while (this.keyword("NOT"))
+                    negated = !negated;
+                final Term term = this.primary();
+                if (negated)
+                    conjunction.negative.add(term);
+                else
+                    conjunction.positive.add(term);
+            } while (this.keyword("AND"));
+            if (conjunction.negative.isEmpty() && conjunction.positive.size() == 1)
+                return conjunction.positive.get(0);
+            return conjunction;
+        }
+
+        /**
+         * Parses a label or a sub-query between parentheses.
+         * @return the parsed sub-query
+         */
+        Term primary() {
+            final String token = this.peek();
+            if (token == null)
+                throw this.error("Expected a label at the end of the query");
+            if ("(".equals(token)) {
+                this.next();
+                final Term term = this.disjunction();
+                if (!")".equals(this.peek()))
+                    throw this.error("Expected ')' instead of %s", this.describe(this.peek()));
+                this.next();
+                return term;
+            }
+            if (")".equals(token) || Parser.operator(token))
+                throw this.error("Expected a label instead of %s", this.describe(token));
+            this.next();
+            final String label = this.label(token);
+            return index -> index.labelled(label);
+        }
+
+        /**
+         * Consumes an operator, if it is the next token.
+         * @param operator The operator, in upper case
+         * @return whether the operator was consumed
+         */
+        boolean keyword(final String operator) {
+            final String token = this.peek();
+            if (token == null || !operator.equals(token.toUpperCase(Locale.ROOT)))
+                return false;
+            this.next();
+            return true;
+        }
+
+        /**
+         * Reads the next token without consuming it.
+         * @return the token text, or {@code null} at the end of the query
+         */
+        String peek() {
+            while (this.offset < this.text.length()
+                && Character.isWhitespace(this.text.charAt(this.offset)))
+                this.offset++;
+            this.start = this.offset;
+            if (this.offset == this.text.length())
+                return null;
+            final char first = this.text.charAt(this.offset);
+            if (first == '(' || first == ')')
+                return String.valueOf(first);
+            int end = this.offset;
+            if (first == '"') {
+                end++;
+                while (true) {
+                    if (end >= this.text.length())
+                        throw this.error("Unterminated quoted label");
+                    if (this.text.charAt(end) == '"') {
+                        if (end + 1 < this.text.length() && this.text.charAt(end + 1) == '"')
+                            end += 2;
+                        else
+                            break;
+                    } else {
+                        end++;
+                    }
+                }
+                return this.text.substring(this.offset, end + 1);
+            }
+            while (end < this.text.length()
+                && !Character.isWhitespace(this.text.charAt(end))
+                && "()\"".indexOf(this.text.charAt(end)) < 0)
+                end++;
+            return this.text.substring(this.offset, end);
+        }
+
+        /**
+         * Consumes the next token.
+         */
+        void next() {
+            this.offset += this.peek().length();
+        }
+
+        /**
+         * Creates an exception locating a problem.
+         * @param format The message format
+         * @param args The message arguments
+         * @return the exception
+         */
+        IllegalArgumentException error(final String format,
+            final Object... args) {
+            return new IllegalArgumentException(
+                String.format(
+                    "%s at position %d of query '%s'",
+                    String.format(format, args),
+                    this.start + 1,
+                    this.text
+                )
+            );
+        }
+
+        /**
+         * Describes a token for error messages.
+         * @param token The token, possibly {@code null}
+         * @return a description of the token
+         */
+        String describe(final String token) {
+            return token == null ? "end of query" : String.format("'%s'", token);
+        }
+
+        /**
+         * The label of a token.
+         * @param token A label token, possibly quoted
+         * @return the label
+         */
+        private String label(final String token) {
+            if (token.charAt(0) != '"')
+                return token;
+            return token.substring(1, token.length() - 1).replace("\"\"", "\"");
+        }
+
+        /**
+         * Whether a token is an operator.
+         * @param token The token
+         * @return whether the token is AND, OR or NOT, in any case
+         */
+        private static boolean operator(final String token) {
+            final String upper = token.toUpperCase(Locale.ROOT);
+            return "AND".equals(upper) || "OR".equals(upper) || "NOT".equals(upper);
+        }
+
+    }
+
+}
@@ -51,12 +51,44 @@ public interface Question extends Serializable {
      */
     List<Question> children();
 
+    /**
+     * This question's type, as written in the examination specification.
+     * @return a type name, such as "open-ended"
+     */
+    String type();
+
     /**
      * The amount of points this question is worth.
      * @return the number of points assigned to this question
      */
     int points();
 
+    /**
+     * Information about this question that is not part of its content, such
+     * as its tags.
+     * @return the metadata, possibly {@link Metadata#NONE}
+     */
+    Metadata metadata();
+
+    /**
+     * A structural content hash of this question, computed once. Equal
+     * questions have the same fingerprint, and arranging the parts of a
+     * question changes its fingerprint.
+     * @return a fingerprint of the statement, parts, answers and points
+     */
+    Fingerprint fingerprint();
+
+    /**
+     * A stable key that ranks this question among the others of an
+     * examination. It is derived from the fingerprint by default; questions
+     * that are not parsed yet may derive it from their text instead, so that
+     * ranking them does not parse them.
+     * @return a 64-bit key
+     */
+    default long key() {
+        return this.fingerprint().derive(0L);
+    }
+
     /**
      * Scramble this question.
      * @param seed the seed for the random number generator
@@ -64,4 +96,22 @@ public interface Question extends Serializable {
      */
     Question scrambled(long seed);
 
+    /**
+     * The order in which {@link #scrambled(long)} arranges the parts of this
+     * question, such as options and sub-questions.
+     * @param seed the seed for the random number generator
+     * @return the positions of the parts, possibly followed by the ordering
+     *  of each part; an empty array if there is nothing to arrange
+     */
+    int[] ordering(long seed);
+
+    /**
+     * A view of this question with its parts arranged in the given order.
+     * Arranging a question with {@code ordering(seed)} is equivalent to
+     * scrambling it with {@code seed}.
+     * @param ordering an ordering created by {@link #ordering(long)}
+     * @return an equivalent question
+     */
+    Question ordered(int[] ordering);
+
 }
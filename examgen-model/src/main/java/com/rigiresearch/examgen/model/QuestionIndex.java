@@ -0,0 +1,95 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index from the labels of questions (see {@link Query}) to the
+ * positions of the questions bearing them.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class QuestionIndex {
+
+    /**
+     * The positions of all the questions.
+     */
+    private final Bitmap all;
+
+    /**
+     * The positions of the questions bearing each label.
+     */
+    private final Map<String, Bitmap> labels = new HashMap<>();
+
+    /**
+     * Default constructor.
+     * @param questions The indexed questions
+     */
+    QuestionIndex(final List<Question> questions) {
+        this.all = Bitmap.range(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            final Question question = questions.get(i);
+            final Metadata metadata = question.metadata();
+            this.add(question.type(), i);
+            this.add("type:" + question.type(), i);
+            if (metadata.topic() != null)
+                this.add("topic:" + metadata.topic(), i);
+            if (metadata.difficulty() != null)
+                this.add("difficulty:" + metadata.difficulty(), i);
+            for (final String tag : metadata.tags())
+                this.add(tag, i);
+        }
+    }
+
+    /**
+     * The positions of all the questions.
+     * @return a bitmap
+     */
+    Bitmap all() {
+        return this.all;
+    }
+
+    /**
+     * The positions of the questions bearing a label.
+     * @param label The label
+     * @return a bitmap, possibly empty
+     */
+    Bitmap labelled(final String label) {
+        final Bitmap positions = this.labels.get(label);
+        return positions == null ? new Bitmap() : positions;
+    }
+
+    /**
+     * Records that a question bears a label.
+     * @param label The label
+     * @param position The position of the question
+     */
+    private void add(final String label, final int position) {
+        this.labels.computeIfAbsent(label, key -> new Bitmap()).add(position);
+    }
+
+}
@@ -0,0 +1,230 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns variants of an examination to the seats of an exam hall, so that
+ * neighbouring seats share as few questions and option orderings as
+ * possible.
+ * <p>
+ * The overlap of two variants is the number of questions they share, plus
+ * the number of shared questions arranged in the same way, computed with
+ * bitsets over the question positions. Seats are first assigned in the order
+ * of the DSatur graph coloring heuristic, each with the variant that overlaps
+ * the least with its assigned neighbours, and the assignment is then improved
+ * by moving single seats to better variants until no move helps. Among equally
+ * good variants, the least used one is preferred, so that the number of copies
+ * of each variant is balanced.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Seating {
+
+    /**
+     * The maximum number of improvement passes.
+     */
+    private static final int PASSES = 100;
+
+    /**
+     * The overlap of each pair of variants.
+     */
+    private final int[][] overlaps;
+
+    /**
+     * Default constructor.
+     * @param variants The variants to assign, of the same examination
+     */
+    public Seating(final List<Variant> variants) {
+        this.overlaps = new int[variants.size()][variants.size()];
+        final long[][] bitsets = new long[variants.size()][];
+        final List<Map<Integer, int[]>> orderings = new ArrayList<>();
+        for (int v = 0; v < variants.size(); v++) {
+            final Variant variant = variants.get(v);
+            bitsets[v] = new long[(variant.origin().questions().size() + 63) / 64];
+            final Map<Integer, int[]> ordering = new HashMap<>();
+            for (int i = 0; i < variant.size(); i++) {
+                final int position = variant.position(i);
+                bitsets[v][position >>> 6] |= 1L << position;
+                ordering.put(position, variant.ordering(i));
+            }
+            orderings.add(ordering);
+            // A variant shares all of its questions and orderings with itself
+            this.overlaps[v][v] = 2 * variant.size();
+        }
+        for (int a = 0; a < variants.size(); a++) {
+            for (int b = a + 1; b < variants.size(); b++) {
+                int overlap = 0;
+                for (int w = 0; w < bitsets[a].length; w++) {
+                    long shared = bitsets[a][w] & bitsets[b][w];
+                    overlap += Long.bitCount(shared);
+                    while (shared != 0L) {
+                        final int position = w << 6 | Long.numberOfTrailingZeros(shared);
+                        if (Arrays.equals(
+                            orderings.get(a).get(position),
+                            orderings.get(b).get(position)))
+                            overlap++;
+                        shared &= shared - 1L;
+                    }
+                }
+                this.overlaps[a][b] = overlap;
+                this.overlaps[b][a] = overlap;
+            }
+        }
+    }
+
+    /**
+     * The overlap of two variants.
+     * @param first The position of a variant
+     * @param second The position of another variant
+     * @return the number of shared questions plus the number of them that are
+     *  arranged in the same way
+     */
+    public int overlap(final int first, final int second) {
+        return this.overlaps[first][second];
+    }
+
+    /**
+     * Assigns a variant to each seat.
+     * @param neighbours The positions of the seats adjacent to each seat
+     * @return the position of the variant assigned to each seat
+     */
+    public int[] assign(final int[][] neighbours) {
+        final int seats = neighbours.length;
+        final int variants = this.overlaps.length;
+        final int[] assignment = new int[seats];
+        Arrays.fill(assignment, -1);
+        final int[] usage = new int[variants];
+        // The variants assigned to the neighbours of each seat, as bitsets
+        final long[][] seen = new long[seats][(variants + 63) / 64];
+        final int[] saturation = new int[seats];
+        for (int step = 0; step < seats; step++) {
+            int seat = -1;
+            for (int s = 0; s < seats; s++) {
+                if (assignment[s] < 0 && (seat < 0
+                    || saturation[s] > saturation[seat]
+                    || saturation[s] == saturation[seat]
+                        && neighbours[s].length > neighbours[seat].length))
+                    seat = s;
+            }
+            final int variant = this.best(seat, neighbours, assignment, usage, -1);
+            assignment[seat] = variant;
+            usage[variant]++;
+            for (final int neighbour : neighbours[seat]) {
+                final long bit = 1L << variant;
+                if ((seen[neighbour][variant >>> 6] & bit) == 0L) {
+                    seen[neighbour][variant >>> 6] |= bit;
+                    saturation[neighbour]++;
+                }
+            }
+        }
+        boolean improved = true;
+        for (int pass = 0; improved && pass < Seating.PASSES; pass++) {
+            improved = false;
+            for (int seat = 0; seat < seats; seat++) {
+                final int current = assignment[seat];
+                final int best = this.best(seat, neighbours, assignment, usage, current);
+                if (best != current) {
+                    usage[current]--;
+                    usage[best]++;
+                    assignment[seat] = best;
+                    improved = true;
+                }
+            }
+        }
+        return assignment;
+    }
+
+    /**
+     * The total overlap of the neighbouring seats.
+     * @param neighbours The positions of the seats adjacent to each seat
+     * @param assignment The position of the variant assigned to each seat
+     * @return the sum of the overlaps of each pair of neighbours
+     */
+    public long cost(final int[][] neighbours, final int[] assignment) {
+        long cost = 0L;
+        for (int seat = 0; seat < neighbours.length; seat++) {
+            for (final int neighbour : neighbours[seat]) {
+                if (seat < neighbour)
+                    cost += this.overlap(assignment[seat], assignment[neighbour]);
+            }
+        }
+        return cost;
+    }
+
+    /**
+     * Finds the variant that overlaps the least with the variants of the
+     * assigned neighbours of a seat, preferring the least used variants and
+     * then the current one.
+     * @param seat The position of the seat
+     * @param neighbours The positions of the seats adjacent to each seat
+     * @param assignment The variant assigned to each seat, or -1
+     * @param usage The number of seats assigned to each variant
+     * @param current The variant currently assigned to the seat, or -1
+     * @return the position of a variant
+     */
+    private int best(final int seat, final int[][] neighbours,
+        final int[] assignment, final int[] usage, final int current) {
+        int best = -1;
+        long lowest = Long.MAX_VALUE;
+        int least = Integer.MAX_VALUE;
+        for (int variant = 0; variant < this.overlaps.length; variant++) {
+            final long cost = this.cost(seat, variant, neighbours, assignment);
+            // The usage of the variant without this seat
+            final int used = variant == current ? usage[variant] - 1 : usage[variant];
+            if (cost < lowest || cost == lowest
+                && (used < least || used == least && variant == current)) {
+                lowest = cost;
+                least = used;
+                best = variant;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * The overlap of a variant with the variants of the assigned neighbours
+     * of a seat.
+     * @param seat The position of the seat
+     * @param variant The position of the variant
+     * @param neighbours The positions of the seats adjacent to each seat
+     * @param assignment The variant assigned to each seat, or -1
+     * @return the sum of the overlaps
+     */
+    private long cost(final int seat, final int variant,
+        final int[][] neighbours, final int[] assignment) {
+        long cost = 0L;
+        for (final int neighbour : neighbours[seat]) {
+            if (neighbour != seat && assignment[neighbour] >= 0)
+                cost += this.overlap(variant, assignment[neighbour]);
+        }
+        return cost;
+    }
+
+}
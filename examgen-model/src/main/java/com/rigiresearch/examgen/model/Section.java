@@ -22,6 +22,7 @@
 package com.rigiresearch.examgen.model;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 
@@ -34,6 +35,7 @@ import lombok.experimental.Accessors;
  */
 @Accessors(fluent = true)
 @AllArgsConstructor
+@EqualsAndHashCode
 @Getter
 public final class Section {
 
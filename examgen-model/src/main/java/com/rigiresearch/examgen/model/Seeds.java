@@ -0,0 +1,85 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+/**
+ * Utility methods to derive independent seeds from a root seed and stable
+ * keys, such as section names and question contents. Derived seeds depend
+ * only on their keys, not on the order or thread in which they are computed.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class Seeds {
+
+    /**
+     * The golden ratio increment used by {@link java.util.SplittableRandom}.
+     */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Utility class.
+     */
+    private Seeds() {
+    }
+
+    /**
+     * Derives a seed.
+     * @param seed The parent seed
+     * @param key The key distinguishing the derived seed from its siblings
+     * @return a seed
+     */
+    static long derive(final long seed, final long key) {
+        return Seeds.mix(seed ^ Seeds.mix(key + Seeds.GOLDEN_GAMMA));
+    }
+
+    /**
+     * Derives a seed from a text key.
+     * @param seed The parent seed
+     * @param key The key distinguishing the derived seed from its siblings
+     * @return a seed
+     */
+    static long derive(final long seed, final String key) {
+        // 64-bit FNV-1a
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Seeds.derive(seed, hash);
+    }
+
+    /**
+     * Scrambles the bits of a number, as {@link java.util.SplittableRandom}
+     * does to produce its values (MurmurHash3's finalizer, variant 13).
+     * @param value The number
+     * @return a uniformly distributed number
+     */
+    static long mix(final long value) {
+        long z = value;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Constraints on the questions selected for each variant of an examination.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor
+@EqualsAndHashCode
+@Getter
+public final class Selection implements Serializable {
+
+    /**
+     * No constraints.
+     */
+    public static final Selection NONE =
+        new Selection(0, Integer.MAX_VALUE, Collections.emptyMap());
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 2935390571180745313L;
+
+    /**
+     * The minimum number of points of each variant.
+     */
+    private final int minimumPoints;
+
+    /**
+     * The maximum number of points of each variant.
+     */
+    private final int maximumPoints;
+
+    /**
+     * The number of questions of each type (see {@link Question#type()}).
+     */
+    private final Map<String, Integer> types;
+
+    /**
+     * The minimum number of questions with each tag (see
+     * {@link Metadata#tags()}).
+     */
+    private final Map<String, Integer> tags;
+
+    /**
+     * The minimum number of questions on each topic (see
+     * {@link Metadata#topic()}).
+     */
+    private final Map<String, Integer> topics;
+
+    /**
+     * The query that the questions must match.
+     */
+    private final Query query;
+
+    /**
+     * Constructor without a query, so that any question can be selected.
+     * @param minimumPoints The minimum number of points of each variant
+     * @param maximumPoints The maximum number of points of each variant
+     * @param types The number of questions of each type
+     */
+    public Selection(final int minimumPoints, final int maximumPoints,
+        final Map<String, Integer> types) {
+        this(minimumPoints, maximumPoints, types, Query.ALL);
+    }
+
+    /**
+     * Constructor without coverage constraints on tags and topics.
+     * @param minimumPoints The minimum number of points of each variant
+     * @param maximumPoints The maximum number of points of each variant
+     * @param types The number of questions of each type
+     * @param query The query that the questions must match
+     */
+    public Selection(final int minimumPoints, final int maximumPoints,
+        final Map<String, Integer> types, final Query query) {
+        this(
+            minimumPoints,
+            maximumPoints,
+            types,
+            Collections.emptyMap(),
+            Collections.emptyMap(),
+            query
+        );
+    }
+
+    /**
+     * Whether this selection constrains the points or the number of
+     * questions of some kind.
+     * @return whether a {@link Selector} is needed
+     */
+    boolean constrained() {
+        return this.minimumPoints != Selection.NONE.minimumPoints
+            || this.maximumPoints != Selection.NONE.maximumPoints
+            || !this.types.isEmpty()
+            || !this.tags.isEmpty()
+            || !this.topics.isEmpty();
+    }
+
+}
@@ -0,0 +1,725 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Selects the questions of a variant subject to a {@link Selection}.
+ * <p>
+ * Each constraint on the number of questions of a type, with a tag or on a
+ * topic is a requirement, and each question contributes to its requirements
+ * through a bitmask. Questions are first picked greedily in the order of
+ * their ranks, skipping those that would make the constraints
+ * unsatisfiable, and the selection is then repaired by swapping questions
+ * until all constraints hold. Swaps are chosen among groups of
+ * interchangeable questions (same points and same requirements), so each
+ * repair step is independent of the bank size. When no single swap
+ * improves the selection, two questions are swapped at once. The result
+ * depends only on the ranks.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class Selector {
+
+    /**
+     * The constraints.
+     */
+    private final Selection selection;
+
+    /**
+     * The points of each question.
+     */
+    private final int[] points;
+
+    /**
+     * The requirements to which each question contributes, one bit each.
+     */
+    private final long[] masks;
+
+    /**
+     * A description of each requirement.
+     */
+    private final String[] names;
+
+    /**
+     * The minimum number of questions of each requirement.
+     */
+    private final int[] minimum;
+
+    /**
+     * The maximum number of questions of each requirement.
+     */
+    private final int[] maximum;
+
+    /**
+     * The number of questions contributing to each requirement.
+     */
+    private final int[] available;
+
+    /**
+     * The group of interchangeable questions of each question.
+     */
+    private final int[] groups;
+
+    /**
+     * The number of questions in each group.
+     */
+    private final int[] sizes;
+
+    /**
+     * The number of questions that can cover the type requirements, which
+     * no question shares.
+     */
+    private final int typed;
+
+    /**
+     * The number of questions that can cover the topic requirements, which
+     * no question shares.
+     */
+    private final int topical;
+
+    /**
+     * The minimum points of a question.
+     */
+    private final int lowest;
+
+    /**
+     * The maximum points of a question.
+     */
+    private final int highest;
+
+    /**
+     * Default constructor.
+     * @param questions The questions to select from
+     * @param selection The constraints
+     */
+    Selector(final List<Question> questions, final Selection selection) {
+        this.selection = selection;
+        final int size = selection.types().size() + selection.tags().size()
+            + selection.topics().size();
+        if (size > Long.SIZE)
+            throw new IllegalArgumentException("Too many selection constraints");
+        this.names = new String[size];
+        this.minimum = new int[size];
+        this.maximum = new int[size];
+        this.available = new int[size];
+        final Map<String, Integer> types = this.requirements(
+            selection.types(), "%s questions", true, 0
+        );
+        final Map<String, Integer> tags = this.requirements(
+            selection.tags(), "questions tagged %s", false, types.size()
+        );
+        final Map<String, Integer> topics = this.requirements(
+            selection.topics(), "questions on %s", false, types.size() + tags.size()
+        );
+        this.typed = selection.types().values().stream()
+            .mapToInt(Integer::intValue).sum();
+        this.topical = selection.topics().values().stream()
+            .mapToInt(Integer::intValue).sum();
+        this.points = new int[questions.size()];
+        this.masks = new long[questions.size()];
+        this.groups = new int[questions.size()];
+        final Map<List<Long>, Integer> groups = new HashMap<>();
+        final List<Integer> sizes = new ArrayList<>();
+        int lowest = Integer.MAX_VALUE;
+        int highest = 0;
+        for (int i = 0; i < questions.size(); i++) {
+            final Question question = questions.get(i);
+            final Metadata metadata = question.metadata();
+            this.points[i] = question.points();
+            long mask = Selector.bit(types, question.type());
+            for (final String tag : metadata.tags())
+                mask |= Selector.bit(tags, tag);
+            mask |= Selector.bit(topics, metadata.topic());
+            this.masks[i] = mask;
+            while (mask != 0L) {
+                this.available[Long.numberOfTrailingZeros(mask)]++;
+                mask &= mask - 1L;
+            }
+            final List<Long> key = new ArrayList<>(2);
+            key.add(this.masks[i]);
+            key.add((long) this.points[i]);
+            final Integer group = groups.computeIfAbsent(key, k -> groups.size());
+            if (group == sizes.size())
+                sizes.add(0);
+            sizes.set(group, sizes.get(group) + 1);
+            this.groups[i] = group;
+            lowest = Math.min(lowest, this.points[i]);
+            highest = Math.max(highest, this.points[i]);
+        }
+        this.sizes = sizes.stream().mapToInt(Integer::intValue).toArray();
+        this.lowest = lowest;
+        this.highest = highest;
+    }
+
+    /**
+     * Registers a kind of requirement.
+     * @param counts The number of questions required by each key
+     * @param name The format of the description of each requirement
+     * @param exact Whether the number of questions is also a maximum
+     * @param first The index of the first requirement of this kind
+     * @return the index of each requirement, by key
+     */
+    private Map<String, Integer> requirements(final Map<String, Integer> counts,
+        final String name, final boolean exact, final int first) {
+        final Map<String, Integer> requirements = new HashMap<>();
+        for (final Map.Entry<String, Integer> entry : new TreeMap<>(counts).entrySet()) {
+            final int requirement = first + requirements.size();
+            requirements.put(entry.getKey(), requirement);
+            this.names[requirement] = String.format(name, entry.getKey());
+            this.minimum[requirement] = entry.getValue();
+            this.maximum[requirement] = exact ? entry.getValue() : Integer.MAX_VALUE;
+        }
+        return requirements;
+    }
+
+    /**
+     * The bit of a requirement.
+     * @param requirements The index of each requirement, by key
+     * @param key The key, possibly null
+     * @return a mask with the requirement's bit, or zero if there is none
+     */
+    private static long bit(final Map<String, Integer> requirements,
+        final String key) {
+        final Integer requirement = key == null ? null : requirements.get(key);
+        return requirement == null ? 0L : 1L << requirement;
+    }
+
+    /**
+     * Selects questions.
+     * @param ranks The rank of each question
+     * @param limit The number of questions to select
+     * @return the positions of the selected questions, in the order of their
+     *  ranks
+     * @throws IllegalArgumentException If the constraints cannot be satisfied
+     */
+    int[] select(final long[] ranks, final int limit) {
+        this.check(limit);
+        final int[] order = Permutation.lowest(ranks, ranks.length);
+        final State state = new State(limit);
+        state.greedy(order);
+        state.repair(order);
+        final int[] selected = new int[limit];
+        int size = 0;
+        for (final int position : order) {
+            if (state.chosen[position])
+                selected[size++] = position;
+        }
+        return selected;
+    }
+
+    /**
+     * Checks that the requirements fit the number of questions.
+     * @param limit The number of questions to select
+     * @throws IllegalArgumentException If the constraints cannot be satisfied
+     */
+    private void check(final int limit) {
+        for (int r = 0; r < this.minimum.length; r++) {
+            if (this.available[r] < this.minimum[r]) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Selection requires %d %s but there are %d",
+                        this.minimum[r],
+                        this.names[r],
+                        this.available[r]
+                    )
+                );
+            }
+        }
+        // Tags overlap, so only types and topics add up
+        final int required = Math.max(this.typed, this.topical);
+        if (required > limit) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Selection requires %d questions but the limit is %d",
+                    required,
+                    limit
+                )
+            );
+        }
+        for (int r = 0; r < this.minimum.length; r++) {
+            if (this.minimum[r] > limit) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Selection requires %d %s but the limit is %d",
+                        this.minimum[r],
+                        this.names[r],
+                        limit
+                    )
+                );
+            }
+        }
+    }
+
+    /**
+     * The questions selected so far.
+     */
+    private final class State {
+
+        /**
+         * The number of questions to select.
+         */
+        private final int limit;
+
+        /**
+         * Whether each question is selected.
+         */
+        private final boolean[] chosen = new boolean[Selector.this.points.length];
+
+        /**
+         * The number of selected questions of each requirement.
+         */
+        private final int[] counts = new int[Selector.this.minimum.length];
+
+        /**
+         * The number of selected questions of each group.
+         */
+        private final int[] taken = new int[Selector.this.sizes.length];
+
+        /**
+         * The number of selected questions.
+         */
+        private int size;
+
+        /**
+         * The total points of the selected questions.
+         */
+        private long total;
+
+        /**
+         * Default constructor.
+         * @param limit The number of questions to select
+         */
+        State(final int limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Picks questions in the given order, skipping those that would
+         * exceed a requirement or make the points or the remaining
+         * requirements unreachable. If too few questions are picked, the
+         * points are ignored in a second pass.
+         * @param order The positions of the questions, by rank
+         */
+        void greedy(final int[] order) {
+            for (final int position : order) {
+                if (this.size == this.limit)
+                    return;
+                final int slots = this.limit - this.size - 1;
+                final long after = this.total + Selector.this.points[position];
+                if (this.admissible(position)
+                    && this.deficit(Selector.this.masks[position]) <= slots
+                    && after + (long) slots * Selector.this.lowest
+                        <= Selector.this.selection.maximumPoints()
+                    && after + (long) slots * Selector.this.highest
+                        >= Selector.this.selection.minimumPoints())
+                    this.choose(position, true);
+            }
+            for (final int position : order) {
+                if (this.size == this.limit)
+                    return;
+                if (!this.chosen[position] && this.admissible(position))
+                    this.choose(position, true);
+            }
+            if (this.size < this.limit) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Cannot select %d questions: %s",
+                        this.limit,
+                        this.problems()
+                    )
+                );
+            }
+        }
+
+        /**
+         * Swaps selected questions with unselected ones, choosing each time
+         * the swap that most reduces the violation of the constraints. When
+         * no single swap reduces it, the best swap of two questions at once
+         * is taken instead. Every swap strictly reduces the violation, so
+         * the number of swaps is bounded.
+         * @param order The positions of the questions, by rank
+         */
+        void repair(final int[] order) {
+            final Members members = new Members(order);
+            final int[] picks = new int[this.limit];
+            int size = 0;
+            for (final int position : order) {
+                if (this.chosen[position])
+                    picks[size++] = position;
+            }
+            long violations = this.violations(0L, 0L);
+            long distance = this.distance(this.total);
+            while (violations > 0 || distance > 0) {
+                int out = -1;
+                int in = -1;
+                for (int p = 0; p < picks.length; p++) {
+                    final int position = picks[p];
+                    for (int g = 0; g < Selector.this.sizes.length; g++) {
+                        if (g == Selector.this.groups[position]
+                            || this.taken[g] == Selector.this.sizes[g])
+                            continue;
+                        final int candidate = members.first(g);
+                        final long v = this.violations(
+                            Selector.this.masks[position],
+                            Selector.this.masks[candidate]
+                        );
+                        final long d = this.distance(
+                            this.total
+                                - Selector.this.points[position]
+                                + Selector.this.points[candidate]
+                        );
+                        if (v < violations || v == violations && d < distance) {
+                            violations = v;
+                            distance = d;
+                            out = p;
+                            in = g;
+                        }
+                    }
+                }
+                if (out >= 0) {
+                    this.choose(picks[out], false);
+                    members.release(picks[out]);
+                    picks[out] = members.next(in, this.chosen);
+                    this.choose(picks[out], true);
+                    continue;
+                }
+                final int[] pair = this.pair(picks, members, violations, distance);
+                if (pair == null) {
+                    throw new IllegalArgumentException(
+                        String.format(
+                            "Cannot select %d questions: %s",
+                            this.limit,
+                            this.problems()
+                        )
+                    );
+                }
+                this.choose(picks[pair[0]], false);
+                this.choose(picks[pair[1]], false);
+                members.release(picks[pair[0]]);
+                members.release(picks[pair[1]]);
+                picks[pair[0]] = members.next(pair[2], this.chosen);
+                this.choose(picks[pair[0]], true);
+                picks[pair[1]] = members.next(pair[3], this.chosen);
+                this.choose(picks[pair[1]], true);
+                violations = this.violations(0L, 0L);
+                distance = this.distance(this.total);
+            }
+        }
+
+        /**
+         * Finds the best swap of two selected questions with two unselected
+         * ones from other groups. Only the first two selected questions of
+         * each group are considered, since the others are interchangeable.
+         * @param picks The selected questions
+         * @param members The unselected questions of each group
+         * @param violations The current violation of the requirements
+         * @param distance The current distance to the allowed points
+         * @return the two picks to deselect and the two groups to select
+         *  from, or null if no pair of swaps reduces the violation
+         */
+        private int[] pair(final int[] picks, final Members members,
+            final long violations, final long distance) {
+            final int[] seen = new int[Selector.this.sizes.length];
+            final int[] outs = new int[picks.length];
+            int size = 0;
+            for (int p = 0; p < picks.length; p++) {
+                if (seen[Selector.this.groups[picks[p]]]++ < 2)
+                    outs[size++] = p;
+            }
+            long bestViolations = violations;
+            long bestDistance = distance;
+            int[] best = null;
+            for (int i = 0; i < size; i++) {
+                final int first = picks[outs[i]];
+                for (int j = i + 1; j < size; j++) {
+                    final int second = picks[outs[j]];
+                    final long removed = Selector.this.masks[first];
+                    final long removedAlso = Selector.this.masks[second];
+                    final long points = this.total - Selector.this.points[first]
+                        - Selector.this.points[second];
+                    for (int g = 0; g < Selector.this.sizes.length; g++) {
+                        if (!this.swappable(g, first, second, 1))
+                            continue;
+                        final int candidate = members.first(g);
+                        for (int h = g; h < Selector.this.sizes.length; h++) {
+                            if (!this.swappable(h, first, second, g == h ? 2 : 1))
+                                continue;
+                            final int other = members.first(h);
+                            final long v = this.violations(
+                                removed,
+                                removedAlso,
+                                Selector.this.masks[candidate],
+                                Selector.this.masks[other]
+                            );
+                            final long d = this.distance(
+                                points
+                                    + Selector.this.points[candidate]
+                                    + Selector.this.points[other]
+                            );
+                            if (v < bestViolations
+                                || v == bestViolations && d < bestDistance) {
+                                bestViolations = v;
+                                bestDistance = d;
+                                best = new int[] {outs[i], outs[j], g, h};
+                            }
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Whether questions of a group can replace two selected questions.
+         * @param group The group
+         * @param first The first selected question
+         * @param second The second selected question
+         * @param needed The number of questions needed from the group
+         * @return whether the group is neither of theirs and has enough
+         *  unselected questions
+         */
+        private boolean swappable(final int group, final int first,
+            final int second, final int needed) {
+            return group != Selector.this.groups[first]
+                && group != Selector.this.groups[second]
+                && Selector.this.sizes[group] - this.taken[group] >= needed;
+        }
+
+        /**
+         * Selects or deselects a question.
+         * @param position The position of the question
+         * @param chosen Whether to select the question
+         */
+        private void choose(final int position, final boolean chosen) {
+            final int sign = chosen ? 1 : -1;
+            this.chosen[position] = chosen;
+            this.size += sign;
+            this.total += sign * Selector.this.points[position];
+            this.taken[Selector.this.groups[position]] += sign;
+            long mask = Selector.this.masks[position];
+            while (mask != 0L) {
+                this.counts[Long.numberOfTrailingZeros(mask)] += sign;
+                mask &= mask - 1L;
+            }
+        }
+
+        /**
+         * Whether a question can be selected without exceeding a
+         * requirement.
+         * @param position The position of the question
+         * @return whether all its requirements are below their maximum
+         */
+        private boolean admissible(final int position) {
+            long mask = Selector.this.masks[position];
+            while (mask != 0L) {
+                final int r = Long.numberOfTrailingZeros(mask);
+                if (this.counts[r] >= Selector.this.maximum[r])
+                    return false;
+                mask &= mask - 1L;
+            }
+            return true;
+        }
+
+        /**
+         * The number of questions still missing to meet the minimums, after
+         * selecting a question.
+         * @param mask The requirements of the question
+         * @return the sum of the missing questions of each requirement
+         */
+        private int deficit(final long mask) {
+            int deficit = 0;
+            for (int r = 0; r < this.counts.length; r++) {
+                final int count = this.counts[r] + (int) (mask >>> r & 1L);
+                deficit += Math.max(0, Selector.this.minimum[r] - count);
+            }
+            return deficit;
+        }
+
+        /**
+         * The violation of the requirements after swapping two questions.
+         * @param removed The requirements of the deselected question
+         * @param added The requirements of the selected question
+         * @return the number of missing or exceeding questions
+         */
+        private long violations(final long removed, final long added) {
+            return this.violations(removed, 0L, added, 0L);
+        }
+
+        /**
+         * The violation of the requirements after swapping two pairs of
+         * questions.
+         * @param removed The requirements of a deselected question
+         * @param removedAlso The requirements of the other deselected question
+         * @param added The requirements of a selected question
+         * @param addedAlso The requirements of the other selected question
+         * @return the number of missing or exceeding questions
+         */
+        private long violations(final long removed, final long removedAlso,
+            final long added, final long addedAlso) {
+            long violations = 0L;
+            for (int r = 0; r < this.counts.length; r++) {
+                final int count = this.counts[r]
+                    - (int) (removed >>> r & 1L)
+                    - (int) (removedAlso >>> r & 1L)
+                    + (int) (added >>> r & 1L)
+                    + (int) (addedAlso >>> r & 1L);
+                violations += Math.max(0, Selector.this.minimum[r] - count)
+                    + Math.max(0, count - Selector.this.maximum[r]);
+            }
+            return violations;
+        }
+
+        /**
+         * The distance of a total to the allowed points.
+         * @param total The total points
+         * @return zero if the total is allowed
+         */
+        private long distance(final long total) {
+            return Math.max(
+                0L,
+                Math.max(
+                    Selector.this.selection.minimumPoints() - total,
+                    total - Selector.this.selection.maximumPoints()
+                )
+            );
+        }
+
+        /**
+         * Describes the constraints that do not hold.
+         * @return a description
+         */
+        private String problems() {
+            final List<String> problems = new ArrayList<>();
+            if (this.size < this.limit)
+                problems.add(String.format("only %d questions fit", this.size));
+            for (int r = 0; r < this.counts.length; r++) {
+                if (this.counts[r] < Selector.this.minimum[r]
+                    || this.counts[r] > Selector.this.maximum[r]) {
+                    problems.add(
+                        String.format(
+                            "%d of %s%d %s",
+                            this.counts[r],
+                            Selector.this.minimum[r] == Selector.this.maximum[r]
+                                ? "" : "at least ",
+                            Selector.this.minimum[r],
+                            Selector.this.names[r]
+                        )
+                    );
+                }
+            }
+            if (this.distance(this.total) > 0) {
+                problems.add(
+                    String.format(
+                        "%d points, expected %d to %d",
+                        this.total,
+                        Selector.this.selection.minimumPoints(),
+                        Selector.this.selection.maximumPoints()
+                    )
+                );
+            }
+            return String.join(", ", problems);
+        }
+
+    }
+
+    /**
+     * The questions of each group, by rank, with a cursor on the first one
+     * that may be unselected.
+     */
+    private final class Members {
+
+        /**
+         * The questions of each group, by rank.
+         */
+        private final int[][] members;
+
+        /**
+         * The position of each question within its group.
+         */
+        private final int[] slots;
+
+        /**
+         * The first position of each group that may be unselected.
+         */
+        private final int[] cursors;
+
+        /**
+         * Default constructor.
+         * @param order The positions of the questions, by rank
+         */
+        Members(final int[] order) {
+            this.members = new int[Selector.this.sizes.length][];
+            this.slots = new int[order.length];
+            this.cursors = new int[this.members.length];
+            final int[] filled = new int[this.members.length];
+            for (int g = 0; g < this.members.length; g++)
+                this.members[g] = new int[Selector.this.sizes[g]];
+            for (final int position : order) {
+                final int group = Selector.this.groups[position];
+                this.slots[position] = filled[group];
+                this.members[group][filled[group]++] = position;
+            }
+        }
+
+        /**
+         * Any question of a group, to read the points and requirements
+         * shared by the whole group.
+         * @param group The group
+         * @return the position of the question
+         */
+        int first(final int group) {
+            return this.members[group][0];
+        }
+
+        /**
+         * The highest-ranked unselected question of a group.
+         * @param group The group, which must have an unselected question
+         * @param chosen Whether each question is selected
+         * @return the position of the question
+         */
+        int next(final int group, final boolean[] chosen) {
+            while (chosen[this.members[group][this.cursors[group]]])
+                this.cursors[group]++;
+            return this.members[group][this.cursors[group]];
+        }
+
+        /**
+         * Moves the cursor of a group back to a question that has just been
+         * deselected, if it is ranked higher than the cursor.
+         * @param position The position of the question
+         */
+        void release(final int position) {
+            final int group = Selector.this.groups[position];
+            this.cursors[group] = Math.min(this.cursors[group], this.slots[position]);
+        }
+
+    }
+
+}
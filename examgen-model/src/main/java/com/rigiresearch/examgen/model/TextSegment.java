@@ -22,9 +22,11 @@
 package com.rigiresearch.examgen.model;
 
 import java.io.Serializable;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 
 /**
  * A text segment.
@@ -93,19 +95,50 @@ public interface TextSegment extends Serializable {
     public List<Style> styles();
 
     /**
-     * A simple text segment.
+     * A structural content hash of this segment, computed once.
+     * @return a fingerprint of the text and styles
+     */
+    public Fingerprint fingerprint();
+
+    /**
+     * A simple text segment. Styles are stored as a bit mask (one bit per
+     * style ordinal) and reported in declaration order, which is the order
+     * in which nested styles are applied.
      * @author Miguel Jimenez (miguel@uvic.ca)
      * @date 2017-08-19
      * @version $Id$
      * @since 0.0.1
      */
-    @AllArgsConstructor
+    @EqualsAndHashCode
     public final class Simple implements TextSegment {
 
         /**
          * Serial version UID.
          */
-        private static final long serialVersionUID = 7350376731414050519L;
+        private static final long serialVersionUID = 5326190845123472371L;
+
+        /**
+         * The styles, indexed by ordinal.
+         */
+        private static final Style[] STYLES = Style.values();
+
+        /**
+         * The unmodifiable list of styles corresponding to each bit mask.
+         */
+        private static final List<List<Style>> LISTS;
+
+        static {
+            final List<List<Style>> lists = new ArrayList<>(1 << STYLES.length);
+            for (int mask = 0; mask < 1 << STYLES.length; mask++) {
+                final List<Style> styles = new ArrayList<>(Integer.bitCount(mask));
+                for (final Style style : STYLES) {
+                    if ((mask & 1 << style.ordinal()) != 0)
+                        styles.add(style);
+                }
+                lists.add(Collections.unmodifiableList(styles));
+            }
+            LISTS = Collections.unmodifiableList(lists);
+        }
 
         /**
          * This segment's value.
@@ -113,16 +146,77 @@ public interface TextSegment extends Serializable {
         private final String text;
 
         /**
-         * This segment's formatting styles.
+         * This segment's formatting styles, as a bit mask.
          */
-        private final List<Style> styles;
+        private final int mask;
+
+        /**
+         * The fingerprint, computed on first use.
+         */
+        private transient volatile Fingerprint fingerprint;
 
         /**
          * Instantiates a text segment assuming inherited style.
          * @param text the text value
          */
         public Simple(final String text) {
-            this(text, Arrays.asList(Style.INHERIT));
+            this(text, 1 << Style.INHERIT.ordinal());
+        }
+
+        /**
+         * Instantiates a text segment. Repeated styles are kept once.
+         * @param text the text value
+         * @param styles the formatting styles
+         */
+        public Simple(final String text, final Collection<Style> styles) {
+            this(text, Simple.mask(styles));
+        }
+
+        /**
+         * Instantiates a text segment.
+         * @param text the text value
+         * @param mask the formatting styles, as a bit mask
+         */
+        Simple(final String text, final int mask) {
+            this.text = text;
+            this.mask = mask;
+        }
+
+        /**
+         * Computes the bit mask of a collection of styles.
+         * @param styles the styles
+         * @return a bit mask with one bit per style ordinal
+         */
+        static int mask(final Collection<Style> styles) {
+            int mask = 0;
+            for (final Style style : styles)
+                mask |= 1 << style.ordinal();
+            return mask;
+        }
+
+        /**
+         * The shared list of styles corresponding to a bit mask.
+         * @param mask the bit mask
+         * @return an unmodifiable list of styles, in declaration order
+         */
+        static List<Style> styles(final int mask) {
+            return Simple.LISTS.get(mask);
+        }
+
+        /**
+         * Computes the fingerprint of a simple segment.
+         * @param text the text containing the segment
+         * @param start the start offset of the segment, inclusive
+         * @param end the end offset of the segment, exclusive
+         * @param mask the formatting styles, as a bit mask
+         * @return a fingerprint
+         */
+        static Fingerprint fingerprint(final CharSequence text, final int start,
+            final int end, final int mask) {
+            return new Fingerprint.Hasher("text")
+                .put(mask)
+                .put(text, start, end)
+                .fingerprint();
         }
 
         /* (non-Javadoc)
@@ -139,7 +233,21 @@ public interface TextSegment extends Serializable {
          */
         @Override
         public List<Style> styles() {
-            return this.styles;
+            return Simple.styles(this.mask);
+        }
+
+        /*
+         * (non-Javadoc)
+         * @see com.rigiresearch.examgen.model.TextSegment#fingerprint()
+         */
+        @Override
+        public Fingerprint fingerprint() {
+            Fingerprint result = this.fingerprint;
+            if (result == null) {
+                result = Simple.fingerprint(this.text, 0, this.text.length(), this.mask);
+                this.fingerprint = result;
+            }
+            return result;
         }
 
         /*
@@ -150,7 +258,7 @@ public interface TextSegment extends Serializable {
         public String toString() {
             return String.format(
                 "(%s %s)",
-                this.styles,
+                this.styles(),
                 this.text
             );
         }
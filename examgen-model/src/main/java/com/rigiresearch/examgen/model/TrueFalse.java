@@ -23,8 +23,9 @@ package com.rigiresearch.examgen.model;
 
 import java.util.Collections;
 import java.util.List;
-import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.Accessors;
 
 /**
@@ -35,8 +36,9 @@ import lombok.experimental.Accessors;
  * @since 0.0.1
  */
 @Accessors(fluent = true)
-@AllArgsConstructor
+@EqualsAndHashCode(exclude = "metadata")
 @Getter
+@RequiredArgsConstructor
 public final class TrueFalse implements Question {
 
     /**
@@ -44,6 +46,11 @@ public final class TrueFalse implements Question {
      */
     private static final long serialVersionUID = 7722722003013311974L;
 
+    /**
+     * The name of this type of question.
+     */
+    public static final String TYPE = "true-false";
+
     /**
      * This question's statement.
      */
@@ -59,6 +66,35 @@ public final class TrueFalse implements Question {
      */
     private final int points;
 
+    /**
+     * Information about this question that is not part of its content.
+     */
+    private final Metadata metadata;
+
+    /**
+     * The fingerprint, computed on first use.
+     */
+    private transient volatile Fingerprint fingerprint;
+
+    /**
+     * Instantiates a question without metadata.
+     * @param statement This question's statement
+     * @param answer The answer to this question
+     * @param points The number of points assigned to this question
+     */
+    public TrueFalse(final TextSegment statement, final boolean answer,
+        final int points) {
+        this(statement, answer, points, Metadata.NONE);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#type()
+     */
+    @Override
+    public String type() {
+        return TrueFalse.TYPE;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.examgen.model.Question#header()
      */
@@ -91,6 +127,23 @@ public final class TrueFalse implements Question {
         return this.points;
     }
 
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#fingerprint()
+     */
+    @Override
+    public Fingerprint fingerprint() {
+        Fingerprint result = this.fingerprint;
+        if (result == null) {
+            result = new Fingerprint.Hasher(TrueFalse.TYPE)
+                .put(this.statement.fingerprint())
+                .put(this.answer)
+                .put(this.points)
+                .fingerprint();
+            this.fingerprint = result;
+        }
+        return result;
+    }
+
     /* (non-Javadoc)
      * @see com.rigiresearch.examgen.model.Question#scrambled(long)
      */
@@ -99,8 +152,25 @@ public final class TrueFalse implements Question {
         return new TrueFalse(
             this.statement,
             this.answer,
-            this.points
+            this.points,
+            this.metadata
         );
     }
 
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordering(long)
+     */
+    @Override
+    public int[] ordering(final long seed) {
+        return Permutation.NONE;
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordered(int[])
+     */
+    @Override
+    public Question ordered(final int[] ordering) {
+        return this;
+    }
+
 }
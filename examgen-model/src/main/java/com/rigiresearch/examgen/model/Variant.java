@@ -0,0 +1,167 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.model;
+
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * A variant of an examination, represented by the positions of its questions
+ * in the original examination and by the ordering of each question's parts.
+ * Questions are arranged only when they are accessed, so a variant takes a few
+ * arrays of integers instead of a copy of its questions.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+public final class Variant implements Serializable {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -2409335361766938127L;
+
+    /**
+     * The examination containing the questions.
+     */
+    @Getter
+    private final Examination origin;
+
+    /**
+     * The section for which this variant is intended.
+     */
+    @Getter
+    private final Object section;
+
+    /**
+     * The position of each question in the original examination.
+     */
+    private final int[] questions;
+
+    /**
+     * The ordering of each question's parts.
+     */
+    private final int[][] orderings;
+
+    /**
+     * Default constructor.
+     * @param origin The examination containing the questions
+     * @param section The section for which this variant is intended
+     * @param questions The position of each question in the examination
+     * @param orderings The ordering of each question's parts
+     */
+    Variant(final Examination origin, final Object section,
+        final int[] questions, final int[][] orderings) {
+        this.origin = origin;
+        this.section = section;
+        this.questions = questions;
+        this.orderings = orderings;
+    }
+
+    /**
+     * The number of questions in this variant.
+     * @return a non-negative number
+     */
+    public int size() {
+        return this.questions.length;
+    }
+
+    /**
+     * The position of a question in the original examination.
+     * @param index The position of the question in this variant
+     * @return a position in {@link #origin()}
+     */
+    int position(final int index) {
+        return this.questions[index];
+    }
+
+    /**
+     * The ordering of a question's parts.
+     * @param index The position of the question in this variant
+     * @return an ordering created by {@link Question#ordering(long)}
+     */
+    int[] ordering(final int index) {
+        return this.orderings[index];
+    }
+
+    /**
+     * A question of this variant, with its parts arranged.
+     * @param index The position of the question in this variant
+     * @return a view of the original question
+     */
+    public Question question(final int index) {
+        return this.origin.questions()
+            .get(this.questions[index])
+            .ordered(this.orderings[index]);
+    }
+
+    /**
+     * This variant as an examination, whose parameters include the section
+     * and whose questions are arranged on access.
+     * @return an examination sharing the original questions
+     */
+    public Examination examination() {
+        final Map<Parameter, Object> parameters = new EnumMap<>(Parameter.class);
+        parameters.putAll(this.origin.parameters());
+        parameters.put(Parameter.SECTIONS, this.section);
+        return new Examination(parameters, new Questions(), Selection.NONE, false);
+    }
+
+    /**
+     * An unmodifiable view of the questions of this variant.
+     */
+    private final class Questions extends AbstractList<Question>
+        implements RandomAccess, Serializable {
+
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 6398204957616014893L;
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractList#get(int)
+         */
+        @Override
+        public Question get(final int index) {
+            return Variant.this.question(index);
+        }
+
+        /* (non-Javadoc)
+         * @see java.util.AbstractCollection#size()
+         */
+        @Override
+        public int size() {
+            return Variant.this.size();
+        }
+
+    }
+
+}
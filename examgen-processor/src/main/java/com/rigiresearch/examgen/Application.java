@@ -24,8 +24,26 @@ package com.rigiresearch.examgen;
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.ParameterException;
+import com.rigiresearch.examgen.io.AnswerKeys;
 import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.io.Grader;
+import com.rigiresearch.examgen.io.Grades;
+import com.rigiresearch.examgen.io.InputFiles;
+import com.rigiresearch.examgen.io.ItemAnalysis;
 import com.rigiresearch.examgen.io.LatexProcessor;
+import com.rigiresearch.examgen.io.Responses;
+import com.rigiresearch.examgen.io.Roster;
+import com.rigiresearch.examgen.io.SeatMap;
+import com.rigiresearch.examgen.io.SnapshotCache;
+import com.rigiresearch.examgen.model.AnswerKey;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Seating;
+import com.rigiresearch.examgen.model.Section;
+import com.rigiresearch.examgen.model.Student;
+import com.rigiresearch.examgen.model.Variant;
+import com.rigiresearch.examgen.templates.FragmentCache;
+import com.rigiresearch.examgen.templates.Template;
+import com.rigiresearch.examgen.templates.Templates;
 import com.rigiresearch.examgen.templates.WritableExamination;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -42,9 +60,19 @@ import org.springframework.context.annotation.Import;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Main program.
@@ -66,6 +94,9 @@ public class Application implements Runnable {
     @Autowired
     private ExaminationParser examinationParser;
 
+    @Autowired
+    private SnapshotCache snapshotCache;
+
     @Autowired
     private JCommander jc;
 
@@ -74,7 +105,7 @@ public class Application implements Runnable {
 
     @Parameter(
         names = {"--input", "-i"},
-        description = "The YAML file",
+        description = "The YAML file, a directory or a glob pattern (e.g., 'banks/*.yaml')",
         required = true,
         order = 1
     )
@@ -90,7 +121,7 @@ public class Application implements Runnable {
 
     @Parameter(
         names = {"--template", "-t"},
-        description = "The target template",
+        description = "The target template (LATEX_QUIZ, LATEX_MIDTERM, MOODLE_QUIZ, or one added by a plugin)",
         required = false,
         order = 3
     )
@@ -117,13 +148,96 @@ public class Application implements Runnable {
     )
     private boolean process = false;
 
+    @Parameter(
+        names = {"--cache", "-c"},
+        description = "Reuse a binary snapshot of the parsed input while the YAML file is unchanged",
+        order = 7
+    )
+    private boolean cache = false;
+
+    @Parameter(
+        names = {"--cache-dir"},
+        description = "The directory containing the snapshots (defaults to .examgen next to the input)",
+        order = 8
+    )
+    private String cacheDirectory;
+
+    @Parameter(
+        names = {"--watch", "-w"},
+        description = "Keep running and regenerate the examinations whose input changes",
+        order = 9
+    )
+    private boolean watch = false;
+
+    @Parameter(
+        names = {"--seats"},
+        description = "A CSV file listing each seat and its neighbours. Variants are assigned to seats so that neighbours share as few questions as possible",
+        order = 10
+    )
+    private String seats;
+
+    @Parameter(
+        names = {"--seat-variants"},
+        description = "The number of variants to assign to the seats",
+        order = 11
+    )
+    private int seatVariants = 4;
+
+    @Parameter(
+        names = {"--roster"},
+        description = "A CSV file listing the section, ID, last name and first name of each student. Each student gets a personalized variant",
+        order = 12
+    )
+    private String roster;
+
+    @Parameter(
+        names = {"--answer-keys"},
+        description = "Write the answer key of each variant (csv or json) instead of rendering the examinations",
+        order = 13
+    )
+    private String answerKeys;
+
+    @Parameter(
+        names = {"--grade"},
+        description = "A CSV file listing the student, variant and responses of each student. The responses are graded against the answer keys instead of rendering the examinations",
+        order = 14
+    )
+    private String grade;
+
+    @Parameter(
+        names = {"--item-analysis"},
+        description = "Write the difficulty, discrimination and option frequencies of each question, and the reliability of each variant, when grading",
+        order = 15
+    )
+    private boolean itemAnalysis = false;
+
+    @Parameter(
+        names = {"--fragment-cache"},
+        description = "The memory, in MiB, of the cache of rendered questions shared by the variants (0 disables it)",
+        order = 16
+    )
+    private int fragmentCache = 64;
+
+    @Parameter(
+        names = {"--precompile"},
+        description = "Precompile the preamble shared by the latex documents into a format, which the documents load instead of their preamble",
+        order = 17
+    )
+    private boolean precompile = false;
+
     @Parameter(
         names = {"--help", "-h"},
         description = "Shows this message",
-        order = 7
+        order = 18
     )
     private boolean help = false;
 
+    /**
+     * The questions rendered so far, reused by every examination generated
+     * in this run.
+     */
+    private FragmentCache fragments;
+
     /**
      * Runs the exam generator
      * @param args The application input arguments
@@ -157,47 +271,302 @@ public class Application implements Runnable {
      */
     @Override
     public void run() {
-        final AtomicInteger i = new AtomicInteger(0);
-        final WritableExamination.Target template =
-                WritableExamination.Target.valueOf(this.template);
+        if (this.seats != null && this.roster != null) {
+            System.err.println("Options --seats and --roster cannot be combined");
+            return;
+        }
+        if (this.roster != null && !new File(this.roster).isFile()) {
+            System.err.println(String.format("Cannot read roster %s", this.roster));
+            return;
+        }
+        if (this.grade != null && this.watch) {
+            System.err.println("Options --grade and --watch cannot be combined");
+            return;
+        }
+        if (this.itemAnalysis && this.grade == null) {
+            System.err.println("Option --item-analysis requires --grade");
+            return;
+        }
+        if (this.grade != null && !new File(this.grade).isFile()) {
+            System.err.println(String.format("Cannot read responses %s", this.grade));
+            return;
+        }
+        if (this.fragmentCache < 0) {
+            System.err.println("Option --fragment-cache cannot be negative");
+            return;
+        }
+        this.fragments = new FragmentCache((long) this.fragmentCache << 20);
+        final SeatMap map;
         try {
-            examinationParser
-                .examinations(new File(this.input))
-                .stream()
-                .forEach(examination -> {
-                    File outputDir = new File(
-                        String.format(
-                            "%s%s",
-                            this.output,
-                            i.get() > 0 ? i.get() : ""
-                        )
-                    );
-                    try {
-                        examination.variants(this.seed, this.limit)
-                            .stream()
-                            .map(e -> new WritableExamination(e, template))
-                            .forEach(w -> {
-                                try {
-                                    w.write(outputDir);
-                                } catch (IOException e) {
-                                    throw new RuntimeException(e);
-                                }
-                            });
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
-                    if (this.process) {
-                        new LatexProcessor(
-                            new File(String.join(File.separator, this.output, "examinations", "PDF"))
-                        ).process();
-                        new LatexProcessor(
-                            new File(String.join(File.separator, this.output, "solutions", "PDF"))
-                        ).process();
-                    }
-                    i.incrementAndGet();
-                });
-        } catch (FileNotFoundException e) {
+            if (this.answerKeys != null)
+                AnswerKeys.Format.of(this.answerKeys);
+            map = this.seats == null ? null : SeatMap.read(new File(this.seats));
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+        if (this.watch) {
+            try {
+                new ExaminationWatcher(
+                    this.examinationParser,
+                    this.input,
+                    (examination, index) -> this.generate(examination, index, map, true)
+                ).watch();
+            } catch (IOException e) {
+                System.err.println(e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+        final AtomicInteger i = new AtomicInteger(0);
+        try (Stream<Examination> examinations = this.examinations()) {
+            examinations.forEach(examination -> {
+                if (this.grade == null)
+                    this.generate(examination, i.getAndIncrement(), map, false);
+                else
+                    this.grade(examination, i.getAndIncrement());
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            // Syntax errors and unsatisfiable selection constraints
             System.err.println(e.getMessage());
         }
     }
+
+    /**
+     * Writes the variants of an examination and, if requested, processes them
+     * with latex. If answer keys are requested, only the answer keys are
+     * written, without rendering the variants.
+     * @param examination The examination
+     * @param index The position of the examination within the input
+     * @param map The seat map, or null to create a variant per section
+     * @param changed Whether to write and process only the files whose
+     *  content changed
+     * @return The files written
+     */
+    private List<File> generate(final Examination examination, final int index,
+        final SeatMap map, final boolean changed) {
+        final Template template = (this.precompile
+            ? Templates.installed().precompiled(this.template)
+            : Templates.installed().template(this.template)).cached(this.fragments);
+        final File outputDir = new File(
+            String.format("%s%s", this.output, index > 0 ? index : "")
+        );
+        final List<File> written = new ArrayList<>();
+        final long start = System.nanoTime();
+        File format = null;
+        int count = 0;
+        // Variants are created, rendered and written one at a time
+        try (Stream<Variant> variants = this.variants(examination, map, outputDir)) {
+            if (this.answerKeys != null) {
+                count = new AnswerKeys(AnswerKeys.Format.of(this.answerKeys))
+                    .write(variants.map(AnswerKey::of).iterator(), outputDir);
+            } else {
+                if (this.precompile)
+                    format = WritableExamination.preamble(template, outputDir);
+                final Iterator<Variant> iterator = variants.iterator();
+                while (iterator.hasNext()) {
+                    final WritableExamination w =
+                        new WritableExamination(iterator.next().examination(), template);
+                    if (changed) {
+                        written.addAll(w.update(outputDir));
+                    } else {
+                        w.write(outputDir);
+                    }
+                    count++;
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        log.info(
+            "Wrote {} {} to {} in {} s ({} per second)",
+            count,
+            this.answerKeys == null ? "examinations" : "answer keys",
+            outputDir,
+            String.format("%.2f", seconds),
+            String.format("%.0f", count / Math.max(seconds, 1e-9))
+        );
+        if (this.answerKeys == null)
+            log.info("Fragment cache: {}", this.fragments);
+        if (this.process && this.answerKeys == null) {
+            for (String folder : new String[]{"examinations", "solutions"}) {
+                final LatexProcessor processor = new LatexProcessor(
+                    new File(String.join(File.separator, outputDir.getPath(), folder, "PDF")),
+                    format
+                );
+                if (changed) {
+                    final File parent = processor.output().getParentFile().getAbsoluteFile();
+                    processor.process(
+                        written.stream()
+                            .filter(f -> f.getName().endsWith(".tex"))
+                            .filter(f -> f.getParentFile().getAbsoluteFile().equals(parent))
+                            .collect(Collectors.toList())
+                    );
+                } else {
+                    processor.process();
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Grades the responses to the variants of an examination and writes the
+     * scores to "grades.csv" in the output directory, followed by the item
+     * analysis if requested.
+     * @param examination The examination
+     * @param index The position of the examination within the input
+     */
+    private void grade(final Examination examination, final int index) {
+        final File outputDir = new File(
+            String.format("%s%s", this.output, index > 0 ? index : "")
+        );
+        final long start = System.nanoTime();
+        final Grades grades;
+        try {
+            final Grader grader = new Grader(
+                examination,
+                this.seed,
+                this.limit,
+                this.variantNames(examination)
+            );
+            final Responses responses = grader.read(new File(this.grade));
+            grades = grader.grade(responses);
+            grades.write(outputDir);
+            if (this.itemAnalysis)
+                ItemAnalysis.of(responses).write(outputDir);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info(
+            "Graded {} students to {} in {} s",
+            grades.size(),
+            outputDir,
+            String.format("%.2f", (System.nanoTime() - start) / 1e9)
+        );
+    }
+
+    /**
+     * The names of the variants of an examination, as created by
+     * {@link #variants(Examination, SeatMap, File)}: the students' IDs if a
+     * roster is given, the seat variants if a seat map is given, or the
+     * section names otherwise.
+     * @param examination The examination
+     * @return the names of the variants
+     * @throws IOException If the roster cannot be read
+     */
+    private Set<String> variantNames(final Examination examination)
+        throws IOException {
+        final List<?> sections = (List<?>) examination.parameters()
+            .getOrDefault(Examination.Parameter.SECTIONS, Collections.emptyList());
+        final Set<String> names = new HashSet<>();
+        if (this.roster != null) {
+            try (Stream<Student> students =
+                new Roster(new File(this.roster)).students(sections)) {
+                students.forEach(student -> names.add(student.id()));
+            }
+        } else if (this.seats != null) {
+            for (int k = 1; k <= this.seatVariants; k++)
+                names.add(String.format("V%d", k));
+        } else {
+            for (final Object section : sections)
+                names.add(String.valueOf(section));
+        }
+        return names;
+    }
+
+    /**
+     * Creates the variants of an examination. If a roster is given, the
+     * variants are personalized for each student and created lazily, as the
+     * stream is consumed. If a seat map is given, a pool of variants is
+     * assigned to the seats so that neighbours share as few questions and
+     * option orderings as possible; each variant then takes the place of the
+     * sections, with as many copies as seats, and the assignment is written
+     * to "seating.csv" in the output directory.
+     * @param examination The examination
+     * @param map The seat map, or null to create a variant per section
+     * @param outputDir The output directory
+     * @return The variants, which must be closed
+     * @throws IOException If the roster cannot be read or the assignment
+     *  cannot be written
+     */
+    private Stream<Variant> variants(final Examination examination,
+        final SeatMap map, final File outputDir) throws IOException {
+        final List<?> sections = (List<?>) examination.parameters()
+            .getOrDefault(Examination.Parameter.SECTIONS, Collections.emptyList());
+        if (this.roster != null) {
+            return new Roster(new File(this.roster))
+                .students(sections)
+                .map(student -> examination.variant(student, this.seed, this.limit));
+        }
+        if (map == null) {
+            return examination.sectionVariants(this.seed, this.limit, ForkJoinPool.commonPool())
+                .stream();
+        }
+        if (this.seatVariants < 1)
+            throw new IllegalArgumentException("seat variants < 1");
+        final String ta = !sections.isEmpty()
+            && sections.get(0) instanceof Section
+            ? ((Section) sections.get(0)).TA()
+            : "";
+        final List<Variant> pool = new ArrayList<>(this.seatVariants);
+        for (int k = 1; k <= this.seatVariants; k++)
+            pool.add(examination.variant(String.format("V%d", k), this.seed, this.limit));
+        final int[] assignment = new Seating(pool).assign(map.neighbours());
+        final int[] copies = new int[pool.size()];
+        final List<String> lines = new ArrayList<>(assignment.length + 1);
+        lines.add("seat,variant");
+        for (int i = 0; i < assignment.length; i++) {
+            copies[assignment[i]]++;
+            lines.add(String.format("%s,%s", map.seats().get(i), pool.get(assignment[i]).section()));
+        }
+        final List<Variant> variants = new ArrayList<>(pool.size());
+        for (int k = 0; k < pool.size(); k++) {
+            if (copies[k] == 0)
+                continue;
+            // Same name, thus the same variant as in the pool
+            variants.add(
+                examination.variant(
+                    new Section(String.valueOf(pool.get(k).section()), ta, copies[k]),
+                    this.seed,
+                    this.limit
+                )
+            );
+        }
+        outputDir.mkdirs();
+        Files.write(new File(outputDir, "seating.csv").toPath(), lines, StandardCharsets.UTF_8);
+        return variants.stream();
+    }
+
+    /**
+     * Streams the examinations from the input, using snapshots if caching is
+     * enabled. A single input file is parsed lazily, whereas a directory or
+     * glob pattern is parsed in parallel.
+     * @return A stream of examinations
+     * @throws IOException If an input file cannot be read
+     */
+    private Stream<Examination> examinations() throws IOException {
+        final File directory = this.cacheDirectory == null
+            ? null
+            : new File(this.cacheDirectory);
+        if (InputFiles.multiple(this.input)) {
+            final List<File> files = InputFiles.resolve(this.input);
+            if (files.isEmpty()) {
+                throw new FileNotFoundException(
+                    String.format("No YAML files found in %s", this.input)
+                );
+            }
+            if (this.cache)
+                return this.snapshotCache.examinations(files, directory).stream();
+            return this.examinationParser.examinations(files).stream();
+        }
+        final File file = new File(this.input);
+        if (this.cache)
+            return this.snapshotCache.stream(file, directory);
+        return this.examinationParser.stream(file);
+    }
 }
@@ -0,0 +1,293 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen;
+
+import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.io.ExaminationParser.Document;
+import com.rigiresearch.examgen.io.InputFiles;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Question;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Watches the input YAML files and regenerates only the examinations whose
+ * documents changed. Documents with the same text as before are not parsed
+ * again, unless a question bank that they include or reference changed, and
+ * examinations equal to the previous ones are not rendered again.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@RequiredArgsConstructor
+@Slf4j
+public final class ExaminationWatcher {
+
+    /**
+     * Time to wait for further file events before regenerating.
+     */
+    private static final long DEBOUNCE_MILLIS = 100L;
+
+    /**
+     * The YAML parser.
+     */
+    private final ExaminationParser parser;
+
+    /**
+     * The YAML file, directory or glob pattern to watch.
+     */
+    private final String input;
+
+    /**
+     * Renders an examination given its position within the input, returning
+     * the files written.
+     */
+    private final BiFunction<Examination, Integer, List<File>> generator;
+
+    /**
+     * The documents of each input file.
+     */
+    private final Map<File, List<Document>> documents = new HashMap<>();
+
+    /**
+     * The examination parsed from each document, per input file.
+     */
+    private final Map<File, List<Examination>> examinations = new HashMap<>();
+
+    /**
+     * The length and modification time of the question banks resolved by
+     * each document, per input file.
+     */
+    private final Map<File, List<Map<File, List<Long>>>> banks = new HashMap<>();
+
+    /**
+     * The position of the first document of each input file.
+     */
+    private final Map<File, Integer> offsets = new HashMap<>();
+
+    /**
+     * The directories registered with the watch service.
+     */
+    private final Set<Path> directories = new HashSet<>();
+
+    /**
+     * Generates all the examinations and then regenerates the ones that
+     * change, until the thread is interrupted.
+     * @throws IOException If the input cannot be watched
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    public void watch() throws IOException, InterruptedException {
+        try (WatchService service = FileSystems.getDefault().newWatchService()) {
+            this.update(service);
+            log.info("Watching {} for changes", this.input);
+            while (true) {
+                WatchKey key = service.take();
+                do {
+                    key.pollEvents();
+                    if (!key.reset())
+                        this.directories.remove((Path) key.watchable());
+                    key = service.poll(
+                        ExaminationWatcher.DEBOUNCE_MILLIS,
+                        TimeUnit.MILLISECONDS
+                    );
+                } while (key != null);
+                this.update(service);
+            }
+        }
+    }
+
+    /**
+     * Re-reads the input files and regenerates the examinations that changed.
+     * @param service The watch service
+     * @throws IOException If a directory cannot be watched
+     */
+    private void update(final WatchService service) throws IOException {
+        final List<File> files = InputFiles.resolve(this.input);
+        final Map<File, List<Document>> documents = new HashMap<>();
+        final Map<File, List<Examination>> examinations = new HashMap<>();
+        final Map<File, List<Map<File, List<Long>>>> banks = new HashMap<>();
+        final Map<File, Integer> offsets = new HashMap<>();
+        int index = 0;
+        for (File file : files) {
+            final List<Document> previousDocuments = this.documents
+                .getOrDefault(file, Collections.emptyList());
+            final List<Examination> previous = this.examinations
+                .getOrDefault(file, Collections.emptyList());
+            final List<Map<File, List<Long>>> previousBanks = this.banks
+                .getOrDefault(file, Collections.emptyList());
+            final boolean moved = !Integer.valueOf(index)
+                .equals(this.offsets.get(file));
+            List<Document> current;
+            try {
+                current = this.parser.documents(file);
+            } catch (IOException e) {
+                log.error("Could not read {}: {}", file, e.getMessage());
+                current = previousDocuments;
+            }
+            final List<Examination> parsed = new ArrayList<>(current.size());
+            final List<Map<File, List<Long>>> resolved = new ArrayList<>(current.size());
+            offsets.put(file, index);
+            for (int i = 0; i < current.size(); i++, index++) {
+                final Examination old = i < previous.size() ? previous.get(i) : null;
+                Examination examination = old;
+                Map<File, List<Long>> used = i < previousBanks.size()
+                    ? previousBanks.get(i)
+                    : Collections.emptyMap();
+                if (old == null
+                    || !current.get(i).text().equals(previousDocuments.get(i).text())
+                    || !ExaminationWatcher.stamps(used.keySet()).equals(used)) {
+                    final Set<File> included = new HashSet<>();
+                    try {
+                        examination = this.parser.examination(current.get(i), included);
+                    } catch (RuntimeException e) {
+                        log.error(
+                            "Could not parse document {} of {}: {}",
+                            i + 1, file, e.getMessage()
+                        );
+                    }
+                    used = ExaminationWatcher.stamps(included);
+                }
+                parsed.add(examination);
+                resolved.add(used);
+                if (examination == null || examination.equals(old) && !moved)
+                    continue;
+                ExaminationWatcher.diff(file, i, old, examination);
+                try {
+                    final List<File> written = this.generator.apply(examination, index);
+                    log.info(
+                        "Wrote {} file(s) for document {} of {}",
+                        written.size(), i + 1, file
+                    );
+                } catch (RuntimeException e) {
+                    log.error(
+                        "Could not generate document {} of {}: {}",
+                        i + 1, file, e.getMessage()
+                    );
+                }
+            }
+            documents.put(file, current);
+            examinations.put(file, parsed);
+            banks.put(file, resolved);
+        }
+        this.documents.clear();
+        this.documents.putAll(documents);
+        this.examinations.clear();
+        this.examinations.putAll(examinations);
+        this.banks.clear();
+        this.banks.putAll(banks);
+        this.offsets.clear();
+        this.offsets.putAll(offsets);
+        this.register(service, files);
+    }
+
+    /**
+     * The length and modification time of each question bank, both zero if
+     * the bank does not exist.
+     * @param banks The bank files
+     * @return The length and modification time of each bank
+     */
+    private static Map<File, List<Long>> stamps(final Set<File> banks) {
+        final Map<File, List<Long>> stamps = new HashMap<>();
+        for (File bank : banks)
+            stamps.put(bank, Arrays.asList(bank.length(), bank.lastModified()));
+        return stamps;
+    }
+
+    /**
+     * Registers the directories containing the input files and the question
+     * banks they resolve, as well as the input itself if it is a directory.
+     * @param service The watch service
+     * @param files The input files
+     * @throws IOException If a directory cannot be registered
+     */
+    private void register(final WatchService service, final List<File> files)
+        throws IOException {
+        final Set<Path> directories = new HashSet<>();
+        final File input = new File(this.input);
+        if (input.isDirectory())
+            directories.add(input.getAbsoluteFile().toPath());
+        for (File file : files)
+            directories.add(file.getAbsoluteFile().getParentFile().toPath());
+        for (List<Map<File, List<Long>>> resolved : this.banks.values()) {
+            for (Map<File, List<Long>> used : resolved) {
+                for (File bank : used.keySet()) {
+                    if (bank.getParentFile().isDirectory())
+                        directories.add(bank.getParentFile().toPath());
+                }
+            }
+        }
+        for (Path directory : directories) {
+            if (this.directories.add(directory)) {
+                directory.register(
+                    service,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE
+                );
+            }
+        }
+    }
+
+    /**
+     * Logs the questions added to and removed from a document.
+     * @param file The input file
+     * @param document The position of the document within the file
+     * @param previous The previous examination, or {@code null}
+     * @param current The current examination
+     */
+    private static void diff(final File file, final int document,
+        final Examination previous, final Examination current) {
+        if (previous == null) {
+            log.info("Parsed document {} of {}", document + 1, file);
+            return;
+        }
+        final List<Question> removed = new ArrayList<>(previous.questions());
+        int added = 0;
+        for (Question question : current.questions()) {
+            if (!removed.remove(question))
+                added++;
+        }
+        log.info(
+            "Document {} of {} changed: {} question(s) added, {} removed",
+            document + 1, file, added, removed.size()
+        );
+    }
+
+}
@@ -0,0 +1,216 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.AnswerKey;
+import com.rigiresearch.examgen.model.AnswerKey.Answer;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.Locale;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Writes the answer keys of examination variants to a CSV or JSON file, one
+ * variant at a time. Each answer has the question number, type, points and
+ * answer text (see {@link Answer#text()}), and the fingerprint of the
+ * question, which identifies it across variants. JSON answers to
+ * closed-ended questions also have the bitmask of the correct options.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor
+@Getter
+public final class AnswerKeys {
+
+    /**
+     * The supported file formats.
+     */
+    public enum Format {
+        CSV, JSON;
+
+        /**
+         * Finds a format by name.
+         * @param name The format name, in any case
+         * @return the format
+         * @throws IllegalArgumentException If the format is not supported
+         */
+        public static Format of(final String name) {
+            for (final Format format : Format.values()) {
+                if (format.name().equalsIgnoreCase(name))
+                    return format;
+            }
+            throw new IllegalArgumentException(
+                String.format("Unknown answer key format '%s' (expected csv or json)", name)
+            );
+        }
+
+        /**
+         * The file extension of this format.
+         * @return the lower-case name
+         */
+        public String extension() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The file format.
+     */
+    private final Format format;
+
+    /**
+     * Writes answer keys to a file named "answer-keys" in a directory.
+     * @param keys The answer keys, consumed as they are written
+     * @param directory The directory
+     * @return the number of answer keys written
+     * @throws IOException If the file cannot be written
+     */
+    public int write(final Iterator<AnswerKey> keys, final File directory)
+        throws IOException {
+        directory.mkdirs();
+        final File file = new File(
+            directory,
+            String.format("answer-keys.%s", this.format.extension())
+        );
+        int count = 0;
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            if (this.format == Format.CSV)
+                writer.write("section,question,type,points,answer,fingerprint\n");
+            else
+                writer.write("[");
+            while (keys.hasNext()) {
+                final AnswerKey key = keys.next();
+                if (this.format == Format.CSV)
+                    AnswerKeys.csv(key, writer);
+                else
+                    AnswerKeys.json(key, writer, count == 0);
+                count++;
+            }
+            if (this.format == Format.JSON)
+                writer.write(count == 0 ? "]\n" : "\n]\n");
+        }
+        return count;
+    }
+
+    /**
+     * Writes the answers of a variant as CSV lines.
+     * @param key The answer key
+     * @param writer The output
+     * @throws IOException If an I/O error occurs
+     */
+    private static void csv(final AnswerKey key, final Writer writer)
+        throws IOException {
+        final String section = AnswerKeys.field(String.valueOf(key.section()));
+        for (final Answer answer : key.answers()) {
+            writer.write(section);
+            writer.write(',');
+            writer.write(answer.number());
+            writer.write(',');
+            writer.write(answer.type());
+            writer.write(',');
+            writer.write(Integer.toString(answer.points()));
+            writer.write(',');
+            writer.write(answer.text());
+            writer.write(',');
+            writer.write(answer.fingerprint().toString());
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Writes the answers of a variant as a JSON object.
+     * @param key The answer key
+     * @param writer The output
+     * @param first Whether this is the first object of the array
+     * @throws IOException If an I/O error occurs
+     */
+    private static void json(final AnswerKey key, final Writer writer,
+        final boolean first) throws IOException {
+        writer.write(first ? "\n" : ",\n");
+        writer.write("  {\"section\": ");
+        AnswerKeys.string(String.valueOf(key.section()), writer);
+        writer.write(", \"answers\": [");
+        boolean comma = false;
+        for (final Answer answer : key.answers()) {
+            writer.write(comma ? ",\n" : "\n");
+            comma = true;
+            writer.write("    {\"question\": \"");
+            writer.write(answer.number());
+            writer.write("\", \"type\": \"");
+            writer.write(answer.type());
+            writer.write("\", \"points\": ");
+            writer.write(Integer.toString(answer.points()));
+            writer.write(", \"answer\": \"");
+            writer.write(answer.text());
+            writer.write('"');
+            writer.write(", \"fingerprint\": \"");
+            writer.write(answer.fingerprint().toString());
+            writer.write("\"}");
+        }
+        writer.write(comma ? "\n  ]}" : "]}");
+    }
+
+    /**
+     * Quotes a CSV field if needed.
+     * @param value The field value
+     * @return the field as written
+     */
+    static String field(final String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+            && value.indexOf('\n') < 0)
+            return value;
+        return String.format("\"%s\"", value.replace("\"", "\"\""));
+    }
+
+    /**
+     * Writes a JSON string.
+     * @param value The string value
+     * @param writer The output
+     * @throws IOException If an I/O error occurs
+     */
+    private static void string(final String value, final Writer writer)
+        throws IOException {
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char character = value.charAt(i);
+            if (character == '"' || character == '\\') {
+                writer.write('\\');
+                writer.write(character);
+            } else if (character < 0x20) {
+                writer.write(String.format("\\u%04x", (int) character));
+            } else {
+                writer.write(character);
+            }
+        }
+        writer.write('"');
+    }
+
+}
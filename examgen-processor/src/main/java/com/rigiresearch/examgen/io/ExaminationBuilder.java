@@ -0,0 +1,820 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.ClosedEnded;
+import com.rigiresearch.examgen.model.ClosedEnded.Option;
+import com.rigiresearch.examgen.model.CompoundQuestion;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import com.rigiresearch.examgen.model.Metadata;
+import com.rigiresearch.examgen.model.OpenEnded;
+import com.rigiresearch.examgen.model.Query;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.Section;
+import com.rigiresearch.examgen.model.Selection;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TrueFalse;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+import org.yaml.snakeyaml.nodes.Tag;
+
+/**
+ * Builds an examination straight from the node graph composed by SnakeYAML,
+ * checking the type of every field. Instead of failing on the first problem,
+ * problems are recorded as diagnostics and the invalid questions are
+ * skipped, so that a single pass reports all of them.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+final class ExaminationBuilder {
+
+    /**
+     * The question types.
+     */
+    private static final Collection<String> TYPES = Arrays.asList(
+        OpenEnded.TYPE,
+        ClosedEnded.TYPE,
+        TrueFalse.TYPE,
+        CompoundQuestion.TYPE
+    );
+
+    /**
+     * The tokenizer of styled text segments.
+     */
+    private final TextSegmentParser segments;
+
+    /**
+     * The name of the YAML file.
+     */
+    private final String source;
+
+    /**
+     * The number of lines preceding the YAML document in the file.
+     */
+    private final int line;
+
+    /**
+     * The problems found so far.
+     */
+    @Getter
+    private final List<Diagnostic> diagnostics =
+        Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * The question banks included or referenced so far, with absolute
+     * paths, whether or not they could be read.
+     */
+    @Getter
+    private final Set<File> banks =
+        Collections.synchronizedSet(new LinkedHashSet<>());
+
+    /**
+     * Constructs the values of scalars and of free-form parameters.
+     */
+    private final Values values = new Values();
+
+    /**
+     * Default constructor.
+     * @param segments The tokenizer of styled text segments
+     * @param source The name of the YAML file
+     * @param line The number of lines preceding the YAML document in the file
+     */
+    ExaminationBuilder(final TextSegmentParser segments, final String source,
+        final int line) {
+        this.segments = segments;
+        this.source = source;
+        this.line = line;
+    }
+
+    /**
+     * Builds an examination from a YAML document.
+     * @param node The document root
+     * @param parallel Whether to build the questions in parallel
+     * @return The examination, or {@code null} if problems were found
+     */
+    Examination examination(final Node node, final boolean parallel) {
+        final MappingNode root = this.mapping(node, "an examination");
+        if (root == null)
+            return null;
+        final NodeTuple parameters = this.required(root, "parameters", "examination");
+        final NodeTuple questions = this.required(root, "questions", "examination");
+        final Map<Parameter, Object> params = parameters == null
+            ? null
+            : this.parameters(parameters.getValueNode());
+        final List<Question> list = questions == null
+            ? null
+            : this.questions(questions.getValueNode(), parallel);
+        final NodeTuple selection = this.field(root, "selection");
+        final Selection constraints = selection == null
+            ? Selection.NONE
+            : this.selection(selection.getValueNode());
+        if (!this.diagnostics.isEmpty())
+            return null;
+        return new Examination(params, list, constraints);
+    }
+
+    /**
+     * Builds a question from a YAML document containing a one-item list, as
+     * sliced from a question bank.
+     * @param node The document root
+     * @return The question, or {@code null} if problems were found
+     */
+    Question item(final Node node) {
+        final SequenceNode sequence = this.sequence(node, "a list of questions");
+        if (sequence == null)
+            return null;
+        return this.question(sequence.getValue().get(0));
+    }
+
+    /**
+     * Builds the examination parameters.
+     * @param node The list of parameters
+     * @return a map, possibly incomplete if problems were found
+     */
+    private Map<Parameter, Object> parameters(final Node node) {
+        final SequenceNode sequence = this.sequence(node, "a list of parameters");
+        if (sequence == null)
+            return null;
+        final Map<Parameter, Object> params = new HashMap<>();
+        for (Node item : sequence.getValue()) {
+            final MappingNode mapping = this.mapping(item, "a parameter");
+            if (mapping == null)
+                continue;
+            for (NodeTuple tuple : mapping.getValue()) {
+                final Parameter parameter = this.parameter(tuple);
+                if (parameter == null)
+                    continue;
+                switch (parameter) {
+                    case SECTIONS:
+                        params.put(parameter, this.sections(tuple.getValueNode()));
+                        break;
+                    case INSTRUCTIONS:
+                        params.put(parameter, this.instructions(tuple.getValueNode()));
+                        break;
+                    default:
+                        params.put(parameter, this.values.value(tuple.getValueNode()));
+                }
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Resolves the name of a parameter.
+     * @param tuple The parameter entry
+     * @return the parameter, or {@code null} if it is unknown
+     */
+    private Parameter parameter(final NodeTuple tuple) {
+        final String name = ExaminationBuilder.key(tuple);
+        for (Parameter parameter : Parameter.values()) {
+            if (parameter.name().equals(name))
+                return parameter;
+        }
+        this.error(tuple.getKeyNode(), "Unknown parameter '%s'", name);
+        return null;
+    }
+
+    /**
+     * Builds the course sections.
+     * @param node The list of sections
+     * @return a list, possibly incomplete if problems were found
+     */
+    private List<Section> sections(final Node node) {
+        final SequenceNode sequence = this.sequence(node, "a list of sections");
+        if (sequence == null)
+            return null;
+        final List<Section> sections = new ArrayList<>();
+        for (Node item : sequence.getValue()) {
+            final MappingNode mapping = this.mapping(item, "a section");
+            if (mapping == null)
+                continue;
+            final String name = this.string(this.required(mapping, "name", "section"));
+            final NodeTuple TA = this.field(mapping, "TA");
+            final NodeTuple students = this.field(mapping, "students");
+            sections.add(
+                new Section(
+                    name,
+                    TA == null ? "" : this.string(TA),
+                    students == null ? 0 : this.integer(students, 0)
+                )
+            );
+        }
+        return sections;
+    }
+
+    /**
+     * Builds the examination instructions.
+     * @param node The list of instructions
+     * @return a list, possibly incomplete if problems were found
+     */
+    private List<TextSegment> instructions(final Node node) {
+        final SequenceNode sequence = this.sequence(node, "a list of instructions");
+        if (sequence == null)
+            return null;
+        final List<TextSegment> instructions = new ArrayList<>();
+        for (Node item : sequence.getValue()) {
+            instructions.add(
+                this.text(item, "instruction", item.getStartMark().getColumn())
+            );
+        }
+        return instructions;
+    }
+
+    /**
+     * Builds the constraints on the questions of each variant, that is, the
+     * total points (a number, or a mapping with "min" and "max"), the number
+     * of questions of each type, the minimum number of questions with each
+     * tag and on each topic, and the query that questions must match.
+     * @param node The constraints
+     * @return the constraints, possibly incomplete if problems were found
+     */
+    private Selection selection(final Node node) {
+        final MappingNode mapping = this.mapping(node, "selection constraints");
+        if (mapping == null)
+            return null;
+        int minimum = Selection.NONE.minimumPoints();
+        int maximum = Selection.NONE.maximumPoints();
+        final Map<String, Integer> types = new HashMap<>();
+        final Map<String, Integer> tags = new HashMap<>();
+        final Map<String, Integer> topics = new HashMap<>();
+        Query query = Query.ALL;
+        for (NodeTuple tuple : mapping.getValue()) {
+            final String key = ExaminationBuilder.key(tuple);
+            switch (key) {
+                case "points":
+                    if (tuple.getValueNode() instanceof MappingNode) {
+                        final MappingNode range = (MappingNode) tuple.getValueNode();
+                        final NodeTuple min = this.field(range, "min");
+                        final NodeTuple max = this.field(range, "max");
+                        minimum = min == null ? minimum : this.integer(min, minimum);
+                        maximum = max == null ? maximum : this.integer(max, maximum);
+                    } else {
+                        minimum = this.integer(tuple, minimum);
+                        maximum = minimum;
+                    }
+                    if (minimum > maximum)
+                        this.error(tuple.getValueNode(), "Expected min <= max for 'points'");
+                    break;
+                case "types": {
+                    final MappingNode counts =
+                        this.mapping(tuple.getValueNode(), "a mapping of question types");
+                    if (counts == null)
+                        break;
+                    for (NodeTuple count : counts.getValue()) {
+                        final String type = ExaminationBuilder.key(count);
+                        if (!ExaminationBuilder.TYPES.contains(type)) {
+                            this.error(count.getKeyNode(), "Unknown question type '%s'", type);
+                        } else {
+                            types.put(type, this.integer(count, 0));
+                        }
+                    }
+                } break;
+                case "tags":
+                    this.counts(tuple, "a mapping of tags", tags);
+                    break;
+                case "topics":
+                    this.counts(tuple, "a mapping of topics", topics);
+                    break;
+                case "query": {
+                    final String text = this.string(tuple);
+                    try {
+                        query = text == null ? query : Query.parse(text);
+                    } catch (IllegalArgumentException e) {
+                        this.error(tuple.getValueNode(), "%s", e.getMessage());
+                    }
+                } break;
+                default:
+                    this.error(tuple.getKeyNode(), "Unknown selection constraint '%s'", key);
+            }
+        }
+        return new Selection(minimum, maximum, types, tags, topics, query);
+    }
+
+    /**
+     * Builds a number of questions for each key of a mapping.
+     * @param tuple The node tuple containing the mapping
+     * @param expected A description of the mapping, for error messages
+     * @param counts The map to fill
+     */
+    private void counts(final NodeTuple tuple, final String expected,
+        final Map<String, Integer> counts) {
+        final MappingNode mapping = this.mapping(tuple.getValueNode(), expected);
+        if (mapping == null)
+            return;
+        for (NodeTuple count : mapping.getValue())
+            counts.put(ExaminationBuilder.key(count), this.integer(count, 0));
+    }
+
+    /**
+     * Builds a list of questions.
+     * @param node The list of questions
+     * @param parallel Whether to build the questions in parallel
+     * @return a list, possibly incomplete if problems were found
+     */
+    private List<Question> questions(final Node node, final boolean parallel) {
+        final SequenceNode sequence = this.sequence(node, "a list of questions");
+        if (sequence == null)
+            return null;
+        final Stream<Node> items = parallel
+            ? sequence.getValue().parallelStream()
+            : sequence.getValue().stream();
+        return items.flatMap(item -> this.entry(item).stream())
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Builds the questions of a list entry, which is either a question, an
+     * inclusion of all the questions of a bank ({@code include: file}) or a
+     * reference to a single question of a bank ({@code $ref: file#id}).
+     * Included questions are parsed on first use.
+     * @param node The entry data
+     * @return a list, possibly containing {@code null} if problems were found
+     */
+    private List<Question> entry(final Node node) {
+        if (node instanceof MappingNode) {
+            final MappingNode mapping = (MappingNode) node;
+            final NodeTuple include = this.field(mapping, "include");
+            if (include != null) {
+                final QuestionBank bank = this.bank(include.getValueNode(),
+                    this.string(include));
+                return bank == null ? Collections.emptyList() : bank.questions();
+            }
+            final NodeTuple ref = this.field(mapping, "$ref");
+            if (ref != null)
+                return Collections.singletonList(this.reference(ref));
+        }
+        return Collections.singletonList(this.question(node));
+    }
+
+    /**
+     * Resolves a reference to a question of a bank.
+     * @param tuple The reference entry
+     * @return a lazy question, or {@code null} if problems were found
+     */
+    private Question reference(final NodeTuple tuple) {
+        final String value = this.string(tuple);
+        if (value == null)
+            return null;
+        final int hash = value.lastIndexOf('#');
+        if (hash < 0) {
+            this.error(tuple.getValueNode(),
+                "Expected a reference of the form 'file#id'");
+            return null;
+        }
+        final String id = value.substring(hash + 1);
+        final QuestionBank bank = this.bank(tuple.getValueNode(),
+            value.substring(0, hash));
+        if (bank == null)
+            return null;
+        final Integer index = bank.index(id);
+        if (index == null) {
+            this.error(tuple.getValueNode(), "Unknown question '%s' in %s",
+                id, bank.file());
+            return null;
+        }
+        return bank.question(index);
+    }
+
+    /**
+     * Opens a question bank, relative to the directory of the YAML file.
+     * @param node The node referencing the bank
+     * @param path The bank path, possibly {@code null}
+     * @return the bank, or {@code null} if problems were found
+     */
+    private QuestionBank bank(final Node node, final String path) {
+        if (path == null)
+            return null;
+        File file = new File(path);
+        if (!file.isAbsolute())
+            file = new File(new File(this.source).getAbsoluteFile().getParentFile(), path);
+        this.banks.add(file.toPath().normalize().toFile());
+        try {
+            return QuestionBank.open(file);
+        } catch (IOException e) {
+            this.error(node, "Cannot read question bank %s", file);
+        } catch (ExaminationSyntaxException e) {
+            this.diagnostics.addAll(e.diagnostics());
+        }
+        return null;
+    }
+
+    /**
+     * Builds a question.
+     * @param node The question data
+     * @return a question, or {@code null} if problems were found
+     */
+    private Question question(final Node node) {
+        final MappingNode mapping = this.mapping(node, "a question");
+        if (mapping == null)
+            return null;
+        final String type = this.string(this.required(mapping, "type", "question"));
+        if (type == null)
+            return null;
+        final String what = String.format("%s question", type);
+        final Metadata metadata = this.metadata(mapping);
+        Question question = null;
+        switch (type) {
+            case OpenEnded.TYPE: {
+                final TextSegment statement = this.text(mapping, "statement", what);
+                final TextSegment answer = this.text(mapping, "answer", what);
+                final Integer points = this.integer(mapping, "points", what);
+                final String length = this.string(this.required(mapping, "length", what));
+                if (statement != null && answer != null && points != null && length != null)
+                    question = new OpenEnded(statement, answer, points, length, metadata);
+            } break;
+            case ClosedEnded.TYPE: {
+                final TextSegment statement = this.text(mapping, "statement", what);
+                final Integer points = this.integer(mapping, "points", what);
+                final List<Option> options = this.options(mapping, what);
+                if (statement != null && points != null && options != null)
+                    question = new ClosedEnded(statement, points, options, metadata);
+            } break;
+            case TrueFalse.TYPE: {
+                final TextSegment statement = this.text(mapping, "statement", what);
+                final Boolean answer = this.bool(this.required(mapping, "answer", what));
+                final Integer points = this.integer(mapping, "points", what);
+                if (statement != null && answer != null && points != null)
+                    question = new TrueFalse(statement, answer, points, metadata);
+            } break;
+            case CompoundQuestion.TYPE: {
+                final TextSegment statement = this.text(mapping, "statement", what);
+                final NodeTuple children = this.required(mapping, "children", what);
+                final List<Question> questions = children == null
+                    ? null
+                    : this.questions(children.getValueNode(), false);
+                if (statement != null && questions != null && !questions.contains(null))
+                    question = new CompoundQuestion(statement, questions, metadata);
+            } break;
+            default:
+                this.error(
+                    this.field(mapping, "type").getValueNode(),
+                    "Unknown question type '%s'",
+                    type
+                );
+        }
+        return question;
+    }
+
+    /**
+     * Builds the metadata of a question, that is, its optional tags (a list
+     * or a single tag), topic and difficulty.
+     * @param mapping The question data
+     * @return the metadata, possibly incomplete if problems were found
+     */
+    private Metadata metadata(final MappingNode mapping) {
+        final NodeTuple tags = this.field(mapping, "tags");
+        final NodeTuple topic = this.field(mapping, "topic");
+        final NodeTuple difficulty = this.field(mapping, "difficulty");
+        if (tags == null && topic == null && difficulty == null)
+            return Metadata.NONE;
+        final List<String> list = new ArrayList<>();
+        if (tags != null && tags.getValueNode() instanceof SequenceNode) {
+            for (Node item : ((SequenceNode) tags.getValueNode()).getValue()) {
+                if (item instanceof ScalarNode && !Tag.NULL.equals(item.getTag()))
+                    list.add(((ScalarNode) item).getValue());
+                else
+                    this.error(item, "Expected text for each of 'tags'");
+            }
+        } else if (tags != null) {
+            final String tag = this.string(tags);
+            if (tag != null)
+                list.add(tag);
+        }
+        return new Metadata(
+            Collections.unmodifiableList(list),
+            topic == null ? null : this.string(topic),
+            difficulty == null ? null : this.string(difficulty)
+        );
+    }
+
+    /**
+     * Builds the options of a closed-ended question.
+     * @param mapping The question data
+     * @param what A description of the question
+     * @return a list, or {@code null} if problems were found
+     */
+    private List<Option> options(final MappingNode mapping, final String what) {
+        final NodeTuple tuple = this.required(mapping, "options", what);
+        if (tuple == null)
+            return null;
+        final SequenceNode sequence =
+            this.sequence(tuple.getValueNode(), "a list of options");
+        if (sequence == null)
+            return null;
+        final List<Option> options = new ArrayList<>();
+        boolean valid = true;
+        for (Node item : sequence.getValue()) {
+            final MappingNode option = this.mapping(item, "an option");
+            if (option == null) {
+                valid = false;
+                continue;
+            }
+            final Boolean correct = this.bool(this.required(option, "correct", "option"));
+            final TextSegment statement = this.text(option, "statement", "option");
+            if (correct == null || statement == null)
+                valid = false;
+            else
+                options.add(new Option(correct, statement));
+        }
+        return valid ? options : null;
+    }
+
+    /**
+     * Finds an entry of a mapping.
+     * @param mapping The mapping
+     * @param key The entry key
+     * @return the entry, or {@code null} if there is none
+     */
+    private NodeTuple field(final MappingNode mapping, final String key) {
+        for (NodeTuple tuple : mapping.getValue()) {
+            if (key.equals(ExaminationBuilder.key(tuple)))
+                return tuple;
+        }
+        return null;
+    }
+
+    /**
+     * Finds a required entry of a mapping.
+     * @param mapping The mapping
+     * @param key The entry key
+     * @param what A description of the mapping
+     * @return the entry, or {@code null} if there is none
+     */
+    private NodeTuple required(final MappingNode mapping, final String key,
+        final String what) {
+        final NodeTuple tuple = this.field(mapping, key);
+        if (tuple == null)
+            this.error(mapping, "Missing '%s' in %s", key, what);
+        return tuple;
+    }
+
+    /**
+     * Casts a node to a mapping.
+     * @param node The node
+     * @param what A description of the expected value
+     * @return the mapping, or {@code null} if the node is not a mapping
+     */
+    private MappingNode mapping(final Node node, final String what) {
+        if (node instanceof MappingNode)
+            return (MappingNode) node;
+        this.error(node, "Expected %s", what);
+        return null;
+    }
+
+    /**
+     * Casts a node to a sequence.
+     * @param node The node
+     * @param what A description of the expected value
+     * @return the sequence, or {@code null} if the node is not a sequence
+     */
+    private SequenceNode sequence(final Node node, final String what) {
+        if (node instanceof SequenceNode)
+            return (SequenceNode) node;
+        this.error(node, "Expected %s", what);
+        return null;
+    }
+
+    /**
+     * Reads a required integer entry.
+     * @param mapping The mapping
+     * @param key The entry key
+     * @param what A description of the mapping
+     * @return the integer, or {@code null} if problems were found
+     */
+    private Integer integer(final MappingNode mapping, final String key,
+        final String what) {
+        final NodeTuple tuple = this.required(mapping, key, what);
+        return tuple == null ? null : this.integer(tuple, null);
+    }
+
+    /**
+     * Reads an integer entry.
+     * @param tuple The entry
+     * @param otherwise The value to return if the entry is invalid
+     * @return the integer
+     */
+    private Integer integer(final NodeTuple tuple, final Integer otherwise) {
+        final Node node = tuple.getValueNode();
+        if (Tag.INT.equals(node.getTag())) {
+            final Object value = this.values.scalar(node);
+            if (value instanceof Integer)
+                return (Integer) value;
+        }
+        this.error(node, "Expected an integer for '%s'", ExaminationBuilder.key(tuple));
+        return otherwise;
+    }
+
+    /**
+     * Reads a Boolean entry.
+     * @param tuple The entry, possibly {@code null}
+     * @return the Boolean value, or {@code null} if problems were found
+     */
+    private Boolean bool(final NodeTuple tuple) {
+        if (tuple == null)
+            return null;
+        final Node node = tuple.getValueNode();
+        if (Tag.BOOL.equals(node.getTag()))
+            return (Boolean) this.values.scalar(node);
+        this.error(node, "Expected true or false for '%s'", ExaminationBuilder.key(tuple));
+        return null;
+    }
+
+    /**
+     * Reads a plain text entry, as written in the YAML document.
+     * @param tuple The entry, possibly {@code null}
+     * @return the text, or {@code null} if problems were found
+     */
+    private String string(final NodeTuple tuple) {
+        if (tuple == null)
+            return null;
+        final Node node = tuple.getValueNode();
+        if (node instanceof ScalarNode && !Tag.NULL.equals(node.getTag()))
+            return ((ScalarNode) node).getValue();
+        this.error(node, "Expected text for '%s'", ExaminationBuilder.key(tuple));
+        return null;
+    }
+
+    /**
+     * Reads a required styled text entry.
+     * @param mapping The mapping
+     * @param key The entry key
+     * @param what A description of the mapping
+     * @return the text segment, or {@code null} if problems were found
+     */
+    private TextSegment text(final MappingNode mapping, final String key,
+        final String what) {
+        final NodeTuple tuple = this.required(mapping, key, what);
+        if (tuple == null)
+            return null;
+        return this.text(
+            tuple.getValueNode(),
+            key,
+            tuple.getKeyNode().getStartMark().getColumn() + 2
+        );
+    }
+
+    /**
+     * Reads styled text.
+     * @param node The text node
+     * @param what A description of the text
+     * @param indentation The expected indentation of block scalars
+     * @return the text segment, or {@code null} if problems were found
+     */
+    private TextSegment text(final Node node, final String what,
+        final int indentation) {
+        if (!(node instanceof ScalarNode) || Tag.NULL.equals(node.getTag())) {
+            this.error(node, "Expected text for '%s'", what);
+            return null;
+        }
+        final ScalarNode scalar = (ScalarNode) node;
+        try {
+            return this.segments.segment(scalar.getValue());
+        } catch (SegmentSyntaxException e) {
+            this.error(scalar, indentation, e);
+            return null;
+        }
+    }
+
+    /**
+     * Records a problem found at the start of a node.
+     * @param node The node
+     * @param format The message format
+     * @param args The message arguments
+     */
+    private void error(final Node node, final String format,
+        final Object... args) {
+        final Mark mark = node.getStartMark();
+        this.diagnostics.add(
+            new Diagnostic(
+                this.source,
+                this.line + mark.getLine() + 1,
+                mark.getColumn() + 1,
+                String.format(format, args)
+            )
+        );
+    }
+
+    /**
+     * Records a problem found within styled text, mapping its offset to a
+     * location in the file. The lines of block scalars are assumed to be
+     * indented as expected, since nodes do not retain their source text.
+     * @param node The text node
+     * @param indentation The expected indentation of block scalars
+     * @param exception The problem found
+     */
+    private void error(final ScalarNode node, final int indentation,
+        final SegmentSyntaxException exception) {
+        final String value = node.getValue();
+        final int offset = Math.min(exception.offset(), value.length());
+        int lines = 0;
+        int start = 0;
+        for (int i = 0; i < offset; i++) {
+            if (value.charAt(i) == '\n') {
+                lines++;
+                start = i + 1;
+            }
+        }
+        final Mark mark = node.getStartMark();
+        final char style = node.getStyle() == null ? 0 : node.getStyle();
+        final int line;
+        final int column;
+        if (style == '|' || style == '>') {
+            line = mark.getLine() + 1 + lines;
+            column = indentation + offset - start;
+        } else if (lines == 0) {
+            line = mark.getLine();
+            column = mark.getColumn() + offset + (style == 0 ? 0 : 1);
+        } else {
+            line = mark.getLine() + lines;
+            column = indentation + offset - start;
+        }
+        this.diagnostics.add(
+            new Diagnostic(
+                this.source,
+                this.line + line + 1,
+                column + 1,
+                exception.reason()
+            )
+        );
+    }
+
+    /**
+     * The key of a mapping entry.
+     * @param tuple The entry
+     * @return the key text, or an empty string if the key is not a scalar
+     */
+    private static String key(final NodeTuple tuple) {
+        final Node node = tuple.getKeyNode();
+        return node instanceof ScalarNode ? ((ScalarNode) node).getValue() : "";
+    }
+
+    /**
+     * Constructs values as the default SnakeYAML loader would.
+     */
+    private static final class Values extends Constructor {
+
+        /**
+         * Constructs a scalar of a standard type. Unlike
+         * {@link #value(Node)}, this keeps no state and is thread-safe.
+         * @param node The scalar node
+         * @return the value
+         */
+        Object scalar(final Node node) {
+            return this.yamlConstructors.get(node.getTag()).construct(node);
+        }
+
+        /**
+         * Constructs a value of any kind.
+         * @param node The node
+         * @return the value
+         */
+        Object value(final Node node) {
+            return this.constructObject(node);
+        }
+
+    }
+
+}
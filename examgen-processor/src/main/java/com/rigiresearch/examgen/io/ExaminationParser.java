@@ -20,286 +20,527 @@ package com.rigiresearch.examgen.io;
  * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
  * IN THE SOFTWARE.
  */
-import com.rigiresearch.examgen.model.ClosedEnded;
-import com.rigiresearch.examgen.model.ClosedEnded.Option;
-import com.rigiresearch.examgen.model.CompoundQuestion;
-import com.rigiresearch.examgen.model.CompoundText;
 import com.rigiresearch.examgen.model.Examination;
-import com.rigiresearch.examgen.model.Examination.Parameter;
-import com.rigiresearch.examgen.model.OpenEnded;
-import com.rigiresearch.examgen.model.Question;
-import com.rigiresearch.examgen.model.Section;
-import com.rigiresearch.examgen.model.TextSegment;
-import com.rigiresearch.examgen.model.TextSegment.Style;
-import com.rigiresearch.examgen.model.TrueFalse;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
 import org.springframework.stereotype.Component;
+import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.reader.UnicodeReader;
+import org.yaml.snakeyaml.representer.Representer;
+import org.yaml.snakeyaml.resolver.Resolver;
 
 /**
- * A simple (and optimistic) parser implementation to read examinations from a
- * YAML file.
+ * A parser to read examinations from a YAML file. Examinations are built
+ * straight from the YAML nodes, and all the problems found in a file are
+ * reported at once (see {@link ExaminationSyntaxException}).
  * @author Miguel Jimenez (miguel@uvic.ca)
  * @date 2017-09-15
  * @version $Id$
  * @since 0.0.1
  */
-@SuppressWarnings("unchecked")
 @Component
 public class ExaminationParser {
 
+    /**
+     * A YAML document within a file.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-17
+     * @version $Id$
+     * @since 0.0.1
+     */
+    @Accessors(fluent = true)
+    @AllArgsConstructor
+    @Getter
+    public static final class Document {
+
+        /**
+         * The name of the YAML file.
+         */
+        private final String source;
+
+        /**
+         * The number of lines preceding the document in the file.
+         */
+        private final int line;
+
+        /**
+         * The document text.
+         */
+        private final String text;
+
+    }
+
+    /**
+     * Resolves the implicit tags of plain scalars, remembering the tags of
+     * short scalars. Keys, question types, points and Boolean values repeat
+     * throughout a question bank, and resolving each of them anew (through
+     * regular expressions) accounts for a large share of parsing time and
+     * allocation.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-17
+     * @version $Id$
+     * @since 0.0.1
+     */
+    private static final class CachingResolver extends Resolver {
+
+        /**
+         * The maximum length of the scalars remembered.
+         */
+        private static final int MAX_LENGTH = 32;
+
+        /**
+         * The maximum number of scalars remembered.
+         */
+        private static final int MAX_ENTRIES = 4096;
+
+        /**
+         * The tags resolved so far.
+         */
+        private final Map<String, Tag> tags = new ConcurrentHashMap<>();
+
+        /* (non-Javadoc)
+         * @see org.yaml.snakeyaml.resolver.Resolver#resolve(org.yaml.snakeyaml.nodes.NodeId, java.lang.String, boolean)
+         */
+        @Override
+        public Tag resolve(final NodeId kind, final String value,
+            final boolean implicit) {
+            if (kind != NodeId.scalar || !implicit
+                || value.length() > CachingResolver.MAX_LENGTH)
+                return super.resolve(kind, value, implicit);
+            Tag tag = this.tags.get(value);
+            if (tag == null) {
+                tag = super.resolve(kind, value, implicit);
+                if (this.tags.size() < CachingResolver.MAX_ENTRIES)
+                    this.tags.put(value, tag);
+            }
+            return tag;
+        }
+
+    }
+
+    /**
+     * The resolver of implicit tags, shared by all YAML loaders.
+     */
+    private final Resolver resolver = new CachingResolver();
+
     /**
      * Parses a list of examinations from a YAML file.
      * @param file The YAML file
      * @return The examinations parsed
      * @throws FileNotFoundException If the YAML file is not found
+     * @throws ExaminationSyntaxException If the file contains invalid
+     *  examinations, listing the problems found in all of them
      */
     public List<Examination> examinations(File file) throws FileNotFoundException {
-        List<Examination> exams = new ArrayList<>();
-        new Yaml().loadAll(new FileInputStream(file))
-            .forEach(data -> {
-                Map<String, Object> values = (Map<String, Object>) data;
-                exams.add(
-                    new Examination(
-                        parameters(values.get("parameters")),
-                        questions(values.get("questions"))
-                    )
-                );
-            });
-        return exams;
+        final List<Diagnostic> diagnostics = new ArrayList<>();
+        final List<Examination> examinations;
+        try (Stream<Examination> stream =
+            this.stream(file, diagnostics, new TextSegmentParser())) {
+            examinations = stream.collect(Collectors.toList());
+        }
+        ExaminationSyntaxException.check(diagnostics);
+        return examinations;
     }
 
     /**
-     * Parses the examination parameters.
-     * @param obj The input object
-     * @return a map
+     * Lazily parses the examinations from a YAML file. Each YAML document is
+     * parsed only when the stream reaches it, so previous documents can be
+     * garbage collected once consumed. The stream must be closed to release
+     * the underlying file.
+     * @param file The YAML file
+     * @return A sequential, ordered stream of examinations, which throws an
+     *  {@link ExaminationSyntaxException} upon reaching an invalid document
+     * @throws FileNotFoundException If the YAML file is not found
      */
-    private Map<Parameter, Object> parameters(Object obj) {
-        Map<Parameter, Object> params = new HashMap<>();
-        ((List<Map<String, Object>>) obj).stream()
-            .forEach(map -> {
-                String key = map.keySet().stream().findFirst().get();
-                Object value = map.get(key);
-                switch (key) {
-                    case "SECTIONS": {
-                        List<Map<String, Object>> data = (List<Map<String, Object>>) value;
-                        List<Section> sections = new ArrayList<>();
-                        data.forEach(smap -> {
-                            String TA = "";
-                            int students = 0;
-                            if (smap.get("TA") != null)
-                                TA = (String) smap.get("TA");
-                            if (smap.get("students") != null)
-                                students = (Integer) smap.get("students");
-                            sections.add(
-                                new Section(
-                                    (String) smap.get("name"),
-                                    TA,
-                                    students
-                                )
-                            );
-                        });
-                        params.put(Parameter.SECTIONS, sections);
-                    } break;
-                    case "INSTRUCTIONS": {
-                        params.put(
-                            Parameter.INSTRUCTIONS,
-                            ((List<String>) value).stream()
-                                .map(text -> this.textSegment(text))
-                                .collect(Collectors.toList())
-                        );
-                    } break;
-                    default: {
-                        params.put(Parameter.valueOf(key), value);
-                    }
+    public Stream<Examination> stream(File file) throws FileNotFoundException {
+        return this.stream(file, null, new TextSegmentParser());
+    }
+
+    /**
+     * Lazily parses the examinations from a YAML file.
+     * @param file The YAML file
+     * @param diagnostics The list collecting the problems found, in which case
+     *  invalid documents are skipped, or {@code null} to fail on the first
+     *  invalid document
+     * @param segments The tokenizer of styled text segments
+     * @return A sequential, ordered stream of examinations
+     * @throws FileNotFoundException If the YAML file is not found
+     */
+    private Stream<Examination> stream(File file, List<Diagnostic> diagnostics,
+        TextSegmentParser segments) throws FileNotFoundException {
+        final String source = file.getPath();
+        final InputStream input = new FileInputStream(file);
+        final Iterator<Node> nodes = this.yaml()
+            .composeAll(new UnicodeReader(input))
+            .iterator();
+        final Spliterator<Node> documents = new Spliterators.AbstractSpliterator<Node>(
+            Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean failed;
+            @Override
+            public boolean tryAdvance(Consumer<? super Node> action) {
+                final Node node;
+                try {
+                    if (this.failed || !nodes.hasNext())
+                        return false;
+                    node = nodes.next();
+                } catch (MarkedYAMLException e) {
+                    this.failed = true;
+                    ExaminationParser.report(
+                        ExaminationParser.diagnostic(source, 0, e),
+                        diagnostics
+                    );
+                    return false;
+                }
+                action.accept(node);
+                return true;
+            }
+        };
+        return StreamSupport.stream(documents, false)
+            .filter(node -> !Tag.NULL.equals(node.getTag()))
+            .map(node -> this.examination(node, source, 0, false, diagnostics, segments, null))
+            .filter(Objects::nonNull)
+            .onClose(() -> {
+                try {
+                    input.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
             });
-        return params;
     }
 
     /**
-     * Parses the examination questions.
-     * @param obj The input object
-     * @return a list of questions
+     * Parses the examinations from several YAML files in parallel. Files and
+     * the documents within each file are distributed across the common
+     * fork-join pool. The result keeps the order of the files, and of the
+     * documents within each file.
+     * @param files The YAML files
+     * @return The examinations parsed
+     * @throws UncheckedIOException If a file cannot be read
+     * @throws ExaminationSyntaxException If the files contain invalid
+     *  examinations, listing the problems found in all of them
      */
-    private List<Question> questions(Object obj) {
-        List<Question> questions = new ArrayList<>();
-        ((List<Map<String, Object>>) obj).stream()
-            .forEach(map -> {
-                Question question = null;
-                switch ((String) map.get("type")) {
-                    case "open-ended":
-                        question = this.openEnded(map);
-                        break;
-                    case "closed-ended":
-                        question = this.closedEnded(map);
-                        break;
-                    case "true-false":
-                        question = this.trueFalse(map);
-                        break;
-                    case "compound":
-                        question = this.compound(map);
-                        break;
-                    default:
-                        throw new IllegalArgumentException(
-                            String.format(
-                                "Unknown question type %s",
-                                map.get("type")
-                            )
-                        );
+    public List<Examination> examinations(List<File> files) {
+        final List<Diagnostic> diagnostics =
+            Collections.synchronizedList(new ArrayList<>());
+        final TextSegmentParser segments = new TextSegmentParser();
+        final List<Examination> examinations = files.parallelStream()
+            .map(file -> {
+                try {
+                    return this.examinations(file, segments);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } catch (ExaminationSyntaxException e) {
+                    diagnostics.addAll(e.diagnostics());
+                    return Collections.<Examination>emptyList();
                 }
-                questions.add(question);
-            });
-        return questions;
+            })
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+        ExaminationSyntaxException.check(diagnostics);
+        return examinations;
     }
 
     /**
-     * Parses an open-ended question.
-     * @param data The question data
-     * @return a question
+     * Parses a list of examinations from a YAML file.
+     * @param file The YAML file
+     * @param parallel Whether to parse the documents (and the questions
+     *  within each document) in parallel
+     * @return The examinations parsed, in the order of the YAML documents
+     * @throws IOException If the YAML file cannot be read
+     * @throws ExaminationSyntaxException If the file contains invalid
+     *  examinations, listing the problems found in all of them
      */
-    private Question openEnded(Map<String, Object> data) {
-        return new OpenEnded(
-            this.textSegment(data.get("statement")),
-            this.textSegment(data.get("answer")),
-            (Integer) data.get("points"),
-            data.get("length").toString()
-        );
+    public List<Examination> examinations(File file, boolean parallel)
+        throws IOException {
+        if (!parallel)
+            return this.examinations(file);
+        return this.examinations(file, new TextSegmentParser());
     }
 
     /**
-     * Parses a closed-ended question.
-     * @param data The question data
-     * @return a question
+     * Parses a list of examinations from a YAML file, in parallel.
+     * @param file The YAML file
+     * @param segments The tokenizer of styled text segments
+     * @return The examinations parsed, in the order of the YAML documents
+     * @throws IOException If the YAML file cannot be read
+     * @throws ExaminationSyntaxException If the file contains invalid
+     *  examinations, listing the problems found in all of them
      */
-    private Question closedEnded(Map<String, Object> data) {
-        List<Option> options = new ArrayList<>();
-        ((List<Map<String, Object>>) data.get("options")).stream()
-            .forEach(map -> {
-                options.add(
-                    new Option(
-                        (boolean) map.get("correct"),
-                        this.textSegment(map.get("statement"))
-                    )
-                );
-            });
-        return new ClosedEnded(
-            this.textSegment(data.get("statement")),
-            (Integer) data.get("points"),
-            options
+    private List<Examination> examinations(File file,
+        TextSegmentParser segments) throws IOException {
+        final List<Diagnostic> diagnostics =
+            Collections.synchronizedList(new ArrayList<>());
+        final List<Examination> examinations = this.documents(file)
+            .parallelStream()
+            .map(document -> this.examination(document, true, diagnostics, segments, null))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+        ExaminationSyntaxException.check(diagnostics);
+        return examinations;
+    }
+
+    /**
+     * Splits a YAML file into its documents, without parsing them.
+     * @param file The YAML file
+     * @return The documents
+     * @throws IOException If the YAML file cannot be read
+     */
+    public List<Document> documents(File file) throws IOException {
+        return ExaminationParser.documents(
+            file.getPath(),
+            new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8)
         );
     }
 
     /**
-     * Parses a True-False question.
-     * @param data The question data
-     * @return a question
+     * Parses an examination from a single YAML document.
+     * @param document The document (see {@link #documents(File)})
+     * @return The examination parsed, or {@code null} if the document is empty
+     * @throws ExaminationSyntaxException If the examination is invalid
+     */
+    public Examination examination(Document document) {
+        return this.examination(document, false, null, new TextSegmentParser(), null);
+    }
+
+    /**
+     * Parses an examination from a single YAML document, collecting the
+     * question banks that it includes or references.
+     * @param document The document (see {@link #documents(File)})
+     * @param banks The collection to which the bank files are added, with
+     *  absolute paths, even if the examination is invalid
+     * @return The examination parsed, or {@code null} if the document is empty
+     * @throws ExaminationSyntaxException If the examination is invalid
+     */
+    public Examination examination(Document document, Collection<File> banks) {
+        return this.examination(document, false, null, new TextSegmentParser(), banks);
+    }
+
+    /**
+     * Parses an examination from a single YAML document.
+     * @param document The document
+     * @param parallel Whether to build the questions in parallel
+     * @param diagnostics The list collecting the problems found, or
+     *  {@code null} to throw them instead
+     * @param segments The tokenizer of styled text segments
+     * @param banks The collection to which the question banks are added, or
+     *  {@code null}
+     * @return The examination parsed, or {@code null} if the document is
+     *  empty or invalid
      */
-    private Question trueFalse(Map<String, Object> data) {
-        return new TrueFalse(
-            this.textSegment(data.get("statement")),
-            (Boolean) data.get("answer"),
-            (Integer) data.get("points")
+    private Examination examination(Document document, boolean parallel,
+        List<Diagnostic> diagnostics, TextSegmentParser segments,
+        Collection<File> banks) {
+        final Node node;
+        try {
+            node = this.yaml().compose(new StringReader(document.text()));
+        } catch (MarkedYAMLException e) {
+            ExaminationParser.report(
+                ExaminationParser.diagnostic(document.source(), document.line(), e),
+                diagnostics
+            );
+            return null;
+        }
+        if (node == null || Tag.NULL.equals(node.getTag()))
+            return null;
+        return this.examination(
+            node,
+            document.source(),
+            document.line(),
+            parallel,
+            diagnostics,
+            segments,
+            banks
         );
     }
 
     /**
-     * Parses a compound question.
-     * @param data The question data
-     * @return a question
+     * Creates a YAML loader, which is not thread-safe.
+     * @return a loader
      */
-    private Question compound(Map<String, Object> data) {
-        List<Question> questions = questions(data.get("children"));
-        return new CompoundQuestion(
-            this.textSegment(data.get("statement")),
-            questions
+    private Yaml yaml() {
+        return new Yaml(
+            new Constructor(),
+            new Representer(),
+            new DumperOptions(),
+            this.resolver
         );
     }
 
     /**
-     * Parses a text segment.
-     * @param data The segment data
-     * @return a segment
+     * Builds an examination from a YAML document.
+     * @param node The document root
+     * @param source The name of the YAML file
+     * @param line The number of lines preceding the document in the file
+     * @param parallel Whether to build the questions in parallel
+     * @param diagnostics The list collecting the problems found, or
+     *  {@code null} to throw them instead
+     * @param segments The tokenizer of styled text segments
+     * @param banks The collection to which the question banks are added, or
+     *  {@code null}
+     * @return The examination, or {@code null} if it is invalid
      */
-    private TextSegment textSegment(Object obj) {
-        List<TextSegment> segments = this._textSegments(obj.toString());
-        if (segments.size() == 1) {
-            return segments.get(0);
-        } else {
-            return new CompoundText(segments);
-        }
+    private Examination examination(Node node, String source, int line,
+        boolean parallel, List<Diagnostic> diagnostics,
+        TextSegmentParser segments, Collection<File> banks) {
+        final ExaminationBuilder builder =
+            new ExaminationBuilder(segments, source, line);
+        final Examination examination = builder.examination(node, parallel);
+        if (banks != null)
+            banks.addAll(builder.banks());
+        if (diagnostics == null)
+            ExaminationSyntaxException.check(builder.diagnostics());
+        else
+            diagnostics.addAll(builder.diagnostics());
+        return examination;
     }
 
     /**
-     * Parses a text into a sequential list of text segments.
-     * TODO make it recursive
-     * @param text The input text
-     * @return a sequence of text segments
+     * Describes a YAML syntax error.
+     * @param source The name of the YAML file
+     * @param line The number of lines preceding the document in the file
+     * @param exception The syntax error
+     * @return a diagnostic
      */
-    private List<TextSegment> _textSegments(String text) {
-        List<TextSegment> segments = new ArrayList<>();
-        Pattern pattern = Pattern.compile(
-            String.format(
-                "%s%s%s%s%s",
-                "(?<before>[.\\s\\S]*)", // left
-                String.format(
-                    "<(?<style>(%s))>",
-                    ExaminationParser.supportedStylesClass()
-                ), // style - opening tag
-                "(?<text>[.\\s\\S]*)", // styled text
-                "<\\/\\k<style>>", // style - closing tag
-                "(?<after>[.\\s\\S]*)" // right
-            ),
-            Pattern.MULTILINE
+    static Diagnostic diagnostic(String source, int line,
+        MarkedYAMLException exception) {
+        final Mark mark = exception.getProblemMark() == null
+            ? exception.getContextMark()
+            : exception.getProblemMark();
+        return new Diagnostic(
+            source,
+            line + (mark == null ? 0 : mark.getLine()) + 1,
+            mark == null ? 1 : mark.getColumn() + 1,
+            exception.getContext() == null
+                ? exception.getProblem()
+                : String.format("%s %s", exception.getProblem(), exception.getContext())
         );
-        Matcher matcher = null;
-        while ((matcher = pattern.matcher(text)).find()) {
-            text = matcher.group("text");
-            final String before = matcher.group("before");
-            final String after = matcher.group("after");
-            segments.addAll(_textSegments(before));
-            segments.add(
-                new TextSegment.Simple(
-                    text,
-                    Arrays.asList(
-                        Style.valueOf(matcher.group("style").toUpperCase())
-                    )
-                )
+    }
+
+    /**
+     * Records a problem, or throws it if problems are not being collected.
+     * @param diagnostic The problem
+     * @param diagnostics The list collecting the problems found, or
+     *  {@code null}
+     */
+    private static void report(Diagnostic diagnostic,
+        List<Diagnostic> diagnostics) {
+        if (diagnostics == null)
+            throw new ExaminationSyntaxException(
+                Collections.singletonList(diagnostic)
             );
-            segments.addAll(_textSegments(after));
+        diagnostics.add(diagnostic);
+    }
+
+    /**
+     * Splits a YAML stream into its documents. A line starting with a
+     * document marker ("---" or "...") cannot be part of any YAML content,
+     * so the stream can be split without parsing it. Each document starts at
+     * the beginning of a line (including its "---" marker, if any) so that
+     * line and column numbers can be mapped back to the stream. After a "..."
+     * marker, the next document starts at its "---" marker or, if it is a
+     * bare document, at its first line that is not blank, a comment or a
+     * directive.
+     * @param source The name of the YAML file
+     * @param text The YAML stream
+     * @return The documents, excluding directives
+     */
+    private static List<Document> documents(String source, String text) {
+        List<Document> documents = new ArrayList<>();
+        int start = text.startsWith("\uFEFF") ? 1 : 0;
+        int first = 0;
+        boolean content = true;
+        int line = start;
+        int number = 0;
+        while (line < text.length()) {
+            int end = text.indexOf('\n', line);
+            if (end < 0)
+                end = text.length();
+            boolean begins = ExaminationParser.marker(text, line, end, "---");
+            if (begins || ExaminationParser.marker(text, line, end, "...")) {
+                if (content)
+                    documents.add(new Document(source, first, text.substring(start, line)));
+                start = line;
+                first = number;
+                content = begins;
+            } else if (!content && !ExaminationParser.blank(text.substring(line, end))) {
+                // A bare document follows the end marker
+                start = line;
+                first = number;
+                content = true;
+            }
+            line = end + 1;
+            number++;
         }
-        if (segments.isEmpty())
-            segments.add(new TextSegment.Simple(text));
-        return segments;
+        if (content)
+            documents.add(new Document(source, first, text.substring(start)));
+        return documents.stream()
+            .filter(document -> !ExaminationParser.blank(document.text()))
+            .collect(Collectors.toList());
     }
 
     /**
-     * Returns a list of supported styles separated by the pipe character.
-     * @return A string representation of the supported styles
+     * Whether a line is a document marker.
+     * @param text The YAML stream
+     * @param start The line start offset
+     * @param end The line end offset
+     * @param marker The document marker
+     * @return whether the line starts with the marker followed by a
+     *  whitespace or the end of the line
      */
-    private static String supportedStylesClass() {
-        final StringBuilder sb = new StringBuilder();
-        final Style[] supportedStyles = TextSegment.Style.values();
-        for (int i = 0; i < supportedStyles.length; i++) {
-            sb.append(
-                supportedStyles[i].toString()
-                    .toLowerCase(Locale.ROOT)
-            );
-            if (i < supportedStyles.length - 1)
-                sb.append("|");
+    private static boolean marker(String text, int start, int end,
+        String marker) {
+        return text.startsWith(marker, start)
+            && (start + 3 == end || Character.isWhitespace(text.charAt(start + 3)));
+    }
+
+    /**
+     * Whether a document contains only comments and directives.
+     * @param document The document text
+     * @return whether there is nothing to parse
+     */
+    private static boolean blank(String document) {
+        final String text = document.startsWith("---")
+            ? document.substring(3)
+            : document;
+        for (String line : text.split("\n")) {
+            String trimmed = line.trim();
+            if (!trimmed.isEmpty()
+                && !trimmed.startsWith("#")
+                && !trimmed.startsWith("%"))
+                return false;
         }
-        return sb.toString();
+        return true;
     }
+
 }
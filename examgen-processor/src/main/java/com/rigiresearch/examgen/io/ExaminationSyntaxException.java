@@ -0,0 +1,92 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Signals one or more invalid examinations in the input.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@Getter
+public final class ExaminationSyntaxException extends IllegalArgumentException {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 5922187356109423711L;
+
+    /**
+     * The problems found, sorted by location.
+     */
+    private final List<Diagnostic> diagnostics;
+
+    /**
+     * Default constructor.
+     * @param diagnostics The problems found
+     */
+    public ExaminationSyntaxException(final Collection<Diagnostic> diagnostics) {
+        super(ExaminationSyntaxException.message(diagnostics));
+        final List<Diagnostic> sorted = new ArrayList<>(diagnostics);
+        Collections.sort(sorted);
+        this.diagnostics = Collections.unmodifiableList(sorted);
+    }
+
+    /**
+     * Throws an exception if there are problems.
+     * @param diagnostics The problems found
+     * @throws ExaminationSyntaxException If the list is not empty
+     */
+    public static void check(final Collection<Diagnostic> diagnostics) {
+        if (!diagnostics.isEmpty())
+            throw new ExaminationSyntaxException(diagnostics);
+    }
+
+    /**
+     * Describes the problems, one per line.
+     * @param diagnostics The problems found
+     * @return The exception message
+     */
+    private static String message(final Collection<Diagnostic> diagnostics) {
+        return diagnostics.stream()
+            .sorted()
+            .map(Diagnostic::toString)
+            .collect(
+                Collectors.joining(
+                    "\n",
+                    String.format("%d problem(s) found:\n", diagnostics.size()),
+                    ""
+                )
+            );
+    }
+
+}
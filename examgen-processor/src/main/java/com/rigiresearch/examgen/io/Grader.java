@@ -0,0 +1,243 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.AnswerKey;
+import com.rigiresearch.examgen.model.AnswerKey.Answer;
+import com.rigiresearch.examgen.model.Examination;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.Accessors;
+
+/**
+ * Grades the responses to the closed-ended and true-false questions of the
+ * variants of an examination. The answer keys are recreated from the variant
+ * names, with the seed and questions limit used to generate the variants,
+ * and only for the names of the variants that were generated.
+ * <p>
+ * A response scores the points of its question if it selects exactly the
+ * correct options. A response to a question with several correct options
+ * also gets partial credit: the points times the number of correct options
+ * selected minus the number of incorrect options selected, over the number
+ * of correct options, or 0 if negative. Exact matches are found for four
+ * students at a time, comparing each 64-bit word of packed responses with
+ * the key repeated in every lane.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@RequiredArgsConstructor
+@Getter
+public final class Grader {
+
+    /**
+     * The low 15 bits of each 16-bit lane.
+     */
+    private static final long LOW = 0x7FFF7FFF7FFF7FFFL;
+
+    /**
+     * The high bit of each 16-bit lane.
+     */
+    private static final long HIGH = 0x8000800080008000L;
+
+    /**
+     * The lowest bit of each 16-bit lane.
+     */
+    private static final long ONES = 0x0001000100010001L;
+
+    /**
+     * The largest number of points accumulated in a 16-bit lane.
+     */
+    private static final int CAPACITY = 0xFFFF;
+
+    /**
+     * The examination.
+     */
+    private final Examination examination;
+
+    /**
+     * The seed used to generate the variants.
+     */
+    private final long seed;
+
+    /**
+     * The number of questions of each variant.
+     */
+    private final int limit;
+
+    /**
+     * The names of the variants that were generated, such as section names.
+     */
+    private final Set<String> variants;
+
+    /**
+     * The answer keys recreated so far, by variant name.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, AnswerKey> keys = new HashMap<>();
+
+    /**
+     * Recreates the answer key of a variant.
+     * @param variant The name of the variant (e.g., a section name)
+     * @return the answer key, or {@code null} if no variant of that name was
+     *  generated
+     */
+    public AnswerKey key(final String variant) {
+        if (!this.variants.contains(variant))
+            return null;
+        return this.keys.computeIfAbsent(
+            variant,
+            name -> AnswerKey.of(this.examination.variant(name, this.seed, this.limit))
+        );
+    }
+
+    /**
+     * Reads responses to the variants of the examination.
+     * @param file The CSV file (see {@link Responses})
+     * @return the responses
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If a line is malformed or refers to an
+     *  unknown variant
+     */
+    public Responses read(final File file) throws IOException {
+        return Responses.read(file, this::key);
+    }
+
+    /**
+     * Grades the responses.
+     * @param responses The responses
+     * @return the grades, in the order of the responses
+     */
+    public Grades grade(final Responses responses) {
+        final int size = responses.students().size();
+        final String[] variants = new String[size];
+        final double[] scores = new double[size];
+        final int[] points = new int[size];
+        final ByteBuffer buffer = responses.buffer();
+        for (final Responses.Group group : responses.groups()) {
+            final List<Answer> answers = group.key().answers();
+            final short[] codes = group.codes();
+            final int words = group.words();
+            final long[] lanes = new long[words];
+            final double[] partial = new double[words * Responses.LANES];
+            final int[] exact = new int[words * Responses.LANES];
+            int total = 0;
+            int accumulated = 0;
+            for (int item = 0; item < codes.length; item++) {
+                if (codes[item] == 0)
+                    continue;
+                final int value = answers.get(item).points();
+                final int column = (int) group.offset() + item * words * Long.BYTES;
+                total += value;
+                if (Integer.bitCount(codes[item] & 0xFFFF) > 1) {
+                    Grader.partial(buffer, column, words, codes[item], value, partial);
+                    continue;
+                }
+                if (accumulated + value > Grader.CAPACITY) {
+                    Grader.flush(lanes, exact);
+                    accumulated = 0;
+                }
+                accumulated += value;
+                final long key = (codes[item] & 0xFFFFL) * Grader.ONES;
+                for (int w = 0; w < words; w++) {
+                    final long x = buffer.getLong(column + w * Long.BYTES) ^ key;
+                    // The high bit of a lane is clear if and only if the lane is zero
+                    final long zero = ~(((x & Grader.LOW) + Grader.LOW) | x) & Grader.HIGH;
+                    lanes[w] += (zero >>> (Short.SIZE - 1)) * value;
+                }
+            }
+            Grader.flush(lanes, exact);
+            final int[] rows = group.rows();
+            for (int slot = 0; slot < group.count(); slot++) {
+                variants[rows[slot]] = group.variant();
+                scores[rows[slot]] = exact[slot] + partial[slot];
+                points[rows[slot]] = total;
+            }
+        }
+        return new Grades(responses.students(), variants, scores, points);
+    }
+
+    /**
+     * Scores the responses to a question with several correct options.
+     * @param buffer The packed responses
+     * @param column The offset of the question column
+     * @param words The number of words of the column
+     * @param code The packed answer
+     * @param value The points of the question
+     * @param scores The scores of the students, by lane
+     */
+    private static void partial(final ByteBuffer buffer, final int column,
+        final int words, final short code, final int value, final double[] scores) {
+        for (int w = 0; w < words; w++) {
+            final long word = buffer.getLong(column + w * Long.BYTES);
+            for (int lane = 0; lane < Responses.LANES; lane++) {
+                scores[w * Responses.LANES + lane] +=
+                    value * Grader.credit(code, (short) (word >>> (lane * Short.SIZE)));
+            }
+        }
+    }
+
+    /**
+     * Computes the credit of a response.
+     * @param code The packed answer
+     * @param response The packed response
+     * @return the fraction of the points scored, between 0 and 1
+     */
+    static double credit(final short code, final short response) {
+        if (response == code)
+            return 1.0;
+        final int correct = code & 0xFFFF;
+        final int selected = response & 0xFFFF;
+        final int net = Integer.bitCount(selected & correct)
+            - Integer.bitCount(selected & ~correct);
+        if (net <= 0 || Integer.bitCount(correct) < 2)
+            return 0.0;
+        return (double) net / Integer.bitCount(correct);
+    }
+
+    /**
+     * Adds the points accumulated in 16-bit lanes to the scores, and clears
+     * the lanes.
+     * @param lanes The accumulated points, four students per word
+     * @param scores The scores of the students, by lane
+     */
+    private static void flush(final long[] lanes, final int[] scores) {
+        for (int w = 0; w < lanes.length; w++) {
+            for (int lane = 0; lane < Responses.LANES; lane++) {
+                scores[w * Responses.LANES + lane] +=
+                    (int) (lanes[w] >>> (lane * Short.SIZE)) & 0xFFFF;
+            }
+            lanes[w] = 0L;
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Locale;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * The scores of the students who responded to the variants of an
+ * examination, in the order of their responses.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor(access = AccessLevel.PACKAGE)
+public final class Grades {
+
+    /**
+     * The name of the file written by {@link #write(File)}.
+     */
+    public static final String FILE = "grades.csv";
+
+    /**
+     * The student IDs.
+     */
+    @Getter
+    private final List<String> students;
+
+    /**
+     * The variant of each student.
+     */
+    private final String[] variants;
+
+    /**
+     * The score of each student.
+     */
+    private final double[] scores;
+
+    /**
+     * The points of the graded questions of each student's variant.
+     */
+    private final int[] points;
+
+    /**
+     * The number of students.
+     * @return the number of students
+     */
+    public int size() {
+        return this.scores.length;
+    }
+
+    /**
+     * The variant of a student.
+     * @param student The position of the student
+     * @return the name of the variant
+     */
+    public String variant(final int student) {
+        return this.variants[student];
+    }
+
+    /**
+     * The score of a student.
+     * @param student The position of the student
+     * @return the points scored
+     */
+    public double score(final int student) {
+        return this.scores[student];
+    }
+
+    /**
+     * The points of the graded questions of a student's variant, that is,
+     * the highest possible score.
+     * @param student The position of the student
+     * @return the points
+     */
+    public int points(final int student) {
+        return this.points[student];
+    }
+
+    /**
+     * Writes the grades to "grades.csv" in a directory, with the student,
+     * variant, score and points of each student.
+     * @param directory The output directory
+     * @return the file written
+     * @throws IOException If the file cannot be written
+     */
+    public File write(final File directory) throws IOException {
+        directory.mkdirs();
+        final File file = new File(directory, Grades.FILE);
+        try (Writer writer = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("student,variant,score,points\n");
+            for (int i = 0; i < this.scores.length; i++) {
+                writer.write(AnswerKeys.field(this.students.get(i)));
+                writer.write(',');
+                writer.write(AnswerKeys.field(this.variants[i]));
+                writer.write(',');
+                writer.write(String.format(Locale.ROOT, "%.2f", this.scores[i]));
+                writer.write(',');
+                writer.write(Integer.toString(this.points[i]));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+}
@@ -0,0 +1,134 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Resolves the YAML files denoted by an input argument, which can be a file,
+ * a directory (searched recursively for YAML files) or a glob pattern (e.g.,
+ * {@code banks/*.yaml}).
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class InputFiles {
+
+    /**
+     * Characters denoting a glob pattern.
+     */
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    /**
+     * Utility class.
+     */
+    private InputFiles() {
+    }
+
+    /**
+     * Whether the input denotes several files.
+     * @param input The input argument
+     * @return whether the input is a directory or a glob pattern
+     */
+    public static boolean multiple(final String input) {
+        return InputFiles.glob(input) >= 0 || new File(input).isDirectory();
+    }
+
+    /**
+     * Resolves the files denoted by an input argument.
+     * @param input The input argument
+     * @return The files, sorted by path
+     * @throws IOException If a directory cannot be read
+     */
+    public static List<File> resolve(final String input) throws IOException {
+        final int glob = InputFiles.glob(input);
+        if (glob < 0) {
+            final File file = new File(input);
+            if (!file.isDirectory())
+                return Collections.singletonList(file);
+            return InputFiles.walk(
+                file.toPath(),
+                path -> {
+                    final String name = path.getFileName().toString();
+                    return name.endsWith(".yaml") || name.endsWith(".yml");
+                }
+            );
+        }
+        final int separator = Math.max(
+            input.lastIndexOf('/', glob),
+            input.lastIndexOf(File.separatorChar, glob)
+        );
+        final PathMatcher matcher = FileSystems.getDefault()
+            .getPathMatcher(String.format("glob:%s", input));
+        return InputFiles.walk(
+            Paths.get(separator < 0 ? "" : input.substring(0, separator + 1)),
+            matcher::matches
+        );
+    }
+
+    /**
+     * Finds the regular files matching a predicate.
+     * @param root The root directory
+     * @param predicate The predicate
+     * @return The files, sorted by path
+     * @throws IOException If a directory cannot be read
+     */
+    private static List<File> walk(final Path root,
+        final Predicate<Path> predicate) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths
+                .filter(path -> Files.isRegularFile(path))
+                .filter(predicate)
+                .sorted()
+                .map(Path::toFile)
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Finds the first glob character in the input.
+     * @param input The input argument
+     * @return the index of the first glob character, or -1 if there is none
+     */
+    private static int glob(final String input) {
+        int index = -1;
+        for (final char c : InputFiles.GLOB_CHARACTERS.toCharArray()) {
+            final int i = input.indexOf(c);
+            if (i >= 0 && (index < 0 || i < index))
+                index = i;
+        }
+        return index;
+    }
+
+}
@@ -0,0 +1,728 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.AnswerKey.Answer;
+import com.rigiresearch.examgen.model.Fingerprint;
+import com.rigiresearch.examgen.model.TrueFalse;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Item analysis of graded responses: the difficulty and discrimination of
+ * each question, how often each of its options was selected, and the
+ * reliability of each variant.
+ * <p>
+ * Questions are identified by their fingerprint and options by their
+ * position in the examination, so the statistics of a question are pooled
+ * across the variants that include it, regardless of how its options were
+ * scrambled. The difficulty (p-value) is the mean fraction of the points
+ * scored, and the discrimination is the point-biserial correlation between
+ * that fraction and the fraction of the points scored in the rest of the
+ * variant. The reliability of a variant is its KR-20 coefficient (Cronbach's
+ * alpha, when there is partial credit).
+ * <p>
+ * The statistics are computed in a single pass over the packed responses,
+ * with mergeable accumulators of means and co-moments (Welford's method and
+ * its pairwise update), so that students can be analysed in parallel.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public final class ItemAnalysis {
+
+    /**
+     * The name of the file with the question statistics.
+     */
+    public static final String ITEMS = "item-analysis.csv";
+
+    /**
+     * The name of the file with the variant statistics.
+     */
+    public static final String FORMS = "reliability.csv";
+
+    /**
+     * The number of students analysed by each task.
+     */
+    private static final int CHUNK = 4096;
+
+    /**
+     * The questions, in order of first appearance.
+     */
+    private final List<Item> items;
+
+    /**
+     * The variants, in order of first appearance.
+     */
+    private final List<Form> forms;
+
+    /**
+     * Analyses graded responses, in parallel.
+     * @param responses The responses
+     * @return the item analysis
+     */
+    public static ItemAnalysis of(final Responses responses) {
+        final List<Chunk> chunks = new ArrayList<>();
+        for (final Responses.Group group : responses.groups()) {
+            for (int from = 0; from < group.count(); from += ItemAnalysis.CHUNK) {
+                chunks.add(
+                    new Chunk(group, from, Math.min(group.count(), from + ItemAnalysis.CHUNK))
+                );
+            }
+        }
+        final Accumulator accumulator = chunks.parallelStream()
+            .map(chunk -> new Accumulator().add(responses.buffer(), chunk))
+            .reduce(Accumulator::merge)
+            .orElseGet(Accumulator::new);
+        final List<Item> items = new ArrayList<>(accumulator.items.size());
+        accumulator.items.values().forEach(statistics -> items.add(statistics.item()));
+        final List<Form> forms = new ArrayList<>(accumulator.forms.size());
+        accumulator.forms.forEach((variant, statistics) -> forms.add(statistics.form(variant)));
+        return new ItemAnalysis(
+            Collections.unmodifiableList(items),
+            Collections.unmodifiableList(forms)
+        );
+    }
+
+    /**
+     * Writes the question statistics to "item-analysis.csv" and the variant
+     * statistics to "reliability.csv" in a directory. Option frequencies are
+     * listed in the order of the examination (e.g., "A=0.610;B=0.250").
+     * Undefined statistics are left empty.
+     * @param directory The output directory
+     * @throws IOException If a file cannot be written
+     */
+    public void write(final File directory) throws IOException {
+        directory.mkdirs();
+        final File items = new File(directory, ItemAnalysis.ITEMS);
+        try (Writer writer = Files.newBufferedWriter(items.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(
+                "fingerprint,type,points,answer,responses,difficulty,discrimination,blank,frequencies\n"
+            );
+            for (final Item item : this.items) {
+                writer.write(item.fingerprint().toString());
+                writer.write(',');
+                writer.write(item.type());
+                writer.write(',');
+                writer.write(Integer.toString(item.points()));
+                writer.write(',');
+                writer.write(item.answer());
+                writer.write(',');
+                writer.write(Long.toString(item.responses()));
+                writer.write(',');
+                writer.write(ItemAnalysis.decimal(item.difficulty()));
+                writer.write(',');
+                writer.write(ItemAnalysis.decimal(item.discrimination()));
+                writer.write(',');
+                writer.write(ItemAnalysis.decimal(item.blank()));
+                writer.write(',');
+                for (int k = 0; k < item.options(); k++) {
+                    if (k > 0)
+                        writer.write(';');
+                    writer.write(item.label(k));
+                    writer.write('=');
+                    writer.write(ItemAnalysis.decimal(item.frequency(k)));
+                }
+                writer.write('\n');
+            }
+        }
+        final File forms = new File(directory, ItemAnalysis.FORMS);
+        try (Writer writer = Files.newBufferedWriter(forms.toPath(), StandardCharsets.UTF_8)) {
+            writer.write("variant,students,questions,mean,deviation,reliability\n");
+            for (final Form form : this.forms) {
+                writer.write(AnswerKeys.field(form.variant()));
+                writer.write(',');
+                writer.write(Long.toString(form.students()));
+                writer.write(',');
+                writer.write(Integer.toString(form.questions()));
+                writer.write(',');
+                writer.write(ItemAnalysis.decimal(form.mean()));
+                writer.write(',');
+                writer.write(ItemAnalysis.decimal(form.deviation()));
+                writer.write(',');
+                writer.write(ItemAnalysis.decimal(form.reliability()));
+                writer.write('\n');
+            }
+        }
+    }
+
+    /**
+     * Formats a statistic.
+     * @param value The value
+     * @return the value with three decimals, or an empty string if undefined
+     */
+    private static String decimal(final double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return "";
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * The statistics of a question.
+     */
+    @Accessors(fluent = true)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    public static final class Item {
+
+        /**
+         * The fingerprint of the question.
+         */
+        private final Fingerprint fingerprint;
+
+        /**
+         * The question type.
+         */
+        private final String type;
+
+        /**
+         * The number of points of the question.
+         */
+        private final int points;
+
+        /**
+         * The answer, with the options in the order of the examination.
+         */
+        private final String answer;
+
+        /**
+         * The number of responses, including blank ones.
+         */
+        private final long responses;
+
+        /**
+         * The mean fraction of the points scored.
+         */
+        private final double difficulty;
+
+        /**
+         * The point-biserial correlation with the rest of the variant.
+         */
+        private final double discrimination;
+
+        /**
+         * The fraction of blank responses.
+         */
+        private final double blank;
+
+        /**
+         * The fraction of responses that selected each option, in the order
+         * of the examination (true and false, for true-false questions).
+         */
+        @Getter(AccessLevel.NONE)
+        private final double[] frequencies;
+
+        /**
+         * The number of options, or 2 for true-false questions.
+         * @return the number of options
+         */
+        public int options() {
+            return this.frequencies.length;
+        }
+
+        /**
+         * The fraction of responses that selected an option.
+         * @param option The position of the option in the examination
+         * @return the fraction of responses
+         */
+        public double frequency(final int option) {
+            return this.frequencies[option];
+        }
+
+        /**
+         * The label of an option.
+         * @param option The position of the option in the examination
+         * @return the option letter, or "T" or "F"
+         */
+        public String label(final int option) {
+            if (TrueFalse.TYPE.equals(this.type))
+                return option == 0 ? "T" : "F";
+            return String.valueOf((char) ('A' + option));
+        }
+
+    }
+
+    /**
+     * The statistics of a variant.
+     */
+    @Accessors(fluent = true)
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    @Getter
+    public static final class Form {
+
+        /**
+         * The name of the variant.
+         */
+        private final String variant;
+
+        /**
+         * The number of students.
+         */
+        private final long students;
+
+        /**
+         * The number of graded questions.
+         */
+        private final int questions;
+
+        /**
+         * The mean score.
+         */
+        private final double mean;
+
+        /**
+         * The standard deviation of the scores.
+         */
+        private final double deviation;
+
+        /**
+         * The KR-20 coefficient.
+         */
+        private final double reliability;
+
+    }
+
+    /**
+     * A range of students who took the same variant.
+     */
+    @AllArgsConstructor
+    private static final class Chunk {
+
+        /**
+         * The responses of the variant.
+         */
+        private final Responses.Group group;
+
+        /**
+         * The first student lane.
+         */
+        private final int from;
+
+        /**
+         * The lane after the last student.
+         */
+        private final int to;
+
+    }
+
+    /**
+     * The count, means and co-moments of two variables.
+     */
+    private static final class Moments {
+
+        /**
+         * The number of observations.
+         */
+        private long count;
+
+        /**
+         * The mean of the first variable.
+         */
+        private double x;
+
+        /**
+         * The mean of the second variable.
+         */
+        private double y;
+
+        /**
+         * The sum of squared deviations of the first variable.
+         */
+        private double xx;
+
+        /**
+         * The sum of squared deviations of the second variable.
+         */
+        private double yy;
+
+        /**
+         * The sum of products of the deviations of both variables.
+         */
+        private double xy;
+
+        /**
+         * Adds an observation.
+         * @param a The value of the first variable
+         * @param b The value of the second variable
+         */
+        void add(final double a, final double b) {
+            this.count++;
+            final double dx = a - this.x;
+            final double dy = b - this.y;
+            this.x += dx / this.count;
+            this.y += dy / this.count;
+            this.xx += dx * (a - this.x);
+            this.yy += dy * (b - this.y);
+            this.xy += dx * (b - this.y);
+        }
+
+        /**
+         * Adds the observations of other moments.
+         * @param other The other moments
+         */
+        void merge(final Moments other) {
+            if (other.count == 0L)
+                return;
+            final long total = this.count + other.count;
+            final double dx = other.x - this.x;
+            final double dy = other.y - this.y;
+            final double weight = (double) this.count * other.count / total;
+            this.xx += other.xx + dx * dx * weight;
+            this.yy += other.yy + dy * dy * weight;
+            this.xy += other.xy + dx * dy * weight;
+            this.x += dx * other.count / total;
+            this.y += dy * other.count / total;
+            this.count = total;
+        }
+
+        /**
+         * The correlation between both variables.
+         * @return Pearson's coefficient, or NaN if a variable is constant
+         */
+        double correlation() {
+            return this.xy / Math.sqrt(this.xx * this.yy);
+        }
+
+    }
+
+    /**
+     * The accumulated statistics of a question.
+     */
+    private static final class ItemStatistics {
+
+        /**
+         * The answer in the first variant analysed.
+         */
+        private final Answer answer;
+
+        /**
+         * The fraction of the points scored and of the rest of the variant.
+         */
+        private final Moments moments = new Moments();
+
+        /**
+         * The number of responses that selected each option.
+         */
+        private final long[] selected;
+
+        /**
+         * The number of blank responses.
+         */
+        private long blank;
+
+        /**
+         * Default constructor.
+         * @param answer The answer in a variant
+         */
+        ItemStatistics(final Answer answer) {
+            this.answer = answer;
+            this.selected = new long[answer.options() == 0 ? 2 : answer.options()];
+        }
+
+        /**
+         * Adds a response.
+         * @param answer The answer in the variant of the response
+         * @param response The packed response
+         * @param credit The fraction of the points scored
+         * @param rest The fraction of the points scored in the rest of the
+         *  variant
+         */
+        void add(final Answer answer, final short response, final double credit,
+            final double rest) {
+            this.moments.add(credit, rest);
+            if (response == 0) {
+                this.blank++;
+            } else if (answer.options() == 0) {
+                // True is bit 0 and false is bit 1
+                this.selected[response == 1 ? 0 : 1]++;
+            } else {
+                int remaining = response & 0xFFFF;
+                while (remaining != 0) {
+                    this.selected[answer.origins()[Integer.numberOfTrailingZeros(remaining)]]++;
+                    remaining &= remaining - 1;
+                }
+            }
+        }
+
+        /**
+         * Adds the responses of other statistics of the same question.
+         * @param other The other statistics
+         * @return these statistics
+         */
+        ItemStatistics merge(final ItemStatistics other) {
+            this.moments.merge(other.moments);
+            for (int k = 0; k < this.selected.length; k++)
+                this.selected[k] += other.selected[k];
+            this.blank += other.blank;
+            return this;
+        }
+
+        /**
+         * Computes the statistics.
+         * @return the question statistics
+         */
+        Item item() {
+            final long count = this.moments.count;
+            final double[] frequencies = new double[this.selected.length];
+            for (int k = 0; k < frequencies.length; k++)
+                frequencies[k] = (double) this.selected[k] / count;
+            final StringBuilder answer = new StringBuilder();
+            if (this.answer.options() == 0) {
+                answer.append(this.answer.text());
+            } else {
+                final boolean[] correct = new boolean[this.answer.options()];
+                for (int k = 0; k < correct.length; k++)
+                    correct[this.answer.origins()[k]] = (this.answer.choices() >>> k & 1L) != 0L;
+                for (int k = 0; k < correct.length; k++) {
+                    if (correct[k])
+                        answer.append((char) ('A' + k));
+                }
+            }
+            return new Item(
+                this.answer.fingerprint(),
+                this.answer.type(),
+                this.answer.points(),
+                answer.toString(),
+                count,
+                this.moments.x,
+                this.moments.correlation(),
+                (double) this.blank / count,
+                frequencies
+            );
+        }
+
+    }
+
+    /**
+     * The accumulated statistics of a variant. All the questions have the
+     * same number of observations, so their means and sums of squared
+     * deviations are kept in arrays.
+     */
+    private static final class FormStatistics {
+
+        /**
+         * The mean score of each graded question.
+         */
+        private final double[] means;
+
+        /**
+         * The sum of squared deviations of each graded question.
+         */
+        private final double[] squares;
+
+        /**
+         * The mean total score.
+         */
+        private double mean;
+
+        /**
+         * The sum of squared deviations of the total score.
+         */
+        private double square;
+
+        /**
+         * The number of students.
+         */
+        private long students;
+
+        /**
+         * Default constructor.
+         * @param questions The number of graded questions
+         */
+        FormStatistics(final int questions) {
+            this.means = new double[questions];
+            this.squares = new double[questions];
+        }
+
+        /**
+         * Adds the scores of a student.
+         * @param scores The score of each graded question
+         * @param total The total score
+         */
+        void add(final double[] scores, final double total) {
+            this.students++;
+            final double inverse = 1.0 / this.students;
+            for (int k = 0; k < this.means.length; k++) {
+                final double delta = scores[k] - this.means[k];
+                this.means[k] += delta * inverse;
+                this.squares[k] += delta * (scores[k] - this.means[k]);
+            }
+            final double delta = total - this.mean;
+            this.mean += delta * inverse;
+            this.square += delta * (total - this.mean);
+        }
+
+        /**
+         * Adds the students of other statistics of the same variant.
+         * @param other The other statistics
+         * @return these statistics
+         */
+        FormStatistics merge(final FormStatistics other) {
+            final long count = this.students + other.students;
+            final double weight = (double) this.students * other.students / count;
+            final double share = (double) other.students / count;
+            for (int k = 0; k < this.means.length; k++) {
+                final double delta = other.means[k] - this.means[k];
+                this.squares[k] += other.squares[k] + delta * delta * weight;
+                this.means[k] += delta * share;
+            }
+            final double delta = other.mean - this.mean;
+            this.square += other.square + delta * delta * weight;
+            this.mean += delta * share;
+            this.students = count;
+            return this;
+        }
+
+        /**
+         * Computes the statistics.
+         * @param variant The name of the variant
+         * @return the variant statistics
+         */
+        Form form(final String variant) {
+            final int questions = this.means.length;
+            double items = 0.0;
+            for (final double question : this.squares)
+                items += question;
+            return new Form(
+                variant,
+                this.students,
+                questions,
+                this.mean,
+                Math.sqrt(this.square / this.students),
+                questions / (questions - 1.0) * (1.0 - items / this.square)
+            );
+        }
+
+    }
+
+    /**
+     * The statistics accumulated by a task.
+     */
+    private static final class Accumulator {
+
+        /**
+         * The statistics of each question, by fingerprint.
+         */
+        private final Map<Fingerprint, ItemStatistics> items = new LinkedHashMap<>();
+
+        /**
+         * The statistics of each variant, by name.
+         */
+        private final Map<String, FormStatistics> forms = new LinkedHashMap<>();
+
+        /**
+         * Adds the responses of a range of students.
+         * @param buffer The packed responses
+         * @param chunk The range of students
+         * @return this accumulator
+         */
+        Accumulator add(final ByteBuffer buffer, final Chunk chunk) {
+            final Responses.Group group = chunk.group;
+            final List<Answer> answers = group.key().answers();
+            final short[] codes = group.codes();
+            final int[] columns = new int[codes.length];
+            final Answer[] graded = new Answer[codes.length];
+            final ItemStatistics[] statistics = new ItemStatistics[codes.length];
+            int count = 0;
+            int points = 0;
+            for (int k = 0; k < codes.length; k++) {
+                if (codes[k] == 0)
+                    continue;
+                final Answer answer = answers.get(k);
+                statistics[count] = this.items.computeIfAbsent(
+                    answer.fingerprint(),
+                    fingerprint -> new ItemStatistics(answer)
+                );
+                columns[count] = k;
+                graded[count++] = answer;
+                points += answer.points();
+            }
+            final int questions = count;
+            final FormStatistics form = this.forms.computeIfAbsent(
+                group.variant(),
+                variant -> new FormStatistics(questions)
+            );
+            final int stride = group.words() * Responses.LANES * Short.BYTES;
+            final short[] responses = new short[questions];
+            final double[] credits = new double[questions];
+            final double[] scores = new double[questions];
+            for (int slot = chunk.from; slot < chunk.to; slot++) {
+                final int base = (int) group.offset() + slot * Short.BYTES;
+                double total = 0.0;
+                for (int q = 0; q < questions; q++) {
+                    responses[q] = buffer.getShort(base + columns[q] * stride);
+                    credits[q] = Grader.credit(codes[columns[q]], responses[q]);
+                    scores[q] = credits[q] * graded[q].points();
+                    total += scores[q];
+                }
+                form.add(scores, total);
+                for (int q = 0; q < questions; q++) {
+                    final int rest = points - graded[q].points();
+                    statistics[q].add(
+                        graded[q],
+                        responses[q],
+                        credits[q],
+                        rest == 0 ? 0.0 : (total - scores[q]) / rest
+                    );
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds the statistics of another accumulator.
+         * @param other The other accumulator
+         * @return this accumulator
+         */
+        Accumulator merge(final Accumulator other) {
+            other.items.forEach(
+                (fingerprint, statistics) ->
+                    this.items.merge(fingerprint, statistics, ItemStatistics::merge)
+            );
+            other.forms.forEach(
+                (variant, statistics) ->
+                    this.forms.merge(variant, statistics, FormStatistics::merge)
+            );
+            return this;
+        }
+
+    }
+
+}
@@ -27,6 +27,7 @@ import java.io.InputStreamReader;
 import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -51,10 +52,108 @@ public final class LatexProcessor {
      */
     private final File output;
 
+    /**
+     * The preamble from which the format of the documents is precompiled,
+     * named after the format, or null if the documents include their
+     * preamble.
+     */
+    private final File format;
+
+    /**
+     * Creates a processor for documents that include their preamble.
+     * @param output The folder to which the PDF files are saved
+     */
+    public LatexProcessor(final File output) {
+        this(output, null);
+    }
+
     /**
      * Invokes pdflatex to process the generated tex files.
      */
     public void process() {
+        this.execute(
+            "find . -name \"*.tex\" -exec pdflatex -output-directory=%s {} \\;",
+            "find . -name \"*.tex\" -exec pdflatex -output-directory=%s {} \\;"
+        );
+    }
+
+    /**
+     * Invokes pdflatex to process only the given tex files, which must be
+     * located in the parent folder of the output folder.
+     * @param sources The tex files
+     */
+    public void process(final List<File> sources) {
+        if (sources.isEmpty())
+            return;
+        final String command = sources.stream()
+            .map(source -> String.format(
+                "pdflatex -output-directory=%%s %s",
+                LatexProcessor.quoted(source.getName()).replace("%", "%%")
+            ))
+            .collect(Collectors.joining(" ; "));
+        this.execute(command, command);
+    }
+
+    /**
+     * The command that precompiles the format of the documents, unless it
+     * is up to date with its preamble. The format is written next to its
+     * preamble, so that both the examinations and the solutions use it.
+     * @return The command, if any
+     */
+    private Stream<String> precompile() {
+        if (!this.outdated())
+            return Stream.empty();
+        final File compiled = this.compiled();
+        return Stream.of(
+            String.format(
+                "pdflatex -ini -interaction=nonstopmode -jobname=%s -output-directory=%s '&pdflatex' %s",
+                LatexProcessor.quoted(compiled.getName().replaceFirst("\\.fmt$", "")),
+                LatexProcessor.quoted(compiled.getParentFile().getAbsolutePath()),
+                LatexProcessor.quoted(this.format.getAbsolutePath())
+            ).replace("%", "%%")
+        );
+    }
+
+    /**
+     * Whether the format must be precompiled, because it is missing or
+     * older than its preamble.
+     * @return whether the format is out of date, or false if the documents
+     *  include their preamble
+     */
+    public boolean outdated() {
+        if (this.format == null)
+            return false;
+        final File compiled = this.compiled();
+        return !compiled.isFile() || compiled.lastModified() < this.format.lastModified();
+    }
+
+    /**
+     * The format precompiled from the preamble.
+     * @return The format file
+     */
+    private File compiled() {
+        return new File(
+            this.format.getAbsoluteFile().getParentFile(),
+            this.format.getName().replaceFirst("\\.[^.]*$", "").concat(".fmt")
+        );
+    }
+
+    /**
+     * Quotes an argument for the shell.
+     * @param argument The argument
+     * @return The quoted argument
+     */
+    private static String quoted(final String argument) {
+        return String.format("'%s'", argument.replace("'", "'\\''"));
+    }
+
+    /**
+     * Executes the given commands and then removes all the auxiliary files
+     * from the output folder.
+     * @param commands The commands, in which "%s" is replaced by the name of
+     *  the output folder
+     */
+    private void execute(final String... commands) {
         this.output.mkdir();
         final Function<String, String> execute = (command) -> {
             final File parent = this.output.getParentFile();
@@ -66,8 +165,20 @@ public final class LatexProcessor {
                 final String[] cmd = {"/bin/sh", "-c", command};
                 List<String> pairs = System.getenv().keySet()
                     .stream()
+                    .filter(k -> this.format == null || !k.equals("TEXFORMATS"))
                     .map(k -> String.format("%s=%s", k, System.getenv(k)))
                     .collect(Collectors.toList());
+                if (this.format != null) {
+                    // Formats are looked up next to the preamble first
+                    pairs.add(
+                        String.format(
+                            "TEXFORMATS=%s%s%s",
+                            this.compiled().getParent(),
+                            File.pathSeparator,
+                            Optional.ofNullable(System.getenv("TEXFORMATS")).orElse("")
+                        )
+                    );
+                }
                 final String[] env = pairs.toArray(new String[]{});
                 final Process p = Runtime.getRuntime().exec(cmd, env, parent);
                 final BufferedReader in = new BufferedReader(
@@ -89,10 +200,11 @@ public final class LatexProcessor {
             return output.toString();
         };
         Stream.of(
-            "find . -name \"*.tex\" -exec pdflatex -output-directory=%s {} \\;",
-            "find . -name \"*.tex\" -exec pdflatex -output-directory=%s {} \\;",
-            "find %s -type f ! -name '*.pdf' -delete"
-        ).map(input -> String.format(input, this.output.getName()))
+            this.precompile(),
+            Stream.of(commands),
+            Stream.of("find %s -type f ! -name '*.pdf' -delete")
+        ).flatMap(Function.identity())
+         .map(input -> String.format(input, this.output.getName()))
          .forEach(command -> System.out.println(execute.apply(command)));
     }
 
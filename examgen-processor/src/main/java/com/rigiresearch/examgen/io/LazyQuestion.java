@@ -0,0 +1,217 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.Fingerprint;
+import com.rigiresearch.examgen.model.Metadata;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.TextSegment;
+import java.util.List;
+
+/**
+ * A question of a {@link QuestionBank}, parsed on first use. Scrambling it
+ * yields the scrambled parsed question, so that only the questions selected
+ * for an examination variant are ever parsed. Its key, which ranks it, is
+ * computed when the bank is indexed, and so are usually its type and
+ * metadata, so that querying them does not parse the question either.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class LazyQuestion implements Question {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = 4473823014398271850L;
+
+    /**
+     * The bank containing this question.
+     */
+    private final transient QuestionBank bank;
+
+    /**
+     * The position of this question in the bank.
+     */
+    private final int index;
+
+    /**
+     * The parsed question.
+     */
+    private transient volatile Question question;
+
+    /**
+     * Default constructor.
+     * @param bank The bank containing this question
+     * @param index The position of this question in the bank
+     */
+    LazyQuestion(final QuestionBank bank, final int index) {
+        this.bank = bank;
+        this.index = index;
+    }
+
+    /**
+     * The parsed question.
+     * @return the question
+     * @throws ExaminationSyntaxException If the question is invalid
+     */
+    Question question() {
+        Question result = this.question;
+        if (result == null) {
+            synchronized (this) {
+                result = this.question;
+                if (result == null) {
+                    result = this.bank.parse(this.index);
+                    this.question = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#header()
+     */
+    @Override
+    public TextSegment header() {
+        return this.question().header();
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#body()
+     */
+    @Override
+    public List<TextSegment> body() {
+        return this.question().body();
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#children()
+     */
+    @Override
+    public List<Question> children() {
+        return this.question().children();
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#type()
+     */
+    @Override
+    public String type() {
+        final String type = this.bank.type(this.index);
+        return type == null ? this.question().type() : type;
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#points()
+     */
+    @Override
+    public int points() {
+        return this.question().points();
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#metadata()
+     */
+    @Override
+    public Metadata metadata() {
+        final Metadata metadata = this.bank.metadata(this.index);
+        return metadata == null ? this.question().metadata() : metadata;
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#fingerprint()
+     */
+    @Override
+    public Fingerprint fingerprint() {
+        return this.question().fingerprint();
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#key()
+     */
+    @Override
+    public long key() {
+        return this.bank.key(this.index);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#scrambled(long)
+     */
+    @Override
+    public Question scrambled(final long seed) {
+        return this.question().scrambled(seed);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordering(long)
+     */
+    @Override
+    public int[] ordering(final long seed) {
+        return this.question().ordering(seed);
+    }
+
+    /* (non-Javadoc)
+     * @see com.rigiresearch.examgen.model.Question#ordered(int[])
+     */
+    @Override
+    public Question ordered(final int[] ordering) {
+        return this.question().ordered(ordering);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#equals(java.lang.Object)
+     */
+    @Override
+    public boolean equals(final Object object) {
+        if (!(object instanceof LazyQuestion))
+            return false;
+        final LazyQuestion other = (LazyQuestion) object;
+        return this.bank == other.bank && this.index == other.index;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#hashCode()
+     */
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.bank.key(this.index));
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return String.format("LazyQuestion(%s#%d)", this.bank.file(), this.index);
+    }
+
+    /**
+     * Serializes the parsed question instead of this placeholder.
+     * @return the parsed question
+     */
+    private Object writeReplace() {
+        return this.question();
+    }
+
+}
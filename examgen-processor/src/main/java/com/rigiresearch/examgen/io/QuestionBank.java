@@ -0,0 +1,911 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.Metadata;
+import com.rigiresearch.examgen.model.Question;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.error.MarkedYAMLException;
+import org.yaml.snakeyaml.nodes.Node;
+
+/**
+ * A YAML file listing questions, which other examinations include by
+ * reference. The file is memory-mapped and indexed without parsing it: the
+ * index holds the byte range, first line and identifier (the optional "id"
+ * field) of each question, as well as its type and metadata when they are
+ * written in block style with plain or simply quoted values, and a key that
+ * ranks it (see {@link Question#key()}), computed from its text. Questions
+ * are parsed only when they are used (see {@link LazyQuestion}).
+ * <p>
+ * The questions must be listed in block style, either under a top-level
+ * "questions" key or as a top-level sequence.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+final class QuestionBank {
+
+    /**
+     * The banks opened so far, by canonical path. Banks are weakly
+     * referenced, so that a bank and its mapping are released once no
+     * question refers to it (e.g., after a bank changes in watch mode).
+     */
+    private static final Map<String, Entry> BANKS = new ConcurrentHashMap<>();
+
+    /**
+     * The entries of released banks, removed on the next call to
+     * {@link #open(File)}.
+     */
+    private static final ReferenceQueue<QuestionBank> RELEASED =
+        new ReferenceQueue<>();
+
+    /**
+     * The key introducing the list of questions.
+     */
+    private static final byte[] QUESTIONS =
+        "questions:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The key introducing a question identifier.
+     */
+    private static final byte[] ID = "id:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The key introducing a question type.
+     */
+    private static final byte[] TYPE = "type:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The key introducing the tags of a question.
+     */
+    private static final byte[] TAGS = "tags:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The key introducing the topic of a question.
+     */
+    private static final byte[] TOPIC = "topic:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The key introducing the difficulty of a question.
+     */
+    private static final byte[] DIFFICULTY =
+        "difficulty:".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * The bank file.
+     */
+    private final File file;
+
+    /**
+     * The file length when it was indexed.
+     */
+    private final long length;
+
+    /**
+     * The file modification time when it was indexed.
+     */
+    private final long modified;
+
+    /**
+     * The file contents.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * The start offset of each question.
+     */
+    private final List<Integer> starts = new ArrayList<>();
+
+    /**
+     * The end offset (exclusive) of each question.
+     */
+    private final List<Integer> ends = new ArrayList<>();
+
+    /**
+     * The number of lines preceding each question.
+     */
+    private final List<Integer> lines = new ArrayList<>();
+
+    /**
+     * The position of each identified question.
+     */
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * The type of each question, or {@code null} if it was not found.
+     */
+    private final List<String> types = new ArrayList<>();
+
+    /**
+     * The metadata of each question, or {@code null} if it was not found.
+     */
+    private final List<Metadata> metadata = new ArrayList<>();
+
+    /**
+     * The key of each question, computed from its text.
+     */
+    private final List<Long> keys = new ArrayList<>();
+
+    /**
+     * The tokenizer of styled text segments, shared by the questions parsed
+     * from this bank.
+     */
+    private final TextSegmentParser segments = new TextSegmentParser();
+
+    /**
+     * Maps and indexes a bank file.
+     * @param file The bank file, with a canonical path
+     * @throws IOException If the file cannot be read
+     * @throws ExaminationSyntaxException If the questions cannot be indexed
+     */
+    private QuestionBank(final File file) throws IOException {
+        this.file = file;
+        this.length = file.length();
+        this.modified = file.lastModified();
+        try (FileChannel channel =
+            FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(
+                FileChannel.MapMode.READ_ONLY,
+                0,
+                channel.size()
+            );
+            this.buffer = mapped;
+        }
+        this.index();
+    }
+
+    /**
+     * Opens a bank, reusing its index while the file is unchanged.
+     * @param file The bank file
+     * @return the bank
+     * @throws IOException If the file cannot be read
+     * @throws ExaminationSyntaxException If the questions cannot be indexed
+     */
+    static QuestionBank open(final File file) throws IOException {
+        QuestionBank.expunge();
+        final File canonical = file.getCanonicalFile();
+        final Entry entry = QuestionBank.BANKS.get(canonical.getPath());
+        final QuestionBank cached = entry == null ? null : entry.get();
+        if (cached != null
+            && cached.length == canonical.length()
+            && cached.modified == canonical.lastModified())
+            return cached;
+        final QuestionBank bank = new QuestionBank(canonical);
+        QuestionBank.BANKS.put(
+            canonical.getPath(),
+            new Entry(canonical.getPath(), bank)
+        );
+        return bank;
+    }
+
+    /**
+     * Removes the entries of the banks that have been released.
+     */
+    private static void expunge() {
+        Reference<? extends QuestionBank> released;
+        while ((released = QuestionBank.RELEASED.poll()) != null) {
+            final Entry entry = (Entry) released;
+            QuestionBank.BANKS.remove(entry.path, entry);
+        }
+    }
+
+    /**
+     * The bank file.
+     * @return the file, with a canonical path
+     */
+    File file() {
+        return this.file;
+    }
+
+    /**
+     * The number of questions in this bank.
+     * @return a positive number
+     */
+    int size() {
+        return this.starts.size();
+    }
+
+    /**
+     * Finds a question by its identifier.
+     * @param id The question identifier
+     * @return the position of the question, or {@code null} if there is none
+     */
+    Integer index(final String id) {
+        return this.ids.get(id);
+    }
+
+    /**
+     * The type of a question, as found when indexing this bank.
+     * @param index The position of the question
+     * @return the type, or {@code null} if the question must be parsed
+     */
+    String type(final int index) {
+        return this.types.get(index);
+    }
+
+    /**
+     * The metadata of a question, as found when indexing this bank.
+     * @param index The position of the question
+     * @return the metadata, or {@code null} if the question must be parsed
+     */
+    Metadata metadata(final int index) {
+        return this.metadata.get(index);
+    }
+
+    /**
+     * A question of this bank, parsed on first use.
+     * @param index The position of the question
+     * @return a lazy question
+     */
+    Question question(final int index) {
+        return new LazyQuestion(this, index);
+    }
+
+    /**
+     * All the questions of this bank, each parsed on first use.
+     * @return an unmodifiable list of lazy questions
+     */
+    List<Question> questions() {
+        final class Questions extends AbstractList<Question>
+            implements RandomAccess {
+            @Override
+            public Question get(final int index) {
+                return QuestionBank.this.question(index);
+            }
+            @Override
+            public int size() {
+                return QuestionBank.this.size();
+            }
+        }
+        return new Questions();
+    }
+
+    /**
+     * The key of a question, which is stable across runs and does not
+     * require parsing the question.
+     * @param index The position of the question
+     * @return a 64-bit key
+     */
+    long key(final int index) {
+        return this.keys.get(index);
+    }
+
+    /**
+     * Parses a question of this bank.
+     * @param index The position of the question
+     * @return the question
+     * @throws ExaminationSyntaxException If the question is invalid
+     */
+    Question parse(final int index) {
+        final int start = this.starts.get(index);
+        final byte[] bytes = new byte[this.ends.get(index) - start];
+        final ByteBuffer slice = this.buffer.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        final ExaminationBuilder builder = new ExaminationBuilder(
+            this.segments,
+            this.file.getPath(),
+            this.lines.get(index)
+        );
+        final Node node;
+        try {
+            node = new Yaml().compose(
+                new StringReader(new String(bytes, StandardCharsets.UTF_8))
+            );
+        } catch (MarkedYAMLException e) {
+            throw new ExaminationSyntaxException(
+                Collections.singletonList(
+                    ExaminationParser.diagnostic(
+                        this.file.getPath(),
+                        this.lines.get(index),
+                        e
+                    )
+                )
+            );
+        }
+        final Question question = builder.item(node);
+        ExaminationSyntaxException.check(builder.diagnostics());
+        return question;
+    }
+
+    /**
+     * Finds the byte range, first line and identifier of each question. A
+     * question starts at each line whose first character is a sequence
+     * indicator ("-") at the indentation of the first question, and ends
+     * where the next one starts or where a less indented line is found.
+     * @throws ExaminationSyntaxException If the questions cannot be indexed
+     */
+    private void index() {
+        final List<Diagnostic> diagnostics = new ArrayList<>();
+        final int limit = this.buffer.limit();
+        int position = 0;
+        int line = 0;
+        boolean content = false;
+        boolean inside = false;
+        int indentation = -1;
+        int keys = -1;
+        Scan scan = null;
+        while (position < limit) {
+            final int end = this.end(position);
+            final int first = this.skip(position, end);
+            final int column = first - position;
+            if (this.blank(first, end)
+                || !inside && this.directive(first, end)) {
+                position = end + 1;
+                line++;
+                continue;
+            }
+            if (!inside && column == 0 && this.starts(first, end, QUESTIONS)) {
+                if (!this.blank(this.skip(first + QUESTIONS.length, end), end)) {
+                    diagnostics.add(
+                        this.diagnostic(
+                            line,
+                            column,
+                            "Questions must be listed in block style"
+                        )
+                    );
+                    break;
+                }
+                inside = true;
+                position = end + 1;
+                line++;
+                continue;
+            }
+            if (!inside && !content && column == 0 && this.item(first, end))
+                inside = true;
+            content = true;
+            if (inside) {
+                if (indentation < 0 && this.item(first, end))
+                    indentation = column;
+                if (column == indentation && this.item(first, end)) {
+                    if (!this.starts.isEmpty())
+                        this.ends.add(position);
+                    this.record(scan);
+                    this.starts.add(position);
+                    this.lines.add(line);
+                    final int key = this.skip(first + 1, end);
+                    keys = key - position;
+                    scan = new Scan();
+                    this.identify(position, key, end, line, diagnostics);
+                    if (key < end && this.buffer.get(key) == '{')
+                        scan.unknown();
+                    else
+                        scan.leading = this.describe(scan, key, key, end);
+                } else if (column < indentation
+                    || column == indentation && !this.item(first, end)) {
+                    break;
+                } else if (column > keys && scan.open) {
+                    if (scan.collecting && this.item(first, end)) {
+                        this.tag(scan, position, this.skip(first + 1, end), end);
+                    } else {
+                        if (scan.described && scan.omitted.get(scan.omitted.size() - 1) == position)
+                            scan.omit(position, end + 1);
+                        scan.unknown();
+                    }
+                } else if (column == keys) {
+                    if (scan.collecting && this.item(first, end)) {
+                        this.tag(scan, position, this.skip(first + 1, end), end);
+                    } else {
+                        scan.open = false;
+                        scan.collecting = false;
+                        this.identify(position, first, end, line, diagnostics);
+                        if (!this.describe(scan, position, first, end) && scan.leading) {
+                            // Keep the key as if this one followed the indicator
+                            scan.omit(position, first);
+                            scan.leading = false;
+                        }
+                    }
+                }
+            }
+            position = end + 1;
+            line++;
+        }
+        if (!this.starts.isEmpty()) {
+            this.ends.add(Math.min(position, limit));
+            this.record(scan);
+        } else if (diagnostics.isEmpty()) {
+            diagnostics.add(this.diagnostic(0, 0, "No questions found"));
+        }
+        ExaminationSyntaxException.check(diagnostics);
+    }
+
+    /**
+     * Records the identifier of the last question, if the given line
+     * declares it.
+     * @param start The line start offset
+     * @param first The offset of the first character after the indentation
+     * @param end The line end offset
+     * @param line The number of preceding lines
+     * @param diagnostics The problems found
+     */
+    private void identify(final int start, final int first, final int end,
+        final int line, final List<Diagnostic> diagnostics) {
+        int key = -1;
+        if (this.starts(first, end, ID)) {
+            key = first;
+        } else if (first < end && this.buffer.get(first) == '{') {
+            for (int i = first + 1; i + ID.length <= end && key < 0; i++) {
+                final byte previous = this.buffer.get(i - 1);
+                if ((previous == '{' || previous == ',' || previous == ' ')
+                    && this.starts(i, end, ID))
+                    key = i;
+            }
+        }
+        if (key < 0)
+            return;
+        final String id = this.value(key + ID.length, end);
+        final Integer previous = this.ids.putIfAbsent(id, this.starts.size() - 1);
+        if (previous != null) {
+            diagnostics.add(
+                this.diagnostic(
+                    line,
+                    key - start,
+                    String.format("Duplicate question id '%s'", id)
+                )
+            );
+        }
+    }
+
+    /**
+     * Records the type and metadata of a question, if the given line declares
+     * them. Values that the index cannot read reliably, such as escaped or
+     * multi-line scalars, leave them to be found by parsing the question.
+     * @param scan The findings about the last question
+     * @param from The offset from which the line is omitted from the key
+     * @param first The offset of the first character after the indentation
+     * @param end The line end offset
+     * @return whether the line declares metadata
+     */
+    private boolean describe(final Scan scan, final int from, final int first,
+        final int end) {
+        if (this.starts(first, end, TYPE)) {
+            scan.type = QuestionBank.scalar(this.text(first + TYPE.length, end));
+            scan.open = true;
+            return false;
+        }
+        final String value;
+        if (this.starts(first, end, TAGS)) {
+            value = this.text(first + TAGS.length, end).trim();
+            if (value.isEmpty() || value.charAt(0) == '#') {
+                scan.collecting = true;
+            } else if (value.charAt(0) == '[') {
+                QuestionBank.sequence(scan, value);
+            } else {
+                scan.tag(QuestionBank.scalar(value));
+            }
+        } else if (this.starts(first, end, TOPIC)) {
+            value = QuestionBank.scalar(this.text(first + TOPIC.length, end));
+            scan.known &= value != null;
+            scan.topic = value;
+        } else if (this.starts(first, end, DIFFICULTY)) {
+            value = QuestionBank.scalar(this.text(first + DIFFICULTY.length, end));
+            scan.known &= value != null;
+            scan.difficulty = value;
+        } else {
+            return false;
+        }
+        scan.open = true;
+        scan.described = true;
+        scan.omit(from, end + 1);
+        return true;
+    }
+
+    /**
+     * Records a tag listed in block style.
+     * @param scan The findings about the last question
+     * @param start The line start offset
+     * @param first The offset of the tag
+     * @param end The line end offset
+     */
+    private void tag(final Scan scan, final int start, final int first,
+        final int end) {
+        scan.tag(QuestionBank.scalar(this.text(first, end)));
+        scan.omit(start, end + 1);
+    }
+
+    /**
+     * Stores the findings about a question.
+     * @param scan The findings, or {@code null} if there is no question
+     */
+    private void record(final Scan scan) {
+        if (scan == null)
+            return;
+        this.types.add(scan.type);
+        if (!scan.known) {
+            this.metadata.add(null);
+        } else if (!scan.described) {
+            this.metadata.add(Metadata.NONE);
+        } else {
+            this.metadata.add(
+                new Metadata(
+                    Collections.unmodifiableList(scan.tags),
+                    scan.topic,
+                    scan.difficulty
+                )
+            );
+        }
+        this.keys.add(this.key(scan));
+    }
+
+    /**
+     * Computes the key of the last question indexed, a 64-bit FNV-1a hash of
+     * its text. The metadata declarations and carriage returns are skipped,
+     * so that tagging a question or changing line endings keeps its key.
+     * @param scan The findings about the question
+     * @return a 64-bit key
+     */
+    private long key(final Scan scan) {
+        final int last = this.starts.size() - 1;
+        final List<Integer> skipped = scan.omitted;
+        int next = 0;
+        long hash = 0xcbf29ce484222325L;
+        for (int i = this.starts.get(last); i < this.ends.get(last); i++) {
+            if (next < skipped.size() && i == skipped.get(next)) {
+                i = skipped.get(next + 1) - 1;
+                next += 2;
+                continue;
+            }
+            final byte value = this.buffer.get(i);
+            if (value != '\r') {
+                hash ^= value & 0xff;
+                hash *= 0x100000001b3L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Reads the tags listed in flow style on a single line, if their values
+     * are certain: they are either plain without colons, or quoted without
+     * escape sequences.
+     * @param scan The findings about the last question
+     * @param text The flow sequence, after the key
+     */
+    private static void sequence(final Scan scan, final String text) {
+        int offset = 1;
+        while (true) {
+            int end = offset;
+            while (end < text.length() && text.charAt(end) == ' ')
+                end++;
+            if (end < text.length() && "\"'".indexOf(text.charAt(end)) >= 0)
+                end = text.indexOf(text.charAt(end), end + 1) + 1;
+            while (end > 0 && end < text.length() && ",]".indexOf(text.charAt(end)) < 0)
+                end++;
+            if (end <= 0 || end == text.length()) {
+                scan.tag(null);
+                return;
+            }
+            final String item = text.substring(offset, end);
+            if (text.charAt(end) == ']' && offset == 1 && item.trim().isEmpty())
+                break;
+            final char first = item.trim().isEmpty() ? ' ' : item.trim().charAt(0);
+            scan.tag(
+                first != '"' && first != '\'' && item.indexOf(':') >= 0
+                    ? null
+                    : QuestionBank.scalar(item)
+            );
+            offset = end + 1;
+            if (text.charAt(end) == ']')
+                break;
+        }
+        final String rest = text.substring(offset).trim();
+        if (!rest.isEmpty() && rest.charAt(0) != '#')
+            scan.tag(null);
+    }
+
+    /**
+     * Reads a block scalar written on a single line, if its value is
+     * certain: it is either plain, or quoted without escape sequences.
+     * @param text The text after the key
+     * @return the value, or {@code null} if it is empty or uncertain
+     */
+    private static String scalar(final String text) {
+        String value = text.trim();
+        if (value.isEmpty())
+            return null;
+        final char first = value.charAt(0);
+        if (first == '"' || first == '\'') {
+            final int close = value.indexOf(first, 1);
+            if (close < 0 || first == '"' && value.indexOf('\\') >= 0)
+                return null;
+            final String rest = value.substring(close + 1).trim();
+            if (!rest.isEmpty() && rest.charAt(0) != '#')
+                return null;
+            return value.substring(1, close);
+        }
+        if ("&*!|>{}[]@`%#".indexOf(first) >= 0)
+            return null;
+        final int comment = value.indexOf(" #");
+        if (comment >= 0)
+            value = value.substring(0, comment).trim();
+        return value;
+    }
+
+    /**
+     * Reads a scalar value, without quotes or trailing comments.
+     * @param start The offset after the key
+     * @param end The line end offset
+     * @return the value
+     */
+    private String value(final int start, final int end) {
+        String value = this.text(start, end).trim();
+        if (value.isEmpty()
+            || value.charAt(0) != '"' && value.charAt(0) != '\'') {
+            final int comment = value.indexOf(" #");
+            if (comment >= 0)
+                value = value.substring(0, comment);
+            final int flow = value.indexOf(',');
+            if (flow >= 0)
+                value = value.substring(0, flow);
+            if (value.endsWith("}"))
+                value = value.substring(0, value.length() - 1);
+            return value.trim();
+        }
+        final int close = value.indexOf(value.charAt(0), 1);
+        return close < 0 ? value.substring(1) : value.substring(1, close);
+    }
+
+    /**
+     * Decodes a part of a line.
+     * @param start The start offset
+     * @param end The end offset
+     * @return the text
+     */
+    private String text(final int start, final int end) {
+        final byte[] bytes = new byte[Math.max(0, end - start)];
+        final ByteBuffer slice = this.buffer.duplicate();
+        slice.position(start);
+        slice.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a diagnostic for this bank.
+     * @param line The number of preceding lines
+     * @param column The number of preceding columns
+     * @param message The problem description
+     * @return a diagnostic
+     */
+    private Diagnostic diagnostic(final int line, final int column,
+        final String message) {
+        return new Diagnostic(this.file.getPath(), line + 1, column + 1, message);
+    }
+
+    /**
+     * Finds the end of a line.
+     * @param start The line start offset
+     * @return the offset of the line feed, or the buffer limit
+     */
+    private int end(final int start) {
+        int end = start;
+        while (end < this.buffer.limit() && this.buffer.get(end) != '\n')
+            end++;
+        return end;
+    }
+
+    /**
+     * Skips spaces.
+     * @param start The start offset
+     * @param end The line end offset
+     * @return the offset of the first character that is not a space
+     */
+    private int skip(final int start, final int end) {
+        int offset = start;
+        while (offset < end && this.buffer.get(offset) == ' ')
+            offset++;
+        return offset;
+    }
+
+    /**
+     * Whether the rest of a line is empty or a comment.
+     * @param start The start offset
+     * @param end The line end offset
+     * @return whether there is no content
+     */
+    private boolean blank(final int start, final int end) {
+        return start >= end
+            || this.buffer.get(start) == '#'
+            || this.buffer.get(start) == '\r' && start + 1 == end;
+    }
+
+    /**
+     * Whether a line is a directive or a document start marker.
+     * @param first The offset of the first character
+     * @param end The line end offset
+     * @return whether the line can be skipped before the questions
+     */
+    private boolean directive(final int first, final int end) {
+        return this.buffer.get(first) == '%'
+            || this.starts(first, end, "---".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Whether a line starts a sequence item.
+     * @param first The offset of the first character after the indentation
+     * @param end The line end offset
+     * @return whether the line starts with "-" followed by a space or the
+     *  end of the line
+     */
+    private boolean item(final int first, final int end) {
+        if (this.buffer.get(first) != '-')
+            return false;
+        if (first + 1 == end)
+            return true;
+        final byte next = this.buffer.get(first + 1);
+        return next == ' ' || next == '\t' || next == '\r';
+    }
+
+    /**
+     * Whether the text at an offset starts with the given bytes.
+     * @param start The start offset
+     * @param end The line end offset
+     * @param prefix The expected bytes
+     * @return whether the prefix is found
+     */
+    private boolean starts(final int start, final int end, final byte[] prefix) {
+        if (end - start < prefix.length)
+            return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (this.buffer.get(start + i) != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * The type and metadata found so far for a question.
+     */
+    private static final class Scan {
+
+        /**
+         * The type, or {@code null} if it was not found.
+         */
+        private String type;
+
+        /**
+         * The tags.
+         */
+        private final List<String> tags = new ArrayList<>();
+
+        /**
+         * The topic, or {@code null} if there is none.
+         */
+        private String topic;
+
+        /**
+         * The difficulty, or {@code null} if there is none.
+         */
+        private String difficulty;
+
+        /**
+         * The byte ranges declaring the metadata.
+         */
+        private final List<Integer> omitted = new ArrayList<>();
+
+        /**
+         * Whether the metadata was read reliably.
+         */
+        private boolean known = true;
+
+        /**
+         * Whether metadata was declared.
+         */
+        private boolean described;
+
+        /**
+         * Whether the last key is the type or metadata, so that more
+         * indented lines belong to its value.
+         */
+        private boolean open;
+
+        /**
+         * Whether tags are being listed in block style.
+         */
+        private boolean collecting;
+
+        /**
+         * Whether metadata is declared right after the sequence indicator,
+         * so that the indentation of the next key is omitted from the question
+         * key.
+         */
+        private boolean leading;
+
+        /**
+         * Adds a tag.
+         * @param tag The tag, or {@code null} if it is uncertain
+         */
+        void tag(final String tag) {
+            if (tag == null)
+                this.known = false;
+            else
+                this.tags.add(tag);
+        }
+
+        /**
+         * Gives up on the type and metadata, which must be found by parsing
+         * the question.
+         */
+        void unknown() {
+            this.type = null;
+            this.known = false;
+        }
+
+        /**
+         * Omits a byte range from the key of the question.
+         * @param start The start offset
+         * @param end The end offset (exclusive)
+         */
+        void omit(final int start, final int end) {
+            final int last = this.omitted.size() - 1;
+            if (last > 0 && this.omitted.get(last) >= start) {
+                this.omitted.set(last, Math.max(end, this.omitted.get(last)));
+            } else {
+                this.omitted.add(start);
+                this.omitted.add(end);
+            }
+        }
+
+    }
+
+    /**
+     * A weak reference to an open bank, which remembers its path.
+     */
+    private static final class Entry extends WeakReference<QuestionBank> {
+
+        /**
+         * The canonical path of the bank.
+         */
+        private final String path;
+
+        /**
+         * Default constructor.
+         * @param path The canonical path of the bank
+         * @param bank The bank
+         */
+        Entry(final String path, final QuestionBank bank) {
+            super(bank, QuestionBank.RELEASED);
+            this.path = path;
+        }
+
+    }
+
+}
@@ -0,0 +1,417 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.AnswerKey;
+import com.rigiresearch.examgen.model.AnswerKey.Answer;
+import com.rigiresearch.examgen.model.ClosedEnded;
+import com.rigiresearch.examgen.model.TrueFalse;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * The responses of students to the closed-ended and true-false questions of
+ * their variants, read from a CSV file. Each line has a student's ID, the
+ * name of the variant (the section column of the answer keys) and the
+ * responses in the order of the answer key, one per field (e.g.,
+ * "V00123456,A01,B,T,AC,,D"). A response lists the letters of the selected
+ * options, or is either "T" or "F"; missing and empty responses are blank.
+ * Responses to open-ended questions are ignored. Blank lines, lines starting
+ * with '#' and a header line starting with "student" are ignored.
+ * <p>
+ * Each response is packed as a 16-bit mask of the selected options (true
+ * and false are bits 0 and 1). The masks are stored off-heap, grouped by
+ * variant and laid out by column: the responses to a question of a variant
+ * are contiguous, four students per 64-bit word, so that a question can be
+ * compared against its key for four students at a time.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class Responses {
+
+    /**
+     * The number of responses per 64-bit word.
+     */
+    static final int LANES = Long.SIZE / Short.SIZE;
+
+    /**
+     * The number of leading fields of each line (student and variant).
+     */
+    private static final int LEADING = 2;
+
+    /**
+     * The student IDs, in order of appearance.
+     */
+    @Getter
+    private final List<String> students;
+
+    /**
+     * The responses of each variant.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final List<Group> groups;
+
+    /**
+     * The packed responses.
+     */
+    @Getter(AccessLevel.PACKAGE)
+    private final ByteBuffer buffer;
+
+    /**
+     * Reads the responses from a CSV file. The file is read twice: first to
+     * find the variant of each student, and then to pack the responses.
+     * @param file The CSV file
+     * @param keys The answer key of each variant, by name, or {@code null}
+     *  if there is no such variant
+     * @return the responses
+     * @throws IOException If the file cannot be read
+     * @throws IllegalArgumentException If a line is malformed or refers to an
+     *  unknown variant, a response is not valid for its question, or a
+     *  question has more than 16 options
+     */
+    public static Responses read(final File file,
+        final Function<String, AnswerKey> keys) throws IOException {
+        final List<String> students = new ArrayList<>();
+        final Map<String, Integer> names = new LinkedHashMap<>();
+        final List<Group> groups = new ArrayList<>();
+        int[] variants = new int[1024];
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            int number = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String data = Responses.data(line, ++number);
+                if (data == null)
+                    continue;
+                final List<String> fields = Responses.leading(data);
+                if (fields.size() < Responses.LEADING) {
+                    throw new IllegalArgumentException(
+                        String.format(
+                            "Expected student, variant and responses in line %d of %s",
+                            number,
+                            file
+                        )
+                    );
+                }
+                Integer variant = names.get(fields.get(1));
+                if (variant == null) {
+                    final AnswerKey key = keys.apply(fields.get(1));
+                    if (key == null) {
+                        throw new IllegalArgumentException(
+                            String.format(
+                                "Unknown variant '%s' in line %d of %s",
+                                fields.get(1),
+                                number,
+                                file
+                            )
+                        );
+                    }
+                    variant = groups.size();
+                    names.put(fields.get(1), variant);
+                    groups.add(new Group(fields.get(1), key));
+                }
+                groups.get(variant).count++;
+                if (students.size() == variants.length)
+                    variants = Arrays.copyOf(variants, variants.length * 2);
+                variants[students.size()] = variant;
+                students.add(fields.get(0));
+            }
+        }
+        long size = 0L;
+        for (final Group group : groups) {
+            group.offset = size;
+            group.rows = new int[group.words() * Responses.LANES];
+            size += (long) group.words() * group.codes.length * Long.BYTES;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                String.format("Too many responses in %s (%d bytes)", file, size)
+            );
+        }
+        final ByteBuffer buffer = ByteBuffer.allocateDirect((int) size)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        final int[] next = new int[groups.size()];
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            int number = 0;
+            int row = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final String data = Responses.data(line, ++number);
+                if (data == null)
+                    continue;
+                final Group group = groups.get(variants[row]);
+                final int slot = next[variants[row]]++;
+                group.rows[slot] = row++;
+                if (data.indexOf('"') >= 0) {
+                    final List<String> fields = Roster.fields(data);
+                    for (int k = Responses.LEADING; k < fields.size(); k++) {
+                        final String field = fields.get(k);
+                        group.put(buffer, k - Responses.LEADING, slot, field, 0,
+                            field.length(), number, file);
+                    }
+                    continue;
+                }
+                // Unquoted fields, the common case, are scanned in place
+                int item = -Responses.LEADING;
+                int start = 0;
+                for (int end = data.indexOf(','); ; end = data.indexOf(',', start)) {
+                    if (item >= 0) {
+                        group.put(buffer, item, slot, data, start,
+                            end < 0 ? data.length() : end, number, file);
+                    }
+                    if (end < 0)
+                        break;
+                    start = end + 1;
+                    item++;
+                }
+            }
+        }
+        return new Responses(
+            Collections.unmodifiableList(students),
+            Collections.unmodifiableList(groups),
+            buffer
+        );
+    }
+
+    /**
+     * Trims a line unless it is ignored.
+     * @param line The line
+     * @param number The line number
+     * @return the trimmed line, or null if the line is ignored
+     */
+    private static String data(final String line, final int number) {
+        final String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")
+            || number == 1 && trimmed.toLowerCase(Locale.ROOT).startsWith("student"))
+            return null;
+        return trimmed;
+    }
+
+    /**
+     * Splits the student and variant from a line.
+     * @param line The trimmed line
+     * @return the leading fields, or fewer if the line is malformed
+     */
+    private static List<String> leading(final String line) {
+        if (line.indexOf('"') >= 0) {
+            final List<String> fields = Roster.fields(line);
+            return fields.subList(0, Math.min(fields.size(), Responses.LEADING));
+        }
+        final int first = line.indexOf(',');
+        if (first < 0)
+            return Collections.singletonList(line);
+        final int second = line.indexOf(',', first + 1);
+        return Arrays.asList(
+            line.substring(0, first).trim(),
+            line.substring(first + 1, second < 0 ? line.length() : second).trim()
+        );
+    }
+
+    /**
+     * Packs a response to a question.
+     * @param answer The answer to the question
+     * @param text The text containing the response
+     * @param from The start of the response in the text
+     * @param to The end of the response in the text
+     * @return the mask of the selected options, 0 if the response is blank or
+     *  the question is open-ended, or -1 if the response is not valid. The
+     *  mask of a question with 16 options uses all 16 bits, so it is only
+     *  narrowed to a short when stored
+     */
+    private static int mask(final Answer answer, final String text,
+        final int from, final int to) {
+        int start = from;
+        int end = to;
+        while (start < end && Character.isWhitespace(text.charAt(start)))
+            start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1)))
+            end--;
+        if (start == end)
+            return 0;
+        if (TrueFalse.TYPE.equals(answer.type())) {
+            final int length = end - start;
+            final char first = Character.toUpperCase(text.charAt(start));
+            if (first == 'T' && (length == 1 || text.regionMatches(true, start, "TRUE", 0, length)))
+                return 1;
+            if (first == 'F' && (length == 1 || text.regionMatches(true, start, "FALSE", 0, length)))
+                return 2;
+            return -1;
+        }
+        if (!ClosedEnded.TYPE.equals(answer.type()))
+            return 0;
+        int mask = 0;
+        for (int i = start; i < end; i++) {
+            final int option = Character.toUpperCase(text.charAt(i)) - 'A';
+            if (option < 0 || option >= answer.options())
+                return -1;
+            mask |= 1 << option;
+        }
+        return mask;
+    }
+
+    /**
+     * The responses of the students who took the same variant, and its key.
+     */
+    @Accessors(fluent = true)
+    @Getter
+    static final class Group {
+
+        /**
+         * The name of the variant.
+         */
+        private final String variant;
+
+        /**
+         * The answer key of the variant.
+         */
+        private final AnswerKey key;
+
+        /**
+         * The packed answer to each question, or 0 if it is not graded.
+         */
+        private final short[] codes;
+
+        /**
+         * The offset of the first column in the buffer.
+         */
+        private long offset;
+
+        /**
+         * The number of students.
+         */
+        private int count;
+
+        /**
+         * The row of the student in each lane, in order of appearance.
+         */
+        private int[] rows;
+
+        /**
+         * Packs the answer key of a variant.
+         * @param variant The name of the variant
+         * @param key The answer key
+         * @throws IllegalArgumentException If a closed-ended question has more
+         *  than 16 options
+         */
+        Group(final String variant, final AnswerKey key) {
+            this.variant = variant;
+            this.key = key;
+            this.codes = new short[key.answers().size()];
+            for (int i = 0; i < this.codes.length; i++) {
+                final Answer answer = key.answers().get(i);
+                if (TrueFalse.TYPE.equals(answer.type())) {
+                    this.codes[i] = (short) (answer.choices() == 0L ? 2 : 1);
+                } else if (ClosedEnded.TYPE.equals(answer.type())) {
+                    if (answer.options() > Short.SIZE) {
+                        throw new IllegalArgumentException(
+                            String.format(
+                                "Question %s of variant '%s' has more than %d options",
+                                answer.number(),
+                                variant,
+                                Short.SIZE
+                            )
+                        );
+                    }
+                    this.codes[i] = (short) answer.choices();
+                }
+            }
+        }
+
+        /**
+         * Packs a response of a student into its column.
+         * @param buffer The packed responses
+         * @param item The position of the question in the answer key
+         * @param slot The lane of the student
+         * @param text The text containing the response
+         * @param from The start of the response in the text
+         * @param to The end of the response in the text
+         * @param number The line number
+         * @param file The CSV file
+         * @throws IllegalArgumentException If the response is not valid, or
+         *  it is not blank and the variant has fewer questions
+         */
+        void put(final ByteBuffer buffer, final int item, final int slot,
+            final String text, final int from, final int to, final int number,
+            final File file) {
+            final List<Answer> answers = this.key.answers();
+            if (item >= answers.size()) {
+                if (text.substring(from, to).trim().isEmpty())
+                    return;
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Line %d of %s has more responses than the %d questions of variant '%s'",
+                        number,
+                        file,
+                        answers.size(),
+                        this.variant
+                    )
+                );
+            }
+            final int mask = Responses.mask(answers.get(item), text, from, to);
+            if (mask < 0) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Invalid response '%s' to question %s in line %d of %s",
+                        text.substring(from, to).trim(),
+                        answers.get(item).number(),
+                        number,
+                        file
+                    )
+                );
+            }
+            buffer.putShort(
+                (int) this.offset + (item * this.words() * Responses.LANES + slot) * Short.BYTES,
+                (short) mask
+            );
+        }
+
+        /**
+         * The number of 64-bit words of each column.
+         * @return the number of words
+         */
+        int words() {
+            return (this.count + Responses.LANES - 1) / Responses.LANES;
+        }
+
+    }
+
+}
@@ -0,0 +1,144 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.Section;
+import com.rigiresearch.examgen.model.Student;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * A class roster, read from a CSV file. Each line has a student's section,
+ * ID, last name and first name (e.g., "A01,V00123456,Doe,Jane"). Fields
+ * containing commas can be quoted. Blank lines, lines starting with '#' and
+ * a header line starting with "section" are ignored.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor
+@Getter
+public final class Roster {
+
+    /**
+     * The number of fields of each student.
+     */
+    private static final int FIELDS = 4;
+
+    /**
+     * The CSV file.
+     */
+    private final File file;
+
+    /**
+     * Lazily reads the students of the sections of an examination, one line
+     * at a time. The stream must be closed to release the file.
+     * @param sections The sections of the examination
+     * @return A sequential, ordered stream of students
+     * @throws IOException If the file cannot be opened
+     * @throws IllegalArgumentException (when consumed) If a line is malformed
+     *  or refers to an unknown section
+     */
+    public Stream<Student> students(final List<?> sections) throws IOException {
+        final Map<String, Section> names = new HashMap<>();
+        for (Object section : sections) {
+            if (section instanceof Section)
+                names.put(((Section) section).name(), (Section) section);
+        }
+        final int[] number = {0};
+        return Files.lines(this.file.toPath(), StandardCharsets.UTF_8)
+            .map(line -> {
+                number[0]++;
+                final String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")
+                    || number[0] == 1 && trimmed.toLowerCase(Locale.ROOT).startsWith("section"))
+                    return null;
+                final List<String> fields = Roster.fields(trimmed);
+                if (fields.size() != Roster.FIELDS) {
+                    throw new IllegalArgumentException(
+                        String.format(
+                            "Expected section, id, last name and first name in line %d of %s",
+                            number[0],
+                            this.file
+                        )
+                    );
+                }
+                final Section section = names.get(fields.get(0));
+                if (section == null) {
+                    throw new IllegalArgumentException(
+                        String.format(
+                            "Unknown section '%s' in line %d of %s",
+                            fields.get(0),
+                            number[0],
+                            this.file
+                        )
+                    );
+                }
+                return new Student(fields.get(1), fields.get(3), fields.get(2), section);
+            })
+            .filter(Objects::nonNull);
+    }
+
+    /**
+     * Splits a CSV line into its fields.
+     * @param line The line
+     * @return The trimmed fields, without quotes
+     */
+    static List<String> fields(final String line) {
+        final List<String> fields = new ArrayList<>(Roster.FIELDS);
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append(c);
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+
+}
@@ -0,0 +1,109 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * The seats of an exam hall and their adjacency, read from a CSV file. Each
+ * line lists a seat followed by its neighbours (e.g., "A1,A2,B1"); adjacency
+ * is symmetric, so each pair of neighbours needs to be listed only once.
+ * Blank lines and lines starting with '#' are ignored.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@Getter
+public final class SeatMap {
+
+    /**
+     * The seat names, in order of appearance.
+     */
+    private final List<String> seats;
+
+    /**
+     * The positions of the seats adjacent to each seat.
+     */
+    private final int[][] neighbours;
+
+    /**
+     * Reads a seat map from a CSV file.
+     * @param file The CSV file
+     * @return a seat map
+     * @throws IOException If the file cannot be read or contains no seats
+     */
+    public static SeatMap read(final File file) throws IOException {
+        final Map<String, Set<String>> adjacency = new LinkedHashMap<>();
+        try (BufferedReader reader =
+            Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+                final String[] cells = line.split(",");
+                final String seat = cells[0].trim();
+                final Set<String> neighbours = adjacency
+                    .computeIfAbsent(seat, k -> new LinkedHashSet<>());
+                for (int i = 1; i < cells.length; i++) {
+                    final String neighbour = cells[i].trim();
+                    if (neighbour.isEmpty() || neighbour.equals(seat))
+                        continue;
+                    neighbours.add(neighbour);
+                    adjacency.computeIfAbsent(neighbour, k -> new LinkedHashSet<>())
+                        .add(seat);
+                }
+            }
+        }
+        if (adjacency.isEmpty()) {
+            throw new IOException(String.format("No seats found in %s", file));
+        }
+        final List<String> seats = new ArrayList<>(adjacency.keySet());
+        final Map<String, Integer> positions = new LinkedHashMap<>();
+        seats.forEach(seat -> positions.put(seat, positions.size()));
+        final int[][] neighbours = new int[seats.size()][];
+        for (int i = 0; i < neighbours.length; i++) {
+            neighbours[i] = adjacency.get(seats.get(i)).stream()
+                .mapToInt(positions::get)
+                .toArray();
+        }
+        return new SeatMap(seats, neighbours);
+    }
+
+}
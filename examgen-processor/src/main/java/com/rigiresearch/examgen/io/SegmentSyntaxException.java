@@ -0,0 +1,64 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Signals a malformed style tag within a text segment.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@Getter
+public final class SegmentSyntaxException extends IllegalArgumentException {
+
+    /**
+     * Serial version UID.
+     */
+    private static final long serialVersionUID = -3140482275640914312L;
+
+    /**
+     * The error description, without its location.
+     */
+    private final String reason;
+
+    /**
+     * The offset (in characters) at which the error was found.
+     */
+    private final int offset;
+
+    /**
+     * Default constructor.
+     * @param message The error description
+     * @param offset The offset at which the error was found
+     */
+    public SegmentSyntaxException(final String message, final int offset) {
+        super(String.format("%s at offset %d", message, offset));
+        this.reason = message;
+        this.offset = offset;
+    }
+
+}
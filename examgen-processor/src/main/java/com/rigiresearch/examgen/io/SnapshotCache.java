@@ -0,0 +1,475 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Question;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * A cache of parsed examinations. The examinations parsed from a YAML file are
+ * stored in a binary snapshot along with the SHA-256 hash of the file
+ * contents. Subsequent reads of an unchanged file decode the snapshot instead
+ * of parsing the YAML again; any change to the file invalidates it.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Slf4j
+@Component
+public class SnapshotCache {
+
+    /**
+     * Magic number identifying snapshot files ("EXGS").
+     */
+    private static final int MAGIC = 0x45584753;
+
+    /**
+     * Size of the I/O buffers.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Record marker preceding each examination.
+     */
+    private static final int RECORD = 1;
+
+    /**
+     * Record marker signaling the end of the snapshot.
+     */
+    private static final int END = 0;
+
+    /**
+     * Number of bytes of the path hash included in snapshot names.
+     */
+    private static final int PATH_HASH_BYTES = 8;
+
+    /**
+     * The parser used when there is no valid snapshot.
+     */
+    @Autowired
+    private ExaminationParser examinationParser;
+
+    /**
+     * The snapshot codec.
+     */
+    private final SnapshotCodec codec = new SnapshotCodec();
+
+    /**
+     * Lazily reads the examinations from a YAML file, using its snapshot if
+     * it is up to date. Otherwise, the file is parsed and a new snapshot is
+     * written once the stream has been fully consumed. A snapshot that is
+     * truncated or corrupt is discarded as if it were out of date. The stream
+     * must be closed to release the underlying files.
+     * @param source The YAML file
+     * @param directory The directory containing the snapshots, or null to
+     *  use a ".examgen" directory next to the YAML file
+     * @return A sequential, ordered stream of examinations
+     * @throws IOException If the YAML file cannot be read
+     */
+    public Stream<Examination> stream(final File source, final File directory)
+        throws IOException {
+        return this.stream(source, directory, false);
+    }
+
+    /**
+     * Reads the examinations from several YAML files in parallel, using their
+     * snapshots if they are up to date. Files without a valid snapshot are
+     * parsed in parallel (see {@link ExaminationParser#examinations(List)}).
+     * The result keeps the order of the files, and of the documents within
+     * each file.
+     * @param files The YAML files
+     * @param directory The directory containing the snapshots, or null to
+     *  use a ".examgen" directory next to each YAML file
+     * @return The examinations
+     * @throws UncheckedIOException If a file cannot be read
+     */
+    public List<Examination> examinations(final List<File> files,
+        final File directory) {
+        return files.parallelStream()
+            .map(file -> {
+                try (Stream<Examination> stream =
+                    this.stream(file, directory, true)) {
+                    return stream.collect(Collectors.toList());
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            })
+            .flatMap(List::stream)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Reads the examinations from a YAML file, using its snapshot if it is up
+     * to date.
+     * @param source The YAML file
+     * @param directory The directory containing the snapshots, or null
+     * @param parallel Whether to parse the YAML file in parallel
+     * @return A sequential, ordered stream of examinations
+     * @throws IOException If the YAML file cannot be read
+     */
+    private Stream<Examination> stream(final File source, final File directory,
+        final boolean parallel) throws IOException {
+        final byte[] hash = SnapshotCache.hash(source);
+        final File snapshot = new File(
+            directory == null
+                ? new File(source.getAbsoluteFile().getParentFile(), ".examgen")
+                : directory,
+            SnapshotCache.name(source)
+        );
+        if (snapshot.isFile()) {
+            try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(
+                    new FileInputStream(snapshot),
+                    SnapshotCache.BUFFER_SIZE
+                )
+            )) {
+                if (SnapshotCache.valid(input, hash)) {
+                    log.debug("Loading examinations from snapshot {}", snapshot);
+                    return this.decoded(input).stream();
+                }
+                log.debug("Snapshot {} is out of date", snapshot);
+            } catch (IOException | RuntimeException e) {
+                log.info("Discarding corrupt snapshot {}: {}", snapshot, e.toString());
+            }
+        }
+        final Stream<Examination> parsed;
+        if (parallel)
+            parsed = this.examinationParser.examinations(source, true).stream();
+        else
+            parsed = this.examinationParser.stream(source);
+        return this.recorded(parsed, snapshot, hash);
+    }
+
+    /**
+     * Decodes the examinations stored in a snapshot. They are decoded
+     * eagerly, so that a truncated or corrupt snapshot is detected before
+     * any examination is returned and the YAML file can be parsed instead.
+     * @param input The snapshot input, positioned after the header
+     * @return The examinations
+     * @throws IOException If the snapshot is truncated or cannot be read
+     */
+    private List<Examination> decoded(final DataInputStream input)
+        throws IOException {
+        final List<Examination> examinations = new ArrayList<>();
+        int marker = input.readUnsignedByte();
+        while (marker == SnapshotCache.RECORD) {
+            examinations.add(this.codec.read(input));
+            marker = input.readUnsignedByte();
+        }
+        if (marker != SnapshotCache.END)
+            throw new IOException(String.format("Unknown record marker %d", marker));
+        return examinations;
+    }
+
+    /**
+     * Records the parsed examinations in a new snapshot as they are streamed.
+     * The snapshot replaces the previous one only if the whole stream is
+     * consumed and encoded successfully.
+     * @param parsed The parsed examinations
+     * @param snapshot The snapshot file
+     * @param hash The hash of the YAML file
+     * @return A stream of examinations
+     * @throws IOException If the snapshot cannot be created
+     */
+    private Stream<Examination> recorded(final Stream<Examination> parsed,
+        final File snapshot, final byte[] hash) throws IOException {
+        snapshot.getParentFile().mkdirs();
+        final File temporary = File.createTempFile(
+            snapshot.getName(),
+            ".tmp",
+            snapshot.getParentFile()
+        );
+        final DataOutputStream output = new DataOutputStream(
+            new BufferedOutputStream(
+                new FileOutputStream(temporary),
+                SnapshotCache.BUFFER_SIZE
+            )
+        );
+        output.writeInt(SnapshotCache.MAGIC);
+        output.writeInt(SnapshotCodec.VERSION);
+        output.writeByte(hash.length);
+        output.write(hash);
+        final Recorder recorder = new Recorder(
+            parsed.iterator(),
+            output,
+            temporary,
+            snapshot
+        );
+        return SnapshotCache.stream(recorder)
+            .onClose(() -> {
+                parsed.close();
+                recorder.discard();
+            });
+    }
+
+    /**
+     * Checks the snapshot header against the expected hash.
+     * @param input The snapshot input
+     * @param hash The expected hash
+     * @return Whether the snapshot corresponds to the expected hash
+     * @throws IOException If an I/O error occurs
+     */
+    private static boolean valid(final DataInputStream input,
+        final byte[] hash) throws IOException {
+        try {
+            if (input.readInt() != SnapshotCache.MAGIC
+                || input.readInt() != SnapshotCodec.VERSION)
+                return false;
+            final byte[] stored = new byte[input.readUnsignedByte()];
+            input.readFully(stored);
+            return Arrays.equals(stored, hash);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Names the snapshot of a YAML file after the file and a hash of its
+     * path, so that files with the same name in different directories do
+     * not share a snapshot when the snapshot directory is shared.
+     * @param source The YAML file
+     * @return The name of the snapshot file
+     */
+    private static String name(final File source) {
+        final byte[] path = SnapshotCache.digest().digest(
+            source.toPath().toAbsolutePath().normalize().toString()
+                .getBytes(StandardCharsets.UTF_8)
+        );
+        final StringBuilder name = new StringBuilder(source.getName())
+            .append('-');
+        for (int k = 0; k < SnapshotCache.PATH_HASH_BYTES; k++)
+            name.append(String.format("%02x", path[k]));
+        return name.append(".snapshot").toString();
+    }
+
+    /**
+     * Creates a SHA-256 digest.
+     * @return The digest
+     */
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Computes the SHA-256 hash of a file.
+     * @param file The file
+     * @return The hash
+     * @throws IOException If the file cannot be read
+     */
+    private static byte[] hash(final File file) throws IOException {
+        final MessageDigest digest = SnapshotCache.digest();
+        final byte[] buffer = new byte[SnapshotCache.BUFFER_SIZE];
+        try (InputStream input =
+            new DigestInputStream(new FileInputStream(file), digest)) {
+            while (input.read(buffer) != -1) {
+                // Digest the whole file
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Creates a sequential, ordered stream from an iterator.
+     * @param iterator The iterator
+     * @return A stream
+     */
+    private static Stream<Examination> stream(
+        final Iterator<Examination> iterator) {
+        return StreamSupport.stream(
+            Spliterators.spliteratorUnknownSize(
+                iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL
+            ),
+            false
+        );
+    }
+
+    /**
+     * Whether any of the given questions is included from a question bank.
+     * Such questions are not cached, since they are parsed on demand.
+     * @param questions The questions
+     * @return whether a question or sub-question is included
+     */
+    private static boolean included(final List<Question> questions) {
+        for (final Question question : questions) {
+            if (question instanceof LazyQuestion
+                || SnapshotCache.included(question.children()))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Closes a stream, rethrowing any I/O error as unchecked.
+     * @param closeable The stream to close
+     */
+    private static void close(final AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An iterator that encodes the examinations as they are consumed.
+     */
+    private final class Recorder implements Iterator<Examination> {
+
+        /**
+         * The parsed examinations.
+         */
+        private final Iterator<Examination> examinations;
+
+        /**
+         * The snapshot output.
+         */
+        private final DataOutputStream output;
+
+        /**
+         * The file being written.
+         */
+        private final File temporary;
+
+        /**
+         * The snapshot file, replaced once the recording is complete.
+         */
+        private final File snapshot;
+
+        /**
+         * Whether no error has occurred so far.
+         */
+        private boolean recording = true;
+
+        /**
+         * Whether the snapshot has been replaced.
+         */
+        private boolean committed;
+
+        /**
+         * Default constructor.
+         * @param examinations The parsed examinations
+         * @param output The snapshot output
+         * @param temporary The file being written
+         * @param snapshot The snapshot file
+         */
+        Recorder(final Iterator<Examination> examinations,
+            final DataOutputStream output, final File temporary,
+            final File snapshot) {
+            this.examinations = examinations;
+            this.output = output;
+            this.temporary = temporary;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public boolean hasNext() {
+            final boolean next = this.examinations.hasNext();
+            if (!next && this.recording && !this.committed) {
+                try {
+                    this.output.writeByte(END);
+                    this.output.close();
+                    Files.move(
+                        this.temporary.toPath(),
+                        this.snapshot.toPath(),
+                        StandardCopyOption.REPLACE_EXISTING
+                    );
+                    this.committed = true;
+                    log.debug("Snapshot {} written", this.snapshot);
+                } catch (IOException e) {
+                    this.recording = false;
+                    log.warn("Could not write snapshot {}", this.snapshot, e);
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public Examination next() {
+            final Examination examination = this.examinations.next();
+            if (this.recording && SnapshotCache.included(examination.questions())) {
+                this.recording = false;
+                log.debug(
+                    "Snapshot {} skipped: questions are included from banks",
+                    this.snapshot
+                );
+            }
+            if (this.recording) {
+                try {
+                    this.output.writeByte(RECORD);
+                    SnapshotCache.this.codec.write(examination, this.output);
+                } catch (IOException | IllegalArgumentException e) {
+                    this.recording = false;
+                    log.warn("Could not write snapshot {}", this.snapshot, e);
+                }
+            }
+            return examination;
+        }
+
+        /**
+         * Deletes the incomplete snapshot, if any.
+         */
+        void discard() {
+            if (!this.committed) {
+                SnapshotCache.close(this.output);
+                this.temporary.delete();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,718 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.ClosedEnded;
+import com.rigiresearch.examgen.model.ClosedEnded.Option;
+import com.rigiresearch.examgen.model.CompoundQuestion;
+import com.rigiresearch.examgen.model.CompoundText;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import com.rigiresearch.examgen.model.Metadata;
+import com.rigiresearch.examgen.model.OpenEnded;
+import com.rigiresearch.examgen.model.Query;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.Section;
+import com.rigiresearch.examgen.model.Selection;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TextSegment.Style;
+import com.rigiresearch.examgen.model.TrueFalse;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary codec for parsed examinations. Each examination is
+ * encoded as a self-contained record with its own string table, so repeated
+ * texts (e.g., common options) are stored once per examination.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class SnapshotCodec {
+
+    /**
+     * The format version. It must change whenever the encoding does.
+     */
+    public static final int VERSION = 3;
+
+    /**
+     * Value tag of null parameter values.
+     */
+    private static final int NULL = 0;
+
+    /**
+     * Value tag of strings, followed by the string.
+     */
+    private static final int STRING = 1;
+
+    /**
+     * Value tag of integers, followed by 4 bytes.
+     */
+    private static final int INTEGER = 2;
+
+    /**
+     * Value tag of long integers, followed by 8 bytes.
+     */
+    private static final int LONG = 3;
+
+    /**
+     * Value tag of doubles, followed by 8 bytes.
+     */
+    private static final int DOUBLE = 4;
+
+    /**
+     * Value tag of Booleans, followed by 1 byte.
+     */
+    private static final int BOOLEAN = 5;
+
+    /**
+     * Value tag of dates, followed by their time in milliseconds.
+     */
+    private static final int DATE = 6;
+
+    /**
+     * Value tag of lists, followed by their size and values.
+     */
+    private static final int LIST = 7;
+
+    /**
+     * Value tag of sections, followed by their name, TA and number of
+     * students.
+     */
+    private static final int SECTION = 8;
+
+    /**
+     * Value tag of text segments, followed by the segment.
+     */
+    private static final int SEGMENT = 9;
+
+    /**
+     * Question tag of {@link OpenEnded} questions.
+     */
+    private static final int OPEN_ENDED = 1;
+
+    /**
+     * Question tag of {@link ClosedEnded} questions.
+     */
+    private static final int CLOSED_ENDED = 2;
+
+    /**
+     * Question tag of {@link TrueFalse} questions.
+     */
+    private static final int TRUE_FALSE = 3;
+
+    /**
+     * Question tag of {@link CompoundQuestion} questions.
+     */
+    private static final int COMPOUND = 4;
+
+    /**
+     * Text segment tag of {@link TextSegment.Simple} segments.
+     */
+    private static final int SIMPLE_TEXT = 1;
+
+    /**
+     * Text segment tag of {@link CompoundText} segments.
+     */
+    private static final int COMPOUND_TEXT = 2;
+
+    /**
+     * The supported styles, indexed by ordinal.
+     */
+    private static final Style[] STYLES = Style.values();
+
+    /**
+     * The supported parameters, indexed by ordinal.
+     */
+    private static final Parameter[] PARAMETERS = Parameter.values();
+
+    /**
+     * Encodes an examination.
+     * @param examination The examination to encode
+     * @param output The output
+     * @throws IOException If an I/O error occurs
+     * @throws IllegalArgumentException If a parameter value is not supported
+     */
+    public void write(final Examination examination, final DataOutput output)
+        throws IOException {
+        new Encoder(output).examination(examination);
+    }
+
+    /**
+     * Decodes an examination.
+     * @param input The input
+     * @return The decoded examination
+     * @throws IOException If an I/O error occurs or the input is malformed
+     */
+    public Examination read(final DataInput input) throws IOException {
+        return new Decoder(input).examination();
+    }
+
+    /**
+     * Writes a variable-length unsigned integer.
+     * @param output The output
+     * @param value The value
+     * @throws IOException If an I/O error occurs
+     */
+    private static void writeVarInt(final DataOutput output, final int value)
+        throws IOException {
+        int remaining = value;
+        while ((remaining & ~0x7F) != 0) {
+            output.writeByte((remaining & 0x7F) | 0x80);
+            remaining >>>= 7;
+        }
+        output.writeByte(remaining);
+    }
+
+    /**
+     * Reads a variable-length unsigned integer.
+     * @param input The input
+     * @return The value
+     * @throws IOException If an I/O error occurs
+     */
+    private static int readVarInt(final DataInput input) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = input.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /**
+     * Encodes a single examination.
+     */
+    private static final class Encoder {
+
+        /**
+         * The output.
+         */
+        private final DataOutput output;
+
+        /**
+         * Indexes of the strings written so far.
+         */
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        /**
+         * Default constructor.
+         * @param output The output
+         */
+        Encoder(final DataOutput output) {
+            this.output = output;
+        }
+
+        /**
+         * Writes an examination: its parameters, questions and selection.
+         * @param examination The examination
+         * @throws IOException If an I/O error occurs
+         * @throws IllegalArgumentException If a parameter value is not
+         *  supported
+         */
+        void examination(final Examination examination) throws IOException {
+            final Map<Parameter, Object> parameters = examination.parameters();
+            writeVarInt(this.output, parameters.size());
+            for (final Map.Entry<Parameter, Object> entry : parameters.entrySet()) {
+                writeVarInt(this.output, entry.getKey().ordinal());
+                this.value(entry.getValue());
+            }
+            this.questions(examination.questions());
+            final Selection selection = examination.selection();
+            this.output.writeInt(selection.minimumPoints());
+            this.output.writeInt(selection.maximumPoints());
+            this.counts(selection.types());
+            this.counts(selection.tags());
+            this.counts(selection.topics());
+            this.string(selection.query().toString());
+        }
+
+        /**
+         * Writes a parameter value, preceded by its value tag.
+         * @param value The value
+         * @throws IOException If an I/O error occurs
+         * @throws IllegalArgumentException If the value is not supported
+         */
+        void value(final Object value) throws IOException {
+            if (value == null) {
+                this.output.writeByte(NULL);
+            } else if (value instanceof String) {
+                this.output.writeByte(STRING);
+                this.string((String) value);
+            } else if (value instanceof Integer) {
+                this.output.writeByte(INTEGER);
+                this.output.writeInt((Integer) value);
+            } else if (value instanceof Long) {
+                this.output.writeByte(LONG);
+                this.output.writeLong((Long) value);
+            } else if (value instanceof Double) {
+                this.output.writeByte(DOUBLE);
+                this.output.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                this.output.writeByte(BOOLEAN);
+                this.output.writeBoolean((Boolean) value);
+            } else if (value instanceof Date) {
+                this.output.writeByte(DATE);
+                this.output.writeLong(((Date) value).getTime());
+            } else if (value instanceof List) {
+                final List<?> list = (List<?>) value;
+                this.output.writeByte(LIST);
+                writeVarInt(this.output, list.size());
+                for (final Object element : list)
+                    this.value(element);
+            } else if (value instanceof Section) {
+                final Section section = (Section) value;
+                this.output.writeByte(SECTION);
+                this.string(section.name());
+                this.string(section.TA());
+                this.output.writeInt(section.students());
+            } else if (value instanceof TextSegment) {
+                this.output.writeByte(SEGMENT);
+                this.segment((TextSegment) value);
+            } else {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Unsupported parameter value of type %s",
+                        value.getClass().getName()
+                    )
+                );
+            }
+        }
+
+        /**
+         * Writes a list of questions, preceded by its size.
+         * @param questions The questions
+         * @throws IOException If an I/O error occurs
+         */
+        void questions(final List<Question> questions) throws IOException {
+            writeVarInt(this.output, questions.size());
+            for (final Question question : questions)
+                this.question(question);
+        }
+
+        /**
+         * Writes a question, preceded by its question tag and metadata.
+         * @param question The question
+         * @throws IOException If an I/O error occurs
+         * @throws IllegalArgumentException If the question type is not
+         *  supported
+         */
+        void question(final Question question) throws IOException {
+            if (question instanceof OpenEnded) {
+                final OpenEnded open = (OpenEnded) question;
+                this.output.writeByte(OPEN_ENDED);
+                this.metadata(question.metadata());
+                this.segment(open.statement());
+                this.segment(open.answer());
+                this.output.writeInt(open.points());
+                this.string(open.expectedLength());
+            } else if (question instanceof ClosedEnded) {
+                final ClosedEnded closed = (ClosedEnded) question;
+                this.output.writeByte(CLOSED_ENDED);
+                this.metadata(question.metadata());
+                this.segment(closed.statement());
+                this.output.writeInt(closed.points());
+                writeVarInt(this.output, closed.options().size());
+                for (final Option option : closed.options()) {
+                    this.output.writeBoolean(option.answer());
+                    this.segment(option.statement());
+                }
+            } else if (question instanceof TrueFalse) {
+                final TrueFalse tf = (TrueFalse) question;
+                this.output.writeByte(TRUE_FALSE);
+                this.metadata(question.metadata());
+                this.segment(tf.statement());
+                this.output.writeBoolean(tf.answer());
+                this.output.writeInt(tf.points());
+            } else if (question instanceof CompoundQuestion) {
+                final CompoundQuestion compound = (CompoundQuestion) question;
+                this.output.writeByte(COMPOUND);
+                this.metadata(question.metadata());
+                this.segment(compound.statement());
+                this.questions(compound.children());
+            } else {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Unsupported question of type %s",
+                        question.getClass().getName()
+                    )
+                );
+            }
+        }
+
+        /**
+         * Writes the metadata of a question.
+         * @param metadata The metadata
+         * @throws IOException If an I/O error occurs
+         */
+        void metadata(final Metadata metadata) throws IOException {
+            writeVarInt(this.output, metadata.tags().size());
+            for (final String tag : metadata.tags())
+                this.string(tag);
+            this.string(metadata.topic());
+            this.string(metadata.difficulty());
+        }
+
+        /**
+         * Writes a number of questions for each key.
+         * @param counts The number of questions of each key
+         * @throws IOException If an I/O error occurs
+         */
+        void counts(final Map<String, Integer> counts) throws IOException {
+            writeVarInt(this.output, counts.size());
+            for (final Map.Entry<String, Integer> entry : counts.entrySet()) {
+                this.string(entry.getKey());
+                this.output.writeInt(entry.getValue());
+            }
+        }
+
+        /**
+         * Writes a text segment, preceded by its segment tag. Compound
+         * segments are written recursively.
+         * @param segment The segment
+         * @throws IOException If an I/O error occurs
+         */
+        void segment(final TextSegment segment) throws IOException {
+            if (segment instanceof CompoundText) {
+                final List<TextSegment> segments =
+                    ((CompoundText) segment).segments();
+                this.output.writeByte(COMPOUND_TEXT);
+                writeVarInt(this.output, segments.size());
+                for (final TextSegment child : segments)
+                    this.segment(child);
+            } else {
+                final List<Style> styles = segment.styles();
+                this.output.writeByte(SIMPLE_TEXT);
+                this.string(segment.text());
+                this.output.writeByte(styles.size());
+                for (final Style style : styles)
+                    this.output.writeByte(style.ordinal());
+            }
+        }
+
+        /**
+         * Writes a string, or a reference to it if it was already written.
+         * Zero represents null, one a new string, and n > 1 a reference to
+         * the (n - 2)th string.
+         * @param value The string
+         * @throws IOException If an I/O error occurs
+         */
+        void string(final String value) throws IOException {
+            if (value == null) {
+                writeVarInt(this.output, 0);
+                return;
+            }
+            final Integer index = this.strings.get(value);
+            if (index != null) {
+                writeVarInt(this.output, index + 2);
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                this.strings.put(value, this.strings.size());
+                writeVarInt(this.output, 1);
+                writeVarInt(this.output, bytes.length);
+                this.output.write(bytes);
+            }
+        }
+
+    }
+
+    /**
+     * Decodes a single examination.
+     */
+    private static final class Decoder {
+
+        /**
+         * The input.
+         */
+        private final DataInput input;
+
+        /**
+         * The strings read so far.
+         */
+        private final List<String> strings = new ArrayList<>();
+
+        /**
+         * Default constructor.
+         * @param input The input
+         */
+        Decoder(final DataInput input) {
+            this.input = input;
+        }
+
+        /**
+         * Reads an examination (see {@link Encoder#examination(Examination)}).
+         * @return The examination
+         * @throws IOException If an I/O error occurs or the input is
+         *  malformed
+         */
+        Examination examination() throws IOException {
+            final int size = readVarInt(this.input);
+            final Map<Parameter, Object> parameters = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                final Parameter parameter = PARAMETERS[readVarInt(this.input)];
+                parameters.put(parameter, this.value());
+            }
+            final List<Question> questions = this.questions();
+            final int minimum = this.input.readInt();
+            final int maximum = this.input.readInt();
+            final Map<String, Integer> types = this.counts();
+            final Map<String, Integer> tags = this.counts();
+            final Map<String, Integer> topics = this.counts();
+            return new Examination(
+                parameters,
+                questions,
+                new Selection(
+                    minimum,
+                    maximum,
+                    types,
+                    tags,
+                    topics,
+                    Query.parse(this.string())
+                )
+            );
+        }
+
+        /**
+         * Reads a parameter value (see {@link Encoder#value(Object)}).
+         * @return The value
+         * @throws IOException If an I/O error occurs or the value tag is
+         *  unknown
+         */
+        Object value() throws IOException {
+            final int tag = this.input.readUnsignedByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return this.string();
+                case INTEGER:
+                    return this.input.readInt();
+                case LONG:
+                    return this.input.readLong();
+                case DOUBLE:
+                    return this.input.readDouble();
+                case BOOLEAN:
+                    return this.input.readBoolean();
+                case DATE:
+                    return new Date(this.input.readLong());
+                case LIST: {
+                    final int size = readVarInt(this.input);
+                    final List<Object> list = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++)
+                        list.add(this.value());
+                    return list;
+                }
+                case SECTION:
+                    return new Section(
+                        this.string(),
+                        this.string(),
+                        this.input.readInt()
+                    );
+                case SEGMENT:
+                    return this.segment();
+                default:
+                    throw new IOException(
+                        String.format("Unknown value tag %d", tag)
+                    );
+            }
+        }
+
+        /**
+         * Reads a list of questions.
+         * @return The questions
+         * @throws IOException If an I/O error occurs or the input is
+         *  malformed
+         */
+        List<Question> questions() throws IOException {
+            final int size = readVarInt(this.input);
+            final List<Question> questions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                questions.add(this.question());
+            return questions;
+        }
+
+        /**
+         * Reads a question (see {@link Encoder#question(Question)}).
+         * @return The question
+         * @throws IOException If an I/O error occurs or the question tag is
+         *  unknown
+         */
+        Question question() throws IOException {
+            final int tag = this.input.readUnsignedByte();
+            if (tag < OPEN_ENDED || tag > COMPOUND) {
+                throw new IOException(
+                    String.format("Unknown question tag %d", tag)
+                );
+            }
+            final Metadata metadata = this.metadata();
+            switch (tag) {
+                case OPEN_ENDED:
+                    return new OpenEnded(
+                        this.segment(),
+                        this.segment(),
+                        this.input.readInt(),
+                        this.string(),
+                        metadata
+                    );
+                case CLOSED_ENDED: {
+                    final TextSegment statement = this.segment();
+                    final int points = this.input.readInt();
+                    final int size = readVarInt(this.input);
+                    final List<Option> options = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++) {
+                        final boolean answer = this.input.readBoolean();
+                        options.add(new Option(answer, this.segment()));
+                    }
+                    return new ClosedEnded(statement, points, options, metadata);
+                }
+                case TRUE_FALSE:
+                    return new TrueFalse(
+                        this.segment(),
+                        this.input.readBoolean(),
+                        this.input.readInt(),
+                        metadata
+                    );
+                case COMPOUND:
+                    return new CompoundQuestion(
+                        this.segment(),
+                        this.questions(),
+                        metadata
+                    );
+                default:
+                    throw new IOException(
+                        String.format("Unknown question tag %d", tag)
+                    );
+            }
+        }
+
+        /**
+         * Reads the metadata of a question, sharing {@link Metadata#NONE}
+         * among the questions without any.
+         * @return The metadata
+         * @throws IOException If an I/O error occurs
+         */
+        Metadata metadata() throws IOException {
+            final int size = readVarInt(this.input);
+            if (size == 0) {
+                final String topic = this.string();
+                final String difficulty = this.string();
+                return topic == null && difficulty == null
+                    ? Metadata.NONE
+                    : new Metadata(Collections.emptyList(), topic, difficulty);
+            }
+            final List<String> tags = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                tags.add(this.string());
+            return new Metadata(
+                Collections.unmodifiableList(tags),
+                this.string(),
+                this.string()
+            );
+        }
+
+        /**
+         * Reads a number of questions for each key.
+         * @return the number of questions of each key
+         * @throws IOException If an I/O error occurs
+         */
+        Map<String, Integer> counts() throws IOException {
+            final int size = readVarInt(this.input);
+            final Map<String, Integer> counts = new HashMap<>();
+            for (int i = 0; i < size; i++)
+                counts.put(this.string(), this.input.readInt());
+            return counts;
+        }
+
+        /**
+         * Reads a text segment (see {@link Encoder#segment(TextSegment)}).
+         * @return The segment
+         * @throws IOException If an I/O error occurs or the segment tag is
+         *  unknown
+         */
+        TextSegment segment() throws IOException {
+            final int tag = this.input.readUnsignedByte();
+            switch (tag) {
+                case SIMPLE_TEXT: {
+                    final String text = this.string();
+                    final int size = this.input.readUnsignedByte();
+                    if (size == 1) {
+                        return new TextSegment.Simple(
+                            text,
+                            Collections.singletonList(
+                                STYLES[this.input.readUnsignedByte()]
+                            )
+                        );
+                    }
+                    final List<Style> styles = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++)
+                        styles.add(STYLES[this.input.readUnsignedByte()]);
+                    return new TextSegment.Simple(
+                        text,
+                        Collections.unmodifiableList(styles)
+                    );
+                }
+                case COMPOUND_TEXT: {
+                    final int size = readVarInt(this.input);
+                    final List<TextSegment> segments = new ArrayList<>(size);
+                    for (int i = 0; i < size; i++)
+                        segments.add(this.segment());
+                    return CompoundText.flatten(segments);
+                }
+                default:
+                    throw new IOException(
+                        String.format("Unknown segment tag %d", tag)
+                    );
+            }
+        }
+
+        /**
+         * Reads a string, or resolves a reference to a string already read
+         * (see {@link Encoder#string(String)}).
+         * @return The string, or null
+         * @throws IOException If an I/O error occurs
+         */
+        String string() throws IOException {
+            final int marker = readVarInt(this.input);
+            if (marker == 0)
+                return null;
+            if (marker > 1)
+                return this.strings.get(marker - 2);
+            final byte[] bytes = new byte[readVarInt(this.input)];
+            this.input.readFully(bytes);
+            final String value = new String(bytes, StandardCharsets.UTF_8);
+            this.strings.add(value);
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.io;
+
+import com.rigiresearch.examgen.model.CompoundText;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TextSegment.Style;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single-pass tokenizer that splits a text into styled segments. Style tags
+ * (e.g., {@code <bold>...</bold>}) may be nested, except within code and
+ * custom segments, whose content is taken verbatim until the corresponding
+ * closing tag. Any other text between angle brackets is kept as is.
+ * <p>
+ * Segments are immutable, so each tokenizer keeps a pool of the segments
+ * parsed so far: repeated texts (e.g., "True" or "None of the above") are
+ * parsed once and share a single instance. The pool holds up to 4M
+ * characters of text; use one tokenizer per batch of input so that the pool
+ * does not outlive it.</p>
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class TextSegmentParser {
+
+    /**
+     * The supported styles, indexed by ordinal.
+     */
+    private static final Style[] STYLES = Style.values();
+
+    /**
+     * Opening tags, indexed by style ordinal.
+     */
+    private static final String[] OPENING = new String[STYLES.length];
+
+    /**
+     * Closing tags, indexed by style ordinal.
+     */
+    private static final String[] CLOSING = new String[STYLES.length];
+
+    static {
+        for (final Style style : STYLES) {
+            final String name = style.toString().toLowerCase(Locale.ROOT);
+            OPENING[style.ordinal()] = String.format("<%s>", name);
+            CLOSING[style.ordinal()] = String.format("</%s>", name);
+        }
+    }
+
+    /**
+     * The maximum length of the texts kept in the pool.
+     */
+    private static final int POOL_LENGTH = 4096;
+
+    /**
+     * The maximum number of characters of the texts kept in the pool.
+     */
+    private static final long POOL_CAPACITY = 1L << 22;
+
+    /**
+     * The segments parsed so far, by input text.
+     */
+    private final Map<String, TextSegment> pool = new ConcurrentHashMap<>();
+
+    /**
+     * The number of characters of the texts kept in the pool.
+     */
+    private final AtomicLong pooled = new AtomicLong();
+
+    /**
+     * Parses a text segment, reusing the segment of a previous identical
+     * text. Once the pool is full, new texts are parsed but not pooled.
+     * @param text The input text
+     * @return a simple segment if the text contains at most one styled
+     *  segment, or a flattened compound text otherwise
+     * @throws SegmentSyntaxException If a style tag is not properly closed
+     */
+    public TextSegment segment(final String text) {
+        if (text.length() > TextSegmentParser.POOL_LENGTH)
+            return this.parse(text);
+        final TextSegment segment = this.pool.get(text);
+        if (segment != null)
+            return segment;
+        final TextSegment parsed = this.parse(text);
+        if (this.pooled.get() + text.length() > TextSegmentParser.POOL_CAPACITY)
+            return parsed;
+        final TextSegment previous = this.pool.putIfAbsent(text, parsed);
+        if (previous != null)
+            return previous;
+        this.pooled.addAndGet(text.length());
+        return parsed;
+    }
+
+    /**
+     * Parses a text segment.
+     * @param text The input text
+     * @return a simple segment if the text contains at most one styled
+     *  segment, or a flattened compound text otherwise
+     * @throws SegmentSyntaxException If a style tag is not properly closed
+     */
+    private TextSegment parse(final String text) {
+        final List<TextSegment> segments = this.segments(text);
+        if (segments.size() == 1) {
+            return segments.get(0);
+        } else {
+            return CompoundText.flatten(segments);
+        }
+    }
+
+    /**
+     * Parses a text into a sequential list of text segments. Each segment
+     * holds the styles of its enclosing tags, in declaration order (see
+     * {@link TextSegment.Simple}) rather than in the order they are nested.
+     * @param text The input text
+     * @return a non-empty sequence of text segments
+     * @throws SegmentSyntaxException If a style tag is not properly closed
+     */
+    public List<TextSegment> segments(final String text) {
+        final List<TextSegment> segments = new ArrayList<>();
+        final List<Style> open = new ArrayList<>();
+        final List<Integer> offsets = new ArrayList<>();
+        final List<Integer> marks = new ArrayList<>();
+        int start = 0;
+        int index = text.indexOf('<');
+        while (index >= 0) {
+            final Style top = open.isEmpty() ? null : open.get(open.size() - 1);
+            int tag = -1;
+            boolean closing = false;
+            if (top != null && TextSegmentParser.verbatim(top)) {
+                closing = text.startsWith(CLOSING[top.ordinal()], index);
+                tag = closing ? top.ordinal() : -1;
+            } else if (index + 1 < text.length() && text.charAt(index + 1) == '/') {
+                closing = true;
+                tag = TextSegmentParser.match(text, index, CLOSING);
+            } else {
+                tag = TextSegmentParser.match(text, index, OPENING);
+            }
+            if (tag < 0) {
+                index = text.indexOf('<', index + 1);
+                continue;
+            }
+            final Style style = STYLES[tag];
+            if (closing) {
+                if (top == null) {
+                    throw new SegmentSyntaxException(
+                        String.format("Unexpected closing tag %s", CLOSING[tag]),
+                        index
+                    );
+                } else if (top != style) {
+                    throw new SegmentSyntaxException(
+                        String.format(
+                            "Expected %s (opened at offset %d) but found %s",
+                            CLOSING[top.ordinal()],
+                            offsets.get(offsets.size() - 1),
+                            CLOSING[tag]
+                        ),
+                        index
+                    );
+                }
+                final boolean empty = marks.get(marks.size() - 1) == segments.size();
+                if (start < index || empty) {
+                    segments.add(
+                        new TextSegment.Simple(
+                            text.substring(start, index),
+                            open
+                        )
+                    );
+                }
+                open.remove(open.size() - 1);
+                offsets.remove(offsets.size() - 1);
+                marks.remove(marks.size() - 1);
+                start = index + CLOSING[tag].length();
+            } else {
+                this.flush(text, start, index, open, segments);
+                open.add(style);
+                offsets.add(index);
+                marks.add(segments.size());
+                start = index + OPENING[tag].length();
+            }
+            index = text.indexOf('<', start);
+        }
+        if (!open.isEmpty()) {
+            throw new SegmentSyntaxException(
+                String.format(
+                    "Unclosed style tag %s",
+                    OPENING[open.get(open.size() - 1).ordinal()]
+                ),
+                offsets.get(offsets.size() - 1)
+            );
+        }
+        this.flush(text, start, text.length(), open, segments);
+        if (segments.isEmpty())
+            segments.add(new TextSegment.Simple(text));
+        return segments;
+    }
+
+    /**
+     * Adds the text between the given offsets as a new segment, if not empty.
+     * @param text The input text
+     * @param start The start offset (inclusive)
+     * @param end The end offset (exclusive)
+     * @param open The currently open styles
+     * @param segments The list of segments
+     */
+    private void flush(final String text, final int start, final int end,
+        final List<Style> open, final List<TextSegment> segments) {
+        if (start >= end)
+            return;
+        final String value = text.substring(start, end);
+        if (open.isEmpty()) {
+            segments.add(new TextSegment.Simple(value));
+        } else {
+            segments.add(
+                new TextSegment.Simple(value, open)
+            );
+        }
+    }
+
+    /**
+     * Finds the tag starting at the given offset.
+     * @param text The input text
+     * @param offset The offset of the opening angle bracket
+     * @param tags The candidate tags, indexed by style ordinal
+     * @return the ordinal of the matching style, or -1 if there is none
+     */
+    private static int match(final String text, final int offset,
+        final String[] tags) {
+        for (int i = 0; i < tags.length; i++) {
+            if (text.startsWith(tags[i], offset))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the content of the given style must be taken verbatim.
+     * @param style The style
+     * @return whether nested tags are ignored within the style
+     */
+    private static boolean verbatim(final Style style) {
+        return style == Style.CODE
+            || style == Style.INLINE_CODE
+            || style == Style.CUSTOM;
+    }
+
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.templates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A constant block of text, such as the preamble of a document, encoded as
+ * UTF-8 once so that it can be copied to every document without encoding it
+ * again.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class EncodedText {
+
+    /**
+     * The text.
+     */
+    private final String text;
+
+    /**
+     * The UTF-8 encoded text.
+     */
+    private final byte[] bytes;
+
+    /**
+     * Default constructor.
+     * @param text The text
+     */
+    public EncodedText(final CharSequence text) {
+        this.text = text.toString();
+        this.bytes = this.text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends this text to an output. A {@link Utf8Writer} receives the
+     * encoded bytes, also when it is one of the outputs of a {@link Fork}.
+     * @param output The output
+     * @throws IOException If an I/O error occurs
+     */
+    public void appendTo(final Appendable output) throws IOException {
+        if (output instanceof Utf8Writer) {
+            ((Utf8Writer) output).write(this.bytes);
+        } else if (output instanceof Fork) {
+            this.appendTo(((Fork) output).first());
+            this.appendTo(((Fork) output).second());
+        } else {
+            output.append(this.text);
+        }
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return this.text;
+    }
+
+}
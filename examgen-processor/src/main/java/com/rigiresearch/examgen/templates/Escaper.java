@@ -0,0 +1,148 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.templates;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Escapes the special characters of a target format in a single pass. The
+ * replacement of every ASCII character is looked up in a table, so each
+ * character is replaced exactly once and replacements are never escaped
+ * again.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Escaper {
+
+    /**
+     * Escapes text for Latex.
+     */
+    public static final Escaper LATEX = new Escaper(
+        "\\~^#&%{}$_",
+        "\\textbackslash{}", "\\textasciitilde{}", "\\textasciicircum{}",
+        "\\#", "\\&", "\\%", "\\{", "\\}", "\\$", "\\_"
+    );
+
+    /**
+     * Escapes text for inline code in Latex (i.e., {@code \lstinline}).
+     */
+    public static final Escaper LATEX_INLINE = new Escaper(
+        "\\&%{}",
+        "\\\\", "\\&", "\\%", "\\{", "\\}"
+    );
+
+    /**
+     * Escapes text for XML.
+     */
+    public static final Escaper XML = new Escaper(
+        "'&><",
+        "&apos;", "&amp;", "&gt;", "&lt;"
+    );
+
+    /**
+     * The replacement of each ASCII character, or null if it is not escaped.
+     */
+    private final String[] replacements;
+
+    /**
+     * Default constructor.
+     * @param characters The characters to escape
+     * @param replacements The replacement of each character
+     */
+    private Escaper(final String characters, final String... replacements) {
+        this.replacements = new String[128];
+        for (int i = 0; i < characters.length(); i++) {
+            this.replacements[characters.charAt(i)] = replacements[i];
+        }
+    }
+
+    /**
+     * Escapes a text.
+     * @param text The text to escape
+     * @return The same text if nothing needs escaping, or the escaped text
+     */
+    public CharSequence escape(final CharSequence text) {
+        final int first = this.next(text, 0);
+        if (first == text.length()) {
+            return text;
+        }
+        final StringBuilder output = new StringBuilder(text.length() + 16);
+        try {
+            this.escape(text, first, output);
+        } catch (final IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        return output;
+    }
+
+    /**
+     * Appends an escaped text to an output.
+     * @param text The text to escape
+     * @param output The output
+     * @throws IOException If the output cannot be written
+     */
+    public void escape(final CharSequence text, final Appendable output)
+        throws IOException {
+        this.escape(text, this.next(text, 0), output);
+    }
+
+    /**
+     * Appends an escaped text to an output, knowing the position of the
+     * first character to replace.
+     * @param text The text to escape
+     * @param first The position of the first character to replace
+     * @param output The output
+     * @throws IOException If the output cannot be written
+     */
+    private void escape(final CharSequence text, final int first,
+        final Appendable output) throws IOException {
+        final int length = text.length();
+        int start = 0;
+        for (int i = first; i < length; i = this.next(text, start)) {
+            output.append(text, start, i);
+            output.append(this.replacements[text.charAt(i)]);
+            start = i + 1;
+        }
+        output.append(text, start, length);
+    }
+
+    /**
+     * Finds the next character to replace.
+     * @param text The text
+     * @param start The position to start from
+     * @return The position of the character, or the length of the text
+     */
+    private int next(final CharSequence text, final int start) {
+        final int length = text.length();
+        for (int i = start; i < length; i++) {
+            final char character = text.charAt(i);
+            if (character < 128 && this.replacements[character] != null) {
+                return i;
+            }
+        }
+        return length;
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.templates;
+
+import java.io.IOException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * An output that appends everything to two other outputs, such as an
+ * examination and its solutions, so that the text they share is rendered
+ * only once.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+@Accessors(fluent = true)
+@AllArgsConstructor
+@Getter
+public final class Fork implements Appendable {
+
+    /**
+     * The first output.
+     */
+    private final Appendable first;
+
+    /**
+     * The second output.
+     */
+    private final Appendable second;
+
+    /* (non-Javadoc)
+     * @see java.lang.Appendable#append(java.lang.CharSequence)
+     */
+    @Override
+    public Fork append(final CharSequence text) throws IOException {
+        this.first.append(text);
+        this.second.append(text);
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Appendable#append(java.lang.CharSequence, int, int)
+     */
+    @Override
+    public Fork append(final CharSequence text, final int start, final int end)
+        throws IOException {
+        this.first.append(text, start, end);
+        this.second.append(text, start, end);
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Appendable#append(char)
+     */
+    @Override
+    public Fork append(final char character) throws IOException {
+        this.first.append(character);
+        this.second.append(character);
+        return this;
+    }
+
+}
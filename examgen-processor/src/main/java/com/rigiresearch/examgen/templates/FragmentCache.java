@@ -0,0 +1,292 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.templates;
+
+import com.rigiresearch.examgen.model.Fingerprint;
+import com.rigiresearch.examgen.model.Question;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.eclipse.xtext.xbase.lib.Pair;
+
+/**
+ * A size-bounded cache of rendered questions, shared by the variants of an
+ * examination. A question is identified by its fingerprint, which changes
+ * when its options are arranged in a different order, so a question gets a
+ * single fragment per order, template and solutions flag, no matter how many
+ * variants include it. The least recently used fragments are evicted once
+ * their estimated memory exceeds the capacity.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class FragmentCache {
+
+    /**
+     * The estimated memory of an entry, besides its text.
+     */
+    private static final long OVERHEAD = 96L;
+
+    /**
+     * The fragments, from the least to the most recently used.
+     */
+    private final Map<Key, String> fragments =
+        new LinkedHashMap<>(256, 0.75f, true);
+
+    /**
+     * The maximum estimated memory of the fragments, in bytes.
+     */
+    private long capacity;
+
+    /**
+     * The estimated memory of the fragments, in bytes.
+     */
+    private long weight;
+
+    /**
+     * The number of fragments found in the cache.
+     */
+    private long hits;
+
+    /**
+     * The number of fragments that had to be rendered.
+     */
+    private long misses;
+
+    /**
+     * The number of fragments evicted.
+     */
+    private long evictions;
+
+    /**
+     * Default constructor.
+     * @param capacity The maximum estimated memory of the fragments, in
+     *  bytes; 0 disables the cache
+     */
+    public FragmentCache(final long capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the fragment of a question, rendering it if it is not cached.
+     * @param template The template rendering the question
+     * @param question The question
+     * @param solutions Whether the solutions are printed
+     * @param renderer Renders the question
+     * @return The rendered question
+     */
+    public CharSequence fragment(final Template template, final Question question,
+        final boolean solutions, final Supplier<? extends CharSequence> renderer) {
+        final Key key = new Key(template.getClass(), question.fingerprint(), solutions);
+        synchronized (this) {
+            final String fragment = this.fragments.get(key);
+            if (fragment != null) {
+                this.hits++;
+                return fragment;
+            }
+            this.misses++;
+        }
+        final String fragment = renderer.get().toString();
+        this.put(key, fragment);
+        return fragment;
+    }
+
+    /**
+     * Returns the fragments of a question without and with its solutions,
+     * rendering both if either one is not cached.
+     * @param template The template rendering the question
+     * @param question The question
+     * @param renderer Renders the question without and with its solutions
+     * @return The rendered question without and with its solutions
+     */
+    public Pair<CharSequence, CharSequence> fragments(final Template template,
+        final Question question,
+        final Supplier<Pair<CharSequence, CharSequence>> renderer) {
+        final Key first = new Key(template.getClass(), question.fingerprint(), false);
+        final Key second = new Key(first.template, first.fingerprint, true);
+        synchronized (this) {
+            final String examination = this.fragments.get(first);
+            final String solutions = this.fragments.get(second);
+            if (examination != null && solutions != null) {
+                this.hits += 2;
+                return Pair.of(examination, solutions);
+            }
+            this.misses += 2;
+        }
+        final Pair<CharSequence, CharSequence> rendered = renderer.get();
+        final String examination = rendered.getKey().toString();
+        final String solutions = rendered.getKey() == rendered.getValue()
+            ? examination : rendered.getValue().toString();
+        this.put(first, examination);
+        this.put(second, solutions);
+        return Pair.of(examination, solutions);
+    }
+
+    /**
+     * Changes the capacity of this cache, evicting fragments if needed.
+     * @param bytes The maximum estimated memory of the fragments, in bytes;
+     *  0 disables the cache
+     */
+    public synchronized void resize(final long bytes) {
+        this.capacity = bytes;
+        this.evict();
+    }
+
+    /**
+     * Removes all fragments and resets the counters.
+     */
+    public synchronized void clear() {
+        this.fragments.clear();
+        this.weight = 0L;
+        this.hits = 0L;
+        this.misses = 0L;
+        this.evictions = 0L;
+    }
+
+    /**
+     * The number of fragments found in the cache.
+     * @return A number of fragments
+     */
+    public synchronized long hits() {
+        return this.hits;
+    }
+
+    /**
+     * The number of fragments that had to be rendered.
+     * @return A number of fragments
+     */
+    public synchronized long misses() {
+        return this.misses;
+    }
+
+    /**
+     * The number of fragments evicted to stay within the capacity.
+     * @return A number of fragments
+     */
+    public synchronized long evictions() {
+        return this.evictions;
+    }
+
+    /**
+     * The estimated memory of the cached fragments.
+     * @return A number of bytes
+     */
+    public synchronized long weight() {
+        return this.weight;
+    }
+
+    /**
+     * The number of cached fragments.
+     * @return A number of fragments
+     */
+    public synchronized int size() {
+        return this.fragments.size();
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public synchronized String toString() {
+        final long total = this.hits + this.misses;
+        return String.format(
+            "%d hits, %d misses (%.0f%% hit rate), %d evictions, %d fragments, %d KiB",
+            this.hits,
+            this.misses,
+            total == 0L ? 0.0 : 100.0 * this.hits / total,
+            this.evictions,
+            this.fragments.size(),
+            this.weight >> 10
+        );
+    }
+
+    /**
+     * Caches a fragment, unless it does not fit.
+     * @param key The key of the fragment
+     * @param fragment The fragment
+     */
+    private synchronized void put(final Key key, final String fragment) {
+        final long size = FragmentCache.weight(fragment);
+        if (size > this.capacity)
+            return;
+        final String previous = this.fragments.put(key, fragment);
+        if (previous != null)
+            this.weight -= FragmentCache.weight(previous);
+        this.weight += size;
+        this.evict();
+    }
+
+    /**
+     * Evicts the least recently used fragments until they fit in the
+     * capacity.
+     */
+    private void evict() {
+        final Iterator<String> iterator = this.fragments.values().iterator();
+        while (this.weight > this.capacity && iterator.hasNext()) {
+            this.weight -= FragmentCache.weight(iterator.next());
+            iterator.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Estimates the memory of a cached fragment.
+     * @param fragment The fragment
+     * @return A number of bytes
+     */
+    private static long weight(final String fragment) {
+        return FragmentCache.OVERHEAD + 2L * fragment.length();
+    }
+
+    /**
+     * Identifies a fragment.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-17
+     * @version $Id$
+     * @since 0.0.1
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class Key {
+
+        /**
+         * The class of the template.
+         */
+        private final Class<?> template;
+
+        /**
+         * The fingerprint of the question.
+         */
+        private final Fingerprint fingerprint;
+
+        /**
+         * Whether the solutions are printed.
+         */
+        private final boolean solutions;
+
+    }
+
+}
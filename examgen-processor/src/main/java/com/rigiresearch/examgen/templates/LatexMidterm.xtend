@@ -28,7 +28,9 @@ import com.rigiresearch.examgen.model.Examination
 import com.rigiresearch.examgen.model.OpenEnded
 import com.rigiresearch.examgen.model.Question
 import com.rigiresearch.examgen.model.Section
+import com.rigiresearch.examgen.model.Student
 import com.rigiresearch.examgen.model.TextSegment
+import java.io.IOException
 import java.util.List
 
 import static com.rigiresearch.examgen.model.Examination.Parameter.COURSE
@@ -51,22 +53,212 @@ import com.rigiresearch.examgen.model.TrueFalse
  */
 class LatexMidterm implements Template {
 
-    override render(Examination e, boolean printSolutions) '''
-        «val section = e.parameters.get(SECTIONS) as Section»
-        \documentclass[10pt,addpoints«IF printSolutions»,answers«ENDIF»]{exam}
+    /**
+     * The configuration of every document, encoded once.
+     */
+    static val EncodedText CONFIGURATION = new EncodedText(new LatexMidterm().configuration)
 
-        % packages configuration
-        «packages»
+    /**
+     * The page configuration and header of every document, up to the
+     * student information.
+     */
+    static val EncodedText HEADER = new EncodedText(new LatexMidterm().header)
 
-        % choices configuration
-        «choices»
+    /**
+     * The course information of every document.
+     */
+    static val EncodedText COURSE_INFORMATION = new EncodedText(new LatexMidterm().course)
 
-        % True-False question format
-        «trueFalse»
+    /**
+     * The rest of every document, up to the questions.
+     */
+    static val EncodedText BODY = new EncodedText(new LatexMidterm().body)
 
-        % listings configuration
-        «listings»
+    /**
+     * The end of every document.
+     */
+    static val EncodedText END = new EncodedText('''
+        \end{questions}
+        \end{document}
+    ''')
 
+    /**
+     * The name of the format precompiled from the preamble.
+     */
+    public static val FORMAT = "examgen-midterm"
+
+    /**
+     * Whether documents load their preamble from the precompiled format
+     * instead of including it.
+     */
+    val boolean usesFormat
+
+    /**
+     * The cache of rendered questions, or null to render every question.
+     */
+    val FragmentCache cache
+
+    /**
+     * Creates a template whose documents include their preamble.
+     */
+    new() {
+        this(false)
+    }
+
+    /**
+     * Creates a template that renders every question.
+     * @param precompiled Whether documents load their preamble from the
+     *  precompiled format instead of including it
+     */
+    new(boolean precompiled) {
+        this(precompiled, null)
+    }
+
+    /**
+     * Creates a template.
+     * @param precompiled Whether documents load their preamble from the
+     *  precompiled format instead of including it
+     * @param cache The cache of rendered questions, or null to render every
+     *  question
+     */
+    new(boolean precompiled, FragmentCache cache) {
+        this.usesFormat = precompiled
+        this.cache = cache
+    }
+
+    override render(Examination e, boolean printSolutions) {
+        val output = new StringBuilder
+        e.render(printSolutions, output)
+        return output
+    }
+
+    override render(Examination e, boolean printSolutions, Appendable output) throws IOException {
+        val student = switch s : e.parameters.get(SECTIONS) { Student: s }
+        val section = student?.section ?: e.parameters.get(SECTIONS) as Section
+        prologue(printSolutions, output)
+        output.append(e.definitions(section))
+        output.append("\n")
+        HEADER.appendTo(output)
+        output.append(student.information)
+        output.append("\n")
+        COURSE_INFORMATION.appendTo(output)
+        output.append("\n")
+        output.append(e.instructions)
+        BODY.appendTo(output)
+        var first = true
+        for (q : e.questions) {
+            if (!first)
+                output.append("\n")
+            output.append(q.fragment(printSolutions))
+            output.append("\n")
+            first = false
+        }
+        END.appendTo(output)
+    }
+
+    override render(Examination e, Appendable output, Appendable solutions) throws IOException {
+        val both = new Fork(output, solutions)
+        val student = switch s : e.parameters.get(SECTIONS) { Student: s }
+        val section = student?.section ?: e.parameters.get(SECTIONS) as Section
+        prologue(false, output)
+        prologue(true, solutions)
+        both.append(e.definitions(section))
+        both.append("\n")
+        HEADER.appendTo(both)
+        both.append(student.information)
+        both.append("\n")
+        COURSE_INFORMATION.appendTo(both)
+        both.append("\n")
+        both.append(e.instructions)
+        BODY.appendTo(both)
+        var first = true
+        for (q : e.questions) {
+            if (!first)
+                both.append("\n")
+            val question = q.fragments
+            output.append(question.key)
+            solutions.append(question.value)
+            both.append("\n")
+            first = false
+        }
+        END.appendTo(both)
+    }
+
+    override name() {
+        "LATEX_MIDTERM"
+    }
+
+    override fileExtension() {
+        "tex"
+    }
+
+    override precompiled() {
+        if (usesFormat) this else new LatexMidterm(true, cache)
+    }
+
+    override cached(FragmentCache cache) {
+        new LatexMidterm(usesFormat, cache)
+    }
+
+    /**
+     * Renders a question, or reuses it from the cache.
+     */
+    def private CharSequence fragment(Question q, boolean printSolutions) {
+        if (cache === null)
+            q.render(printSolutions)
+        else
+            cache.fragment(this, q, printSolutions)[q.render(printSolutions)]
+    }
+
+    /**
+     * Renders a question without and with its solutions, or reuses them
+     * from the cache.
+     */
+    def private Pair<CharSequence, CharSequence> fragments(Question q) {
+        if (cache === null)
+            q.renderBoth
+        else
+            cache.fragments(this, q)[q.renderBoth]
+    }
+
+    override format() {
+        FORMAT
+    }
+
+    override preamble() '''
+        «documentclass(false)»
+
+        «configuration»
+        \dump
+    '''
+
+    /**
+     * Appends the document class and configuration of a document or, if
+     * they are precompiled, the name of the format that contains them.
+     */
+    def void prologue(boolean printSolutions, Appendable output) throws IOException {
+        if (usesFormat) {
+            output.append('''%&«FORMAT»''')
+            output.append("\n")
+            if (printSolutions)
+                output.append("\\printanswers\n")
+        } else {
+            output.append(documentclass(printSolutions))
+            output.append("\n\n")
+            CONFIGURATION.appendTo(output)
+        }
+        output.append("\n")
+    }
+
+    /**
+     * Renders the document class of a document.
+     */
+    def documentclass(boolean printSolutions) '''\documentclass[10pt,addpoints«IF printSolutions»,answers«ENDIF»]{exam}'''
+
+    /**
+     * Renders the parameters of a document.
+     */
+    def definitions(Examination e, Section section) '''
         % parameters
         \newcommand{\institution}{University of Victoria}
         \newcommand{\course}{«e.parameters.get(COURSE)»}
@@ -78,7 +270,30 @@ class LatexMidterm implements Template {
         \newcommand{\examtitle}{«e.parameters.get(TITLE)»}
         \newcommand{\examdate}{«e.parameters.get(DATE)»}
         \newcommand{\examversion}{«section.name»}
+    '''
+
+    /**
+     * Renders the configuration of every document.
+     */
+    def configuration() '''
+        % packages configuration
+        «packages»
+
+        % choices configuration
+        «choices»
+
+        % True-False question format
+        «trueFalse»
 
+        % listings configuration
+        «listings»
+    '''
+
+    /**
+     * Renders the page configuration and header of every document, up to
+     * the student information.
+     */
+    def header() '''
         % page configuration
         \pagestyle{head}
         \firstpageheader{}{}{}
@@ -101,18 +316,29 @@ class LatexMidterm implements Template {
         \vspace{0.5cm}
         \noindent
         \renewcommand{\arraystretch}{3}
+    '''
+
+    /**
+     * Renders the table of student information.
+     */
+    def information(Student student) '''
         \begin{tabularx}{\textwidth}{|l|X|}
             \hline
-            \textbf{Last Name} & \\
+            \textbf{Last Name} & «student?.lastName?.escaped» \\
             \hline
-            \textbf{First Name} & \\
+            \textbf{First Name} & «student?.firstName?.escaped» \\
             \hline
             \textbf{Course Section} & \sections{} \\
             \hline
-            \textbf{UVic Student Number} & \textbf{V00} \\
+            \textbf{UVic Student Number} & \textbf{«student?.id?.escaped ?: "V00"»} \\
             \hline
         \end{tabularx}
+    '''
 
+    /**
+     * Renders the course information of every document.
+     */
+    def course() '''
         % course information
         \vspace{0.5cm}
         \noindent
@@ -127,7 +353,12 @@ class LatexMidterm implements Template {
             \hline
         \end{tabularx}
         \renewcommand{\arraystretch}{1}
+    '''
 
+    /**
+     * Renders the instructions of a document, if any.
+     */
+    def instructions(Examination e) '''
         «IF e.parameters.get(INSTRUCTIONS) !== null»
             \vspace{0.5cm}
             % exam instructions
@@ -140,6 +371,13 @@ class LatexMidterm implements Template {
                 «ENDFOR»
             \end{itemize}
         «ENDIF»
+    '''
+
+    /**
+     * Renders the rest of every document, after the instructions and up to
+     * the questions.
+     */
+    def body() '''
         \clearpage
         \noindent
         {\large\bfseries Questions}
@@ -147,11 +385,6 @@ class LatexMidterm implements Template {
         \begin{questions}
         \bracketedpoints
         \marksnotpoints
-        «FOR q : e.questions SEPARATOR "\n"»
-        «q.render(printSolutions)»
-        «ENDFOR»
-        \end{questions}
-        \end{document}
     '''
 
     override render(Question question, boolean printSolutions) {
@@ -163,6 +396,23 @@ class LatexMidterm implements Template {
         }
     }
 
+    /**
+     * Renders a question without and with its solution. Only open-ended
+     * questions differ, so the rest of the question is rendered once.
+     * @return Both renderings, which are the same instance if they do not
+     *  differ
+     */
+    def Pair<CharSequence, CharSequence> renderBoth(Question question) {
+        switch (question) {
+            OpenEnded: question.renderBoth(false)
+            CompoundQuestion: question.renderBoth
+            default: {
+                val text = question.render(false)
+                text -> text
+            }
+        }
+    }
+
     override render(TextSegment segment) {
         switch (segment) {
             TextSegment.Simple: segment.styled
@@ -174,7 +424,7 @@ class LatexMidterm implements Template {
      * Applies styles to a rendered text segment.
      */
     def styled(TextSegment segment) {
-        var CharSequence result = segment.text
+        var CharSequence result = segment.text.content(segment.styles)
         for (style : segment.styles) {
             result = result.styled(style)
         }
@@ -185,22 +435,33 @@ class LatexMidterm implements Template {
     }
 
     /**
-     * Applies the given style to a rendered text.
+     * Renders a text according to its content style (i.e., code, custom
+     * or plain text). Nested styles are applied afterwards.
      */
-    def styled(CharSequence text, TextSegment.Style style) {
-        switch (style) {
-            case BOLD: '''\textbf{«text.escaped»}'''
-            case CODE: '''
+    def content(CharSequence text, List<TextSegment.Style> styles) {
+        if (styles.contains(TextSegment.Style.CODE)) '''
             \vspace{0.3cm}
             \begin{lstlisting}
             «text»
             \end{lstlisting}
             '''
-            case INLINE_CODE: '''\lstinline!«text.scapedInline»!'''
-            case ITALIC: '''\textit{«text.escaped»}'''
-            case CUSTOM: text
-            case INHERIT: text.escaped
-            case NEW_LINE: '''\n«text.escaped»'''
+        else if (styles.contains(TextSegment.Style.INLINE_CODE))
+            '''\lstinline!«text.scapedInline»!'''
+        else if (styles.contains(TextSegment.Style.CUSTOM))
+            text
+        else
+            text.escaped
+    }
+
+    /**
+     * Applies the given style to an already rendered text.
+     */
+    def styled(CharSequence text, TextSegment.Style style) {
+        switch (style) {
+            case BOLD: '''\textbf{«text»}'''
+            case ITALIC: '''\textit{«text»}'''
+            case NEW_LINE: '''\n«text»'''
+            default: text
         }
     }
 
@@ -208,34 +469,35 @@ class LatexMidterm implements Template {
      * Escapes special Latex characters
      */
     def escaped(CharSequence text) {
-        text.toString
-            .replace("\\", "\\textbackslash")
-            .replace("~", "\\textasciitilde")
-            .replace("^", "\\textasciicircum")
-            .replace("#", "\\#")
-            .replace("&", "\\&")
-            .replace("%", "\\%")
-            .replace("{", "\\{")
-            .replace("}", "\\}")
-            .replace("$", "\\$")
-            .replace("_", "\\_")
+        Escaper.LATEX.escape(text)
     }
 
     def scapedInline(CharSequence text) {
-        text.toString
-            .replace("\\", "\\\\")
-            .replace("&", "\\&")
-            .replace("%", "\\%")
-            .replace("{", "\\{")
-            .replace("}", "\\}")
+        Escaper.LATEX_INLINE.escape(text)
     }
 
     /**
      * Renders an open-ended question.
      */
-    def render(OpenEnded question, boolean child, boolean printSolutions) '''
+    def render(OpenEnded question, boolean child, boolean printSolutions) {
+        question.render(child, question.statement.render, printSolutions)
+    }
+
+    /**
+     * Renders an open-ended question without and with its solution, sharing
+     * the rendered statement.
+     */
+    def Pair<CharSequence, CharSequence> renderBoth(OpenEnded question, boolean child) {
+        val statement = question.statement.render
+        question.render(child, statement, false) -> question.render(child, statement, true)
+    }
+
+    /**
+     * Renders an open-ended question with an already rendered statement.
+     */
+    def render(OpenEnded question, boolean child, CharSequence statement, boolean printSolutions) '''
         «IF !child»\question[«question.points»]«ENDIF»
-        «question.statement.render»
+        «statement»
         «IF printSolutions»
             \begin{solution}
                 «question.answer.render»
@@ -269,21 +531,59 @@ class LatexMidterm implements Template {
     /**
      * Renders a compound question.
      */
-    def render(CompoundQuestion question, boolean printSolutions) '''
+    def render(CompoundQuestion question, boolean printSolutions) {
+        question.render(
+            question.statement.render,
+            question.children.map[child | child.renderChild(printSolutions)]
+        )
+    }
+
+    /**
+     * Renders a compound question without and with its solution, sharing
+     * the rendered statement and the parts that do not differ.
+     */
+    def Pair<CharSequence, CharSequence> renderBoth(CompoundQuestion question) {
+        val statement = question.statement.render
+        val children = question.children.map[child |
+            switch (child) {
+                OpenEnded: child.renderBoth(true)
+                default: {
+                    val text = child.renderChild(false)
+                    text -> text
+                }
+            }
+        ].toList
+        if (children.forall[key === value]) {
+            val text = question.render(statement, children.map[key])
+            return text -> text
+        }
+        question.render(statement, children.map[key]) -> question.render(statement, children.map[value])
+    }
+
+    /**
+     * Renders a part of a compound question.
+     */
+    def renderChild(Question child, boolean printSolutions) {
+        switch (child) {
+            OpenEnded: child.render(true, printSolutions)
+            ClosedEnded: child.render(true, printSolutions)
+            TrueFalse: child.render(true, printSolutions)
+        }
+    }
+
+    /**
+     * Renders a compound question with its statement and parts already
+     * rendered.
+     */
+    def render(CompoundQuestion question, CharSequence statement, List<CharSequence> children) '''
         \question[«question.points»]
-        «question.statement.render»
+        «statement»
         \noaddpoints % to omit double points count
         \pointsinmargin\pointformat{} % deactivate points for children
         \begin{parts}
-            «FOR child : question.children SEPARATOR "\n"»
-                \part[«child.points»]{}
-                «
-                    switch (child) {
-                        OpenEnded: child.render(true, printSolutions)
-                        ClosedEnded: child.render(true, printSolutions)
-                        TrueFalse: child.render(true, printSolutions)
-                    }
-                »
+            «FOR i : 0 ..< children.size SEPARATOR "\n"»
+                \part[«question.children.get(i).points»]{}
+                «children.get(i)»
             «ENDFOR»
         \end{parts}
         \nopointsinmargin\pointformat{[\thepoints]} % activate points again
@@ -28,6 +28,9 @@ import com.rigiresearch.examgen.model.Examination
 import com.rigiresearch.examgen.model.OpenEnded
 import com.rigiresearch.examgen.model.Question
 import com.rigiresearch.examgen.model.TextSegment
+import java.io.IOException
+import java.util.List
+import org.eclipse.xtend2.lib.StringConcatenation
 import static com.rigiresearch.examgen.model.Examination.Parameter.TITLE
 import com.rigiresearch.examgen.model.TrueFalse
 
@@ -40,7 +43,88 @@ import com.rigiresearch.examgen.model.TrueFalse
  */
 class MoodleXMLQuiz implements Template {
 
-    override render(Examination e, boolean printSolutions) '''
+    /**
+     * The end of every document.
+     */
+    static val EncodedText END = new EncodedText('''
+        </quiz>
+        
+    ''')
+
+    /**
+     * The cache of rendered questions, or null to render every question.
+     */
+    val FragmentCache cache
+
+    /**
+     * Creates a template that renders every question.
+     */
+    new() {
+        this(null)
+    }
+
+    /**
+     * Creates a template.
+     * @param cache The cache of rendered questions, or null to render every
+     *  question
+     */
+    new(FragmentCache cache) {
+        this.cache = cache
+    }
+
+    override name() {
+        "MOODLE_QUIZ"
+    }
+
+    override fileExtension() {
+        "xml"
+    }
+
+    override cached(FragmentCache cache) {
+        new MoodleXMLQuiz(cache)
+    }
+
+    override render(Examination e, boolean printSolutions) {
+        val output = new StringBuilder
+        e.render(printSolutions, output)
+        return output
+    }
+
+    override render(Examination e, boolean printSolutions, Appendable output) throws IOException {
+        output.append(e.header)
+        var first = true
+        for (q : e.questions) {
+            if (!first)
+                output.append("\n")
+            output.append(if (cache === null) q.indented else cache.fragment(this, q, false)[q.indented])
+            first = false
+        }
+        END.appendTo(output)
+    }
+
+    /**
+     * Renders a question indented within the quiz.
+     */
+    def indented(Question question) {
+        val text = new StringConcatenation
+        text.append("  ")
+        text.append(question.render(false), "  ")
+        text.newLineIfNotEmpty
+        return text
+    }
+
+    /**
+     * Renders the examination once for both outputs, as solutions are not
+     * printed in this format.
+     */
+    override render(Examination e, Appendable output, Appendable solutions) throws IOException {
+        e.render(false, new Fork(output, solutions))
+    }
+
+    /**
+     * Renders the header and question category of a document.
+     */
+    def header(Examination e) '''
         <?xml version="1.0" encoding="UTF-8"?>
         <quiz>
         <question type="category">
@@ -48,11 +132,6 @@ class MoodleXMLQuiz implements Template {
             <text>$course$/«e.parameters.get(TITLE)»</text>       
           </category>
         </question>
-        «FOR q : e.questions SEPARATOR "\n"»
-          «q.render(false)»
-        «ENDFOR»
-        </quiz>
-        
     '''
 
     override render(Question question, boolean printSolutions) {
@@ -75,7 +154,7 @@ class MoodleXMLQuiz implements Template {
      * Applies styles to a rendered text segment.
      */
     def styled(TextSegment segment) {
-        var CharSequence result = segment.text
+        var CharSequence result = segment.text.content(segment.styles)
         for (style : segment.styles) {
             result = result.styled(style)
         }
@@ -86,33 +165,40 @@ class MoodleXMLQuiz implements Template {
     }
 
     /**
-     * Applies the given style to a rendered text.
+     * Renders a text according to its content style (i.e., code, custom
+     * or plain text). Nested styles are applied afterwards.
      */
-    def styled(CharSequence text, TextSegment.Style style) {
-        switch (style) {
-            case BOLD: '''<strong>«text.escaped»</strong>'''
-            case CODE: '''
+    def content(CharSequence text, List<TextSegment.Style> styles) {
+        if (styles.contains(TextSegment.Style.CODE)) '''
             <code>
             «text.escaped»
             </code>
             '''
-            case INLINE_CODE: '''<code>«text.escaped»</code>'''
-            case ITALIC: '''<i>«text.escaped»</i>'''
-            case CUSTOM: text
-            case INHERIT: text.escaped
-            case NEW_LINE: '''<br/>«text.escaped»'''
+        else if (styles.contains(TextSegment.Style.INLINE_CODE))
+            '''<code>«text.escaped»</code>'''
+        else if (styles.contains(TextSegment.Style.CUSTOM))
+            text
+        else
+            text.escaped
+    }
+
+    /**
+     * Applies the given style to an already rendered text.
+     */
+    def styled(CharSequence text, TextSegment.Style style) {
+        switch (style) {
+            case BOLD: '''<strong>«text»</strong>'''
+            case ITALIC: '''<i>«text»</i>'''
+            case NEW_LINE: '''<br/>«text»'''
+            default: text
         }
     }
 
     /**
-     * Escapes special Latex characters
+     * Escapes special XML characters
      */
     def escaped(CharSequence text) {
-        text.toString
-            .replace("\'", "&apos;")
-            .replace("&", "&amp;")
-            .replace (">", "&gt;")
-            .replace("<","&lt;")
+        Escaper.XML.escape(text)
     }
 
     /**
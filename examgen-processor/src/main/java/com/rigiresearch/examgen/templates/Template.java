@@ -24,10 +24,12 @@ package com.rigiresearch.examgen.templates;
 import com.rigiresearch.examgen.model.Examination;
 import com.rigiresearch.examgen.model.Question;
 import com.rigiresearch.examgen.model.TextSegment;
+import java.io.IOException;
 
 /**
  * Basic template behavior to render an examination and its main parts to
- * plain text.
+ * plain text. Implementations are found through {@link Templates}, and a
+ * single instance renders every examination, possibly concurrently.
  * @author Miguel Jimenez (miguel@uvic.ca)
  * @date 2017-09-14
  * @version $Id$
@@ -35,6 +37,20 @@ import com.rigiresearch.examgen.model.TextSegment;
  */
 public interface Template {
 
+    /**
+     * The name of this template, such as {@code LATEX_QUIZ}, by which users
+     * select it.
+     * @return A unique name
+     */
+    String name();
+
+    /**
+     * The extension of the files rendered by this template.
+     * @return A file extension, without the dot
+     */
+    String fileExtension();
+
+
     /**
      * Produces a string representation from an {@link Examination}.
      * @param examination The input instance
@@ -44,6 +60,75 @@ public interface Template {
      */
     CharSequence render(Examination examination, boolean printSolutions);
 
+    /**
+     * Renders an {@link Examination} into an output, such as a
+     * {@link Utf8Writer}, as it is produced.
+     * @param examination The input instance
+     * @param printSolutions Whether to print the solutions in the rendered
+     *  string
+     * @param output The output
+     * @throws IOException If an I/O error occurs
+     */
+    default void render(final Examination examination,
+        final boolean printSolutions, final Appendable output) throws IOException {
+        output.append(this.render(examination, printSolutions));
+    }
+
+    /**
+     * Renders an {@link Examination} and its solutions at once. Templates
+     * may render the text that both documents share only once; by default,
+     * the examination is rendered twice.
+     * @param examination The input instance
+     * @param output The output of the examination
+     * @param solutions The output of the examination with its solutions
+     * @throws IOException If an I/O error occurs
+     */
+    default void render(final Examination examination, final Appendable output,
+        final Appendable solutions) throws IOException {
+        this.render(examination, false, output);
+        this.render(examination, true, solutions);
+    }
+
+    /**
+     * The name of the format into which {@link #preamble()} can be
+     * precompiled, such as a latex format built with {@code pdflatex -ini}.
+     * @return A format name, or null if this template does not support
+     *  formats
+     */
+    default String format() {
+        return null;
+    }
+
+    /**
+     * A template that renders the same documents as this one, except that
+     * they load their preamble from {@link #format()} instead of including
+     * it.
+     * @return The template, or this one if it does not support formats
+     */
+    default Template precompiled() {
+        return this;
+    }
+
+    /**
+     * A template that renders the same documents as this one, reusing the
+     * questions already rendered by any template given the same cache.
+     * @param cache The cache of rendered questions
+     * @return The template, or this one if it does not cache questions
+     */
+    default Template cached(final FragmentCache cache) {
+        return this;
+    }
+
+    /**
+     * The preamble shared by every document of this template, as a source
+     * for {@link #format()}.
+     * @return The preamble, or null if this template does not support
+     *  formats
+     */
+    default CharSequence preamble() {
+        return null;
+    }
+
     /**
      * Produces a string representation from a {@link Question}.
      * @param question The input instance
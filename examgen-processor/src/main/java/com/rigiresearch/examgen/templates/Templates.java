@@ -0,0 +1,162 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.templates;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+
+/**
+ * The templates available to render examinations. Templates are discovered
+ * through {@link ServiceLoader}, so a jar on the class path adds its own by
+ * listing them in {@code META-INF/services/com.rigiresearch.examgen.templates.Template}.
+ * Each template is created once, and its instance is shared by every
+ * examination, so templates must be stateless and thread-safe.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Templates {
+
+    /**
+     * The templates, by name.
+     */
+    private final Map<String, Template> templates;
+
+    /**
+     * The templates that load their preamble from a precompiled format, by
+     * name.
+     */
+    private final Map<String, Template> precompiled;
+
+    /**
+     * Default constructor.
+     * @param templates The templates
+     * @throws IllegalArgumentException If two templates have the same name
+     */
+    public Templates(final Iterable<Template> templates) {
+        this.templates = new LinkedHashMap<>();
+        this.precompiled = new LinkedHashMap<>();
+        for (final Template template : templates) {
+            final Template previous = this.templates.put(template.name(), template);
+            if (previous != null) {
+                throw new IllegalArgumentException(
+                    String.format(
+                        "Templates %s and %s are both named %s",
+                        previous.getClass().getName(),
+                        template.getClass().getName(),
+                        template.name()
+                    )
+                );
+            }
+            this.precompiled.put(template.name(), template.precompiled());
+        }
+    }
+
+    /**
+     * The templates installed with the application and its plugins.
+     * @return The templates found by the {@link ServiceLoader} of the
+     *  context class loader, loaded once
+     */
+    public static Templates installed() {
+        return Installed.TEMPLATES;
+    }
+
+    /**
+     * The names of the templates.
+     * @return The names, in the order in which the templates were found
+     */
+    public Set<String> names() {
+        return Collections.unmodifiableSet(this.templates.keySet());
+    }
+
+    /**
+     * Finds a template.
+     * @param name The name of the template
+     * @return The template
+     * @throws IllegalArgumentException If there is no such template
+     */
+    public Template template(final String name) {
+        return this.find(this.templates, name);
+    }
+
+    /**
+     * Finds a template whose documents load their preamble from a
+     * precompiled format.
+     * @param name The name of the template
+     * @return The template
+     * @throws IllegalArgumentException If there is no such template, or if
+     *  it does not support precompiled formats
+     */
+    public Template precompiled(final String name) {
+        final Template template = this.find(this.precompiled, name);
+        if (template.format() == null) {
+            throw new IllegalArgumentException(
+                String.format("Template %s does not support precompiled formats", name)
+            );
+        }
+        return template;
+    }
+
+    /**
+     * Finds a template by name.
+     * @param templates The templates, by name
+     * @param name The name of the template
+     * @return The template
+     * @throws IllegalArgumentException If there is no such template
+     */
+    private Template find(final Map<String, Template> templates,
+        final String name) {
+        final Template template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException(
+                String.format(
+                    "Unknown template %s, expected one of %s",
+                    name,
+                    String.join(", ", this.templates.keySet())
+                )
+            );
+        }
+        return template;
+    }
+
+    /**
+     * Holds the installed templates, which are loaded on first use.
+     * @author Miguel Jimenez (miguel@uvic.ca)
+     * @date 2026-10-17
+     * @version $Id$
+     * @since 0.0.1
+     */
+    private static final class Installed {
+
+        /**
+         * The installed templates.
+         */
+        private static final Templates TEMPLATES =
+            new Templates(ServiceLoader.load(Template.class));
+
+    }
+
+}
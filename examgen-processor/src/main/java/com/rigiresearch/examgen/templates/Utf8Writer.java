@@ -0,0 +1,229 @@
+/**
+ * Copyright 2017 University of Victoria
+ * 
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * 
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS
+ * IN THE SOFTWARE.
+ */
+package com.rigiresearch.examgen.templates;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * A buffered writer that encodes text as UTF-8 directly into an output
+ * stream, and also accepts text that is already encoded (see
+ * {@link EncodedText}). Unlike an {@link java.io.OutputStreamWriter}, it
+ * appends character sequences without converting them to strings first.
+ * Unpaired surrogates are replaced with '?'. This class is not thread-safe.
+ * @author Miguel Jimenez (miguel@uvic.ca)
+ * @date 2026-10-17
+ * @version $Id$
+ * @since 0.0.1
+ */
+public final class Utf8Writer extends Writer {
+
+    /**
+     * The default buffer size.
+     */
+    private static final int SIZE = 8192;
+
+    /**
+     * The longest encoding of a character.
+     */
+    private static final int LONGEST = 4;
+
+    /**
+     * The output stream.
+     */
+    private final OutputStream output;
+
+    /**
+     * The encoded bytes not yet written to the output stream.
+     */
+    private final byte[] buffer;
+
+    /**
+     * The number of bytes in the buffer.
+     */
+    private int position;
+
+    /**
+     * A high surrogate waiting for its low surrogate, or 0.
+     */
+    private char high;
+
+    /**
+     * Default constructor.
+     * @param output The output stream
+     */
+    public Utf8Writer(final OutputStream output) {
+        this.output = output;
+        this.buffer = new byte[Utf8Writer.SIZE];
+    }
+
+    /**
+     * Writes encoded text.
+     * @param bytes The UTF-8 encoded text
+     * @throws IOException If an I/O error occurs
+     */
+    public void write(final byte[] bytes) throws IOException {
+        this.pending();
+        if (bytes.length > this.buffer.length - this.position) {
+            this.drain();
+            if (bytes.length > this.buffer.length) {
+                this.output.write(bytes);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+        this.position += bytes.length;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#write(int)
+     */
+    @Override
+    public void write(final int character) throws IOException {
+        this.encode((char) character);
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#write(char[], int, int)
+     */
+    @Override
+    public void write(final char[] characters, final int offset, final int length)
+        throws IOException {
+        for (int i = offset; i < offset + length; i++)
+            this.encode(characters[i]);
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#write(java.lang.String, int, int)
+     */
+    @Override
+    public void write(final String text, final int offset, final int length)
+        throws IOException {
+        for (int i = offset; i < offset + length; i++)
+            this.encode(text.charAt(i));
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#append(java.lang.CharSequence)
+     */
+    @Override
+    public Writer append(final CharSequence text) throws IOException {
+        final CharSequence characters = text == null ? "null" : text;
+        return this.append(characters, 0, characters.length());
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#append(java.lang.CharSequence, int, int)
+     */
+    @Override
+    public Writer append(final CharSequence text, final int start, final int end)
+        throws IOException {
+        // Strings are read in place; other sequences may be slow to index
+        final String characters = text == null ? "null" : text.toString();
+        this.write(characters, start, end - start);
+        return this;
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#flush()
+     */
+    @Override
+    public void flush() throws IOException {
+        this.drain();
+        this.output.flush();
+    }
+
+    /* (non-Javadoc)
+     * @see java.io.Writer#close()
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.pending();
+            this.drain();
+        } finally {
+            this.output.close();
+        }
+    }
+
+    /**
+     * Encodes a character.
+     * @param character The character
+     * @throws IOException If an I/O error occurs
+     */
+    private void encode(final char character) throws IOException {
+        if (this.buffer.length - this.position < Utf8Writer.LONGEST)
+            this.drain();
+        if (this.high != 0) {
+            if (Character.isLowSurrogate(character)) {
+                final int code = Character.toCodePoint(this.high, character);
+                this.high = 0;
+                this.buffer[this.position++] = (byte) (0xF0 | code >> 18);
+                this.buffer[this.position++] = (byte) (0x80 | code >> 12 & 0x3F);
+                this.buffer[this.position++] = (byte) (0x80 | code >> 6 & 0x3F);
+                this.buffer[this.position++] = (byte) (0x80 | code & 0x3F);
+                return;
+            }
+            this.pending();
+        }
+        if (character < 0x80) {
+            this.buffer[this.position++] = (byte) character;
+        } else if (character < 0x800) {
+            this.buffer[this.position++] = (byte) (0xC0 | character >> 6);
+            this.buffer[this.position++] = (byte) (0x80 | character & 0x3F);
+        } else if (Character.isHighSurrogate(character)) {
+            this.high = character;
+        } else if (Character.isLowSurrogate(character)) {
+            this.buffer[this.position++] = '?';
+        } else {
+            this.buffer[this.position++] = (byte) (0xE0 | character >> 12);
+            this.buffer[this.position++] = (byte) (0x80 | character >> 6 & 0x3F);
+            this.buffer[this.position++] = (byte) (0x80 | character & 0x3F);
+        }
+    }
+
+    /**
+     * Replaces an unpaired high surrogate, if any, with '?'.
+     * @throws IOException If an I/O error occurs
+     */
+    private void pending() throws IOException {
+        if (this.high == 0)
+            return;
+        this.high = 0;
+        if (this.position == this.buffer.length)
+            this.drain();
+        this.buffer[this.position++] = '?';
+    }
+
+    /**
+     * Writes the buffered bytes to the output stream.
+     * @throws IOException If an I/O error occurs
+     */
+    private void drain() throws IOException {
+        if (this.position > 0) {
+            this.output.write(this.buffer, 0, this.position);
+            this.position = 0;
+        }
+    }
+
+}
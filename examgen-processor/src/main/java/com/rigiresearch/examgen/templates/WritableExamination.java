@@ -23,11 +23,14 @@ package com.rigiresearch.examgen.templates;
 
 import com.rigiresearch.examgen.model.Examination;
 import com.rigiresearch.examgen.model.Examination.Parameter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.experimental.Accessors;
@@ -45,39 +48,42 @@ import lombok.experimental.Accessors;
 public final class WritableExamination {
 
     /**
-     * The supported target notations.
-     * @author Miguel Jimenez (miguel@uvic.ca)
-     * @date 2017-09-14
-     * @version $Id$
-     * @since 0.0.1
+     * The decorated examination.
      */
-    @Accessors(fluent = true)
-    @AllArgsConstructor
-    @Getter
-    public enum Target {
-        LATEX_QUIZ(LatexQuiz.class, "tex"),
-        LATEX_MIDTERM(LatexMidterm.class, "tex"),
-        MOODLE_QUIZ(MoodleXMLQuiz.class, "xml");
-        /**
-         * The templates implementation.
-         */
-        private final Class<? extends Template> clazz;
-
-        /**
-         * The file extension associated with the target template.
-         */
-        private final String extension;
-    }
+    private final Examination origin;
 
     /**
-     * The decorated examination.
+     * The template rendering the examination and its solutions, such as
+     * one found through {@link Templates}.
      */
-    private final Examination origin;
+    private final Template template;
 
     /**
-     * The target notation.
+     * Writes the preamble shared by the documents of a template, from which
+     * their format is precompiled, unless the file already has the same
+     * content.
+     * @param template The template
+     * @param directory The parent directory
+     * @return The file containing the preamble, named after the format
+     * @throws IOException if an I/O error occurs writing to the file
+     * @throws IllegalArgumentException If the template does not support
+     *  precompiled formats
      */
-    private final Target target;
+    public static File preamble(final Template template, final File directory)
+        throws IOException {
+        if (template.format() == null) {
+            throw new IllegalArgumentException(
+                String.format("Template %s does not support precompiled formats", template.name())
+            );
+        }
+        directory.mkdirs();
+        final File file = new File(directory, String.format("%s.ini", template.format()));
+        WritableExamination.write(
+            file,
+            template.preamble().toString().getBytes(StandardCharsets.UTF_8)
+        );
+        return file;
+    }
 
     /**
      * Writes the examination to a file.
@@ -86,6 +92,32 @@ public final class WritableExamination {
      *  file
      */
     public void write(final File directory) throws IOException {
+        this.write(directory, false);
+    }
+
+    /**
+     * Writes the examination to a file, unless the file already has the same
+     * content.
+     * @param directory The parent directory
+     * @return The files whose content changed
+     * @throws IOException if an I/O error occurs writing to or creating the
+     *  file
+     */
+    public List<File> update(final File directory) throws IOException {
+        return this.write(directory, true);
+    }
+
+    /**
+     * Writes the examination and its solutions, which are rendered at once
+     * and encoded as they are rendered.
+     * @param directory The parent directory
+     * @param changed Whether to skip files whose content would not change
+     * @return The files written
+     * @throws IOException if an I/O error occurs writing to or creating the
+     *  file
+     */
+    private List<File> write(final File directory, final boolean changed)
+        throws IOException {
         File examination = new File(
             String.join(File.separator, directory.getAbsolutePath(), "examinations")
         );
@@ -98,28 +130,49 @@ public final class WritableExamination {
         final String name = String.format(
             "%s.%s",
             this.origin.parameters().get(Parameter.SECTIONS),
-            this.target.extension()
+            this.template.fileExtension()
         );
-        try {
-            Files.write(
-                Paths.get(new File(examination, name).getAbsolutePath()),
-                this.target.clazz
-                    .newInstance()
-                    .render(this.origin, false)
-                    .toString()
-                    .getBytes(StandardCharsets.UTF_8)
-            );
-            Files.write(
-                Paths.get(new File(solutions, name).getAbsolutePath()),
-                this.target.clazz
-                    .newInstance()
-                    .render(this.origin, true)
-                    .toString()
-                    .getBytes(StandardCharsets.UTF_8)
-            );
-        } catch (InstantiationException | IllegalAccessException e) {
-            e.printStackTrace();
+        final File exam = new File(examination, name);
+        final File solution = new File(solutions, name);
+        final List<File> written = new ArrayList<>(2);
+        if (!changed) {
+            try (Utf8Writer output = new Utf8Writer(Files.newOutputStream(exam.toPath()));
+                Utf8Writer answers = new Utf8Writer(Files.newOutputStream(solution.toPath()))) {
+                this.template.render(this.origin, output, answers);
+            }
+            written.add(exam);
+            written.add(solution);
+            return written;
+        }
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final ByteArrayOutputStream answers = new ByteArrayOutputStream();
+        try (Utf8Writer first = new Utf8Writer(output);
+            Utf8Writer second = new Utf8Writer(answers)) {
+            this.template.render(this.origin, first, second);
         }
+        if (WritableExamination.write(exam, output.toByteArray()))
+            written.add(exam);
+        if (WritableExamination.write(solution, answers.toByteArray()))
+            written.add(solution);
+        return written;
+    }
+
+    /**
+     * Writes a rendered document into a file, unless the file already has
+     * the same content.
+     * @param file The file
+     * @param content The encoded document
+     * @return Whether the file was written
+     * @throws IOException if an I/O error occurs writing to the file
+     */
+    private static boolean write(final File file, final byte[] content)
+        throws IOException {
+        if (file.isFile()
+            && file.length() == content.length
+            && Arrays.equals(Files.readAllBytes(file.toPath()), content))
+            return false;
+        Files.write(file.toPath(), content);
+        return true;
     }
 
 }
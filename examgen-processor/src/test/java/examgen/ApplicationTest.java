@@ -69,4 +69,17 @@ class ApplicationTest {
         assertThat(errContent.toString(), isEmptyString());
         assertThat(outContent.toString(), isEmptyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void whenStartedWithSeatsAndRosterThenErrorMessageShouldSayTheyCannotBeCombined() {
+        String[] args = new String[]{
+                "-i", "input.yaml",
+                "-o", "output",
+                "--seats", "seats.csv",
+                "--roster", "roster.csv",
+        };
+        application.parse(args);
+        application.run();
+        assertThat(errContent.toString(), containsString("cannot be combined"));
+    }
+}
@@ -0,0 +1,78 @@
+package examgen;
+
+import com.rigiresearch.examgen.templates.Escaper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+class EscaperTest {
+
+    private static final String ALPHABET = "\\~^#&%{}$_'<>\"ab \n\u00e9\u4e2d";
+
+    @Test
+    void whenReplacementsHaveSpecialCharactersThenTheyAreNotEscapedAgain() {
+        assertThat(Escaper.XML.escape("it's a & b").toString(), is("it&apos;s a &amp; b"));
+        assertThat(Escaper.LATEX.escape("\\a{b}").toString(), is("\\textbackslash{}a\\{b\\}"));
+        assertThat(Escaper.LATEX.escape("~x^2").toString(), is("\\textasciitilde{}x\\textasciicircum{}2"));
+        assertThat(Escaper.LATEX_INLINE.escape("a\\{%").toString(), is("a\\\\\\{\\%"));
+    }
+
+    @Test
+    void whenTextHasNothingToEscapeThenItIsReturnedAsIs() {
+        String text = "plain text, caf\u00e9";
+        assertThat(Escaper.LATEX.escape(text), sameInstance(text));
+        assertThat(Escaper.XML.escape(text), sameInstance(text));
+    }
+
+    @Test
+    void whenRandomTextIsEscapedThenItMatchesTheReference() throws IOException {
+        Map<Character, String> latex = new HashMap<>();
+        latex.put('\\', "\\textbackslash{}");
+        latex.put('~', "\\textasciitilde{}");
+        latex.put('^', "\\textasciicircum{}");
+        for (char c : "#&%{}$_".toCharArray()) {
+            latex.put(c, "\\" + c);
+        }
+        Map<Character, String> inline = new HashMap<>();
+        inline.put('\\', "\\\\");
+        for (char c : "&%{}".toCharArray()) {
+            inline.put(c, "\\" + c);
+        }
+        Map<Character, String> xml = new HashMap<>();
+        xml.put('\'', "&apos;");
+        xml.put('&', "&amp;");
+        xml.put('>', "&gt;");
+        xml.put('<', "&lt;");
+        Random random = new Random(7);
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(40);
+            for (int j = 0; j < length; j++) {
+                text.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+            check(Escaper.LATEX, latex, text.toString());
+            check(Escaper.LATEX_INLINE, inline, text.toString());
+            check(Escaper.XML, xml, text.toString());
+        }
+    }
+
+    private static void check(Escaper escaper, Map<Character, String> replacements,
+        String text) throws IOException {
+        StringBuilder expected = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            expected.append(replacements.getOrDefault(c, String.valueOf(c)));
+        }
+        assertThat(escaper.escape(text).toString(), is(expected.toString()));
+        StringBuilder output = new StringBuilder("> ");
+        escaper.escape(text, output);
+        assertThat(output.toString(), is("> " + expected));
+    }
+
+}
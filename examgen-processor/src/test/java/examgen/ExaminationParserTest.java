@@ -0,0 +1,197 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.io.ExaminationSyntaxException;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.TrueFalse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExaminationParserTest {
+
+    private static final String INVALID = String.join("\n",
+        "parameters:",
+        "  - TITLE: Quiz",
+        "questions:",
+        "  - type: true-false",
+        "    statement: <bold>C",
+        "    answer: maybe",
+        "    points: 10",
+        "---",
+        "parameters: []",
+        "questions:",
+        "  - type: closed-ended",
+        "    statement: Who?",
+        "    points: ten",
+        "    options:",
+        "      - {statement: Dennis}",
+        ""
+    );
+
+    private static final String BANK = String.join("\n",
+        "questions:",
+        "  - type: true-false",
+        "    id: first",
+        "    statement: yes",
+        "    answer: true",
+        "    points: 2",
+        "  - {type: true-false, id: second, statement: no, answer: maybe, points: 1}",
+        ""
+    );
+
+    private final ExaminationParser parser = new ExaminationParser();
+
+    private File file;
+
+    private File bank;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        file = File.createTempFile("examination", ".yaml");
+        bank = File.createTempFile("bank", ".yaml");
+    }
+
+    @AfterEach
+    public void deleteFile() {
+        file.delete();
+        bank.delete();
+    }
+
+    @Test
+    void whenQuestionsAreValidThenModelIsBuilt() throws IOException {
+        write("parameters: [{TITLE: Quiz}]\nquestions:\n"
+            + "  - {type: true-false, statement: yes, answer: true, points: 2}\n");
+        List<Examination> examinations = parser.examinations(file);
+        assertThat(examinations.size(), is(1));
+        assertThat(examinations.get(0).questions().get(0), instanceOf(TrueFalse.class));
+        assertThat(examinations.get(0).questions().get(0).header().text(), is("yes"));
+    }
+
+    @Test
+    void whenDocumentsAreInvalidThenAllProblemsAreReported() throws IOException {
+        write(INVALID);
+        ExaminationSyntaxException e = assertThrows(
+            ExaminationSyntaxException.class,
+            () -> parser.examinations(file)
+        );
+        assertThat(locations(e), contains("5:16", "6:13", "13:13", "15:9"));
+    }
+
+    @Test
+    void whenDocumentsAreParsedInParallelThenLocationsAreTheSame() throws IOException {
+        write(INVALID);
+        ExaminationSyntaxException e = assertThrows(
+            ExaminationSyntaxException.class,
+            () -> parser.examinations(file, true)
+        );
+        assertThat(locations(e), contains("5:16", "6:13", "13:13", "15:9"));
+    }
+
+    @Test
+    void whenBareDocumentFollowsAnEndMarkerThenItIsSplit() throws IOException {
+        String first = "parameters: [{TITLE: First}]\nquestions:\n"
+            + "  - {type: true-false, statement: yes, answer: true, points: 2}\n"
+            + "...\n# The second quiz\n\n";
+        write(first + "parameters: [{TITLE: Second}]\nquestions:\n"
+            + "  - {type: true-false, statement: no, answer: true, points: 1}\n");
+        List<Examination> examinations = parser.examinations(file, true);
+        assertThat(examinations.size(), is(2));
+        assertThat(examinations.get(1).questions().get(0).header().text(), is("no"));
+        write(first + "parameters: [{TITLE: Second}]\nquestions:\n"
+            + "  - {type: true-false, statement: no, answer: maybe, points: 1}\n");
+        ExaminationSyntaxException e = assertThrows(
+            ExaminationSyntaxException.class,
+            () -> parser.examinations(file, true)
+        );
+        assertThat(locations(e), contains("9:47"));
+    }
+
+    @Test
+    void whenQuestionIsReferencedThenOnlyItIsParsed() throws IOException {
+        Files.write(bank.toPath(), BANK.getBytes(StandardCharsets.UTF_8));
+        write("parameters: [{TITLE: Quiz}]\nquestions:\n"
+            + "  - $ref: " + bank.getName() + "#first\n");
+        List<Examination> examinations = parser.examinations(file);
+        assertThat(examinations.get(0).questions().size(), is(1));
+        assertThat(examinations.get(0).questions().get(0).header().text(), is("yes"));
+    }
+
+    @Test
+    void whenBankIsIncludedThenQuestionsAreParsedOnUse() throws IOException {
+        Files.write(bank.toPath(), BANK.getBytes(StandardCharsets.UTF_8));
+        write("parameters: [{TITLE: Quiz}]\nquestions:\n"
+            + "  - include: " + bank.getName() + "\n");
+        List<Examination> examinations = parser.examinations(file);
+        assertThat(examinations.get(0).questions().size(), is(2));
+        assertThat(examinations.get(0).questions().get(0).points(), is(2));
+        ExaminationSyntaxException e = assertThrows(
+            ExaminationSyntaxException.class,
+            () -> examinations.get(0).questions().get(1).points()
+        );
+        assertThat(locations(e), contains("7:59"));
+    }
+
+    @Test
+    void whenQuestionsHaveTheSameContentThenTheyHaveTheSameFingerprint() throws IOException {
+        Files.write(bank.toPath(), BANK.getBytes(StandardCharsets.UTF_8));
+        write("parameters: [{TITLE: Quiz}]\nquestions:\n"
+            + "  - $ref: " + bank.getName() + "#first\n"
+            + "  - {type: true-false, statement: yes, answer: true, points: 2}\n"
+            + "  - {type: true-false, statement: yes, answer: true, points: 3}\n");
+        List<Question> questions = parser.examinations(file).get(0).questions();
+        assertThat(questions.get(0).fingerprint(), is(questions.get(1).fingerprint()));
+        assertThat(questions.get(0).fingerprint(), is(not(questions.get(2).fingerprint())));
+    }
+
+    @Test
+    void whenBankQuestionIsMalformedThenOnlyVariantsSelectingItFail() throws IOException {
+        StringBuilder questions = new StringBuilder("questions:\n");
+        for (int i = 0; i < 12; i++) {
+            questions.append("  - {type: true-false, statement: q").append(i)
+                .append(", answer: true, points: 1}\n");
+        }
+        questions.append("  - {type: true-false, statement: q12, answer: maybe, points: 1}\n");
+        Files.write(bank.toPath(), questions.toString().getBytes(StandardCharsets.UTF_8));
+        write("parameters: [{TITLE: Quiz}]\nquestions:\n  - include: " + bank.getName() + "\n");
+        Examination examination = parser.examinations(file).get(0);
+        int generated = 0;
+        int failed = 0;
+        // Ranking the questions does not parse them
+        for (int i = 1; i <= 20; i++) {
+            try {
+                examination.variant(String.format("A%02d", i), 7, 2).examination();
+                generated++;
+            } catch (ExaminationSyntaxException e) {
+                failed++;
+            }
+        }
+        assertThat(generated > 0, is(true));
+        assertThat(failed > 0, is(true));
+    }
+
+    private void write(String content) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<String> locations(ExaminationSyntaxException e) {
+        return e.diagnostics().stream()
+            .map(d -> String.format("%d:%d", d.line(), d.column()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,365 @@
+package examgen;
+
+import com.rigiresearch.examgen.model.AnswerKey;
+import com.rigiresearch.examgen.model.ClosedEnded;
+import com.rigiresearch.examgen.model.ClosedEnded.Option;
+import com.rigiresearch.examgen.model.CompoundQuestion;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import com.rigiresearch.examgen.model.Fingerprint;
+import com.rigiresearch.examgen.model.Metadata;
+import com.rigiresearch.examgen.model.Query;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.Seating;
+import com.rigiresearch.examgen.model.Section;
+import com.rigiresearch.examgen.model.Selection;
+import com.rigiresearch.examgen.model.Student;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TrueFalse;
+import com.rigiresearch.examgen.model.Variant;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ExaminationTest {
+
+    private final List<Section> sections = new ArrayList<>();
+
+    private final Examination examination = examination();
+
+    @Test
+    void whenVariantsAreParallelThenTheyAreTheSameAsSequential() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertThat(
+                examination.variants(7, 5, executor),
+                is(examination.variants(7, 5))
+            );
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void whenVariantsAreCreatedThenExaminationIsUnchanged() {
+        List<Examination> variants = examination.variants(7, 5);
+        assertThat(examination.parameters().get(Parameter.SECTIONS), is(sections));
+        assertThat(variants.get(2).parameters().get(Parameter.SECTIONS), is(sections.get(2)));
+        assertThrows(
+            UnsupportedOperationException.class,
+            () -> examination.parameters().put(Parameter.TITLE, "Quiz")
+        );
+    }
+
+    @Test
+    void whenSectionsChangeThenOtherVariantsAreUnchanged() {
+        Map<Parameter, Object> parameters = new EnumMap<>(examination.parameters());
+        List<Section> reversed = new ArrayList<>(sections.subList(3, 10));
+        Collections.reverse(reversed);
+        parameters.put(Parameter.SECTIONS, reversed);
+        Examination changed = new Examination(parameters, examination.questions());
+        assertThat(
+            changed.variants(7, 5).get(0).questions(),
+            is(examination.variants(7, 5).get(9).questions())
+        );
+    }
+
+    @Test
+    void whenQuestionIsAddedThenVariantKeepsOtherQuestions() {
+        List<Question> questions = new ArrayList<>(examination.questions());
+        questions.add(0, closedEnded(99));
+        Examination changed = new Examination(examination.parameters(), questions);
+        Set<Question> before = new HashSet<>(examination.variants(7, 8).get(0).questions());
+        Set<Question> after = new HashSet<>(changed.variants(7, 8).get(0).questions());
+        after.retainAll(before);
+        assertThat(after.size() >= 7, is(true));
+    }
+
+    @Test
+    void whenOptionsHaveTheSameSizeThenTheirOrderingsDiffer() {
+        Set<List<Option>> orderings = new HashSet<>();
+        for (Question question : examination.scrambled(7).questions()) {
+            if (question instanceof ClosedEnded) {
+                orderings.add(((ClosedEnded) question).options());
+            }
+        }
+        assertThat(orderings.size() > 1, is(true));
+    }
+
+    @Test
+    void whenSelectionIsConstrainedThenEveryVariantSatisfiesIt() {
+        Map<String, Integer> types = new HashMap<>();
+        types.put(ClosedEnded.TYPE, 3);
+        types.put(TrueFalse.TYPE, 2);
+        Examination constrained = new Examination(
+            examination.parameters(),
+            examination.questions(),
+            new Selection(50, 50, types)
+        );
+        for (Examination variant : constrained.variants(7, 6)) {
+            int points = 0;
+            Map<String, Integer> counts = new HashMap<>();
+            for (Question question : variant.questions()) {
+                points += question.points();
+                counts.merge(question.type(), 1, Integer::sum);
+            }
+            assertThat(points, is(50));
+            assertThat(counts.get(ClosedEnded.TYPE), is(3));
+            assertThat(counts.get(TrueFalse.TYPE), is(2));
+        }
+    }
+
+    @Test
+    void whenSelectionHasQueryThenVariantsHaveOnlyMatchingQuestions() {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ClosedEnded question = closedEnded(i);
+            questions.add(
+                new ClosedEnded(
+                    question.statement(),
+                    question.points(),
+                    question.options(),
+                    new Metadata(
+                        i % 3 == 0
+                            ? Collections.singletonList("used-in:Fall2017")
+                            : Collections.emptyList(),
+                        i % 2 == 0 ? "loops" : "arrays",
+                        null
+                    )
+                )
+            );
+            questions.add(new TrueFalse(new TextSegment.Simple("Q" + i), true, i));
+        }
+        Query query = Query.parse("closed-ended AND topic:loops AND NOT used-in:Fall2017");
+        Examination tagged = new Examination(
+            examination.parameters(),
+            questions,
+            new Selection(0, Integer.MAX_VALUE, Collections.emptyMap(), query)
+        );
+        assertThat(tagged.matching(query).length, is(13));
+        for (Examination variant : tagged.variants(7, 5)) {
+            for (Question question : variant.questions()) {
+                assertThat(question.metadata().topic(), is("loops"));
+                assertThat(question.metadata().tags().isEmpty(), is(true));
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> tagged.variants(7, 14));
+    }
+
+    @Test
+    void whenSelectionRequiresTagsAndTopicsThenEveryVariantCoversThem() {
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            questions.add(
+                new TrueFalse(
+                    new TextSegment.Simple("Q" + i),
+                    true,
+                    1 + i % 3,
+                    new Metadata(
+                        i % 5 == 0
+                            ? Arrays.asList("recursion", "midterm")
+                            : Collections.singletonList("midterm"),
+                        i % 4 == 0 ? "loops" : "arrays",
+                        null
+                    )
+                )
+            );
+        }
+        Examination covered = new Examination(
+            examination.parameters(),
+            questions,
+            new Selection(
+                10,
+                10,
+                Collections.emptyMap(),
+                Collections.singletonMap("recursion", 2),
+                Collections.singletonMap("loops", 3),
+                Query.ALL
+            )
+        );
+        for (Examination variant : covered.variants(7, 5)) {
+            int points = 0;
+            int recursion = 0;
+            int loops = 0;
+            for (Question question : variant.questions()) {
+                points += question.points();
+                recursion += question.metadata().tags().contains("recursion") ? 1 : 0;
+                loops += "loops".equals(question.metadata().topic()) ? 1 : 0;
+            }
+            assertThat(points, is(10));
+            assertThat(recursion >= 2, is(true));
+            assertThat(loops >= 3, is(true));
+        }
+        IllegalArgumentException e = assertThrows(
+            IllegalArgumentException.class,
+            () -> new Examination(
+                examination.parameters(),
+                questions,
+                new Selection(
+                    0,
+                    Integer.MAX_VALUE,
+                    Collections.emptyMap(),
+                    Collections.singletonMap("recursion", 9),
+                    Collections.emptyMap(),
+                    Query.ALL
+                )
+            ).variants(7, 5)
+        );
+        assertThat(e.getMessage(), containsString("9 questions tagged recursion"));
+    }
+
+    @Test
+    void whenSingleSwapsCannotMeetThePointsThenTwoQuestionsAreSwapped() {
+        // Each single swap moves the 4 points away from 5, so two 2-point
+        // questions are traded for a 1-point and a 4-point one
+        List<Question> questions = Arrays.asList(
+            new ClosedEnded(new TextSegment.Simple("C2"), 2, closedEnded(0).options()),
+            new ClosedEnded(new TextSegment.Simple("C1"), 1, closedEnded(1).options()),
+            new TrueFalse(new TextSegment.Simple("T2"), true, 2),
+            new TrueFalse(new TextSegment.Simple("T4"), true, 4)
+        );
+        Map<String, Integer> types = new HashMap<>();
+        types.put(ClosedEnded.TYPE, 1);
+        types.put(TrueFalse.TYPE, 1);
+        Examination exact = new Examination(
+            examination.parameters(),
+            questions,
+            new Selection(5, 5, types)
+        );
+        for (int i = 0; i < 100; i++) {
+            Set<String> statements = new HashSet<>();
+            for (Question question : exact.variant("S" + i, 7, 2).examination().questions()) {
+                statements.add(question.header().text());
+            }
+            assertThat(statements, is(new HashSet<>(Arrays.asList("C1", "T4"))));
+        }
+    }
+
+    @Test
+    void whenAnswerKeyIsReadThenItMatchesTheArrangedQuestions() {
+        Variant variant = examination.variant(sections.get(0), 7, 12);
+        AnswerKey key = AnswerKey.of(variant);
+        List<Question> questions = new ArrayList<>();
+        for (Question question : variant.examination().questions()) {
+            if (question instanceof CompoundQuestion) {
+                questions.addAll(question.children());
+            } else {
+                questions.add(question);
+            }
+        }
+        Set<Fingerprint> fingerprints = new HashSet<>();
+        for (Question question : examination.questions()) {
+            fingerprints.add(question.fingerprint());
+            question.children().forEach(child -> fingerprints.add(child.fingerprint()));
+        }
+        assertThat(key.answers().size(), is(questions.size()));
+        for (int i = 0; i < questions.size(); i++) {
+            Question question = questions.get(i);
+            String expected;
+            if (question instanceof ClosedEnded) {
+                List<Option> options = ((ClosedEnded) question).options();
+                expected = "";
+                for (int j = 0; j < options.size(); j++) {
+                    if (options.get(j).answer()) {
+                        expected += (char) ('A' + j);
+                    }
+                }
+            } else {
+                expected = ((TrueFalse) question).answer() ? "T" : "F";
+            }
+            assertThat(key.answers().get(i).text(), is(expected));
+            assertThat(fingerprints.contains(key.answers().get(i).fingerprint()), is(true));
+        }
+    }
+
+    @Test
+    void whenSeatsAreAdjacentThenTheirVariantsDiffer() {
+        // A 4x4 grid, where neighbours are in the same row or column
+        int[][] neighbours = new int[16][];
+        for (int seat = 0; seat < 16; seat++) {
+            List<Integer> adjacent = new ArrayList<>();
+            if (seat % 4 > 0) adjacent.add(seat - 1);
+            if (seat % 4 < 3) adjacent.add(seat + 1);
+            if (seat >= 4) adjacent.add(seat - 4);
+            if (seat < 12) adjacent.add(seat + 4);
+            neighbours[seat] = adjacent.stream().mapToInt(Integer::intValue).toArray();
+        }
+        List<Variant> variants = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            variants.add(examination.variant("V" + i, 7, 8));
+        }
+        Seating seating = new Seating(variants);
+        int[] assignment = seating.assign(neighbours);
+        for (int seat = 0; seat < 16; seat++) {
+            for (int neighbour : neighbours[seat]) {
+                assertThat(assignment[seat], is(not(assignment[neighbour])));
+            }
+        }
+        int[] columns = new int[16];
+        for (int seat = 0; seat < 16; seat++) {
+            columns[seat] = seat % 4;
+        }
+        assertThat(
+            seating.cost(neighbours, assignment),
+            is(lessThan(seating.cost(neighbours, columns)))
+        );
+    }
+
+    @Test
+    void whenVariantIsForStudentThenItDependsOnlyOnTheirId() {
+        Examination first = examination.variant(
+            new Student("V00123456", "Jane", "Doe", sections.get(0)), 7, 5
+        ).examination();
+        Examination second = examination.variant(
+            new Student("V00123456", "Jane", "Doe", sections.get(1)), 7, 5
+        ).examination();
+        assertThat(first.questions(), is(second.questions()));
+        assertThat(
+            first.questions(),
+            is(not(examination.variant(
+                new Student("V00654321", "John", "Doe", sections.get(0)), 7, 5
+            ).examination().questions()))
+        );
+    }
+
+    private Examination examination() {
+        Map<Parameter, Object> parameters = new EnumMap<>(Parameter.class);
+        List<Question> questions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            sections.add(new Section("A" + i, "TA", 30));
+            questions.add(new TrueFalse(new TextSegment.Simple("Q" + i), i % 2 == 0, i));
+            questions.add(closedEnded(i));
+        }
+        questions.add(
+            new CompoundQuestion(new TextSegment.Simple("C"), new ArrayList<>(questions.subList(0, 6)))
+        );
+        parameters.put(Parameter.TITLE, "Quiz");
+        parameters.put(Parameter.SECTIONS, sections);
+        return new Examination(parameters, questions);
+    }
+
+    private static ClosedEnded closedEnded(int i) {
+        List<Option> options = new ArrayList<>();
+        for (int j = 0; j < 5; j++) {
+            options.add(new Option(j == i % 5, new TextSegment.Simple("O" + j)));
+        }
+        return new ClosedEnded(new TextSegment.Simple("Q" + i), i, options);
+    }
+}
@@ -0,0 +1,125 @@
+package examgen;
+
+import com.rigiresearch.examgen.ExaminationWatcher;
+import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class ExaminationWatcherTest {
+
+    private File directory;
+
+    private Thread thread;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("watch").toFile();
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException, InterruptedException {
+        if (thread != null) {
+            thread.interrupt();
+            thread.join();
+        }
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    @Test
+    void whenDocumentAndThenBankChangeThenOnlyTheirExaminationsAreRewritten()
+        throws IOException, InterruptedException {
+        write("banks/loops.yaml", bank("for"));
+        File input = write("exam.yaml", examination("yes"));
+        BlockingQueue<String> generated = new LinkedBlockingQueue<>();
+        ExaminationWatcher watcher = new ExaminationWatcher(
+            new ExaminationParser(),
+            input.getPath(),
+            (examination, index) -> {
+                String title = String.valueOf(examination.parameters().get(Parameter.TITLE));
+                generated.add(title + "@" + index);
+                // Generation failures are logged, and the watcher goes on
+                if (title.equals("Inline"))
+                    throw new RuntimeException(new IOException("Disk full"));
+                return Collections.emptyList();
+            }
+        );
+        thread = new Thread(() -> {
+            try {
+                watcher.watch();
+            } catch (IOException | InterruptedException e) {
+                // Stopped by the test
+            }
+        });
+        thread.start();
+        assertThat(next(generated), is("Included@0"));
+        assertThat(next(generated), is("Inline@1"));
+        assertThat(quiet(generated), is(true));
+        write("exam.yaml", examination("no"));
+        assertThat(next(generated), is("Inline@1"));
+        assertThat(quiet(generated), is(true));
+        write("banks/loops.yaml", bank("while"));
+        assertThat(next(generated), is("Included@0"));
+        assertThat(quiet(generated), is(true));
+    }
+
+    private static String examination(String statement) {
+        return String.join("\n",
+            "parameters: [{TITLE: Included}]",
+            "questions:",
+            "  - include: banks/loops.yaml",
+            "---",
+            "parameters: [{TITLE: Inline}]",
+            "questions:",
+            "  - {type: true-false, statement: " + statement + ", answer: true, points: 2}",
+            ""
+        );
+    }
+
+    private static String bank(String statement) {
+        return String.join("\n",
+            "questions:",
+            "  - type: true-false",
+            "    statement: " + statement,
+            "    answer: true",
+            "    points: 2",
+            ""
+        );
+    }
+
+    private File write(String path, String content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String next(BlockingQueue<String> generated) throws InterruptedException {
+        return generated.poll(10, TimeUnit.SECONDS);
+    }
+
+    private static boolean quiet(BlockingQueue<String> generated) throws InterruptedException {
+        return generated.poll(1, TimeUnit.SECONDS) == null;
+    }
+
+}
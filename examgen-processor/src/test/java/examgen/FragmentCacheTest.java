@@ -0,0 +1,88 @@
+package examgen;
+
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TrueFalse;
+import com.rigiresearch.examgen.templates.FragmentCache;
+import com.rigiresearch.examgen.templates.LatexQuiz;
+import com.rigiresearch.examgen.templates.Template;
+import com.rigiresearch.examgen.templates.Templates;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class FragmentCacheTest {
+
+    private final Template template = new LatexQuiz();
+
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final Supplier<CharSequence> renderer =
+        () -> "fragment" + renders.incrementAndGet();
+
+    @Test
+    void whenQuestionsAreEqualThenTheyShareAFragment() {
+        FragmentCache cache = new FragmentCache(1 << 20);
+        Question first = new TrueFalse(new TextSegment.Simple("a"), true, 1);
+        Question second = new TrueFalse(new TextSegment.Simple("a"), true, 1);
+        assertThat(cache.fragment(template, first, false, renderer).toString(), is("fragment1"));
+        assertThat(cache.fragment(template, second, false, renderer).toString(), is("fragment1"));
+        assertThat(cache.fragment(template, second, true, renderer).toString(), is("fragment2"));
+        assertThat(cache.hits(), is(1L));
+        assertThat(cache.misses(), is(2L));
+    }
+
+    @Test
+    void whenTheCacheIsFullThenTheLeastRecentlyUsedFragmentIsEvicted() {
+        // Each fragment weighs 114 bytes, so only two of them fit
+        FragmentCache cache = new FragmentCache(300);
+        Question a = new TrueFalse(new TextSegment.Simple("a"), true, 1);
+        Question b = new TrueFalse(new TextSegment.Simple("b"), true, 1);
+        cache.fragment(template, a, false, renderer);
+        cache.fragment(template, b, false, renderer);
+        assertThat(cache.fragment(template, a, false, renderer).toString(), is("fragment1"));
+        cache.fragment(template, a, true, renderer);
+        assertThat(cache.fragment(template, b, false, renderer).toString(), is("fragment4"));
+        assertThat(cache.fragment(template, a, true, renderer).toString(), is("fragment3"));
+        assertThat(cache.hits(), is(2L));
+        assertThat(cache.misses(), is(4L));
+        assertThat(cache.evictions(), is(2L));
+        assertThat(cache.size(), is(2));
+        assertThat(cache.weight(), is(228L));
+    }
+
+    @Test
+    void whenTemplateIsCachedThenItReusesTheQuestionsOfPreviousExaminations() throws IOException {
+        FragmentCache cache = new FragmentCache(1 << 20);
+        Template moodle = Templates.installed().template("MOODLE_QUIZ");
+        Template cached = moodle.cached(cache);
+        Map<Parameter, Object> parameters = new EnumMap<>(Parameter.class);
+        parameters.put(Parameter.TITLE, "Quiz");
+        Examination examination = new Examination(
+            parameters,
+            Arrays.asList(
+                new TrueFalse(new TextSegment.Simple("a"), true, 1),
+                new TrueFalse(new TextSegment.Simple("b"), false, 1)
+            )
+        );
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        cached.render(examination, false, first);
+        cached.render(examination, false, second);
+        assertThat(second.toString(), is(first.toString()));
+        assertThat(first.toString(), is(moodle.render(examination, false).toString()));
+        assertThat(cache.misses(), is(2L));
+        assertThat(cache.hits(), is(2L));
+    }
+
+}
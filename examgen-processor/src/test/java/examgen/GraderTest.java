@@ -0,0 +1,354 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.io.Grader;
+import com.rigiresearch.examgen.io.Grades;
+import com.rigiresearch.examgen.io.ItemAnalysis;
+import com.rigiresearch.examgen.model.AnswerKey;
+import com.rigiresearch.examgen.model.AnswerKey.Answer;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Fingerprint;
+import com.rigiresearch.examgen.model.TrueFalse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GraderTest {
+
+    private static final String EXAMINATION = String.join(
+        "\n",
+        "parameters: [{TITLE: Quiz}, {SECTIONS: [{name: A01}, {name: A02}]}]",
+        "questions:",
+        "  - {type: true-false, statement: right, answer: true, points: 2}",
+        "  - type: closed-ended",
+        "    statement: which?",
+        "    points: 4",
+        "    options:",
+        "      - {correct: true, statement: a}",
+        "      - {correct: false, statement: b}",
+        "      - {correct: true, statement: c}",
+        "      - {correct: false, statement: d}",
+        "  - type: closed-ended",
+        "    statement: which one?",
+        "    points: 3",
+        "    options:",
+        "      - {correct: false, statement: a}",
+        "      - {correct: true, statement: b}",
+        "      - {correct: false, statement: c}",
+        "  - {type: open-ended, statement: explain, answer: because, length: 2cm, points: 5}",
+        ""
+    );
+
+    private static final Set<String> SECTIONS = new HashSet<>(Arrays.asList("A01", "A02"));
+
+    private File file;
+
+    private File responses;
+
+    @BeforeEach
+    public void createFiles() throws IOException {
+        file = File.createTempFile("examination", ".yaml");
+        responses = File.createTempFile("responses", ".csv");
+        Files.write(file.toPath(), EXAMINATION.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void deleteFiles() {
+        file.delete();
+        responses.delete();
+    }
+
+    @Test
+    void whenResponsesAreGradedThenMultipleAnswersGetPartialCredit() throws IOException {
+        Examination examination = new ExaminationParser().examinations(file).get(0);
+        Grader grader = new Grader(examination, 7, 4, SECTIONS);
+        StringBuilder csv = new StringBuilder("student,variant,responses\n");
+        for (String variant : new String[]{"A01", "A02"}) {
+            AnswerKey key = grader.key(variant);
+            String[] correct = new String[key.answers().size()];
+            String[] partial = new String[key.answers().size()];
+            for (int i = 0; i < correct.length; i++) {
+                Answer answer = key.answers().get(i);
+                correct[i] = answer.text();
+                partial[i] = "";
+                if (answer.options() > 0 && Long.bitCount(answer.choices()) > 1) {
+                    // Both correct options and an incorrect one
+                    partial[i] = answer.text()
+                        + (char) ('A' + Long.numberOfTrailingZeros(~answer.choices()));
+                } else if ("T".equals(answer.text()) || "F".equals(answer.text())) {
+                    partial[i] = "T".equals(answer.text()) ? "f" : "t";
+                }
+            }
+            csv.append("S1").append(variant).append(',').append(variant).append(',')
+                .append(String.join(",", Arrays.asList(correct))).append('\n');
+            csv.append("S2").append(variant).append(',').append(variant).append(',')
+                .append(String.join(",", Arrays.asList(partial))).append('\n');
+            csv.append("S3").append(variant).append(',').append(variant).append('\n');
+        }
+        Files.write(responses.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+        Grades grades = grader.grade(grader.read(responses));
+        assertThat(grades.size(), is(6));
+        for (int i = 0; i < grades.size(); i += 3) {
+            assertThat(grades.students().get(i), is("S1" + grades.variant(i)));
+            assertThat(grades.points(i), is(9));
+            assertThat(grades.score(i), is(9.0));
+            assertThat(grades.score(i + 1), is(2.0));
+            assertThat(grades.score(i + 2), is(0.0));
+        }
+    }
+
+    @Test
+    void whenResponsesAreAnalysedThenOptionsAreInTheOrderOfTheExamination() throws IOException {
+        Examination examination = new ExaminationParser().examinations(file).get(0);
+        Grader grader = new Grader(examination, 7, 4, SECTIONS);
+        StringBuilder csv = new StringBuilder();
+        for (String variant : new String[]{"A01", "A02"}) {
+            csv.append("S1").append(variant).append(',').append(variant);
+            for (Answer answer : grader.key(variant).answers()) {
+                csv.append(',').append(answer.text());
+            }
+            csv.append('\n');
+            csv.append("S2").append(variant).append(',').append(variant).append('\n');
+        }
+        Files.write(responses.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+        ItemAnalysis analysis = ItemAnalysis.of(grader.read(responses));
+        assertThat(analysis.items().size(), is(3));
+        Map<Integer, String> answers = new HashMap<>();
+        for (ItemAnalysis.Item item : analysis.items()) {
+            answers.put(item.points(), item.answer());
+            assertThat(item.responses(), is(4L));
+            assertThat(item.difficulty(), is(0.5));
+            assertThat(item.discrimination(), closeTo(1.0, 1e-9));
+            assertThat(item.blank(), is(0.5));
+            for (int k = 0; k < item.options(); k++) {
+                assertThat(item.frequency(k), is(item.answer().contains(item.label(k)) ? 0.5 : 0.0));
+            }
+        }
+        assertThat(answers.get(2), is("T"));
+        assertThat(answers.get(4), is("AC"));
+        assertThat(answers.get(3), is("B"));
+        for (ItemAnalysis.Form form : analysis.forms()) {
+            assertThat(form.students(), is(2L));
+            // 3/2 (1 - (2^2 + 4^2 + 3^2) / 9^2)
+            assertThat(form.reliability(), closeTo(78.0 / 81.0, 1e-9));
+        }
+    }
+
+    @Test
+    void whenQuestionHasSixteenOptionsThenTheLastOptionCanBeSelected() throws IOException {
+        StringBuilder yaml = new StringBuilder(
+            "parameters: [{TITLE: Quiz}, {SECTIONS: [{name: A01}]}]\n"
+                + "questions:\n"
+                + "  - type: closed-ended\n"
+                + "    statement: which?\n"
+                + "    points: 16\n"
+                + "    options:\n"
+        );
+        for (int i = 0; i < 16; i++) {
+            yaml.append("      - {correct: true, statement: o").append(i).append("}\n");
+        }
+        Files.write(file.toPath(), yaml.toString().getBytes(StandardCharsets.UTF_8));
+        Examination examination = new ExaminationParser().examinations(file).get(0);
+        Grader grader = new Grader(examination, 7, 1, Collections.singleton("A01"));
+        Files.write(
+            responses.toPath(),
+            "S1,A01,ABCDEFGHIJKLMNOP\nS2,A01,P\n".getBytes(StandardCharsets.UTF_8)
+        );
+        Grades grades = grader.grade(grader.read(responses));
+        assertThat(grades.score(0), is(16.0));
+        assertThat(grades.score(1), is(1.0));
+    }
+
+    @Test
+    void whenQuestionHasMoreOptionsThanLettersThenTheKeyIsRejected() throws IOException {
+        StringBuilder yaml = new StringBuilder(
+            "parameters: [{TITLE: Quiz}, {SECTIONS: [{name: A01}]}]\n"
+                + "questions:\n"
+                + "  - type: closed-ended\n"
+                + "    statement: which?\n"
+                + "    points: 1\n"
+                + "    options:\n"
+        );
+        for (int i = 0; i < 27; i++) {
+            yaml.append("      - {correct: ").append(i == 26).append(", statement: o")
+                .append(i).append("}\n");
+        }
+        Files.write(file.toPath(), yaml.toString().getBytes(StandardCharsets.UTF_8));
+        Examination examination = new ExaminationParser().examinations(file).get(0);
+        Grader grader = new Grader(examination, 7, 1, Collections.singleton("A01"));
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> grader.key("A01")
+        );
+        assertThat(exception.getMessage(), containsString("more than 26 options"));
+    }
+
+    @Test
+    void whenVariantIsUnknownThenItsLineIsReported() throws IOException {
+        Examination examination = new ExaminationParser().examinations(file).get(0);
+        Grader grader = new Grader(examination, 7, 4, SECTIONS);
+        Files.write(
+            responses.toPath(),
+            "student,variant,responses\nS1,A01,T\nS2,A1,T\n".getBytes(StandardCharsets.UTF_8)
+        );
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> grader.read(responses)
+        );
+        assertThat(exception.getMessage(), containsString("Unknown variant 'A1' in line 3"));
+        assertThat(grader.key("A1") == null, is(true));
+    }
+
+    @Test
+    void whenVariantsHaveSeveralChunksOfStudentsThenStatisticsMatchTwoPasses() throws IOException {
+        Examination examination = new ExaminationParser().examinations(file).get(0);
+        Grader grader = new Grader(examination, 7, 4, SECTIONS);
+        // More than two chunks of 4096 students per variant
+        int students = 10000;
+        String[] variants = {"A01", "A02"};
+        Random random = new Random(13);
+        StringBuilder csv = new StringBuilder();
+        Map<String, List<double[]>> scores = new HashMap<>();
+        Map<Fingerprint, List<double[]>> credits = new HashMap<>();
+        for (int s = 0; s < 2 * students; s++) {
+            String variant = variants[s % 2];
+            List<Answer> answers = new ArrayList<>();
+            for (Answer answer : grader.key(variant).answers()) {
+                if (TrueFalse.TYPE.equals(answer.type()) || answer.options() > 0) {
+                    answers.add(answer);
+                }
+            }
+            double ability = random.nextDouble();
+            String[] texts = new String[answers.size()];
+            double[] credit = new double[answers.size()];
+            double[] score = new double[answers.size() + 1];
+            int points = 0;
+            for (int q = 0; q < answers.size(); q++) {
+                Answer answer = answers.get(q);
+                texts[q] = response(answer, ability, random);
+                credit[q] = credit(answer, texts[q]);
+                score[q] = credit[q] * answer.points();
+                score[answers.size()] += score[q];
+                points += answer.points();
+            }
+            scores.computeIfAbsent(variant, name -> new ArrayList<>()).add(score);
+            for (int q = 0; q < answers.size(); q++) {
+                int rest = points - answers.get(q).points();
+                credits.computeIfAbsent(answers.get(q).fingerprint(), f -> new ArrayList<>())
+                    .add(new double[]{credit[q], (score[answers.size()] - score[q]) / rest});
+            }
+            csv.append('S').append(s).append(',').append(variant);
+            for (Answer answer : grader.key(variant).answers()) {
+                int q = answers.indexOf(answer);
+                csv.append(',').append(q < 0 ? "" : texts[q]);
+            }
+            csv.append('\n');
+        }
+        Files.write(responses.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+        ItemAnalysis analysis = ItemAnalysis.of(grader.read(responses));
+        assertThat(analysis.items().size(), is(3));
+        for (ItemAnalysis.Item item : analysis.items()) {
+            List<double[]> pairs = credits.get(item.fingerprint());
+            assertThat(item.responses(), is((long) pairs.size()));
+            assertThat(item.difficulty(), closeTo(mean(pairs, 0), 1e-9));
+            double x = mean(pairs, 0);
+            double y = mean(pairs, 1);
+            double xx = 0.0;
+            double yy = 0.0;
+            double xy = 0.0;
+            for (double[] pair : pairs) {
+                xx += (pair[0] - x) * (pair[0] - x);
+                yy += (pair[1] - y) * (pair[1] - y);
+                xy += (pair[0] - x) * (pair[1] - y);
+            }
+            assertThat(item.discrimination(), closeTo(xy / Math.sqrt(xx * yy), 1e-9));
+        }
+        assertThat(analysis.forms().size(), is(2));
+        for (ItemAnalysis.Form form : analysis.forms()) {
+            List<double[]> rows = scores.get(form.variant());
+            int questions = rows.get(0).length - 1;
+            double[] variances = new double[questions + 1];
+            for (int q = 0; q <= questions; q++) {
+                double mean = mean(rows, q);
+                for (double[] row : rows) {
+                    variances[q] += (row[q] - mean) * (row[q] - mean) / rows.size();
+                }
+            }
+            double items = 0.0;
+            for (int q = 0; q < questions; q++) {
+                items += variances[q];
+            }
+            assertThat(form.students(), is((long) students));
+            assertThat(form.questions(), is(questions));
+            assertThat(form.mean(), closeTo(mean(rows, questions), 1e-9));
+            assertThat(form.deviation(), closeTo(Math.sqrt(variances[questions]), 1e-9));
+            assertThat(
+                form.reliability(),
+                closeTo(questions / (questions - 1.0) * (1.0 - items / variances[questions]), 1e-9)
+            );
+        }
+    }
+
+    private static String response(Answer answer, double ability, Random random) {
+        if (random.nextDouble() < ability) {
+            return answer.text();
+        }
+        if (random.nextInt(5) == 0) {
+            return "";
+        }
+        if (TrueFalse.TYPE.equals(answer.type())) {
+            return "T".equals(answer.text()) ? "F" : "T";
+        }
+        StringBuilder letters = new StringBuilder();
+        for (int k = 0; k < answer.options(); k++) {
+            if (random.nextBoolean()) {
+                letters.append((char) ('A' + k));
+            }
+        }
+        return letters.toString();
+    }
+
+    private static double credit(Answer answer, String response) {
+        if (response.equals(answer.text())) {
+            return 1.0;
+        }
+        if (TrueFalse.TYPE.equals(answer.type())) {
+            return 0.0;
+        }
+        int correct = answer.text().length();
+        int net = 0;
+        for (char letter : response.toCharArray()) {
+            net += answer.text().indexOf(letter) < 0 ? -1 : 1;
+        }
+        return net <= 0 || correct < 2 ? 0.0 : (double) net / correct;
+    }
+
+    private static double mean(List<double[]> rows, int column) {
+        double sum = 0.0;
+        for (double[] row : rows) {
+            sum += row[column];
+        }
+        return sum / rows.size();
+    }
+
+}
@@ -0,0 +1,117 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.LatexProcessor;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.templates.Template;
+import com.rigiresearch.examgen.templates.WritableExamination;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+class LatexProcessorTest {
+
+    private File directory;
+
+    private String preamble = "\\documentclass{exam}\n\\dump\n";
+
+    private final Template template = new Template() {
+        @Override
+        public String name() {
+            return "TEST";
+        }
+
+        @Override
+        public String fileExtension() {
+            return "tex";
+        }
+
+        @Override
+        public CharSequence render(Examination examination, boolean printSolutions) {
+            return "";
+        }
+
+        @Override
+        public String format() {
+            return "examgen-test";
+        }
+
+        @Override
+        public CharSequence preamble() {
+            return preamble;
+        }
+
+        @Override
+        public CharSequence render(Question question, boolean printSolutions) {
+            return "";
+        }
+
+        @Override
+        public CharSequence render(TextSegment segment) {
+            return segment.text();
+        }
+    };
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("formats").toFile();
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    @Test
+    void whenPreambleIsUnchangedThenItsFileIsNotRewritten() throws IOException {
+        File file = WritableExamination.preamble(template, directory);
+        assertThat(file.getName(), is("examgen-test.ini"));
+        assertThat(content(file), is(preamble));
+        assertThat(file.setLastModified(0L), is(true));
+        WritableExamination.preamble(template, directory);
+        assertThat(file.lastModified(), is(0L));
+        preamble = "\\documentclass{exam}\n\\usepackage{amsmath}\n\\dump\n";
+        WritableExamination.preamble(template, directory);
+        assertThat(file.lastModified(), greaterThan(0L));
+        assertThat(content(file), is(preamble));
+    }
+
+    @Test
+    void whenFormatIsMissingOrOlderThanItsPreambleThenItIsOutdated() throws IOException {
+        File file = WritableExamination.preamble(template, directory);
+        LatexProcessor processor = new LatexProcessor(new File(directory, "pdf"), file);
+        assertThat(processor.outdated(), is(true));
+        File format = new File(directory, "examgen-test.fmt");
+        Files.write(format.toPath(), new byte[]{1});
+        assertThat(file.setLastModified(1000000L), is(true));
+        assertThat(format.setLastModified(2000000L), is(true));
+        assertThat(processor.outdated(), is(false));
+        assertThat(format.setLastModified(1000000L), is(true));
+        assertThat(processor.outdated(), is(false));
+        assertThat(file.setLastModified(3000000L), is(true));
+        assertThat(processor.outdated(), is(true));
+        assertThat(new LatexProcessor(new File(directory, "pdf")).outdated(), is(false));
+    }
+
+    private static String content(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+}
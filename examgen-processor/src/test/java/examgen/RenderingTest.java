@@ -0,0 +1,198 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.templates.EncodedText;
+import com.rigiresearch.examgen.templates.Fork;
+import com.rigiresearch.examgen.templates.Template;
+import com.rigiresearch.examgen.templates.Templates;
+import com.rigiresearch.examgen.templates.Utf8Writer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class RenderingTest {
+
+    private static final String EXAMINATION = String.join("\n",
+        "parameters:",
+        "  - COURSE: Programaci\u00f3n",
+        "  - COURSE_REFERENCE_NUMBER: CSC 111",
+        "  - COURSE_ID: 10691",
+        "  - DATE: August 26, 2017",
+        "  - INSTRUCTORS: Jos\u00e9 Doe",
+        "  - INSTRUCTIONS: [Answer every question, 'Use <bold>pen</bold>']",
+        "  - TERM: Fall 2017",
+        "  - TIME_LIMIT: 60 Minutes",
+        "  - TITLE: Quiz \u4e2d",
+        "  - SECTIONS: [{name: A01, TA: Ana, students: 30}, {name: A02, TA: Bo, students: 2}]",
+        "questions:",
+        "  - {type: true-false, statement: 'caf\u00e9 & 50% \ud83d\ude00', answer: true, points: 2}",
+        "  - type: closed-ended",
+        "    statement: Who created <inline_code>C</inline_code>?",
+        "    points: 3",
+        "    options:",
+        "      - {correct: true, statement: Dennis Ritchie}",
+        "      - {correct: false, statement: 'Michael Bubl\u00e9'}",
+        "      - {correct: false, statement: '<bold>{}</bold>'}",
+        "  - {type: open-ended, statement: Explain $x_1$, answer: 'x < y', length: 2cm, points: 5}",
+        "  - type: compound",
+        "    statement: Consider <code>int main() { return 0; }</code>",
+        "    children:",
+        "      - type: closed-ended",
+        "        statement: It returns",
+        "        points: 1",
+        "        options:",
+        "          - {correct: false, statement: double}",
+        "          - {correct: true, statement: int}",
+        "      - {type: open-ended, statement: 'Why?', answer: Success, length: 1cm, points: 2}",
+        ""
+    );
+
+    private File file;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        file = File.createTempFile("examination", ".yaml");
+        Files.write(file.toPath(), EXAMINATION.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    public void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    void whenExaminationIsStreamedThenItMatchesTheRenderedText() throws IOException {
+        Templates templates = Templates.installed();
+        for (Template template : templates(templates)) {
+            for (Examination examination : variants()) {
+                for (boolean solutions : new boolean[]{false, true}) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    try (Utf8Writer writer = new Utf8Writer(bytes)) {
+                        template.render(examination, solutions, writer);
+                    }
+                    assertThat(
+                        bytes.toByteArray(),
+                        is(template.render(examination, solutions).toString()
+                            .getBytes(StandardCharsets.UTF_8))
+                    );
+                }
+            }
+        }
+    }
+
+    @Test
+    void whenExaminationIsRenderedWithAndWithoutSolutionsThenBothMatchSeparateRenders()
+        throws IOException {
+        Templates templates = Templates.installed();
+        for (Template template : templates(templates)) {
+            for (Examination examination : variants()) {
+                String plain = template.render(examination, false).toString();
+                String solved = template.render(examination, true).toString();
+                // Writers receive the encoded text through the fork
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                ByteArrayOutputStream solutions = new ByteArrayOutputStream();
+                try (Utf8Writer first = new Utf8Writer(output);
+                    Utf8Writer second = new Utf8Writer(solutions)) {
+                    template.render(examination, first, second);
+                }
+                assertThat(output.toByteArray(), is(plain.getBytes(StandardCharsets.UTF_8)));
+                assertThat(solutions.toByteArray(), is(solved.getBytes(StandardCharsets.UTF_8)));
+                StringBuilder text = new StringBuilder();
+                StringBuilder solvedText = new StringBuilder();
+                template.render(examination, text, solvedText);
+                assertThat(text.toString(), is(plain));
+                assertThat(solvedText.toString(), is(solved));
+            }
+        }
+    }
+
+    @Test
+    void whenEncodedTextIsAppendedToAForkThenWritersReceiveItsBytes() throws IOException {
+        StringBuilder content = new StringBuilder("caf\u00e9 \u4e2d \ud83d\ude00");
+        // Longer than the buffer of a writer, so its bytes are written at once
+        while (content.length() < 3 * 8192) {
+            content.append(content);
+        }
+        EncodedText text = new EncodedText(content);
+        byte[] expected = content.toString().getBytes(StandardCharsets.UTF_8);
+        List<byte[]> writes = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream() {
+            @Override
+            public void write(byte[] buffer) throws IOException {
+                writes.add(buffer);
+                super.write(buffer);
+            }
+        };
+        StringBuilder first = new StringBuilder();
+        StringBuilder second = new StringBuilder();
+        try (Utf8Writer writer = new Utf8Writer(bytes)) {
+            text.appendTo(new Fork(first, new Fork(writer, second)));
+        }
+        assertThat(writes.size(), is(1));
+        assertThat(writes.get(0), is(expected));
+        assertThat(bytes.toByteArray(), is(expected));
+        assertThat(first.toString(), is(content.toString()));
+        assertThat(second.toString(), is(content.toString()));
+    }
+
+    @Test
+    void whenFormatIsPrecompiledThenDocumentsStartWithItsName() throws IOException {
+        Templates templates = Templates.installed();
+        String[][] formats = {{"LATEX_QUIZ", "%&examgen-quiz"}, {"LATEX_MIDTERM", "%&examgen-midterm"}};
+        for (String[] format : formats) {
+            Template plain = templates.template(format[0]);
+            Template precompiled = templates.precompiled(format[0]);
+            String first = format[1];
+            for (Examination examination : variants()) {
+                List<String> exam = lines(precompiled.render(examination, false));
+                List<String> solutions = lines(precompiled.render(examination, true));
+                assertThat(exam.get(0), is(first));
+                assertThat(exam.contains("\\printanswers"), is(false));
+                assertThat(solutions.get(0), is(first));
+                assertThat(solutions.get(1), is("\\printanswers"));
+                assertThat(solutions.lastIndexOf("\\printanswers"), is(1));
+                for (boolean answers : new boolean[]{false, true}) {
+                    List<String> document = lines(plain.render(examination, answers));
+                    assertThat(document.get(0).startsWith("\\documentclass"), is(true));
+                    assertThat(document.contains("\\printanswers"), is(false));
+                }
+            }
+        }
+    }
+
+    private static List<String> lines(CharSequence text) {
+        return Arrays.asList(text.toString().split("\n", -1));
+    }
+
+    private List<Template> templates(Templates templates) {
+        List<Template> result = new ArrayList<>();
+        for (String name : templates.names()) {
+            result.add(templates.template(name));
+        }
+        result.add(templates.precompiled("LATEX_QUIZ"));
+        result.add(templates.precompiled("LATEX_MIDTERM"));
+        return result;
+    }
+
+    private List<Examination> variants() throws IOException {
+        List<Examination> variants = new ArrayList<>();
+        for (Examination examination : new ExaminationParser().examinations(file)) {
+            variants.addAll(examination.variants(7L, examination.questions().size()));
+        }
+        return variants;
+    }
+
+}
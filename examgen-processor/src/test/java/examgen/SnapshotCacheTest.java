@@ -0,0 +1,214 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.ExaminationParser;
+import com.rigiresearch.examgen.io.InputFiles;
+import com.rigiresearch.examgen.io.SnapshotCache;
+import com.rigiresearch.examgen.io.SnapshotCodec;
+import com.rigiresearch.examgen.model.Examination;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+
+class SnapshotCacheTest {
+
+    private File directory;
+
+    private SnapshotCache cache;
+
+    @BeforeEach
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("snapshots").toFile();
+        cache = new AnnotationConfigApplicationContext(
+            ExaminationParser.class,
+            SnapshotCache.class
+        ).getBean(SnapshotCache.class);
+    }
+
+    @AfterEach
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory.toPath())) {
+            paths.sorted(Comparator.reverseOrder())
+                .map(Path::toFile)
+                .forEach(File::delete);
+        }
+    }
+
+    @Test
+    void whenFilesHaveTheSameNameThenTheirSnapshotsDoNotCollide() throws IOException {
+        File first = write("first/bank.yaml", "one");
+        File second = write("second/bank.yaml", "two");
+        File snapshots = new File(directory, "cache");
+        read(first, snapshots);
+        read(second, snapshots);
+        assertThat(snapshots.list().length, is(2));
+        assertThat(read(first, snapshots), is(title("one")));
+        assertThat(read(second, snapshots), is(title("two")));
+    }
+
+    @Test
+    void whenFileChangesThenItsSnapshotIsReplaced() throws IOException {
+        File file = write("bank.yaml", "one");
+        File snapshots = new File(directory, "cache");
+        read(file, snapshots);
+        File snapshot = snapshots.listFiles()[0];
+        assertThat(snapshot.setLastModified(0L), is(true));
+        assertThat(read(file, snapshots), is(title("one")));
+        assertThat(snapshot.lastModified(), is(0L));
+        write("bank.yaml", "two");
+        assertThat(read(file, snapshots), is(title("two")));
+        assertThat(snapshot.lastModified(), greaterThan(0L));
+    }
+
+    @Test
+    void whenSnapshotHasAnotherVersionThenItIsReplaced() throws IOException {
+        File file = write("bank.yaml", "one");
+        File snapshots = new File(directory, "cache");
+        read(file, snapshots);
+        File snapshot = snapshots.listFiles()[0];
+        try (RandomAccessFile output = new RandomAccessFile(snapshot, "rw")) {
+            // The version follows the magic number
+            output.seek(Integer.BYTES);
+            output.writeInt(SnapshotCodec.VERSION - 1);
+        }
+        assertThat(snapshot.setLastModified(0L), is(true));
+        assertThat(read(file, snapshots), is(title("one")));
+        assertThat(snapshot.lastModified(), greaterThan(0L));
+        try (DataInputStream input = new DataInputStream(new FileInputStream(snapshot))) {
+            input.readInt();
+            assertThat(input.readInt(), is(SnapshotCodec.VERSION));
+        }
+    }
+
+    @Test
+    void whenSnapshotIsTruncatedThenItIsReplaced() throws IOException {
+        File file = write("bank.yaml", "one");
+        File snapshots = new File(directory, "cache");
+        read(file, snapshots);
+        File snapshot = snapshots.listFiles()[0];
+        long length = snapshot.length();
+        try (RandomAccessFile output = new RandomAccessFile(snapshot, "rw")) {
+            // The header is intact, but the record is cut short
+            output.setLength(length - 8);
+        }
+        assertThat(snapshot.setLastModified(0L), is(true));
+        assertThat(read(file, snapshots), is(title("one")));
+        assertThat(snapshot.lastModified(), greaterThan(0L));
+        assertThat(snapshot.length(), is(length));
+    }
+
+    @Test
+    void whenDirectoryIsParsedInParallelThenItMatchesSequentialParsing() throws IOException {
+        for (int i = 0; i < 6; i++) {
+            file(String.format("banks/part%d/exam%d.yaml", i % 2, i), documents(i));
+        }
+        List<File> files = InputFiles.resolve(new File(directory, "banks").getPath());
+        assertThat(files.size(), is(6));
+        ExaminationParser parser = new ExaminationParser();
+        List<Examination> expected = new ArrayList<>();
+        List<Examination> documents = new ArrayList<>();
+        for (File file : files) {
+            try (Stream<Examination> stream = parser.stream(file)) {
+                expected.addAll(stream.collect(Collectors.toList()));
+            }
+            documents.addAll(parser.examinations(file, true));
+        }
+        assertThat(expected.size(), is(18));
+        assertThat(documents, is(expected));
+        assertThat(parser.examinations(files), is(expected));
+        File snapshots = new File(directory, "cache");
+        // Parsed, then read from the snapshots
+        assertThat(cache.examinations(files, snapshots), is(expected));
+        assertThat(snapshots.list().length, is(6));
+        assertThat(cache.examinations(files, snapshots), is(expected));
+    }
+
+    private File write(String path, String title) throws IOException {
+        String yaml = String.join(
+            "\n",
+            "parameters: [{TITLE: " + title + "}, {SECTIONS: [{name: A01}]}]",
+            "questions:",
+            "  - {type: true-false, statement: right, answer: true, points: 2}",
+            ""
+        );
+        return file(path, yaml);
+    }
+
+    private File file(String path, String content) throws IOException {
+        File file = new File(directory, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String documents(int file) {
+        StringBuilder yaml = new StringBuilder();
+        for (int i = 0; i < 3; i++) {
+            if (i > 0) {
+                yaml.append("---\n");
+            }
+            yaml.append("parameters: [{TITLE: Exam ").append(file).append('.').append(i)
+                .append("}, {SECTIONS: [{name: A01}, {name: A02}]}]\n")
+                .append("questions:\n");
+            for (int j = 0; j < 40; j++) {
+                String id = String.format("%d.%d.%d", file, i, j);
+                switch (j % 4) {
+                    case 0:
+                        yaml.append("  - {type: true-false, statement: '<bold>t</bold> ")
+                            .append(id).append("', answer: true, points: 1}\n");
+                        break;
+                    case 1:
+                        yaml.append("  - type: closed-ended\n")
+                            .append("    statement: c ").append(id).append('\n')
+                            .append("    points: 2\n")
+                            .append("    tags: [a, b]\n")
+                            .append("    options:\n")
+                            .append("      - {correct: true, statement: yes}\n")
+                            .append("      - {correct: false, statement: '<code>no</code>'}\n");
+                        break;
+                    case 2:
+                        yaml.append("  - {type: open-ended, statement: o ").append(id)
+                            .append(", answer: a, length: 1cm, points: 3}\n");
+                        break;
+                    default:
+                        yaml.append("  - type: compound\n")
+                            .append("    statement: p ").append(id).append('\n')
+                            .append("    children:\n")
+                            .append("      - {type: true-false, statement: q, answer: false, points: 1}\n");
+                        break;
+                }
+            }
+        }
+        return yaml.toString();
+    }
+
+    private List<Examination> read(File file, File snapshots) throws IOException {
+        try (Stream<Examination> stream = cache.stream(file, snapshots)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    private List<Examination> title(String title) throws IOException {
+        File file = write("expected/bank.yaml", title);
+        return new ExaminationParser().examinations(file);
+    }
+
+}
@@ -0,0 +1,171 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.SnapshotCodec;
+import com.rigiresearch.examgen.model.ClosedEnded;
+import com.rigiresearch.examgen.model.ClosedEnded.Option;
+import com.rigiresearch.examgen.model.CompoundQuestion;
+import com.rigiresearch.examgen.model.CompoundText;
+import com.rigiresearch.examgen.model.Examination;
+import com.rigiresearch.examgen.model.Examination.Parameter;
+import com.rigiresearch.examgen.model.Metadata;
+import com.rigiresearch.examgen.model.OpenEnded;
+import com.rigiresearch.examgen.model.Query;
+import com.rigiresearch.examgen.model.Question;
+import com.rigiresearch.examgen.model.Section;
+import com.rigiresearch.examgen.model.Selection;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TextSegment.Style;
+import com.rigiresearch.examgen.model.TrueFalse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class SnapshotCodecTest {
+
+    private final SnapshotCodec codec = new SnapshotCodec();
+
+    @Test
+    void whenExaminationIsEncodedThenItIsDecodedAsEqual() throws IOException {
+        Examination examination = examination(selection(), Query.parse(
+            "closed-ended AND (topic:loops OR \"hard one\") AND NOT difficulty:easy"
+        ));
+        Examination decoded = decode(encode(examination));
+        assertThat(decoded, is(examination));
+        assertThat(decoded.selection().tags(), is(examination.selection().tags()));
+        assertThat(decoded.selection().topics(), is(examination.selection().topics()));
+        assertThat(decoded.selection().query(), is(examination.selection().query()));
+        // Questions are equal regardless of their metadata
+        assertThat(metadata(decoded.questions()), is(metadata(examination.questions())));
+    }
+
+    @Test
+    void whenExaminationHasNoSelectionThenItIsDecodedAsEqual() throws IOException {
+        Examination examination = examination(Selection.NONE, Query.ALL);
+        Examination decoded = decode(encode(examination));
+        assertThat(decoded, is(examination));
+        assertThat(decoded.selection(), is(Selection.NONE));
+    }
+
+    private Examination examination(Selection selection, Query query) {
+        Map<Parameter, Object> parameters = new EnumMap<>(Parameter.class);
+        parameters.put(Parameter.TITLE, "Quiz \u4e2d \ud83d\ude00");
+        parameters.put(Parameter.COURSE_ID, 10691);
+        parameters.put(Parameter.COURSE_REFERENCE_NUMBER, 111L);
+        parameters.put(Parameter.TIME_LIMIT, 1.5);
+        parameters.put(Parameter.DATE, new Date(1503705600000L));
+        parameters.put(Parameter.COURSE, true);
+        parameters.put(Parameter.TERM, null);
+        parameters.put(Parameter.INSTRUCTORS, new TextSegment.Simple("John Doe"));
+        parameters.put(
+            Parameter.INSTRUCTIONS,
+            Arrays.asList("Use a pen", Arrays.asList("nested", 2))
+        );
+        parameters.put(
+            Parameter.SECTIONS,
+            Arrays.asList(new Section("A01", "Jane Doe", 30), new Section("A02", null, 0))
+        );
+        Metadata metadata = new Metadata(Arrays.asList("loops", "hard one"), "loops", "hard");
+        List<Question> questions = Arrays.asList(
+            new TrueFalse(new TextSegment.Simple("right"), true, 2, metadata),
+            new ClosedEnded(
+                text(),
+                3,
+                Arrays.asList(
+                    new Option(true, new TextSegment.Simple("Dennis Ritchie")),
+                    new Option(false, new TextSegment.Simple("Michael Bubl\u00e9"))
+                ),
+                new Metadata(Collections.singletonList("c"), null, "easy")
+            ),
+            new OpenEnded(
+                new TextSegment.Simple("explain"),
+                new TextSegment.Simple("because", Arrays.asList(Style.BOLD, Style.NEW_LINE)),
+                5,
+                "2cm"
+            ),
+            new CompoundQuestion(
+                new TextSegment.Simple("consider"),
+                Arrays.asList(
+                    new TrueFalse(new TextSegment.Simple("part"), false, 1),
+                    new OpenEnded(text(), text(), 4, "1cm", metadata)
+                ),
+                new Metadata(Collections.emptyList(), "functions", null)
+            )
+        );
+        return new Examination(
+            parameters,
+            questions,
+            query == Query.ALL
+                ? selection
+                : new Selection(
+                    selection.minimumPoints(),
+                    selection.maximumPoints(),
+                    selection.types(),
+                    selection.tags(),
+                    selection.topics(),
+                    query
+                )
+        );
+    }
+
+    private static Selection selection() {
+        Map<String, Integer> types = new LinkedHashMap<>();
+        types.put("closed-ended", 1);
+        types.put("true-false", 1);
+        return new Selection(
+            5,
+            12,
+            types,
+            Collections.singletonMap("hard one", 2),
+            Collections.singletonMap("loops", 1),
+            Query.ALL
+        );
+    }
+
+    private static TextSegment text() {
+        List<TextSegment> segments = new ArrayList<>();
+        for (Style style : Style.values()) {
+            segments.add(new TextSegment.Simple(style.name(), Collections.singleton(style)));
+        }
+        segments.add(new TextSegment.Simple("all", Arrays.asList(Style.values())));
+        return new CompoundText(segments);
+    }
+
+    private static List<Metadata> metadata(List<Question> questions) {
+        List<Metadata> metadata = new ArrayList<>();
+        for (Question question : questions) {
+            metadata.add(question.metadata());
+            metadata.addAll(metadata(question.children()));
+        }
+        return metadata;
+    }
+
+    private byte[] encode(Examination examination) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            codec.write(examination, output);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Examination decode(byte[] bytes) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return codec.read(input);
+        }
+    }
+
+}
@@ -0,0 +1,49 @@
+package examgen;
+
+import com.rigiresearch.examgen.templates.LatexQuiz;
+import com.rigiresearch.examgen.templates.Template;
+import com.rigiresearch.examgen.templates.Templates;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TemplatesTest {
+
+    @Test
+    void whenTemplatesAreInstalledThenEachNameHasASingleInstance() {
+        Templates templates = Templates.installed();
+        assertThat(
+            String.join(",", templates.names()),
+            is("LATEX_QUIZ,LATEX_MIDTERM,MOODLE_QUIZ")
+        );
+        Template template = templates.template("LATEX_QUIZ");
+        assertThat(template, instanceOf(LatexQuiz.class));
+        assertThat(templates.template("LATEX_QUIZ"), sameInstance(template));
+        assertThat(template.fileExtension(), is("tex"));
+        assertThat(templates.precompiled("LATEX_QUIZ").format(), is("examgen-quiz"));
+        assertThat(templates.template("MOODLE_QUIZ").fileExtension(), is("xml"));
+    }
+
+    @Test
+    void whenTemplateIsUnknownOrHasNoFormatThenItIsRejected() {
+        Templates templates = Templates.installed();
+        IllegalArgumentException unknown = assertThrows(
+            IllegalArgumentException.class,
+            () -> templates.template("LATEX")
+        );
+        assertThat(unknown.getMessage(), containsString("LATEX_QUIZ, LATEX_MIDTERM, MOODLE_QUIZ"));
+        assertThrows(IllegalArgumentException.class, () -> templates.precompiled("MOODLE_QUIZ"));
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new Templates(Arrays.asList(new LatexQuiz(), new LatexQuiz(true)))
+        );
+    }
+
+}
@@ -0,0 +1,147 @@
+package examgen;
+
+import com.rigiresearch.examgen.io.SegmentSyntaxException;
+import com.rigiresearch.examgen.io.TextSegmentParser;
+import com.rigiresearch.examgen.model.CompoundText;
+import com.rigiresearch.examgen.model.TextSegment;
+import com.rigiresearch.examgen.model.TextSegment.Style;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TextSegmentParserTest {
+
+    private final TextSegmentParser parser = new TextSegmentParser();
+
+    @Test
+    void whenTextHasNoTagsThenSingleInheritedSegmentIsReturned() {
+        TextSegment segment = parser.segment("a < b and c > d");
+        assertThat(segment.text(), is("a < b and c > d"));
+        assertThat(segment.styles(), contains(Style.INHERIT));
+    }
+
+    @Test
+    void whenTagsAreSequentialThenSegmentsKeepTheirOrder() {
+        List<TextSegment> segments = parser.segments("<bold>Read</bold> the <italic>code</italic>.");
+        assertThat(segments.size(), is(4));
+        assertThat(segments.get(0).text(), is("Read"));
+        assertThat(segments.get(0).styles(), contains(Style.BOLD));
+        assertThat(segments.get(1).text(), is(" the "));
+        assertThat(segments.get(2).styles(), contains(Style.ITALIC));
+        assertThat(segments.get(3).text(), is("."));
+        assertThat(parser.segment("<bold>Read</bold> it"), instanceOf(CompoundText.class));
+    }
+
+    @Test
+    void whenTagsAreNestedThenStylesAreAccumulated() {
+        List<TextSegment> segments = parser.segments("<bold>a <italic>b</italic> c</bold>");
+        assertThat(segments.size(), is(3));
+        assertThat(segments.get(0).styles(), contains(Style.BOLD));
+        assertThat(segments.get(1).text(), is("b"));
+        assertThat(segments.get(1).styles(), contains(Style.BOLD, Style.ITALIC));
+        assertThat(segments.get(2).styles(), contains(Style.BOLD));
+    }
+
+    @Test
+    void whenCodeContainsTagsThenTheyAreKeptVerbatim() {
+        TextSegment segment = parser.segment("<code>#include <stdio.h>\n<bold>x</bold></code>");
+        assertThat(segment.text(), is("#include <stdio.h>\n<bold>x</bold>"));
+        assertThat(segment.styles(), contains(Style.CODE));
+    }
+
+    @Test
+    void whenTextIsRepeatedThenSegmentIsShared() {
+        assertThat(parser.segment("None of the above"), sameInstance(parser.segment("None of the above")));
+        assertThat(parser.segment("<bold>x</bold> y"), sameInstance(parser.segment("<bold>x</bold> y")));
+    }
+
+    @Test
+    void whenPoolIsFullThenNewTextsAreNotShared() {
+        TextSegmentParser parser = new TextSegmentParser();
+        TextSegment first = parser.segment("None of the above");
+        char[] text = new char[4000];
+        // More than 4M characters, which fill the pool
+        for (int i = 0; i < 1100; i++) {
+            Arrays.fill(text, (char) ('a' + i % 26));
+            parser.segment(i + new String(text));
+        }
+        assertThat(parser.segment("None of the above"), sameInstance(first));
+        // Longer than any of the texts that no longer fit
+        String other = new String(new char[4090]).replace('\0', '-');
+        TextSegment last = parser.segment(other);
+        assertThat(parser.segment(other), is(last));
+        assertThat(parser.segment(other) == last, is(false));
+    }
+
+    @Test
+    void whenCompoundTextIsFlattenedThenSegmentsAreKept() {
+        List<TextSegment> segments = parser.segments("<italic><bold>a</bold></italic> b");
+        CompoundText text = (CompoundText) parser.segment("<italic><bold>a</bold></italic> b");
+        assertThat(text.segments(), is(segments));
+        assertThat(text, is(new CompoundText(segments)));
+        assertThat(text.segments().get(0).styles(), contains(Style.BOLD, Style.ITALIC));
+        assertThat(text.segments().get(1).text(), is(" b"));
+    }
+
+    @Test
+    void whenTagIsNotClosedThenOffsetIsReported() {
+        SegmentSyntaxException e = assertThrows(
+            SegmentSyntaxException.class,
+            () -> parser.segments("abc <bold>def")
+        );
+        assertThat(e.offset(), is(4));
+    }
+
+    @Test
+    void whenTagsOverlapThenOffsetIsReported() {
+        SegmentSyntaxException e = assertThrows(
+            SegmentSyntaxException.class,
+            () -> parser.segments("<bold><italic>x</bold></italic>")
+        );
+        assertThat(e.offset(), is(15));
+    }
+
+    @Test
+    void whenStatementIsMegabyteSizedThenParsingIsLinear() {
+        String small = statement(512 * 1024);
+        String large = statement(4 * 1024 * 1024);
+        // Warm up, so that the first measurement does not include compilation
+        for (int i = 0; i < 5; i++) {
+            parser.segments(small);
+        }
+        long ratio = fastest(large) / Math.max(1L, fastest(small));
+        // Linear parsing takes about 8 times longer, quadratic parsing 64
+        assertThat(ratio, lessThan(32L));
+    }
+
+    private String statement(int length) {
+        char[] filler = new char[64];
+        Arrays.fill(filler, 'x');
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < length) {
+            builder.append(filler)
+                .append("<bold>a <italic>b</italic></bold> <inline_code>i<j</inline_code>")
+                .append("<code>#include <stdio.h>\n</code>");
+        }
+        return builder.toString();
+    }
+
+    private long fastest(String text) {
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            parser.segments(text);
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
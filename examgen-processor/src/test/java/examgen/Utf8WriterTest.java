@@ -0,0 +1,94 @@
+package examgen;
+
+import com.rigiresearch.examgen.templates.Utf8Writer;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class Utf8WriterTest {
+
+    // ASCII, 2-byte, 3-byte and 4-byte characters, and unpaired surrogates
+    private static final String[] ALPHABET = {
+        "a", "Z", " ", "\n", "\u00e9", "\u00df", "\u4e2d", "\u20ac",
+        "\ud83d\ude00", "\ud801\udc37", "\ud83d", "\ude00"
+    };
+
+    @Test
+    void whenRandomTextIsWrittenThenItMatchesTheEncoder() throws IOException {
+        Random random = new Random(11);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder();
+            // Up to four times the buffer, so that it is refilled
+            int length = random.nextInt(4 * 8192);
+            while (text.length() < length) {
+                text.append(ALPHABET[random.nextInt(ALPHABET.length)]);
+            }
+            check(text.toString(), random);
+        }
+    }
+
+    @Test
+    void whenSurrogatesAreSplitAcrossWritesThenTheyArePaired() throws IOException {
+        String text = "x\ud83d\ude00y\ud83d";
+        for (int i = 0; i <= text.length(); i++) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (Utf8Writer writer = new Utf8Writer(bytes)) {
+                writer.write(text, 0, i);
+                writer.append(text, i, text.length());
+            }
+            assertThat(bytes.toByteArray(), is(text.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    void whenEncodedBytesFollowAHighSurrogateThenItIsReplaced() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Writer writer = new Utf8Writer(bytes)) {
+            writer.write("a\ud83d");
+            writer.write("\u00e9".getBytes(StandardCharsets.UTF_8));
+            writer.write("\ude00");
+        }
+        assertThat(bytes.toByteArray(), is("a?\u00e9?".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void check(String text, Random random) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Utf8Writer writer = new Utf8Writer(bytes)) {
+            int start = 0;
+            while (start < text.length()) {
+                int end = Math.min(text.length(), start + random.nextInt(3 * 8192));
+                // Pre-encoded chunks must not split a surrogate pair
+                if (end < text.length() && Character.isLowSurrogate(text.charAt(end))) {
+                    end++;
+                }
+                String chunk = text.substring(start, end);
+                switch (random.nextInt(5)) {
+                    case 0:
+                        writer.write(chunk);
+                        break;
+                    case 1:
+                        writer.append(new StringBuilder(chunk));
+                        break;
+                    case 2:
+                        writer.append(text, start, end);
+                        break;
+                    case 3:
+                        writer.write(chunk.toCharArray());
+                        break;
+                    default:
+                        writer.write(chunk.getBytes(StandardCharsets.UTF_8));
+                        break;
+                }
+                start = end;
+            }
+        }
+        assertThat(bytes.toByteArray(), is(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+}